@@ -1,5 +1,6 @@
 package hudson.plugins.clearcase;
 
+import hudson.plugins.clearcase.history.HighWaterMarks;
 import hudson.scm.SCMRevisionState;
 
 import java.util.Date;
@@ -8,6 +9,7 @@ public abstract class AbstractClearCaseSCMRevisionState extends SCMRevisionState
 
     protected final Date buildTime;
     private String[] loadRules;
+    private HighWaterMarks highWaterMarks;
 
     public AbstractClearCaseSCMRevisionState(Date buildTime) {
         super();
@@ -26,4 +28,16 @@ public abstract class AbstractClearCaseSCMRevisionState extends SCMRevisionState
         this.loadRules = loadRules;
     }
 
+    /**
+     * @return the marks reached by the polling that computed this state, or by the latest polling since the build that
+     *         computed it; null if none
+     */
+    public HighWaterMarks getHighWaterMarks() {
+        return highWaterMarks;
+    }
+
+    public void setHighWaterMarks(HighWaterMarks highWaterMarks) {
+        this.highWaterMarks = highWaterMarks;
+    }
+
 }
\ No newline at end of file
@@ -36,14 +36,20 @@ import hudson.model.Computer;
 import hudson.model.Node;
 import hudson.model.Run;
 import hudson.plugins.clearcase.AbstractClearCaseScm.ChangeSetLevel;
+import hudson.plugins.clearcase.ClearCaseSCM.ClearCaseScmDescriptor;
 import hudson.plugins.clearcase.action.CheckOutAction;
 import hudson.plugins.clearcase.action.SaveChangeLogAction;
+import hudson.plugins.clearcase.history.AbstractHistoryAction;
 import hudson.plugins.clearcase.history.DefaultFilter;
 import hudson.plugins.clearcase.history.DestroySubBranchFilter;
 import hudson.plugins.clearcase.history.FileFilter;
 import hudson.plugins.clearcase.history.Filter;
 import hudson.plugins.clearcase.history.FilterChain;
+import hudson.plugins.clearcase.history.HighWaterMarks;
 import hudson.plugins.clearcase.history.HistoryAction;
+import hudson.plugins.clearcase.history.HistoryProbe;
+import hudson.plugins.clearcase.history.PollCoordinator;
+import hudson.plugins.clearcase.history.PolledHistory;
 import hudson.plugins.clearcase.util.BuildVariableResolver;
 import hudson.plugins.clearcase.util.PathUtil;
 import hudson.scm.ChangeLogSet;
@@ -138,6 +144,7 @@ public abstract class AbstractClearCaseScm extends SCM {
     private final boolean recreateView;
     private final String viewPath;
     private ChangeSetLevel changeset;
+    private String commandTimeouts;
 
     private synchronized ThreadLocal<String> getNormalizedViewNameThreadLocalWrapper() {
         if (null == normalizedViewName) {
@@ -511,6 +518,15 @@ public abstract class AbstractClearCaseScm extends SCM {
     @Override
     public boolean checkout(AbstractBuild build, Launcher launcher, FilePath workspace, BuildListener listener, File changelogFile) throws IOException,
             InterruptedException {
+        try {
+            return doCheckout(build, launcher, workspace, listener, changelogFile);
+        } catch (ClearToolTimeoutException e) {
+            throw new AbortException(e.getMessage());
+        }
+    }
+
+    private boolean doCheckout(AbstractBuild build, Launcher launcher, FilePath workspace, BuildListener listener, File changelogFile) throws IOException,
+            InterruptedException {
         // Calculate revision state from the beginning, it will enable to reuse load rules
         build.addAction(calcRevisionsFromBuild(build, launcher, listener));
         
@@ -557,6 +573,9 @@ public abstract class AbstractClearCaseScm extends SCM {
         @SuppressWarnings("unchecked") Run prevBuild = build.getPreviousBuild();
         Date lastBuildTime = getBuildTime(prevBuild);
         HistoryAction historyAction = createHistoryAction(variableResolver, clearToolLauncher, build);
+        if (historyAction instanceof AbstractHistoryAction) {
+            ((AbstractHistoryAction) historyAction).setPolledHistory(PolledHistory.remove(build.getProject().getFullName()));
+        }
         changelogEntries = historyAction.getChanges(lastBuildTime, getViewPath(variableResolver), coNormalizedViewName, getBranchNames(variableResolver), getViewPaths(variableResolver, build, launcher));
         // Save change log
         if (CollectionUtils.isEmpty(changelogEntries)) {
@@ -571,6 +590,17 @@ public abstract class AbstractClearCaseScm extends SCM {
     @Override
     protected PollingResult compareRemoteRevisionWith(AbstractProject<?, ?> project, Launcher launcher, FilePath workspace, TaskListener listener,
             SCMRevisionState baseline) throws IOException, InterruptedException {
+        try {
+            return doCompareRemoteRevisionWith(project, launcher, workspace, listener, baseline);
+        } catch (ClearToolTimeoutException e) {
+            // the next polling will try again
+            listener.error("Polling aborted: " + e.getMessage());
+            return PollingResult.NO_CHANGES;
+        }
+    }
+
+    private PollingResult doCompareRemoteRevisionWith(AbstractProject<?, ?> project, Launcher launcher, FilePath workspace, TaskListener listener,
+            SCMRevisionState baseline) throws IOException, InterruptedException {
         if (isFirstBuild(baseline)) {
             return PollingResult.BUILD_NOW;
         }
@@ -582,23 +612,93 @@ public abstract class AbstractClearCaseScm extends SCM {
         }
         
         VariableResolver<String> variableResolver = new BuildVariableResolver(build);
-        HistoryAction historyAction = createHistoryAction(variableResolver, createClearToolLauncher(listener, workspace, launcher), build);
+        HistoryAction historyAction = createHistoryAction(variableResolver, createClearToolLauncher(listener, workspace, launcher, ClearToolPriority.POLLING),
+                build);
         Change change;
         String viewPath = getViewPath(variableResolver);
         String viewName = getViewName(variableResolver);
         String[] branchNames = getBranchNames(variableResolver);
 
+        if (historyAction instanceof AbstractHistoryAction) {
+            // start from where the previous polling stopped, the multi-site poll buffer being listed again
+            ((AbstractHistoryAction) historyAction).setHighWaterMarks(ccBaseline.getHighWaterMarks(), 1000L * 60 * getMultiSitePollBuffer());
+            if (PollCoordinator.isEnabled()) {
+                // the jobs polling the same branch on this node share the history listed
+                ((AbstractHistoryAction) historyAction).setPollCoordinator(PollCoordinator.forChannel(launcher.getChannel()));
+            }
+            if (HistoryProbe.isEnabled()) {
+                // the VOBs are probed for new events before the load rules are scanned
+                ((AbstractHistoryAction) historyAction).setHistoryProbe(HistoryProbe.get());
+            }
+            // the entries found are kept for the changelog of the build
+            ((AbstractHistoryAction) historyAction).setCollectChanges(PolledHistory.isEnabled());
+        }
         if (historyAction == null) {
             // Error when calculating the new baseline => Probably clearcase server error, not launching the build
             change = Change.NONE;
         } else if (historyAction.hasChanges(ccBaseline.getBuildTime(), viewPath, viewName, branchNames, ccBaseline.getLoadRules())) {
             change = Change.SIGNIFICANT;
+            if (historyAction instanceof AbstractHistoryAction && PolledHistory.isEnabled()) {
+                collectChanges(project, (AbstractHistoryAction) historyAction, viewPath, branchNames, ccBaseline.getLoadRules());
+            }
         } else {
             change = Change.NONE;
         }
-        return new PollingResult(baseline, calcRevisionsFromPoll(build, launcher, listener), change);
+        SCMRevisionState remote = calcRevisionsFromPoll(build, launcher, listener);
+        if (historyAction instanceof AbstractHistoryAction && remote instanceof AbstractClearCaseSCMRevisionState) {
+            HighWaterMarks marks = ((AbstractHistoryAction) historyAction).getHighWaterMarks();
+            ((AbstractClearCaseSCMRevisionState) remote).setHighWaterMarks(marks);
+            if (marks != null) {
+                saveHighWaterMarks(project, ccBaseline, marks);
+            }
+        }
+        return new PollingResult(baseline, remote, change);
+    }
+
+    /**
+     * Stores the marks in the revision state of the build the polling baseline is read from after a restart, the
+     * baseline kept in memory being lost then. The marks are only stored when they moved, and never in the state of a
+     * build more recent than the baseline.
+     */
+    private void saveHighWaterMarks(AbstractProject<?, ?> project, AbstractClearCaseSCMRevisionState baseline, HighWaterMarks marks) {
+        Run<?, ?> lastSuccessfulBuild = project.getLastSuccessfulBuild();
+        for (Run<?, ?> run = project.getLastBuild(); run != null; run = run.getPreviousBuild()) {
+            AbstractClearCaseSCMRevisionState state = run.getAction(AbstractClearCaseSCMRevisionState.class);
+            if (state != null) {
+                if (!state.getBuildTime().after(baseline.getBuildTime()) && !marks.equals(state.getHighWaterMarks())) {
+                    state.setHighWaterMarks(marks);
+                    try {
+                        run.save();
+                    } catch (IOException e) {
+                        Logger.getLogger(AbstractClearCaseScm.class.getName()).log(Level.WARNING, "Unable to save the polling marks of " + run, e);
+                    }
+                }
+                return;
+            }
+            if (run == lastSuccessfulBuild) {
+                return;
+            }
+        }
     }
     
+    /**
+     * Keeps the history listed by the polling for the build it triggers, so that the build only lists the history since
+     * the polling for its changelog.
+     */
+    private void collectChanges(AbstractProject<?, ?> project, AbstractHistoryAction historyAction, String viewPath, String[] branchNames,
+            String[] loadRules) throws InterruptedException {
+        Run<?, ?> lastBuild = project.getLastBuild();
+        if (lastBuild == null) {
+            return;
+        }
+        // the events of the poll buffer are listed again by the build
+        Date deltaSince = new Date(System.currentTimeMillis() - 1000L * 60 * getMultiSitePollBuffer());
+        PolledHistory history = historyAction.collectChanges(getBuildTime(lastBuild), deltaSince, viewPath, branchNames, loadRules);
+        if (history != null) {
+            PolledHistory.put(project.getFullName(), history);
+        }
+    }
+
     protected abstract boolean isFirstBuild(SCMRevisionState baseline);
     
     public abstract SCMRevisionState calcRevisionsFromPoll(AbstractBuild<?, ?> build, Launcher launcher, TaskListener taskListener) throws IOException, InterruptedException;
@@ -621,11 +721,67 @@ public abstract class AbstractClearCaseScm extends SCM {
      * @return a clear tool launcher that uses Hudson for launching commands
      */
     public ClearToolLauncher createClearToolLauncher(TaskListener listener, FilePath workspace, Launcher launcher) {
-        return new HudsonClearToolLauncher(PluginImpl.BASE_DESCRIPTOR.getCleartoolExe(), getDescriptor().getDisplayName(), listener, workspace, launcher);
+        ClearCaseScmDescriptor descriptor = PluginImpl.BASE_DESCRIPTOR;
+        HudsonClearToolLauncher clearToolLauncher;
+        if (descriptor.getSessionPoolSize() > 0) {
+            clearToolLauncher = new PooledClearToolLauncher(descriptor.getCleartoolExe(), getDescriptor().getDisplayName(), listener, workspace, launcher,
+                    descriptor.getSessionPoolSize(), descriptor.getSessionMaxCommands());
+        } else {
+            clearToolLauncher = new HudsonClearToolLauncher(descriptor.getCleartoolExe(), getDescriptor().getDisplayName(), listener, workspace, launcher);
+        }
+        clearToolLauncher.setConcurrencyLimits(descriptor.getMaxCommandsPerNode(), descriptor.getMaxCommandsPerVob());
+        clearToolLauncher.setTimeouts(ClearToolTimeouts.merge(descriptor.getCommandTimeouts(), commandTimeouts));
+        clearToolLauncher.setConsoleOutputPolicies(ConsoleOutputPolicy.parse(descriptor.getConsoleOutput()));
+        if (RecordingClearToolLauncher.isEnabled()) {
+            return RecordingClearToolLauncher.create(clearToolLauncher);
+        }
+        return clearToolLauncher;
+    }
+
+    /**
+     * Creates a Hudson clear tool launcher whose commands wait for a slot in the given priority class.
+     * 
+     * @see ClearToolPriority
+     */
+    public ClearToolLauncher createClearToolLauncher(TaskListener listener, FilePath workspace, Launcher launcher, ClearToolPriority priority) {
+        ClearToolLauncher clearToolLauncher = createClearToolLauncher(listener, workspace, launcher);
+        ClearToolLauncher hudsonLauncher = clearToolLauncher;
+        if (hudsonLauncher instanceof RecordingClearToolLauncher) {
+            hudsonLauncher = ((RecordingClearToolLauncher) hudsonLauncher).getDelegate();
+        }
+        if (hudsonLauncher instanceof HudsonClearToolLauncher) {
+            ((HudsonClearToolLauncher) hudsonLauncher).setPriority(priority);
+        }
+        return clearToolLauncher;
+    }
+
+    /**
+     * @return the priority class the commands of a launcher wait for a slot in, build-critical if it has none
+     */
+    protected static ClearToolPriority getPriority(ClearToolLauncher launcher) {
+        ClearToolLauncher hudsonLauncher = launcher;
+        if (hudsonLauncher instanceof RecordingClearToolLauncher) {
+            hudsonLauncher = ((RecordingClearToolLauncher) hudsonLauncher).getDelegate();
+        }
+        if (hudsonLauncher instanceof HudsonClearToolLauncher) {
+            return ((HudsonClearToolLauncher) hudsonLauncher).getPriority();
+        }
+        return ClearToolPriority.BUILD;
     }
 
     protected ClearTool createClearTool(VariableResolver<String> variableResolver, ClearToolLauncher launcher) {
-        return new ClearToolSnapshot(variableResolver, launcher, mkviewOptionalParam);
+        return decorateClearTool(new ClearToolSnapshot(variableResolver, launcher, mkviewOptionalParam));
+    }
+
+    /**
+     * Adds to a cleartool implementation the behaviours shared by all the SCMs: capability probing, query caching and
+     * the view registry of the node.
+     */
+    protected ClearTool decorateClearTool(ClearToolExec clearTool) {
+        clearTool.setProbeCapabilities(true);
+        CachingClearTool cachingClearTool = new CachingClearTool(clearTool);
+        cachingClearTool.setViewRegistry(ViewRegistry.forLauncher(clearTool.getLauncher()));
+        return cachingClearTool;
     }
 
     @Override
@@ -636,7 +792,8 @@ public abstract class AbstractClearCaseScm extends SCM {
         }
         StreamTaskListener listener = StreamTaskListener.fromStdout();
         Launcher launcher = node.createLauncher(listener);
-        ClearTool ct = createClearTool(null, createClearToolLauncher(listener, project.getSomeWorkspace().getParent().getParent(), launcher));
+        ClearTool ct = createClearTool(null, createClearToolLauncher(listener, project.getSomeWorkspace().getParent().getParent(), launcher,
+                ClearToolPriority.HOUSEKEEPING));
         try {
             if (isUseDynamicView() && !isCreateDynView()) {
                 return true;
@@ -672,11 +829,33 @@ public abstract class AbstractClearCaseScm extends SCM {
         return excludedRegions;
     }
 
+    /**
+     * @return the cleartool command timeouts of this job, overriding the global ones
+     * @see ClearToolTimeouts
+     */
+    public String getCommandTimeouts() {
+        return commandTimeouts;
+    }
+
+    public void setCommandTimeouts(String commandTimeouts) {
+        this.commandTimeouts = commandTimeouts;
+    }
+
     public String[] getExcludedRegionsNormalized() {
         return excludedRegions == null ? null : excludedRegions.split("[\\r\\n]+");
     }
 
     public Filter configureFilters(VariableResolver<String> variableResolver, AbstractBuild build, Launcher launcher) throws IOException, InterruptedException {
+        return configureFilters(getViewPaths(variableResolver, build, launcher), launcher.isUnix());
+    }
+
+    /**
+     * Creates the filters of the history of the given load rules, without running cleartool.
+     * 
+     * @param viewPaths optional, the load rules
+     * @param isUnix true if the element names use the Unix separator
+     */
+    public Filter configureFilters(String[] viewPaths, boolean isUnix) {
         List<Filter> filters = new ArrayList<Filter>();
         filters.add(new DefaultFilter());
 
@@ -691,9 +870,8 @@ public abstract class AbstractClearCaseScm extends SCM {
         }
         
         String filterRegexp = "";
-        String[] viewPaths = getViewPaths(variableResolver, build, launcher);
         if (viewPaths != null) {
-            filterRegexp = getViewPathsRegexp(viewPaths, launcher.isUnix());
+            filterRegexp = getViewPathsRegexp(viewPaths, isUnix);
         }
         if (StringUtils.isNotEmpty(filterRegexp)) {
             filters.add(new FileFilter(FileFilter.Type.ContainsRegxp, filterRegexp));
@@ -705,6 +883,26 @@ public abstract class AbstractClearCaseScm extends SCM {
         return new FilterChain(filters);
     }
 
+    /**
+     * Tells if a change notified by a ClearCase trigger concerns this job. The version has to be on one of the
+     * branches, and accepted by the filters of the load rules of the last build, which are the ones polled.
+     * 
+     * @return true if the job should poll for the change
+     */
+    public boolean isNotifiedBy(AbstractProject<?, ?> project, ChangeNotification notification) {
+        AbstractBuild<?, ?> build = project.getLastBuild();
+        if (build == null) {
+            // the first build is triggered by the next polling anyway
+            return true;
+        }
+        if (!notification.isOnBranch(getBranchNames(new BuildVariableResolver(build)))) {
+            return false;
+        }
+        AbstractClearCaseSCMRevisionState revisionState = build.getAction(AbstractClearCaseSCMRevisionState.class);
+        String[] loadRules = (revisionState != null) ? revisionState.getLoadRules() : null;
+        return notification.isAcceptedBy(configureFilters(loadRules, notification.isUnix()));
+    }
+
     public static String getViewPathsRegexp(String[] loadRules, boolean isUnix) {
         // Note - the logic here to do ORing to match against *any* of the load rules is, quite frankly,
         // hackishly ugly. I'm embarassed by it. But it's what I've got for right now.
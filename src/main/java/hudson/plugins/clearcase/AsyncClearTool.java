@@ -0,0 +1,66 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.plugins.clearcase.ClearTool.DefaultPromotionLevel;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Companion of {@link ClearTool} whose methods return futures, so that independent commands can run at the same time.
+ * 
+ * Cancelling a future interrupts its command. The results are best read with
+ * {@link hudson.plugins.clearcase.util.FutureUtil}, which rethrows the exceptions of the commands.
+ */
+public interface AsyncClearTool {
+
+    /**
+     * @return the cleartool running the commands
+     */
+    ClearTool getClearTool();
+
+    /**
+     * @see ClearTool#lsbl(String, String)
+     */
+    Future<String> lsbl(String baselineName, String format);
+
+    /**
+     * Lists an activity, the future holding the whole output of the command.
+     * 
+     * @see ClearTool#lsactivity(String, String, String)
+     */
+    Future<String> lsactivity(String activity, String commandFormat, String viewPath);
+
+    /**
+     * @see ClearTool#setBaselinePromotionLevel(String, DefaultPromotionLevel)
+     */
+    Future<Void> setBaselinePromotionLevel(String baselineName, DefaultPromotionLevel promotionLevel);
+
+    /**
+     * Runs a task made of several cleartool commands.
+     */
+    <T> Future<T> submit(Callable<T> task);
+}
@@ -0,0 +1,445 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static hudson.plugins.clearcase.ClearToolQueryCache.CATCS;
+import static hudson.plugins.clearcase.ClearToolQueryCache.DESCRIBE_STREAM;
+import static hudson.plugins.clearcase.ClearToolQueryCache.LSBL;
+import static hudson.plugins.clearcase.ClearToolQueryCache.LSSTREAM;
+import static hudson.plugins.clearcase.ClearToolQueryCache.LSVIEW;
+import static hudson.plugins.clearcase.ClearToolQueryCache.PWV;
+import static hudson.plugins.clearcase.ClearToolQueryCache.key;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.remoting.VirtualChannel;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * {@link ClearTool} serving read-only queries from the {@link ClearToolQueryCache} of the node it runs on. Commands
+ * modifying views, streams or baselines drop the cached results they may affect.
+ */
+public class CachingClearTool extends ClearToolDecorator {
+
+    private static final String STREAM_PREFIX = "stream:";
+
+    private final ClearToolQueryCache cache;
+    private ViewRegistry viewRegistry;
+    private boolean refreshStreams;
+
+    public CachingClearTool(ClearTool delegate) {
+        this(delegate, ClearToolQueryCache.forChannel(getChannel(delegate)));
+    }
+
+    public CachingClearTool(ClearTool delegate, ClearToolQueryCache cache) {
+        super(delegate);
+        this.cache = cache;
+    }
+
+    public ClearToolQueryCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Answers the existence and metadata checks on views from the given registry, instead of running one
+     * <code>lsview</code> per check.
+     */
+    public void setViewRegistry(ViewRegistry viewRegistry) {
+        this.viewRegistry = viewRegistry != null && viewRegistry.isEnabled() ? viewRegistry : null;
+    }
+
+    @Override
+    public boolean doesViewExist(String viewTag) throws IOException, InterruptedException {
+        Map<String, ViewRegistry.ViewInfo> views = getRegisteredViews();
+        if (views != null) {
+            return views.containsKey(viewTag);
+        }
+        String key = key(LSVIEW, null, viewTag);
+        Boolean exists = (Boolean) cache.get(key);
+        if (exists == null) {
+            exists = delegate.doesViewExist(viewTag);
+            cache.put(key, exists);
+        }
+        return exists;
+    }
+
+    /**
+     * The status is not cached, but it answers the following <code>lsview</code> and <code>pwv</code> queries on the view.
+     */
+    @Override
+    public ViewStatus getViewStatus(String viewPath, String viewTag) throws IOException, InterruptedException {
+        ViewStatus status = delegate.getViewStatus(viewPath, viewTag);
+        cache.put(key(LSVIEW, null, viewTag), status.isViewExists());
+        if (status.getRootPath() != null) {
+            cache.put(key(PWV, getWorkDir(), viewPath), status.getRootPath());
+        }
+        return status;
+    }
+
+    @Override
+    public Properties getViewData(String viewTag) throws IOException, InterruptedException {
+        Map<String, ViewRegistry.ViewInfo> views = getRegisteredViews();
+        if (views != null) {
+            ViewRegistry.ViewInfo view = views.get(viewTag);
+            if (view == null) {
+                return new Properties();
+            }
+            if (view.isComplete()) {
+                return view.toViewData();
+            }
+        }
+        return delegate.getViewData(viewTag);
+    }
+
+    @Override
+    public List<String> lsview(boolean onlyActiveDynamicViews) throws IOException, InterruptedException {
+        Map<String, ViewRegistry.ViewInfo> views = !onlyActiveDynamicViews ? getRegisteredViews() : null;
+        if (views != null) {
+            List<String> tags = new ArrayList<String>(views.keySet());
+            Collections.sort(tags);
+            return tags;
+        }
+        return delegate.lsview(onlyActiveDynamicViews);
+    }
+
+    /**
+     * @return the views of the registry, null if there is no registry or if it could not list them
+     */
+    private Map<String, ViewRegistry.ViewInfo> getRegisteredViews() throws IOException, InterruptedException {
+        return viewRegistry != null ? viewRegistry.getViews(getLauncher()) : null;
+    }
+
+    /**
+     * Reads the descriptions of the streams from cleartool instead of the cache, which is refreshed with them. The
+     * revision states need this, since a poll compares their baselines with the current ones.
+     */
+    public void setRefreshStreams(boolean refreshStreams) {
+        this.refreshStreams = refreshStreams;
+    }
+
+    @Override
+    public String lsstream(String stream, String viewTag, String format) throws IOException, InterruptedException {
+        String key = key(LSSTREAM, null, stream, viewTag, format);
+        String output = (String) cache.get(key);
+        if (output == null) {
+            output = delegate.lsstream(stream, viewTag, format);
+            cache.put(key, output);
+        }
+        return output;
+    }
+
+    @Override
+    public String lsbl(String baselineName, String format) throws IOException, InterruptedException {
+        String key = key(LSBL, null, baselineName, format);
+        String output = (String) cache.get(key);
+        if (output == null) {
+            output = delegate.lsbl(baselineName, format);
+            cache.put(key, output);
+        }
+        return output;
+    }
+
+    @Override
+    public Reader describe(String format, String objectSelector) throws IOException, InterruptedException {
+        if (!StringUtils.startsWith(objectSelector, STREAM_PREFIX)) {
+            return delegate.describe(format, objectSelector);
+        }
+        String key = key(DESCRIBE_STREAM, null, format, objectSelector);
+        String output = refreshStreams ? null : (String) cache.get(key);
+        if (output == null) {
+            Reader reader = delegate.describe(format, objectSelector);
+            try {
+                output = IOUtils.toString(reader);
+            } finally {
+                reader.close();
+            }
+            cache.put(key, output);
+        }
+        return new StringReader(output);
+    }
+
+    @Override
+    public Reader describeStreaming(String format, String objectSelector) throws IOException, InterruptedException {
+        if (!StringUtils.startsWith(objectSelector, STREAM_PREFIX)) {
+            return delegate.describeStreaming(format, objectSelector);
+        }
+        return describe(format, objectSelector);
+    }
+
+    @Override
+    public String catcs(String viewTag) throws IOException, InterruptedException {
+        String key = key(CATCS, null, viewTag);
+        String output = (String) cache.get(key);
+        if (output == null) {
+            output = delegate.catcs(viewTag);
+            cache.put(key, output);
+        }
+        return output;
+    }
+
+    @Override
+    public String pwv(String viewPath) throws IOException, InterruptedException {
+        String key = key(PWV, getWorkDir(), viewPath);
+        String output = (String) cache.get(key);
+        if (output == null) {
+            output = delegate.pwv(viewPath);
+            cache.put(key, output);
+        }
+        return output;
+    }
+
+    @Override
+    public void mkview(String viewPath, String viewTag, String streamSelector) throws IOException, InterruptedException {
+        boolean created = false;
+        try {
+            delegate.mkview(viewPath, viewTag, streamSelector);
+            created = true;
+        } finally {
+            invalidateView(viewTag);
+            if (viewRegistry != null) {
+                if (created) {
+                    viewRegistry.viewCreated(viewTag);
+                } else {
+                    viewRegistry.invalidate();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void mkview(String viewPath, String viewTag, String streamSelector, String defaultStorageDir) throws IOException, InterruptedException {
+        boolean created = false;
+        try {
+            delegate.mkview(viewPath, viewTag, streamSelector, defaultStorageDir);
+            created = true;
+        } finally {
+            invalidateView(viewTag);
+            if (viewRegistry != null) {
+                if (created) {
+                    viewRegistry.viewCreated(viewTag);
+                } else {
+                    viewRegistry.invalidate();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void rmview(String viewPath) throws IOException, InterruptedException {
+        try {
+            delegate.rmview(viewPath);
+        } finally {
+            invalidateViews();
+            invalidateViewRegistry();
+        }
+    }
+
+    @Override
+    public void rmviewtag(String viewTag) throws IOException, InterruptedException {
+        boolean removed = false;
+        try {
+            delegate.rmviewtag(viewTag);
+            removed = true;
+        } finally {
+            invalidateView(viewTag);
+            if (viewRegistry != null) {
+                if (removed) {
+                    viewRegistry.viewTagRemoved(viewTag);
+                } else {
+                    viewRegistry.invalidate();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void rmtag(String tag) throws IOException, InterruptedException {
+        boolean removed = false;
+        try {
+            delegate.rmtag(tag);
+            removed = true;
+        } finally {
+            invalidateView(tag);
+            if (viewRegistry != null) {
+                if (removed) {
+                    viewRegistry.viewTagRemoved(tag);
+                } else {
+                    viewRegistry.invalidate();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void rmviewUuid(String viewUuid) throws IOException, InterruptedException {
+        boolean removed = false;
+        try {
+            delegate.rmviewUuid(viewUuid);
+            removed = true;
+        } finally {
+            invalidateViews();
+            if (viewRegistry != null) {
+                if (removed) {
+                    viewRegistry.viewRemoved(viewUuid);
+                } else {
+                    viewRegistry.invalidate();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void unregisterView(String viewUuid) throws IOException, InterruptedException {
+        try {
+            delegate.unregisterView(viewUuid);
+        } finally {
+            invalidateViews();
+            invalidateViewRegistry();
+        }
+    }
+
+    @Override
+    public void setcs(String viewPath, SetcsOption option, String configSpec) throws IOException, InterruptedException {
+        try {
+            delegate.setcs(viewPath, option, configSpec);
+        } finally {
+            cache.invalidate(CATCS);
+        }
+    }
+
+    @Override
+    public void setcsTag(String viewTag, SetcsOption option, String configSpec) throws IOException, InterruptedException {
+        try {
+            delegate.setcsTag(viewTag, option, configSpec);
+        } finally {
+            cache.invalidate(CATCS, viewTag);
+        }
+    }
+
+    @Override
+    public List<Baseline> mkbl(String name, String viewTag, String comment, boolean fullBaseline, boolean identical, List<String> components,
+            String dDependOn, String aDependOn) throws IOException, InterruptedException {
+        try {
+            return delegate.mkbl(name, viewTag, comment, fullBaseline, identical, components, dDependOn, aDependOn);
+        } finally {
+            invalidateUcmObjects();
+        }
+    }
+
+    @Override
+    public void setBaselinePromotionLevel(String baselineName, String promotionLevel) throws IOException, InterruptedException {
+        try {
+            delegate.setBaselinePromotionLevel(baselineName, promotionLevel);
+        } finally {
+            invalidateUcmObjects();
+        }
+    }
+
+    @Override
+    public void setBaselinePromotionLevel(String baselineName, DefaultPromotionLevel promotionLevel) throws IOException, InterruptedException {
+        try {
+            delegate.setBaselinePromotionLevel(baselineName, promotionLevel);
+        } finally {
+            invalidateUcmObjects();
+        }
+    }
+
+    @Override
+    public void rebaseDynamic(String viewTag, String baseline) throws IOException, InterruptedException {
+        try {
+            delegate.rebaseDynamic(viewTag, baseline);
+        } finally {
+            invalidateUcmObjects();
+            cache.invalidate(CATCS, viewTag);
+        }
+    }
+
+    @Override
+    public void recommendBaseline(String streamSelector) throws IOException, InterruptedException {
+        try {
+            delegate.recommendBaseline(streamSelector);
+        } finally {
+            invalidateUcmObjects();
+        }
+    }
+
+    @Override
+    public void mkstream(String parentStream, String stream) throws IOException, InterruptedException {
+        try {
+            delegate.mkstream(parentStream, stream);
+        } finally {
+            invalidateUcmObjects();
+        }
+    }
+
+    private void invalidateView(String viewTag) {
+        cache.invalidate(LSVIEW, viewTag);
+        cache.invalidate(CATCS, viewTag);
+        cache.invalidate(PWV);
+    }
+
+    private void invalidateViews() {
+        cache.invalidate(LSVIEW);
+        cache.invalidate(CATCS);
+        cache.invalidate(PWV);
+    }
+
+    /**
+     * Drops the view registry snapshot after a command changing views it does not name.
+     */
+    private void invalidateViewRegistry() {
+        if (viewRegistry != null) {
+            viewRegistry.invalidate();
+        }
+    }
+
+    private void invalidateUcmObjects() {
+        cache.invalidate(LSSTREAM);
+        cache.invalidate(LSBL);
+        cache.invalidate(DESCRIBE_STREAM);
+    }
+
+    private String getWorkDir() {
+        ClearToolLauncher launcher = getLauncher();
+        FilePath workspace = launcher != null ? launcher.getWorkspace() : null;
+        return workspace != null ? workspace.getRemote() : null;
+    }
+
+    private static VirtualChannel getChannel(ClearTool clearTool) {
+        ClearToolLauncher clearToolLauncher = clearTool.getLauncher();
+        Launcher launcher = clearToolLauncher != null ? clearToolLauncher.getLauncher() : null;
+        return launcher != null ? launcher.getChannel() : null;
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.plugins.clearcase.history.Filter;
+import hudson.plugins.clearcase.history.HistoryEntry;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * A change notified by a ClearCase trigger: the version of an element created on a branch.
+ * 
+ * @see ClearCaseNotifyAction
+ */
+public class ChangeNotification {
+
+    private static final String CREATE_VERSION = "create version";
+    private static final String CHECKIN = "checkin";
+
+    private final String branch;
+    private final String element;
+    private final String version;
+    private final String activity;
+
+    /**
+     * @param branch optional, the branch of the version, taken from the version when not given
+     * @param element the path of the element
+     * @param version the version identifier, <code>/main/branch/3</code> for instance
+     * @param activity optional, the UCM activity of the version
+     */
+    public ChangeNotification(String branch, String element, String version, String activity) {
+        this.branch = StringUtils.trimToNull(branch);
+        this.element = element;
+        this.version = version;
+        this.activity = StringUtils.trimToNull(activity);
+    }
+
+    /**
+     * @return the branch of the version, null if unknown
+     */
+    public String getBranch() {
+        if (branch != null) {
+            return branch;
+        }
+        String path = StringUtils.replaceChars(version, '\\', '/');
+        int end = StringUtils.lastIndexOf(path, '/');
+        if (end <= 0) {
+            return null;
+        }
+        return path.substring(path.lastIndexOf('/', end - 1) + 1, end);
+    }
+
+    public String getElement() {
+        return element;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getActivity() {
+        return activity;
+    }
+
+    /**
+     * @return true if the element name uses the Unix separator
+     */
+    public boolean isUnix() {
+        return element.indexOf('\\') < 0;
+    }
+
+    /**
+     * @param branchNames the branches of a job, none or blank ones meaning all of them
+     * @return true if the version is on one of the branches
+     */
+    public boolean isOnBranch(String[] branchNames) {
+        String versionBranch = getBranch();
+        if (branchNames == null || versionBranch == null) {
+            return true;
+        }
+        boolean anyBranch = true;
+        for (String branchName : branchNames) {
+            if (StringUtils.isBlank(branchName)) {
+                continue;
+            }
+            if (branchName.trim().equals(versionBranch)) {
+                return true;
+            }
+            anyBranch = false;
+        }
+        return anyBranch;
+    }
+
+    /**
+     * @param filter optional, the filter of the history of a job
+     * @return true if the filter accepts the version as a checkin
+     */
+    public boolean isAcceptedBy(Filter filter) {
+        return filter == null || filter.accept(toHistoryEntry());
+    }
+
+    /**
+     * @return the entry lshistory would list for the version
+     */
+    public HistoryEntry toHistoryEntry() {
+        HistoryEntry entry = new HistoryEntry();
+        entry.setElement(element);
+        entry.setVersionId(version);
+        entry.setEvent(CREATE_VERSION);
+        entry.setOperation(CHECKIN);
+        entry.setActivityName(activity);
+        entry.setLine(element + '@' + version);
+        return entry;
+    }
+
+    @Override
+    public String toString() {
+        return element + "@@" + version;
+    }
+}
@@ -118,6 +118,9 @@ public class ClearCaseInstallation extends ToolInstallation implements NodeSpeci
                             ClearCaseInstallation.class,
                             formData.get("clearcaseinstall")).toArray(new ClearCaseInstallation[0]));
             save();
+            // a new installation may come with another cleartool
+            desc.invalidateCleartoolExes();
+            ClearToolCapabilityCache.get().invalidateAll();
             
             return true;
         }
@@ -181,6 +184,34 @@ public class ClearCaseInstallation extends ToolInstallation implements NodeSpeci
         public int getLogMergeTimeWindow() {
             return getCCDescriptor().getLogMergeTimeWindow();
         }
+
+        public int getSessionPoolSize() {
+            return getCCDescriptor().getSessionPoolSize();
+        }
+
+        public int getSessionMaxCommands() {
+            return getCCDescriptor().getSessionMaxCommands();
+        }
+
+        public int getMaxCommandsPerNode() {
+            return getCCDescriptor().getMaxCommandsPerNode();
+        }
+
+        public int getMaxCommandsPerVob() {
+            return getCCDescriptor().getMaxCommandsPerVob();
+        }
+
+        public String getCommandTimeouts() {
+            return getCCDescriptor().getCommandTimeouts();
+        }
+
+        public String getConsoleOutput() {
+            return getCCDescriptor().getConsoleOutput();
+        }
+
+        public String getNotificationToken() {
+            return getCCDescriptor().getNotificationToken();
+        }
         
         // Keep a ref to descriptor to avoid init each time
         private transient ClearCaseScmDescriptor desc;
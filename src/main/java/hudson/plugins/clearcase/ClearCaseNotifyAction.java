@@ -0,0 +1,163 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.Extension;
+import hudson.model.AbstractProject;
+import hudson.model.Hudson;
+import hudson.model.UnprotectedRootAction;
+import hudson.scm.SCM;
+import hudson.security.ACL;
+import hudson.triggers.SCMTrigger;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.acegisecurity.Authentication;
+import org.acegisecurity.context.SecurityContextHolder;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Receives the changes notified by ClearCase triggers, at <code>${HUDSON_URL}/clearcase-notify/</code>. The jobs whose
+ * branches and load rules match a change poll right away, the other ones are left alone.
+ * 
+ * The endpoint does not need a Hudson login: the notifications are POST requests carrying the token set in the global
+ * configuration in the {@link #TOKEN_HEADER} header, they are rejected when no token is set.
+ * 
+ * @see ChangeNotification
+ */
+@Extension
+public class ClearCaseNotifyAction implements UnprotectedRootAction {
+
+    public static final String URL_NAME = "clearcase-notify";
+
+    /** The header the token is sent in, so that it does not end up in URLs and access logs */
+    public static final String TOKEN_HEADER = "X-ClearCase-Token";
+
+    private static final Logger LOGGER = Logger.getLogger(ClearCaseNotifyAction.class.getName());
+
+    public String getIconFileName() {
+        return null;
+    }
+
+    public String getDisplayName() {
+        return null;
+    }
+
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    /**
+     * Schedules the polling of the jobs concerned by the notified change, and lists them in the response.
+     */
+    public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        String expectedToken = PluginImpl.getDescriptor().getNotificationToken();
+        if (expectedToken == null) {
+            rsp.sendError(HttpServletResponse.SC_NOT_FOUND, "ClearCase change notifications are disabled");
+            return;
+        }
+        if (!"POST".equals(req.getMethod())) {
+            rsp.setHeader("Allow", "POST");
+            rsp.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED, "ClearCase change notifications are POST requests");
+            return;
+        }
+        if (!isSameToken(expectedToken, req.getHeader(TOKEN_HEADER))) {
+            rsp.sendError(HttpServletResponse.SC_FORBIDDEN, "Invalid token");
+            return;
+        }
+        String element = StringUtils.trimToNull(req.getParameter("element"));
+        String version = StringUtils.trimToNull(req.getParameter("version"));
+        if (element == null || version == null) {
+            rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, "The element and version parameters are mandatory");
+            return;
+        }
+        ChangeNotification notification = new ChangeNotification(req.getParameter("branch"), element, version, req.getParameter("activity"));
+
+        List<String> polled = schedulePolling(notification);
+
+        rsp.setContentType("text/plain;charset=UTF-8");
+        PrintWriter writer = rsp.getWriter();
+        for (String jobName : polled) {
+            writer.println(jobName);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Schedules the polling of the jobs concerned by the change. Only the jobs polling their SCM are notified.
+     * 
+     * @return the names of the jobs scheduled
+     */
+    public List<String> schedulePolling(ChangeNotification notification) {
+        List<String> polled = new ArrayList<String>();
+        // the request is anonymous, the jobs are matched on behalf of the system
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.getContext().setAuthentication(ACL.SYSTEM);
+        try {
+            for (AbstractProject<?, ?> project : Hudson.getInstance().getAllItems(AbstractProject.class)) {
+                SCM scm = project.getScm();
+                SCMTrigger trigger = project.getTrigger(SCMTrigger.class);
+                if (!(scm instanceof AbstractClearCaseScm) || trigger == null || project.isDisabled()) {
+                    continue;
+                }
+                try {
+                    if (((AbstractClearCaseScm) scm).isNotifiedBy(project, notification)) {
+                        trigger.run();
+                        polled.add(project.getFullName());
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to match " + notification + " with " + project.getFullName(), e);
+                }
+            }
+        } finally {
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
+        LOGGER.fine("Notified " + notification + ", polling " + polled);
+        return polled;
+    }
+
+    /**
+     * Compares the tokens in a time independent of the number of matching characters.
+     */
+    static boolean isSameToken(String expected, String actual) {
+        if (actual == null || actual.length() != expected.length()) {
+            return false;
+        }
+        int difference = 0;
+        for (int i = 0; i < expected.length(); i++) {
+            difference |= expected.charAt(i) ^ actual.charAt(i);
+        }
+        return difference == 0;
+    }
+}
@@ -65,6 +65,7 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -175,6 +176,7 @@ public class ClearCaseSCM extends AbstractClearCaseScm {
     protected HistoryAction createHistoryAction(VariableResolver<String> variableResolver, ClearToolLauncher launcher, AbstractBuild<?, ?> build) throws IOException, InterruptedException {
         ClearTool ct = createClearTool(variableResolver, launcher);
         BaseHistoryAction action = new BaseHistoryAction(ct, isUseDynamicView(), configureFilters(variableResolver, build, launcher.getLauncher()), getDescriptor().getLogMergeTimeWindow());
+        action.setQueryOnNode(true);
 
         try {
             String viewName = generateNormalizedViewName(variableResolver);
@@ -187,6 +189,8 @@ public class ClearCaseSCM extends AbstractClearCaseScm {
                 }
                 action.setExtendedViewPath(pwv);
             }
+        } catch (ClearToolTimeoutException e) {
+            throw e;
         } catch (Exception e) {
             Logger.getLogger(ClearCaseSCM.class.getName()).log(Level.WARNING, "Exception when running 'cleartool pwv'", e);
         }
@@ -235,7 +239,7 @@ public class ClearCaseSCM extends AbstractClearCaseScm {
     @Override
     protected ClearTool createClearTool(VariableResolver<String> variableResolver, ClearToolLauncher launcher) {
         if (isUseDynamicView()) {
-            return new ClearToolDynamic(variableResolver, launcher, getViewDrive(), getMkviewOptionalParam());
+            return decorateClearTool(new ClearToolDynamic(variableResolver, launcher, getViewDrive(), getMkviewOptionalParam()));
         } else {
             return super.createClearTool(variableResolver, launcher);
         }
@@ -248,8 +252,16 @@ public class ClearCaseSCM extends AbstractClearCaseScm {
      */
     public static class ClearCaseScmDescriptor extends SCMDescriptor<ClearCaseSCM> implements ModelObject {
         private static final int DEFAULT_CHANGE_LOG_MERGE_TIME_WINDOW = 5;
+        private static final int DEFAULT_SESSION_MAX_COMMANDS = 500;
         
         private int changeLogMergeTimeWindow = DEFAULT_CHANGE_LOG_MERGE_TIME_WINDOW;
+        private int sessionPoolSize;
+        private int sessionMaxCommands = DEFAULT_SESSION_MAX_COMMANDS;
+        private int maxCommandsPerNode;
+        private int maxCommandsPerVob;
+        private String commandTimeouts;
+        private String consoleOutput;
+        private String notificationToken;
         private String defaultViewName;
         private String defaultViewPath;
         private String defaultWinDynStorageDir;
@@ -258,6 +270,9 @@ public class ClearCaseSCM extends AbstractClearCaseScm {
         @CopyOnWrite
         private volatile ClearCaseInstallation[] installations = new ClearCaseInstallation[0];
 
+        /** The cleartool executables resolved for each node, keyed on the node name */
+        private final transient Map<String, String> cleartoolExes = new ConcurrentHashMap<String, String>();
+
         public ClearCaseScmDescriptor() {
             super(ClearCaseSCM.class, null);
             load();
@@ -267,6 +282,59 @@ public class ClearCaseSCM extends AbstractClearCaseScm {
             return changeLogMergeTimeWindow;
         }
 
+        /**
+         * @return the maximum number of interactive cleartool sessions kept on each node, 0 to fork one process per command
+         */
+        public int getSessionPoolSize() {
+            return sessionPoolSize;
+        }
+
+        /**
+         * @return the number of commands after which an interactive cleartool session is restarted
+         */
+        public int getSessionMaxCommands() {
+            return sessionMaxCommands;
+        }
+
+        /**
+         * @return the maximum number of cleartool commands running at the same time on a node, 0 for no limit
+         */
+        public int getMaxCommandsPerNode() {
+            return maxCommandsPerNode;
+        }
+
+        /**
+         * @return the maximum number of cleartool commands running at the same time against a VOB, 0 for no limit
+         */
+        public int getMaxCommandsPerVob() {
+            return maxCommandsPerVob;
+        }
+
+        /**
+         * @return the timeouts of the cleartool commands, one <code>subcommand=seconds</code> per line
+         * @see ClearToolTimeouts
+         */
+        public String getCommandTimeouts() {
+            return commandTimeouts;
+        }
+
+        /**
+         * @return how much of the output of the cleartool commands is copied to the console, one
+         *         <code>subcommand=full|summary|none</code> per line
+         * @see ConsoleOutputPolicy
+         */
+        public String getConsoleOutput() {
+            return consoleOutput;
+        }
+
+        /**
+         * @return the token the ClearCase triggers send with their change notifications, null if notifications are disabled
+         * @see ClearCaseNotifyAction
+         */
+        public String getNotificationToken() {
+            return notificationToken;
+        }
+
         public String getCleartoolExe() {
             String cleartoolExe;
             try {
@@ -277,8 +345,32 @@ public class ClearCaseSCM extends AbstractClearCaseScm {
             return cleartoolExe;
         }
 
+        /**
+         * Resolves the cleartool executable of a node. Resolving it takes several remote calls, the result is kept until the
+         * installations are saved or the node reconnects.
+         */
         public String getCleartoolExe(Node node, TaskListener listener) throws IOException, InterruptedException {
-            return Hudson.getInstance().getDescriptorByType(ClearCaseInstallation.DescriptorImpl.class).getInstallation().getCleartoolExe(node, listener);
+            String cleartoolExe = cleartoolExes.get(node.getNodeName());
+            if (cleartoolExe == null) {
+                cleartoolExe = Hudson.getInstance().getDescriptorByType(ClearCaseInstallation.DescriptorImpl.class).getInstallation().getCleartoolExe(node,
+                        listener);
+                cleartoolExes.put(node.getNodeName(), cleartoolExe);
+            }
+            return cleartoolExe;
+        }
+
+        /**
+         * Forgets the cleartool executable resolved for a node.
+         */
+        public void invalidateCleartoolExe(String nodeName) {
+            cleartoolExes.remove(nodeName);
+        }
+
+        /**
+         * Forgets the cleartool executables resolved for all the nodes.
+         */
+        public void invalidateCleartoolExes() {
+            cleartoolExes.clear();
         }
 
         public String getDefaultViewName() {
@@ -317,18 +409,29 @@ public class ClearCaseSCM extends AbstractClearCaseScm {
             defaultWinDynStorageDir = fixEmpty(req.getParameter("clearcase.defaultWinDynStorageDir").trim());
             defaultUnixDynStorageDir = fixEmpty(req.getParameter("clearcase.defaultUnixDynStorageDir").trim());
 
-            String mergeTimeWindow = fixEmpty(req.getParameter("clearcase.logmergetimewindow"));
-            if (mergeTimeWindow != null) {
+            changeLogMergeTimeWindow = parseInteger(req, "clearcase.logmergetimewindow", DEFAULT_CHANGE_LOG_MERGE_TIME_WINDOW);
+            sessionPoolSize = parseInteger(req, "clearcase.sessionPoolSize", 0);
+            sessionMaxCommands = parseInteger(req, "clearcase.sessionMaxCommands", DEFAULT_SESSION_MAX_COMMANDS);
+            maxCommandsPerNode = parseInteger(req, "clearcase.maxCommandsPerNode", 0);
+            maxCommandsPerVob = parseInteger(req, "clearcase.maxCommandsPerVob", 0);
+            commandTimeouts = fixEmptyAndTrim(req.getParameter("clearcase.commandTimeouts"));
+            consoleOutput = fixEmptyAndTrim(req.getParameter("clearcase.consoleOutput"));
+            notificationToken = fixEmptyAndTrim(req.getParameter("clearcase.notificationToken"));
+            save();
+            invalidateCleartoolExes();
+            return true;
+        }
+
+        private static int parseInteger(StaplerRequest req, String parameterName, int defaultValue) {
+            String value = fixEmpty(req.getParameter(parameterName));
+            if (value != null) {
                 try {
-                    changeLogMergeTimeWindow = DecimalFormat.getIntegerInstance().parse(mergeTimeWindow).intValue();
+                    return DecimalFormat.getIntegerInstance().parse(value).intValue();
                 } catch (ParseException e) {
-                    changeLogMergeTimeWindow = DEFAULT_CHANGE_LOG_MERGE_TIME_WINDOW;
+                    return defaultValue;
                 }
-            } else {
-                changeLogMergeTimeWindow = DEFAULT_CHANGE_LOG_MERGE_TIME_WINDOW;
             }
-            save();
-            return true;
+            return defaultValue;
         }
 
         @Override
@@ -355,6 +458,7 @@ public class ClearCaseSCM extends AbstractClearCaseScm {
                                                         req.getParameter("cc.viewpath"),
                                                         ChangeSetLevel.fromString(req.getParameter("ucm.changeset"))
                                                         );
+            scm.setCommandTimeouts(fixEmptyAndTrim(req.getParameter("cc.commandTimeouts")));
             return scm;
         }
 
@@ -365,6 +469,28 @@ public class ClearCaseSCM extends AbstractClearCaseScm {
             return FormValidation.validateExecutable(value);
         }
 
+        /**
+         * Validates the cleartool command timeouts
+         */
+        public FormValidation doCommandTimeoutsCheck(@QueryParameter final String value) throws IOException, ServletException {
+            String invalidLine = ClearToolTimeouts.getInvalidLine(value);
+            if (invalidLine != null) {
+                return FormValidation.error("Invalid timeout, expected subcommand=seconds: " + invalidLine);
+            }
+            return FormValidation.ok();
+        }
+
+        /**
+         * Validates the console output policies of the cleartool commands
+         */
+        public FormValidation doConsoleOutputCheck(@QueryParameter final String value) throws IOException, ServletException {
+            String invalidLine = ConsoleOutputPolicy.getInvalidLine(value);
+            if (invalidLine != null) {
+                return FormValidation.error("Invalid console output policy, expected subcommand=full|summary|none: " + invalidLine);
+            }
+            return FormValidation.ok();
+        }
+
         /**
          * Validates the excludedRegions Regex
          */
@@ -156,17 +156,22 @@ public class ClearCaseUcmSCM extends AbstractClearCaseScm {
     @Override
     public SCMRevisionState calcRevisionsFromBuild(AbstractBuild<?, ?> build, Launcher launcher, TaskListener taskListener) throws IOException,
             InterruptedException {
-        return createRevisionState(build, launcher, taskListener, getBuildTime(build));
+        return createRevisionState(build, launcher, getBuildTime(build), ClearToolPriority.BUILD);
     }
     
     @Override
     public SCMRevisionState calcRevisionsFromPoll(AbstractBuild<?, ?> build, Launcher launcher, TaskListener taskListener) throws IOException,
             InterruptedException {
-        return createRevisionState(build, launcher, taskListener, new Date());
+        return createRevisionState(build, launcher, new Date(), ClearToolPriority.POLLING);
     }
     
-    private AbstractClearCaseSCMRevisionState createRevisionState(AbstractBuild<?, ?> build, Launcher launcher, TaskListener taskListener, Date date) throws IOException, InterruptedException {
-        ClearTool clearTool = createClearTool(build, launcher);
+    private AbstractClearCaseSCMRevisionState createRevisionState(AbstractBuild<?, ?> build, Launcher launcher, Date date, ClearToolPriority priority)
+            throws IOException, InterruptedException {
+        ClearTool clearTool = createClearTool(build, launcher, priority);
+        if (clearTool instanceof CachingClearTool) {
+            // the polling compares these baselines with the current ones
+            ((CachingClearTool) clearTool).setRefreshStreams(true);
+        }
         VariableResolver<String> variableResolver = new BuildVariableResolver(build);
         String resolvedStream = getStream(variableResolver);
         ClearCaseUCMSCMRevisionState revisionState = new ClearCaseUCMSCMRevisionState(UcmCommon.getFoundationBaselines(clearTool, resolvedStream), date, resolvedStream);
@@ -212,7 +217,11 @@ public class ClearCaseUcmSCM extends AbstractClearCaseScm {
                 if (previousBuild != null) {
                     oldBaseline = build.getPreviousBuild().getAction(ClearCaseUCMSCMRevisionState.class);
                 }
-                newBaseline = (ClearCaseUCMSCMRevisionState) calcRevisionsFromBuild(build, launcher.getLauncher(), launcher.getListener());
+                // run in the priority class of the caller, polling or build
+                newBaseline = (ClearCaseUCMSCMRevisionState) createRevisionState(build, launcher.getLauncher(), getBuildTime(build),
+                        getPriority(launcher));
+            } catch (ClearToolTimeoutException e) {
+                throw e;
             } catch (IOException e) {
                 Logger.getLogger(getClass().getName()).log(Level.SEVERE, "IOException when calculating revisions'", e);
                 return null;
@@ -226,6 +235,8 @@ public class ClearCaseUcmSCM extends AbstractClearCaseScm {
         } else {
             action = new UcmHistoryAction(ct, isUseDynamicView(), configureFilters(variableResolver, build, launcher.getLauncher()), oldBaseline, newBaseline, getChangeset());
         }
+        action.setQueryOnNode(true);
+        action.setAsyncClearTool(new ExecutorAsyncClearTool(ct));
         try {
             String pwv = ct.pwv(generateNormalizedViewName((BuildVariableResolver) variableResolver));
 
@@ -237,6 +248,8 @@ public class ClearCaseUcmSCM extends AbstractClearCaseScm {
                 }
                 action.setExtendedViewPath(pwv);
             }
+        } catch (ClearToolTimeoutException e) {
+            throw e;
         } catch (Exception e) {
             Logger.getLogger(ClearCaseUcmSCM.class.getName()).log(Level.WARNING, "Exception when running 'cleartool pwv'", e);
         }
@@ -271,15 +284,19 @@ public class ClearCaseUcmSCM extends AbstractClearCaseScm {
     @Override
     public ClearTool createClearTool(VariableResolver<String> variableResolver, ClearToolLauncher launcher) {
         if (isUseDynamicView()) {
-            return new ClearToolDynamic(variableResolver, launcher, getViewDrive(), getMkviewOptionalParam());
+            return decorateClearTool(new ClearToolDynamic(variableResolver, launcher, getViewDrive(), getMkviewOptionalParam()));
         } else {
             return super.createClearTool(variableResolver, launcher);
         }
     }
     
     public ClearTool createClearTool(AbstractBuild<?, ?> build, Launcher launcher) {
+        return createClearTool(build, launcher, ClearToolPriority.BUILD);
+    }
+
+    public ClearTool createClearTool(AbstractBuild<?, ?> build, Launcher launcher, ClearToolPriority priority) {
         BuildVariableResolver variableResolver = new BuildVariableResolver(build);
-        ClearToolLauncher clearToolLauncher = createClearToolLauncher(launcher.getListener(), build.getWorkspace(), launcher);
+        ClearToolLauncher clearToolLauncher = createClearToolLauncher(launcher.getListener(), build.getWorkspace(), launcher, priority);
         return createClearTool(variableResolver, clearToolLauncher);
     }
 
@@ -356,6 +373,7 @@ public class ClearCaseUcmSCM extends AbstractClearCaseScm {
                                                       req.getParameter("ucm.useManualLoadRules") != null,
                                                       ChangeSetLevel.fromString(req.getParameter("ucm.changeset"))
                                                       );
+            scm.setCommandTimeouts(Util.fixEmptyAndTrim(req.getParameter("ucm.commandTimeouts")));
             return scm;
         }
     }
@@ -24,6 +24,10 @@
  */
 package hudson.plugins.clearcase;
 
+import hudson.plugins.clearcase.history.Filter;
+import hudson.plugins.clearcase.history.HistoryEntry;
+import hudson.plugins.clearcase.history.HistoryParser;
+import hudson.plugins.clearcase.history.HistoryScan;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -66,6 +70,18 @@ public interface ClearTool {
      */
     Reader describe(String format, String objectSelector) throws IOException, InterruptedException;
 
+    /**
+     * Same as {@link #describe(String, String)}, but the output can be read while the command runs. A failure of the
+     * command is thrown by the reader once the output has been read. Closing the reader early stops the command.
+     * 
+     * @param format
+     * @param objectSelector
+     * @return A reader to the command output
+     * @throws IOException If the command cannot be started
+     * @throws InterruptedException If the process is interrupted
+     */
+    Reader describeStreaming(String format, String objectSelector) throws IOException, InterruptedException;
+
     /**
      * Call diffbl using the two provided baselines (can be stream or baseline)
      * 
@@ -101,6 +117,16 @@ public interface ClearTool {
      */
     void endView(String viewTag) throws IOException, InterruptedException;
 
+    /**
+     * Gathers at once whether a view exists, whether its directory exists and belongs to it, its root path and its
+     * properties.
+     * 
+     * @param viewPath the directory of the view, relative to the workspace
+     * @param viewTag the view tag
+     * @return the status of the view
+     */
+    ViewStatus getViewStatus(String viewPath, String viewTag) throws IOException, InterruptedException;
+
     /**
      * Get the inner CLearToolLauncher.
      * 
@@ -108,6 +134,14 @@ public interface ClearTool {
      */
     public ClearToolLauncher getLauncher();
 
+    /**
+     * Returns what the cleartool of the node supports, the command builders use it to pick the cheaper forms of the
+     * commands.
+     * 
+     * @return the capabilities of the node, {@link ClearToolCapabilities#CONSERVATIVE} if unknown
+     */
+    ClearToolCapabilities getCapabilities() throws InterruptedException;
+
     /**
      * Gets the view UUID, for thorough view deletion.
      * 
@@ -181,6 +215,49 @@ public interface ClearTool {
      */
     Reader lshistory(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView, boolean getMinor) throws IOException, InterruptedException;
 
+    /**
+     * Same as {@link #lshistory(String, Date, String, String, String[], boolean)}, but the output can be parsed while
+     * lshistory runs, only a bounded part of it being kept in memory. Closing the reader early stops the command.
+     * 
+     * @return Reader containing output from command
+     */
+    Reader lshistoryStreaming(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView, boolean getMinor) throws IOException,
+            InterruptedException;
+
+    /**
+     * Same as {@link #lshistory(String, Date, String, String, String[], boolean)}, but the output is parsed and filtered on the
+     * node running lshistory. Only the accepted entries are transferred back.
+     * 
+     * @param parser the parser of the output, matching the format
+     * @param filter optional, the filter of the parsed entries
+     * @return the accepted history entries
+     */
+    List<HistoryEntry> lshistoryFiltered(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView, boolean getMinor,
+            HistoryParser parser, Filter filter) throws IOException, InterruptedException;
+
+    /**
+     * Same as {@link #lshistoryFiltered(String, Date, String, String, String[], boolean, HistoryParser, Filter)}, but
+     * lshistory is stopped as soon as an entry is accepted, which is enough to know whether there are changes.
+     * 
+     * @param parser the parser of the output, matching the format
+     * @param filter optional, the filter of the parsed entries
+     * @param scan the scan of the history, skipping the events already seen
+     * @return the scan, holding the first accepted history entry if there is one
+     */
+    HistoryScan lshistoryFirst(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView, boolean getMinor,
+            HistoryParser parser, Filter filter, HistoryScan scan) throws IOException, InterruptedException;
+
+    /**
+     * Tells the date of the latest event of the VOBs, with <code>lshistory -all -last 1</code> on each VOB. A single event
+     * is listed by VOB, however long its history.
+     * 
+     * @param viewPath the name of the view
+     * @param branch the name of the branch of the events; if null then the events of all branches are listed
+     * @param vobPaths the roots of the VOBs, relative to the view
+     * @return the date of the latest event, null if the VOBs have no event
+     */
+    Date lshistoryLatest(String viewPath, String branch, String[] vobPaths, boolean getMinor) throws IOException, InterruptedException;
+
     /**
      * List attributes of a project
      * @param viewTag View tag of a view attached to a stream of the project
@@ -0,0 +1,163 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * What the cleartool of a node supports, as found by running <code>cleartool -version</code> on the node.
+ * 
+ * The command builders of {@link ClearToolExec} use it to pick the cheaper variants of the commands. When the probe has not
+ * been run or failed, {@link #CONSERVATIVE} keeps the command forms that work with every cleartool on every platform.
+ * 
+ * @see ClearToolCapabilityCache
+ */
+public class ClearToolCapabilities implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** The capabilities assumed when nothing is known about the node */
+    public static final ClearToolCapabilities CONSERVATIVE = new ClearToolCapabilities(null, false, null);
+
+    private static final String WINDOWS_NULL_DEVICE = "NUL";
+    private static final String UNIX_NULL_DEVICE = "/dev/null";
+
+    /** <code>cleartool 7.1.2.8 (Wed Oct 19 ...)</code> */
+    private static final Pattern CLEARTOOL_VERSION = Pattern.compile("^cleartool\\s+(\\d+(?:\\.\\d+)*)");
+    /** <code>ClearCase version 7.1.2.8 (Wed Oct 19 ...)</code>, the first line of the output */
+    private static final Pattern CLEARCASE_VERSION = Pattern.compile("^ClearCase version\\s+(\\d+(?:\\.\\d+)*)");
+
+    private final String version;
+    private final boolean unix;
+    private final String nullDevice;
+
+    public ClearToolCapabilities(String version, boolean unix, String nullDevice) {
+        this.version = version;
+        this.unix = unix;
+        this.nullDevice = nullDevice;
+    }
+
+    /**
+     * @return the version of cleartool, such as <code>7.1.2.8</code>, null if unknown
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    public boolean isUnix() {
+        return unix;
+    }
+
+    /**
+     * @return the file the logs that are not wanted can be written to (<code>update -log</code>)
+     */
+    public String getNullDevice() {
+        return nullDevice != null ? nullDevice : WINDOWS_NULL_DEVICE;
+    }
+
+    /**
+     * @return true if <code>describe</code> can be given several object selectors in one call
+     */
+    public boolean isMultiSelectorDescribe() {
+        return version != null;
+    }
+
+    /**
+     * @return true if the version of cleartool is known and at least the given one
+     */
+    public boolean isAtLeast(String otherVersion) {
+        if (version == null) {
+            return false;
+        }
+        String[] mine = version.split("\\.");
+        String[] other = otherVersion.split("\\.");
+        for (int i = 0; i < Math.max(mine.length, other.length); i++) {
+            int m = i < mine.length ? Integer.parseInt(mine[i]) : 0;
+            int o = i < other.length ? Integer.parseInt(other[i]) : 0;
+            if (m != o) {
+                return m > o;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the capabilities from the output of <code>cleartool -version</code>.
+     * 
+     * @param output the output of the command
+     * @param unix true if the node runs a Unix
+     * @param nullDeviceAvailable true if the Unix null device exists on the node
+     */
+    public static ClearToolCapabilities parse(String output, boolean unix, boolean nullDeviceAvailable) {
+        String version = null;
+        for (String line : output.split("\r?\n")) {
+            Matcher matcher = CLEARTOOL_VERSION.matcher(line.trim());
+            if (matcher.find()) {
+                version = matcher.group(1);
+                break;
+            }
+            matcher = CLEARCASE_VERSION.matcher(line.trim());
+            if (version == null && matcher.find()) {
+                version = matcher.group(1);
+            }
+        }
+        String nullDevice = null;
+        if (version != null) {
+            if (!unix) {
+                nullDevice = WINDOWS_NULL_DEVICE;
+            } else if (nullDeviceAvailable) {
+                nullDevice = UNIX_NULL_DEVICE;
+            }
+        }
+        return new ClearToolCapabilities(version, unix, nullDevice);
+    }
+
+    @Override
+    public String toString() {
+        return "cleartool " + (version != null ? version : "(unknown version)") + " on " + (unix ? "Unix" : "Windows") + ", null device "
+                + getNullDevice();
+    }
+
+    /**
+     * Runs, on the node, the feature checks on the output of <code>cleartool -version</code>.
+     */
+    public static class Probe implements ClearToolOutputProcessor<ClearToolCapabilities> {
+        private static final long serialVersionUID = 1L;
+
+        public ClearToolCapabilities process(BufferedReader output) throws IOException {
+            StringBuilder builder = new StringBuilder();
+            String line;
+            while ((line = output.readLine()) != null) {
+                builder.append(line).append('\n');
+            }
+            boolean unix = File.pathSeparatorChar == ':';
+            return parse(builder.toString(), unix, unix && new File(UNIX_NULL_DEVICE).exists());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.XmlFile;
+import hudson.model.Computer;
+import hudson.model.Hudson;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@link ClearToolCapabilities} of every node, probed once and persisted in the Hudson root directory so that they
+ * survive restarts.
+ * 
+ * The capabilities of a node are probed again when the cleartool executable of the node changes (a new ClearCase
+ * installation), when the installations are saved, and once they are older than
+ * <code>hudson.plugins.clearcase.ClearToolCapabilityCache.maxAge</code> minutes (one day by default), which catches the
+ * in-place upgrades of ClearCase.
+ */
+public class ClearToolCapabilityCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ClearToolCapabilityCache.class.getName());
+
+    private static final long MAX_AGE = Long.getLong(ClearToolCapabilityCache.class.getName() + ".maxAge", 24 * 60) * 60 * 1000L;
+
+    private static final ClearToolCapabilityCache INSTANCE = new ClearToolCapabilityCache();
+
+    /** Probed capabilities, keyed on the node name ("" for the master) */
+    private Map<String, Entry> entries;
+
+    public static ClearToolCapabilityCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the capabilities of the node the launcher runs its commands on, probing them if they are not known yet.
+     * 
+     * @return the capabilities of the node, {@link ClearToolCapabilities#CONSERVATIVE} if the probe failed
+     */
+    public ClearToolCapabilities getCapabilities(ClearToolLauncher launcher) throws InterruptedException {
+        String nodeName = getNodeName(launcher.getLauncher().getChannel());
+        String executable = launcher.getExecutable();
+        Entry entry = getEntry(nodeName);
+        if (entry != null && entry.isValidFor(executable)) {
+            return entry.capabilities;
+        }
+        ClearToolCapabilities capabilities;
+        try {
+            capabilities = launcher.runAndProcess(new String[] { "-version" }, null, new ClearToolCapabilities.Probe());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to probe the capabilities of cleartool on node '" + nodeName + "'", e);
+            return ClearToolCapabilities.CONSERVATIVE;
+        }
+        if (capabilities.getVersion() != null) {
+            putEntry(nodeName, new Entry(executable, capabilities));
+            LOGGER.log(Level.INFO, "Node '" + nodeName + "' runs " + capabilities);
+        }
+        return capabilities;
+    }
+
+    /**
+     * Forgets the capabilities of a node, they are probed again on the next command.
+     */
+    public synchronized void invalidate(String nodeName) {
+        if (getEntries().remove(nodeName) != null) {
+            save();
+        }
+    }
+
+    /**
+     * Forgets the capabilities of all the nodes.
+     */
+    public synchronized void invalidateAll() {
+        if (!getEntries().isEmpty()) {
+            getEntries().clear();
+            save();
+        }
+    }
+
+    private synchronized Entry getEntry(String nodeName) {
+        return getEntries().get(nodeName);
+    }
+
+    private synchronized void putEntry(String nodeName, Entry entry) {
+        getEntries().put(nodeName, entry);
+        save();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Entry> getEntries() {
+        if (entries == null) {
+            entries = new HashMap<String, Entry>();
+            XmlFile file = getConfigFile();
+            if (file != null && file.exists()) {
+                try {
+                    entries.putAll((Map<String, Entry>) file.read());
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Unable to load the cleartool capabilities from " + file, e);
+                } catch (ClassCastException e) {
+                    LOGGER.log(Level.WARNING, "Unable to load the cleartool capabilities from " + file, e);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private void save() {
+        XmlFile file = getConfigFile();
+        if (file == null) {
+            return;
+        }
+        try {
+            file.write(new HashMap<String, Entry>(entries));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to save the cleartool capabilities to " + file, e);
+        }
+    }
+
+    private static XmlFile getConfigFile() {
+        Hudson hudson = Hudson.getInstance();
+        if (hudson == null) {
+            return null;
+        }
+        return new XmlFile(Hudson.XSTREAM, new File(hudson.getRootDir(), ClearToolCapabilityCache.class.getName() + ".xml"));
+    }
+
+    /**
+     * @return the name of the node the channel leads to, empty for the master or an unknown channel
+     */
+    static String getNodeName(VirtualChannel channel) {
+        Hudson hudson = Hudson.getInstance();
+        if (channel == null || hudson == null) {
+            return "";
+        }
+        for (Computer computer : hudson.getComputers()) {
+            if (computer.getChannel() == channel) {
+                return computer.getName();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * The capabilities of one node.
+     */
+    public static class Entry {
+        private final String executable;
+        private final ClearToolCapabilities capabilities;
+        private final long probed;
+
+        public Entry(String executable, ClearToolCapabilities capabilities) {
+            this.executable = executable;
+            this.capabilities = capabilities;
+            this.probed = System.currentTimeMillis();
+        }
+
+        boolean isValidFor(String otherExecutable) {
+            return executable != null && executable.equals(otherExecutable) && System.currentTimeMillis() - probed < MAX_AGE;
+        }
+    }
+}
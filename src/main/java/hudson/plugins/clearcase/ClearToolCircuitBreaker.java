@@ -0,0 +1,471 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.remoting.VirtualChannel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Stops running cleartool commands against a server that does not answer.
+ * 
+ * Each node has its own circuit per target, the registry or a VOB, since a server unreachable from one node may answer
+ * the others. A circuit opens after a number of consecutive connection failures, recognized from the cleartool error
+ * messages, including those of the commands killed after their timeout. While it is open, the commands of the node
+ * against the target fail at once instead of forking a process that would block until its own network timeout. Once
+ * the open period has elapsed the circuit is half-open: a single command goes through as a probe, closing the circuit
+ * if it reaches the server and opening it again otherwise.
+ * 
+ * The commands whose VOBs cannot be told from their arguments only depend on the registry circuit, the others depend
+ * on both the registry and their VOBs circuits.
+ */
+public class ClearToolCircuitBreaker {
+
+    private static final Logger LOGGER = Logger.getLogger(ClearToolCircuitBreaker.class.getName());
+
+    /** Target of the commands talking to the registry server */
+    public static final String REGISTRY = "registry";
+
+    /** Prefix of the VOB targets */
+    public static final String VOB_PREFIX = "vob:";
+
+    /** Lower case fragments of the cleartool messages reporting that a server could not be reached */
+    private static final String[] CONNECTION_ERRORS = { "unable to contact", "unable to connect to", "unable to communicate with",
+            "trouble communicating with", "trouble contacting", "rpc: unable to", "rpc: timed out", "rpc timed out", "connection refused",
+            "connection timed out", "no route to host", "network is unreachable", "not responding" };
+
+    private static final ClearToolCircuitBreaker INSTANCE = new ClearToolCircuitBreaker(Integer.getInteger(
+            ClearToolCircuitBreaker.class.getName() + ".failureThreshold", 5).intValue(), TimeUnit.SECONDS.toMillis(Integer.getInteger(
+            ClearToolCircuitBreaker.class.getName() + ".openSeconds", 60).intValue()));
+
+    private final int failureThreshold;
+    private final long openMillis;
+    /** Circuits by node name, then by target */
+    private final Map<String, Map<String, Circuit>> circuits = new TreeMap<String, Map<String, Circuit>>();
+
+    /**
+     * @param failureThreshold the number of consecutive connection failures opening a circuit, 0 to disable the breaker
+     * @param openMillis how long a circuit stays open before letting a probe through
+     */
+    public ClearToolCircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    public static ClearToolCircuitBreaker get() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return failureThreshold > 0;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public long getOpenMillis() {
+        return openMillis;
+    }
+
+    /**
+     * Checks that the circuits of the node for the targets of a command let it through.
+     * 
+     * @param channel the channel of the node running the command, null for the master
+     * @param cmd the cleartool arguments, without the executable
+     * @return the attempt to report the outcome of the command to
+     * @throws ClearToolCircuitOpenException if one of the circuits is open
+     */
+    public Attempt attempt(VirtualChannel channel, String[] cmd) throws ClearToolCircuitOpenException {
+        if (!isEnabled()) {
+            return new Attempt(Collections.<Circuit> emptyList(), null);
+        }
+        Set<String> vobTargets = new TreeSet<String>();
+        for (String vob : ClearToolConcurrencyLimiter.getVobs(cmd)) {
+            vobTargets.add(VOB_PREFIX + vob);
+        }
+        List<String> targets = new ArrayList<String>();
+        targets.add(REGISTRY);
+        targets.addAll(vobTargets);
+
+        String node = getNodeName(channel);
+        long now = currentTimeMillis();
+        List<Circuit> allowed = new ArrayList<Circuit>();
+        for (String target : targets) {
+            Circuit circuit = getCircuit(node, target);
+            if (!circuit.allow(now)) {
+                for (Circuit other : allowed) {
+                    other.abandon();
+                }
+                throw new ClearToolCircuitOpenException(circuit.getNodeDisplayName(), target, circuit.getConsecutiveFailures(), circuit
+                        .getRetryMillis(now), circuit.getLastError());
+            }
+            allowed.add(circuit);
+        }
+        return new Attempt(allowed, vobTargets.isEmpty() ? Collections.singleton(REGISTRY) : vobTargets);
+    }
+
+    private synchronized Circuit getCircuit(String node, String target) {
+        Map<String, Circuit> nodeCircuits = circuits.get(node);
+        if (nodeCircuits == null) {
+            nodeCircuits = new TreeMap<String, Circuit>();
+            circuits.put(node, nodeCircuits);
+        }
+        Circuit circuit = nodeCircuits.get(target);
+        if (circuit == null) {
+            circuit = new Circuit(node, target);
+            nodeCircuits.put(target, circuit);
+        }
+        return circuit;
+    }
+
+    /**
+     * @return the circuits that have been used, by node and target
+     */
+    public synchronized List<Circuit> getCircuits() {
+        List<Circuit> all = new ArrayList<Circuit>();
+        for (Map<String, Circuit> nodeCircuits : circuits.values()) {
+            all.addAll(nodeCircuits.values());
+        }
+        return all;
+    }
+
+    /**
+     * Closes a circuit, the next command of the node against the target goes through.
+     * 
+     * @param node the name of the node, empty for the master
+     */
+    public synchronized void reset(String node, String target) {
+        Map<String, Circuit> nodeCircuits = circuits.get(node);
+        Circuit circuit = nodeCircuits != null ? nodeCircuits.get(target) : null;
+        if (circuit != null) {
+            circuit.success();
+        }
+    }
+
+    public synchronized void resetAll() {
+        for (Circuit circuit : getCircuits()) {
+            circuit.success();
+        }
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    protected String getNodeName(VirtualChannel channel) {
+        return ClearToolCapabilityCache.getNodeName(channel);
+    }
+
+    /**
+     * @param message a line of output or the message of an error
+     * @return true if the message reports that a ClearCase server could not be reached
+     */
+    public static boolean isConnectionError(String message) {
+        if (message == null) {
+            return false;
+        }
+        String lowerCase = message.toLowerCase();
+        for (String error : CONNECTION_ERRORS) {
+            if (lowerCase.contains(error)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Circuit of a target for a node.
+     */
+    public class Circuit {
+        private final String node;
+        private final String target;
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean probing;
+        private String lastError;
+        private long lastFailureAt;
+        private long rejected;
+
+        Circuit(String node, String target) {
+            this.node = node;
+            this.target = target;
+        }
+
+        synchronized boolean allow(long now) {
+            switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt < openMillis) {
+                    rejected++;
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probing = true;
+                return true;
+            default:
+                if (probing) {
+                    rejected++;
+                    return false;
+                }
+                probing = true;
+                return true;
+            }
+        }
+
+        synchronized void success() {
+            if (state != State.CLOSED) {
+                LOGGER.info("cleartool commands of " + getNodeDisplayName() + " against " + target + " are running again");
+            }
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            probing = false;
+        }
+
+        synchronized void failure(long now, String error) {
+            consecutiveFailures++;
+            lastError = error;
+            lastFailureAt = now;
+            probing = false;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                LOGGER.warning("Suspending the cleartool commands of " + getNodeDisplayName() + " against " + target + " for " + openMillis / 1000 + " seconds after "
+                        + consecutiveFailures + " consecutive connection failures: " + error);
+                state = State.OPEN;
+                openedAt = now;
+            }
+        }
+
+        /**
+         * Gives up a probe whose outcome says nothing about the target.
+         */
+        synchronized void abandon() {
+            probing = false;
+        }
+
+        /**
+         * @return the name of the node, empty for the master
+         */
+        public String getNode() {
+            return node;
+        }
+
+        public String getNodeDisplayName() {
+            return node.length() > 0 ? node : "master";
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public synchronized State getState() {
+            return state;
+        }
+
+        public synchronized int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        public synchronized String getLastError() {
+            return lastError;
+        }
+
+        public synchronized boolean isClosed() {
+            return state == State.CLOSED;
+        }
+
+        /**
+         * @return the time of the last connection failure, null if none
+         */
+        public synchronized Date getLastFailureDate() {
+            return lastFailureAt != 0 ? new Date(lastFailureAt) : null;
+        }
+
+        /**
+         * @return the number of commands that failed at once because the circuit was open
+         */
+        public synchronized long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return the number of milliseconds before a probe is let through, 0 if the circuit is not open
+         */
+        public synchronized long getRetryMillis(long now) {
+            return state == State.OPEN ? Math.max(0, openedAt + openMillis - now) : 0;
+        }
+
+        public long getRetrySeconds() {
+            return TimeUnit.MILLISECONDS.toSeconds(getRetryMillis(currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Outcome of a command that has been let through.
+     */
+    public class Attempt {
+        private final List<Circuit> circuits;
+        private final Collection<String> failureTargets;
+        private boolean done;
+
+        Attempt(List<Circuit> circuits, Collection<String> failureTargets) {
+            this.circuits = circuits;
+            this.failureTargets = failureTargets;
+        }
+
+        /**
+         * Reports a command that ran to completion, whatever its exit code.
+         * 
+         * @param error the connection error it reported, or any error message; null if none
+         */
+        public void completed(String error) {
+            if (isConnectionError(error)) {
+                failed(error);
+            } else {
+                finish(true);
+            }
+        }
+
+        /**
+         * Reports a command that has been killed after its timeout. The timeout only counts as a connection failure when
+         * the command reported one before being killed, a slow query against a healthy server leaves the circuits as
+         * they are.
+         * 
+         * @param error the connection error reported by the command, null if none
+         */
+        public void timedOut(String error) {
+            if (isConnectionError(error)) {
+                failed(error);
+            } else {
+                finish(false);
+            }
+        }
+
+        /**
+         * Reports a command whose outcome says nothing about the servers, such as an interrupted command.
+         */
+        public void abandon() {
+            finish(false);
+        }
+
+        private void failed(String error) {
+            if (done) {
+                return;
+            }
+            done = true;
+            // a registry error is blamed on the registry, any other one on the VOBs of the command
+            boolean registryError = error != null && error.toLowerCase().contains(REGISTRY);
+            long now = currentTimeMillis();
+            for (Circuit circuit : circuits) {
+                String target = circuit.getTarget();
+                if (registryError ? REGISTRY.equals(target) : failureTargets.contains(target)) {
+                    circuit.failure(now, error);
+                } else {
+                    circuit.abandon();
+                }
+            }
+        }
+
+        private void finish(boolean success) {
+            if (done) {
+                return;
+            }
+            done = true;
+            for (Circuit circuit : circuits) {
+                if (success) {
+                    circuit.success();
+                } else {
+                    circuit.abandon();
+                }
+            }
+        }
+    }
+
+    /**
+     * Watches the output of a command for the first connection error reported by cleartool.
+     */
+    public static class ErrorScanner extends OutputStream {
+        private static final int MAX_LINE_LENGTH = 1024;
+
+        private final StringBuilder line = new StringBuilder();
+        private String connectionError;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (b == '\n' || b == '\r') {
+                checkLine();
+            } else if (connectionError == null && line.length() < MAX_LINE_LENGTH) {
+                line.append((char) b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            checkLine();
+        }
+
+        private void checkLine() {
+            // only the messages of cleartool itself, not the comments or names it lists
+            if (connectionError == null && StringUtils.contains(line.toString(), "Error:") && isConnectionError(line.toString())) {
+                connectionError = line.toString().trim();
+            }
+            line.setLength(0);
+        }
+
+        /**
+         * @return the first connection error found in the output, null if none
+         */
+        public String getConnectionError() {
+            checkLine();
+            return connectionError;
+        }
+    }
+}
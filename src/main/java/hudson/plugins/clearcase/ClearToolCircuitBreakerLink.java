@@ -0,0 +1,110 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.Extension;
+import hudson.model.Hudson;
+import hudson.model.ManagementLink;
+import hudson.plugins.clearcase.history.HistoryProbe;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Status page of the cleartool circuit breakers, in the "Manage Hudson" page.
+ * 
+ * @see ClearToolCircuitBreaker
+ */
+@Extension
+public class ClearToolCircuitBreakerLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "gear2.gif";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "clearcase-circuits";
+    }
+
+    public String getDisplayName() {
+        return "ClearCase Servers";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Shows the registry and VOB servers whose cleartool commands are suspended after connection failures.";
+    }
+
+    public ClearToolCircuitBreaker getBreaker() {
+        return ClearToolCircuitBreaker.get();
+    }
+
+    public List<ClearToolCircuitBreaker.Circuit> getCircuits() {
+        return ClearToolCircuitBreaker.get().getCircuits();
+    }
+
+    /**
+     * @return the number of commands killed after their timeout, per subcommand
+     */
+    public Map<String, Long> getTimeoutCounts() {
+        return ClearToolTimeouts.getTimeoutCounts();
+    }
+
+    /**
+     * @return the cache of the read-only queries of each node
+     */
+    public Map<String, ClearToolQueryCache> getQueryCaches() {
+        return ClearToolQueryCache.all();
+    }
+
+    public HistoryProbe getProbe() {
+        return HistoryProbe.get();
+    }
+
+    public boolean isProbeEnabled() {
+        return HistoryProbe.isEnabled();
+    }
+
+    /**
+     * Closes a circuit, or all of them when no target is given.
+     */
+    public void doReset(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Hudson.getInstance().checkPermission(Hudson.ADMINISTER);
+        String target = req.getParameter("target");
+        if (target == null) {
+            ClearToolCircuitBreaker.get().resetAll();
+        } else {
+            ClearToolCircuitBreaker.get().reset(StringUtils.defaultString(req.getParameter("node")), target);
+        }
+        rsp.sendRedirect(".");
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of running a cleartool command against a target whose circuit is open.
+ * 
+ * @see ClearToolCircuitBreaker
+ */
+public class ClearToolCircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String target;
+
+    /**
+     * @param node the name of the node whose circuit is open
+     * @param target the target whose circuit is open
+     * @param failures the number of consecutive connection failures
+     * @param retryMillis the number of milliseconds before a probe is let through
+     * @param lastError the last connection error reported for the target
+     */
+    public ClearToolCircuitOpenException(String node, String target, int failures, long retryMillis, String lastError) {
+        super("cleartool commands of " + node + " against " + target + " are suspended after " + failures + " consecutive connection failures, next attempt in "
+                + (retryMillis + 999) / 1000 + " seconds. Last error: " + lastError);
+        this.target = target;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+}
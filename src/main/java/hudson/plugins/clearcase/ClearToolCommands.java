@@ -0,0 +1,95 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Names of the cleartool subcommands.
+ * 
+ * cleartool accepts the subcommands abbreviated down to a minimum length, <code>desc</code> for
+ * <code>describe</code> or <code>lsstr</code> for <code>lsstream</code>, and a few aliases such as
+ * <code>co</code>. Everything keyed on a subcommand goes through {@link #normalize(String)} so that the abbreviated
+ * and the full forms are handled the same way.
+ */
+public final class ClearToolCommands {
+
+    /** Subcommands that can be abbreviated, with the length of their shortest abbreviation */
+    private static final Map<String, Integer> ABBREVIATIONS = new HashMap<String, Integer>();
+
+    private static final Map<String, String> ALIASES = new HashMap<String, String>();
+
+    static {
+        ABBREVIATIONS.put("chstream", 5);
+        ABBREVIATIONS.put("describe", 3);
+        ABBREVIATIONS.put("lsactivity", 5);
+        ABBREVIATIONS.put("lshistory", 5);
+        ABBREVIATIONS.put("lsprivate", 4);
+        ABBREVIATIONS.put("lsproject", 6);
+        ABBREVIATIONS.put("lsstream", 5);
+        ABBREVIATIONS.put("mkactivity", 5);
+        ABBREVIATIONS.put("mkstream", 5);
+        ABBREVIATIONS.put("setactivity", 6);
+        ABBREVIATIONS.put("update", 3);
+
+        ALIASES.put("ci", "checkin");
+        ALIASES.put("co", "checkout");
+        ALIASES.put("lsco", "lscheckout");
+        ALIASES.put("unco", "uncheckout");
+    }
+
+    private ClearToolCommands() {
+    }
+
+    /**
+     * @param subcommand a subcommand as typed on the command line, may be null
+     * @return the full name of the subcommand, the subcommand itself if it is not an abbreviation
+     */
+    public static String normalize(String subcommand) {
+        if (subcommand == null) {
+            return null;
+        }
+        String alias = ALIASES.get(subcommand);
+        if (alias != null) {
+            return alias;
+        }
+        for (Map.Entry<String, Integer> abbreviation : ABBREVIATIONS.entrySet()) {
+            String name = abbreviation.getKey();
+            if (subcommand.length() >= abbreviation.getValue() && name.startsWith(subcommand)) {
+                return name;
+            }
+        }
+        return subcommand;
+    }
+
+    /**
+     * @param cmd a command line, without the cleartool executable
+     * @return the full name of its subcommand, null if the command line is empty
+     */
+    public static String getSubcommand(String[] cmd) {
+        return cmd.length > 0 ? normalize(cmd[0]) : null;
+    }
+}
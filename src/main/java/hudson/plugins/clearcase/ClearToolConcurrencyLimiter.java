@@ -0,0 +1,367 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.remoting.VirtualChannel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Bounds the number of cleartool commands running at the same time on each node and against each VOB.
+ * 
+ * The VOBs a command targets are guessed from its arguments: the VOB part of <code>object@vob</code> selectors and the
+ * first segment of the relative paths. Slots are handed out node slot first then VOB slots in name order, so that
+ * commands needing several VOBs cannot deadlock each other.
+ * 
+ * Each {@link ClearToolPriority} has its own queue and may only use its share of the slots: a freed slot goes to the
+ * oldest command of the most urgent class that still has room, so that builds never wait behind a wave of polls.
+ */
+public class ClearToolConcurrencyLimiter {
+
+    /** Options whose value is neither a selector nor a path */
+    private static final Set<String> OPTIONS_WITH_VALUE = new HashSet<String>(Arrays.asList("-fmt", "-c", "-comment", "-since", "-branch",
+            "-stgloc", "-host", "-hpath", "-gpath", "-tmode", "-level", "-nca"));
+
+    /** Usual root of the VOB tags on Unix */
+    private static final String VOBS_ROOT = "/vobs/";
+
+    private static final ClearToolConcurrencyLimiter INSTANCE = new ClearToolConcurrencyLimiter();
+
+    private final Map<VirtualChannel, Budget> nodeSlots = new WeakHashMap<VirtualChannel, Budget>();
+    private final Map<String, Budget> vobSlots = new HashMap<String, Budget>();
+    private Budget localSlots;
+
+    private int maxPerNode;
+    private int maxPerVob;
+
+    private long acquisitions;
+    private long queuedAcquisitions;
+    private long totalWaitMillis;
+    private long maxWaitMillis;
+    private final long[] queuedAcquisitionsByPriority = new long[ClearToolPriority.values().length];
+    private final long[] maxWaitMillisByPriority = new long[ClearToolPriority.values().length];
+
+    public static ClearToolConcurrencyLimiter get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Changes the limits, commands already running keep the slots they hold.
+     * 
+     * @param maxPerNode the maximum number of commands running on a node, 0 for no limit
+     * @param maxPerVob the maximum number of commands running against a VOB, 0 for no limit
+     */
+    public synchronized void configure(int maxPerNode, int maxPerVob) {
+        if (this.maxPerNode != maxPerNode) {
+            this.maxPerNode = maxPerNode;
+            nodeSlots.clear();
+            localSlots = null;
+        }
+        if (this.maxPerVob != maxPerVob) {
+            this.maxPerVob = maxPerVob;
+            vobSlots.clear();
+        }
+    }
+
+    public synchronized boolean isEnabled() {
+        return maxPerNode > 0 || maxPerVob > 0;
+    }
+
+    /**
+     * Waits for a build-critical slot on the node and on each of the VOBs.
+     * 
+     * @param channel the channel of the node, null for the master
+     * @param vobs the VOBs targeted by the command
+     * @return the permit to release once the command has completed
+     */
+    public Permit acquire(VirtualChannel channel, Collection<String> vobs) throws InterruptedException {
+        return acquire(channel, vobs, ClearToolPriority.BUILD);
+    }
+
+    /**
+     * Waits for a slot on the node and on each of the VOBs.
+     * 
+     * @param channel the channel of the node, null for the master
+     * @param vobs the VOBs targeted by the command
+     * @param priority the priority class of the command
+     * @return the permit to release once the command has completed
+     */
+    public Permit acquire(VirtualChannel channel, Collection<String> vobs, ClearToolPriority priority) throws InterruptedException {
+        List<Budget> budgets = new ArrayList<Budget>();
+        synchronized (this) {
+            if (maxPerNode > 0) {
+                budgets.add(getNodeSlots(channel));
+            }
+            if (maxPerVob > 0) {
+                for (String vob : new TreeSet<String>(vobs)) {
+                    Budget slots = vobSlots.get(vob);
+                    if (slots == null) {
+                        slots = new Budget(maxPerVob);
+                        vobSlots.put(vob, slots);
+                    }
+                    budgets.add(slots);
+                }
+            }
+        }
+        long start = System.currentTimeMillis();
+        Permit permit = new Permit(priority);
+        try {
+            for (Budget slots : budgets) {
+                if (slots.acquire(priority)) {
+                    permit.queued = true;
+                }
+                permit.acquired.add(slots);
+            }
+        } catch (InterruptedException e) {
+            permit.release();
+            throw e;
+        }
+        permit.waitMillis = System.currentTimeMillis() - start;
+        record(permit);
+        return permit;
+    }
+
+    private Budget getNodeSlots(VirtualChannel channel) {
+        if (channel == null) {
+            if (localSlots == null) {
+                localSlots = new Budget(maxPerNode);
+            }
+            return localSlots;
+        }
+        Budget slots = nodeSlots.get(channel);
+        if (slots == null) {
+            slots = new Budget(maxPerNode);
+            nodeSlots.put(channel, slots);
+        }
+        return slots;
+    }
+
+    private synchronized void record(Permit permit) {
+        acquisitions++;
+        if (permit.queued) {
+            int lane = permit.priority.ordinal();
+            queuedAcquisitions++;
+            totalWaitMillis += permit.waitMillis;
+            maxWaitMillis = Math.max(maxWaitMillis, permit.waitMillis);
+            queuedAcquisitionsByPriority[lane]++;
+            maxWaitMillisByPriority[lane] = Math.max(maxWaitMillisByPriority[lane], permit.waitMillis);
+        }
+    }
+
+    /**
+     * @param cmd the cleartool arguments, without the executable
+     * @return the VOBs the command targets, as far as they can be told from its arguments
+     */
+    public static SortedSet<String> getVobs(String[] cmd) {
+        SortedSet<String> vobs = new TreeSet<String>();
+        for (int i = 1; i < cmd.length; i++) {
+            String arg = cmd[i];
+            if (arg.startsWith("-")) {
+                if (OPTIONS_WITH_VALUE.contains(arg)) {
+                    i++;
+                }
+                continue;
+            }
+            String vob = getVob(arg);
+            if (vob != null) {
+                vobs.add(vob);
+            }
+        }
+        return vobs;
+    }
+
+    private static String getVob(String arg) {
+        String path = arg;
+        if (arg.indexOf("@@") >= 0) {
+            path = StringUtils.substringBefore(arg, "@@");
+        } else if (arg.indexOf('@') >= 0) {
+            return StringUtils.stripToNull(StringUtils.strip(StringUtils.substringAfterLast(arg, "@").replace('\\', '/'), "/"));
+        }
+        path = path.replace('\\', '/');
+        if (path.indexOf(':') >= 0 || path.indexOf('/') < 0 || (path.startsWith("/") && !path.startsWith(VOBS_ROOT))) {
+            return null;
+        }
+        String[] segments = StringUtils.split(path, '/');
+        if (segments.length == 0 || ".".equals(segments[0]) || "..".equals(segments[0])) {
+            return null;
+        }
+        if (VOBS_ROOT.equals("/" + segments[0] + "/") && segments.length > 1) {
+            return segments[0] + "/" + segments[1];
+        }
+        return segments[0];
+    }
+
+    public synchronized long getAcquisitions() {
+        return acquisitions;
+    }
+
+    /**
+     * @return the number of commands that had to wait for a slot
+     */
+    public synchronized long getQueuedAcquisitions() {
+        return queuedAcquisitions;
+    }
+
+    public synchronized long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    public synchronized long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * @return the number of commands of the given priority class that had to wait for a slot
+     */
+    public synchronized long getQueuedAcquisitions(ClearToolPriority priority) {
+        return queuedAcquisitionsByPriority[priority.ordinal()];
+    }
+
+    public synchronized long getMaxWaitMillis(ClearToolPriority priority) {
+        return maxWaitMillisByPriority[priority.ordinal()];
+    }
+
+    /**
+     * Slots of a node or of a VOB, shared by the priority classes.
+     */
+    static class Budget {
+        private final int capacity;
+        private final int[] running = new int[ClearToolPriority.values().length];
+        private final List<LinkedList<Object>> queues = new ArrayList<LinkedList<Object>>();
+        private int total;
+
+        Budget(int capacity) {
+            this.capacity = capacity;
+            for (int i = 0; i < running.length; i++) {
+                queues.add(new LinkedList<Object>());
+            }
+        }
+
+        /**
+         * Waits for a slot.
+         * 
+         * @return true if the command had to wait
+         */
+        synchronized boolean acquire(ClearToolPriority priority) throws InterruptedException {
+            int lane = priority.ordinal();
+            LinkedList<Object> queue = queues.get(lane);
+            if (queue.isEmpty() && isGrantable(lane)) {
+                grant(lane);
+                return false;
+            }
+            Object ticket = new Object();
+            queue.addLast(ticket);
+            try {
+                while (queue.getFirst() != ticket || !isGrantable(lane)) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                queue.remove(ticket);
+                notifyAll();
+                throw e;
+            }
+            queue.removeFirst();
+            grant(lane);
+            // the next command of the queue may fit as well
+            notifyAll();
+            return true;
+        }
+
+        synchronized void release(ClearToolPriority priority) {
+            running[priority.ordinal()]--;
+            total--;
+            notifyAll();
+        }
+
+        /**
+         * @return true if the class has room and no more urgent class waits for a slot it could take
+         */
+        private boolean isGrantable(int lane) {
+            if (!hasRoom(lane)) {
+                return false;
+            }
+            for (int i = 0; i < lane; i++) {
+                if (!queues.get(i).isEmpty() && hasRoom(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean hasRoom(int lane) {
+            return total < capacity && running[lane] < ClearToolPriority.values()[lane].getSlots(capacity);
+        }
+
+        private void grant(int lane) {
+            running[lane]++;
+            total++;
+        }
+    }
+
+    /**
+     * Slots held by one command.
+     */
+    public static class Permit {
+        private final List<Budget> acquired = new ArrayList<Budget>();
+        private final ClearToolPriority priority;
+        private long waitMillis;
+        private boolean queued;
+
+        Permit(ClearToolPriority priority) {
+            this.priority = priority;
+        }
+
+        public ClearToolPriority getPriority() {
+            return priority;
+        }
+
+        /**
+         * @return how long the command waited for its slots
+         */
+        public long getWaitMillis() {
+            return waitMillis;
+        }
+
+        public void release() {
+            for (Budget slots : acquired) {
+                slots.release(priority);
+            }
+            acquired.clear();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.plugins.clearcase.history.Filter;
+import hudson.plugins.clearcase.history.HistoryEntry;
+import hudson.plugins.clearcase.history.HistoryParser;
+import hudson.plugins.clearcase.history.HistoryScan;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Base class for {@link ClearTool} decorators, forwarding every call to the decorated instance.
+ */
+public abstract class ClearToolDecorator implements ClearTool {
+
+    protected final ClearTool delegate;
+
+    public ClearToolDecorator(ClearTool delegate) {
+        this.delegate = delegate;
+    }
+
+    public ClearTool getDelegate() {
+        return delegate;
+    }
+
+    public String catcs(String viewTag) throws IOException, InterruptedException {
+        return delegate.catcs(viewTag);
+    }
+
+    public Reader describe(String format, String objectSelector) throws IOException, InterruptedException {
+        return delegate.describe(format, objectSelector);
+    }
+
+    public Reader describeStreaming(String format, String objectSelector) throws IOException, InterruptedException {
+        return delegate.describeStreaming(format, objectSelector);
+    }
+
+    public Reader diffbl(EnumSet<DiffBlOptions> options, String baseline1, String baseline2, String viewPath) throws IOException {
+        return delegate.diffbl(options, baseline1, baseline2, viewPath);
+    }
+
+    public boolean doesStreamExist(String streamSelector) throws IOException, InterruptedException {
+        return delegate.doesStreamExist(streamSelector);
+    }
+
+    public boolean doesViewExist(String viewTag) throws IOException, InterruptedException {
+        return delegate.doesViewExist(viewTag);
+    }
+
+    public void endView(String viewTag) throws IOException, InterruptedException {
+        delegate.endView(viewTag);
+    }
+
+    public ViewStatus getViewStatus(String viewPath, String viewTag) throws IOException, InterruptedException {
+        return delegate.getViewStatus(viewPath, viewTag);
+    }
+
+    public ClearToolLauncher getLauncher() {
+        return delegate.getLauncher();
+    }
+
+    public ClearToolCapabilities getCapabilities() throws InterruptedException {
+        return delegate.getCapabilities();
+    }
+
+    public Properties getViewData(String viewTag) throws IOException, InterruptedException {
+        return delegate.getViewData(viewTag);
+    }
+
+    public void logRedundantCleartoolError(String[] cmd, Exception ex) {
+        delegate.logRedundantCleartoolError(cmd, ex);
+    }
+
+    public boolean lock(String comment, String objectSelector) throws IOException, InterruptedException {
+        return delegate.lock(comment, objectSelector);
+    }
+
+    public Reader lsactivity(String activity, String commandFormat, String viewPath) throws IOException, InterruptedException {
+        return delegate.lsactivity(activity, commandFormat, viewPath);
+    }
+
+    public String lsbl(String baselineName, String format) throws IOException, InterruptedException {
+        return delegate.lsbl(baselineName, format);
+    }
+
+    public String lscurrentview(String viewPath) throws IOException, InterruptedException {
+        return delegate.lscurrentview(viewPath);
+    }
+
+    public Reader lshistory(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView, boolean getMinor) throws IOException,
+            InterruptedException {
+        return delegate.lshistory(format, lastBuildDate, viewPath, branch, pathsInView, getMinor);
+    }
+
+    public Reader lshistoryStreaming(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView, boolean getMinor)
+            throws IOException, InterruptedException {
+        return delegate.lshistoryStreaming(format, lastBuildDate, viewPath, branch, pathsInView, getMinor);
+    }
+
+    public List<HistoryEntry> lshistoryFiltered(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView, boolean getMinor,
+            HistoryParser parser, Filter filter) throws IOException, InterruptedException {
+        return delegate.lshistoryFiltered(format, lastBuildDate, viewPath, branch, pathsInView, getMinor, parser, filter);
+    }
+
+    public HistoryScan lshistoryFirst(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView, boolean getMinor,
+            HistoryParser parser, Filter filter, HistoryScan scan) throws IOException, InterruptedException {
+        return delegate.lshistoryFirst(format, lastBuildDate, viewPath, branch, pathsInView, getMinor, parser, filter, scan);
+    }
+
+    public Date lshistoryLatest(String viewPath, String branch, String[] vobPaths, boolean getMinor) throws IOException, InterruptedException {
+        return delegate.lshistoryLatest(viewPath, branch, vobPaths, getMinor);
+    }
+
+    public String lsproject(String viewTag, String format) throws InterruptedException, IOException {
+        return delegate.lsproject(viewTag, format);
+    }
+
+    public String lsstream(String stream, String viewTag, String format) throws IOException, InterruptedException {
+        return delegate.lsstream(stream, viewTag, format);
+    }
+
+    public List<String> lsview(boolean onlyActiveDynamicViews) throws IOException, InterruptedException {
+        return delegate.lsview(onlyActiveDynamicViews);
+    }
+
+    public List<String> lsvob(boolean onlyMounted) throws IOException, InterruptedException {
+        return delegate.lsvob(onlyMounted);
+    }
+
+    public void mklabel(String viewPath, String label) throws IOException, InterruptedException {
+        delegate.mklabel(viewPath, label);
+    }
+
+    public List<Baseline> mkbl(String name, String viewTag, String comment, boolean fullBaseline, boolean identical, List<String> components,
+            String dDependOn, String aDependOn) throws IOException, InterruptedException {
+        return delegate.mkbl(name, viewTag, comment, fullBaseline, identical, components, dDependOn, aDependOn);
+    }
+
+    public void mkstream(String parentStream, String stream) throws IOException, InterruptedException {
+        delegate.mkstream(parentStream, stream);
+    }
+
+    public void mkview(String viewPath, String viewTag, String streamSelector) throws IOException, InterruptedException {
+        delegate.mkview(viewPath, viewTag, streamSelector);
+    }
+
+    public void mkview(String viewPath, String viewTag, String streamSelector, String defaultStorageDir) throws IOException, InterruptedException {
+        delegate.mkview(viewPath, viewTag, streamSelector, defaultStorageDir);
+    }
+
+    public void mountVobs() throws IOException, InterruptedException {
+        delegate.mountVobs();
+    }
+
+    public String pwv(String viewPath) throws IOException, InterruptedException {
+        return delegate.pwv(viewPath);
+    }
+
+    public void rebaseDynamic(String viewTag, String baseline) throws IOException, InterruptedException {
+        delegate.rebaseDynamic(viewTag, baseline);
+    }
+
+    public void recommendBaseline(String streamSelector) throws IOException, InterruptedException {
+        delegate.recommendBaseline(streamSelector);
+    }
+
+    public void rmview(String viewPath) throws IOException, InterruptedException {
+        delegate.rmview(viewPath);
+    }
+
+    public void rmviewtag(String viewTag) throws IOException, InterruptedException {
+        delegate.rmviewtag(viewTag);
+    }
+
+    public void rmtag(String tag) throws IOException, InterruptedException {
+        delegate.rmtag(tag);
+    }
+
+    public void rmviewUuid(String viewUuid) throws IOException, InterruptedException {
+        delegate.rmviewUuid(viewUuid);
+    }
+
+    public void setBaselinePromotionLevel(String baselineName, String promotionLevel) throws IOException, InterruptedException {
+        delegate.setBaselinePromotionLevel(baselineName, promotionLevel);
+    }
+
+    public void setBaselinePromotionLevel(String baselineName, DefaultPromotionLevel promotionLevel) throws IOException, InterruptedException {
+        delegate.setBaselinePromotionLevel(baselineName, promotionLevel);
+    }
+
+    public void setcs(String viewPath, SetcsOption option, String configSpec) throws IOException, InterruptedException {
+        delegate.setcs(viewPath, option, configSpec);
+    }
+
+    public void setcsTag(String viewTag, SetcsOption option, String configSpec) throws IOException, InterruptedException {
+        delegate.setcsTag(viewTag, option, configSpec);
+    }
+
+    public void startView(String viewTags) throws IOException, InterruptedException {
+        delegate.startView(viewTags);
+    }
+
+    public void unlock(String comment, String objectSelector) throws IOException, InterruptedException {
+        delegate.unlock(comment, objectSelector);
+    }
+
+    public void unregisterView(String viewUuid) throws IOException, InterruptedException {
+        delegate.unregisterView(viewUuid);
+    }
+
+    public void update(String viewPath, String[] loadRules) throws IOException, InterruptedException {
+        delegate.update(viewPath, loadRules);
+    }
+}
@@ -27,10 +27,22 @@ package hudson.plugins.clearcase;
 import hudson.AbortException;
 import hudson.FilePath;
 import hudson.Util;
+import hudson.plugins.clearcase.history.Filter;
+import hudson.plugins.clearcase.history.FirstChangeQuery;
+import hudson.plugins.clearcase.history.HistoryEntry;
+import hudson.plugins.clearcase.history.HistoryParser;
+import hudson.plugins.clearcase.history.HistoryProbe;
+import hudson.plugins.clearcase.history.HistoryQuery;
+import hudson.plugins.clearcase.history.HistoryScan;
+import hudson.plugins.clearcase.util.ArgumentChunker;
+import hudson.plugins.clearcase.util.BoundedPipe;
+import hudson.plugins.clearcase.util.FutureUtil;
 import hudson.plugins.clearcase.util.PathUtil;
+import hudson.plugins.clearcase.util.SequenceReader;
 import hudson.util.ArgumentListBuilder;
 import hudson.util.VariableResolver;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -40,16 +52,25 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.io.StringReader;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -60,10 +81,26 @@ import org.apache.commons.lang.Validate;
 
 public abstract class ClearToolExec implements ClearTool {
 
+    /** Number of output chunks buffered between a streamed command and its reader */
+    private static final int STREAMING_BUFFER_CHUNKS = 64;
+
+    private static final ExecutorService STREAMING_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "cleartool output streaming");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private static final Pattern VIEW_UUID_PATTERN = Pattern.compile("View uuid: (.*)");
+    private static final Pattern VIEW_STORAGE_PATTERN = Pattern.compile("View server access path: (.*)");
+
     private transient Pattern viewListPattern;
     protected ClearToolLauncher launcher;
     protected VariableResolver<String> variableResolver;
     protected String optionalMkviewParameters;
+    private ClearToolCapabilities capabilities;
+    private boolean probeCapabilities;
 
     public ClearToolExec(VariableResolver<String> variableResolver, ClearToolLauncher launcher, String optionalMkviewParameters) {
         this.variableResolver = variableResolver;
@@ -80,6 +117,20 @@ public abstract class ClearToolExec implements ClearTool {
 
     @Override
     public Reader describe(String format, String objectSelectors) throws IOException, InterruptedException {
+        ArgumentListBuilder cmd = createDescribeCommand(format, objectSelectors);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        launcher.run(cmd.toCommandArray(), null, baos, null);
+        Reader reader = new InputStreamReader(new ByteArrayInputStream(baos.toByteArray()));
+        baos.close();
+        return reader;
+    }
+
+    @Override
+    public Reader describeStreaming(String format, String objectSelectors) throws IOException, InterruptedException {
+        return runStreaming(createDescribeCommand(format, objectSelectors), null, false);
+    }
+
+    private ArgumentListBuilder createDescribeCommand(String format, String objectSelectors) {
         Validate.notNull(objectSelectors);
         ArgumentListBuilder cmd = new ArgumentListBuilder();
         cmd.add("desc");
@@ -87,11 +138,7 @@ public abstract class ClearToolExec implements ClearTool {
             cmd.add("-fmt", format);
         }
         cmd.addTokenized(objectSelectors);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        launcher.run(cmd.toCommandArray(), null, baos, null);
-        Reader reader = new InputStreamReader(new ByteArrayInputStream(baos.toByteArray()));
-        baos.close();
-        return reader;
+        return cmd;
     }
 
     @Override
@@ -121,6 +168,9 @@ public abstract class ClearToolExec implements ClearTool {
         }
         try {
             launcher.run(cmd.toCommandArray(), null, out, workingDirectory);
+        } catch (ClearToolTimeoutException e) {
+            out.close();
+            throw e;
         } catch (IOException e) {
         } catch (InterruptedException e) {
         }
@@ -139,6 +189,8 @@ public abstract class ClearToolExec implements ClearTool {
 
         try {
             launcher.run(cmd.toCommandArray(), null, baos, null);
+        } catch (ClearToolTimeoutException e) {
+            throw e;
         } catch (Exception e) {
             // empty by design
         }
@@ -155,6 +207,8 @@ public abstract class ClearToolExec implements ClearTool {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try {
             return launcher.run(cmd.toCommandArray(), null, baos, null);
+        } catch (ClearToolTimeoutException e) {
+            throw e;
         } catch (IOException e) {
             return false;
         }
@@ -188,6 +242,29 @@ public abstract class ClearToolExec implements ClearTool {
         return launcher;
     }
 
+    public ClearToolCapabilities getCapabilities() throws InterruptedException {
+        if (capabilities == null) {
+            if (probeCapabilities) {
+                capabilities = ClearToolCapabilityCache.get().getCapabilities(launcher);
+            } else {
+                capabilities = ClearToolCapabilities.CONSERVATIVE;
+            }
+        }
+        return capabilities;
+    }
+
+    public void setCapabilities(ClearToolCapabilities capabilities) {
+        this.capabilities = capabilities;
+    }
+
+    /**
+     * When set, the capabilities of the node are probed (once per node, see {@link ClearToolCapabilityCache}) before the
+     * first command depending on them. Otherwise the conservative forms of the commands are used.
+     */
+    public void setProbeCapabilities(boolean probeCapabilities) {
+        this.probeCapabilities = probeCapabilities;
+    }
+
     private Pattern getListPattern() {
         if (viewListPattern == null) {
             viewListPattern = Pattern.compile("(.)\\s*(\\S*)\\s*(\\S*)");
@@ -237,8 +314,6 @@ public abstract class ClearToolExec implements ClearTool {
         cmd.add("lsview");
         cmd.add("-l", viewTag);
 
-        Pattern uuidPattern = Pattern.compile("View uuid: (.*)");
-        Pattern globalPathPattern = Pattern.compile("View server access path: (.*)");
         boolean res = true;
         IOException exception = null;
         List<IOException> exceptions = new ArrayList<IOException>();
@@ -252,11 +327,11 @@ public abstract class ClearToolExec implements ClearTool {
         if (res && exception == null) {
             String[] lines = output.split("\n");
             for (String line : lines) {
-                Matcher matcher = uuidPattern.matcher(line);
+                Matcher matcher = VIEW_UUID_PATTERN.matcher(line);
                 if (matcher.find() && matcher.groupCount() == 1)
                     resPrp.put("UUID", matcher.group(1));
 
-                matcher = globalPathPattern.matcher(line);
+                matcher = VIEW_STORAGE_PATTERN.matcher(line);
                 if (matcher.find() && matcher.groupCount() == 1)
                     resPrp.put("STORAGE_DIR", matcher.group(1));
             }
@@ -265,6 +340,57 @@ public abstract class ClearToolExec implements ClearTool {
         return resPrp;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * Runs <code>lsview -long -properties -full</code> and reads the <code>view.dat</code> file of the directory. When the
+     * view and the directory exist but the directory is not the root of a snapshot view, the current view of the directory
+     * is retrieved with <code>lsview -cview</code>.
+     */
+    public ViewStatus getViewStatus(String viewPath, String viewTag) throws IOException, InterruptedException {
+        ViewStatus.Directory directory = getRootViewPath(launcher).child(viewPath).act(new ViewStatus.DirectoryProbe());
+
+        ArgumentListBuilder cmd = new ArgumentListBuilder();
+        cmd.add("lsview", "-long", "-properties", "-full", viewTag);
+        List<IOException> exceptions = new ArrayList<IOException>();
+        String output = runAndProcessOutput(cmd, null, null, true, exceptions);
+        boolean viewExists = true;
+        if (!exceptions.isEmpty() || output.contains("cleartool: Error")) {
+            if (!output.contains("No matching entries found")) {
+                throw !exceptions.isEmpty() ? exceptions.get(0) : new IOException("Failed to list view " + viewTag + ": " + output);
+            }
+            viewExists = false;
+        }
+        Properties properties = new Properties();
+        if (viewExists) {
+            for (String line : output.split("\n")) {
+                String trimmed = line.trim();
+                putViewProperty(properties, ViewStatus.UUID, trimmed, "View uuid:");
+                putViewProperty(properties, ViewStatus.STORAGE_DIR, trimmed, "View server access path:");
+                putViewProperty(properties, ViewStatus.GLOBAL_PATH, trimmed, "Global path:");
+                putViewProperty(properties, ViewStatus.ATTRIBUTES, trimmed, "View attributes:");
+            }
+        }
+
+        String currentViewTag = null;
+        String rootPath = null;
+        if (viewExists && directory.exists()) {
+            if (directory.isViewRoot(properties.getProperty(ViewStatus.UUID))) {
+                currentViewTag = viewTag;
+                rootPath = directory.getPath();
+            } else if (directory.getViewUuid() == null) {
+                currentViewTag = lscurrentview(viewPath);
+            }
+        }
+        return new ViewStatus(viewTag, viewExists, directory.exists(), currentViewTag, rootPath, properties);
+    }
+
+    private static void putViewProperty(Properties properties, String key, String line, String prefix) {
+        if (line.startsWith(prefix)) {
+            properties.put(key, line.substring(prefix.length()).trim());
+        }
+    }
+
     public boolean lock(String comment, String objectSelector) throws IOException, InterruptedException {
         ArgumentListBuilder cmd = new ArgumentListBuilder();
 
@@ -292,19 +418,21 @@ public abstract class ClearToolExec implements ClearTool {
     }
 
     public Reader lsactivity(String activity, String commandFormat, String viewPath) throws IOException, InterruptedException {
-        ArgumentListBuilder cmd = new ArgumentListBuilder();
-        cmd.add("lsactivity");
-        cmd.add("-fmt", commandFormat);
-        cmd.add(activity);
+        ArgumentListBuilder cmd = createLsactivityCommand(activity, commandFormat);
 
         // changed the path from workspace to getRootViewPath to make Dynamic UCM work
         FilePath filePath = getRootViewPath(launcher).child(viewPath);
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        launcher.run(cmd.toCommandArray(), null, baos, filePath);
-        InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(baos.toByteArray()));
-        baos.close();
-        return reader;
+        // a single line, not worth streaming
+        return new StringReader(runAndProcessOutput(cmd, null, filePath, false, null));
+    }
+
+    private ArgumentListBuilder createLsactivityCommand(String activity, String commandFormat) {
+        ArgumentListBuilder cmd = new ArgumentListBuilder();
+        cmd.add("lsactivity");
+        cmd.add("-fmt", commandFormat);
+        cmd.add(activity);
+        return cmd;
     }
     
     public String lsbl(String baselineName, String format) throws IOException, InterruptedException {
@@ -339,6 +467,167 @@ public abstract class ClearToolExec implements ClearTool {
 
     @Override
     public Reader lshistory(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView, boolean getMinor) throws IOException, InterruptedException {
+        List<ArgumentListBuilder> cmds = createLshistoryCommands(format, lastBuildDate, viewPath, branch, pathsInView, getMinor);
+        final FilePath filePath = getRootViewPath(launcher).child(viewPath);
+
+        List<byte[]> outputs = runChunks(cmds, new ChunkRunner<byte[]>() {
+            public byte[] run(ArgumentListBuilder cmd) throws IOException, InterruptedException {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                try {
+                    launcher.run(cmd.toCommandArray(), null, baos, filePath);
+                } catch (ClearToolTimeoutException e) {
+                    throw e;
+                } catch (IOException e) {
+                    // We don't care if Clearcase returns an error code, we will process it afterwards
+                }
+                baos.close();
+                return baos.toByteArray();
+            }
+        });
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (byte[] chunkOutput : outputs) {
+            output.write(chunkOutput);
+        }
+        return new InputStreamReader(new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * When the paths do not fit in a single command line, the commands of the chunks run one after the other as the
+     * output is read.
+     */
+    @Override
+    public Reader lshistoryStreaming(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView, boolean getMinor) throws IOException,
+            InterruptedException {
+        List<ArgumentListBuilder> cmds = createLshistoryCommands(format, lastBuildDate, viewPath, branch, pathsInView, getMinor);
+        final FilePath filePath = getRootViewPath(launcher).child(viewPath);
+        // Like lshistory, the error code is not checked, errors are processed while parsing the output
+        if (cmds.size() == 1) {
+            return runStreaming(cmds.get(0), filePath, true);
+        }
+        List<SequenceReader.Source> chunks = new ArrayList<SequenceReader.Source>();
+        for (final ArgumentListBuilder cmd : cmds) {
+            chunks.add(new SequenceReader.Source() {
+                public Reader open() {
+                    return runStreaming(cmd, filePath, true);
+                }
+            });
+        }
+        return new SequenceReader(chunks);
+    }
+
+    @Override
+    public List<HistoryEntry> lshistoryFiltered(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView, boolean getMinor,
+            final HistoryParser parser, final Filter filter) throws IOException, InterruptedException {
+        List<ArgumentListBuilder> cmds = createLshistoryCommands(format, lastBuildDate, viewPath, branch, pathsInView, getMinor);
+        final FilePath filePath = getRootViewPath(launcher).child(viewPath);
+        List<List<HistoryEntry>> chunks = runChunks(cmds, new ChunkRunner<List<HistoryEntry>>() {
+            public List<HistoryEntry> run(ArgumentListBuilder cmd) throws IOException, InterruptedException {
+                return launcher.runAndProcess(cmd.toCommandArray(), filePath, new HistoryQuery(parser, filter));
+            }
+        });
+        if (chunks.size() == 1) {
+            return chunks.get(0);
+        }
+        List<HistoryEntry> entries = new ArrayList<HistoryEntry>();
+        for (List<HistoryEntry> chunk : chunks) {
+            entries.addAll(chunk);
+        }
+        return entries;
+    }
+
+    public HistoryScan lshistoryFirst(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView, boolean getMinor,
+            HistoryParser parser, Filter filter, HistoryScan scan) throws IOException, InterruptedException {
+        FilePath filePath = getRootViewPath(launcher).child(viewPath);
+        // the chunks run one after another, the following ones are not needed once a change is found
+        for (ArgumentListBuilder cmd : createLshistoryCommands(format, lastBuildDate, viewPath, branch, pathsInView, getMinor)) {
+            scan = launcher.runAndProcess(cmd.toCommandArray(), filePath, new FirstChangeQuery(parser, filter, scan));
+            if (scan.getFirstChange() != null) {
+                break;
+            }
+        }
+        return scan;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The VOBs are listed one after the other. A failure of lshistory, such as a branch type missing from a VOB, is
+     * thrown.
+     */
+    public Date lshistoryLatest(String viewPath, String branch, String[] vobPaths, boolean getMinor) throws IOException, InterruptedException {
+        Validate.notNull(vobPaths);
+        FilePath filePath = getRootViewPath(launcher).child(viewPath);
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd.HHmmss");
+        Date latest = null;
+        for (String vobPath : vobPaths) {
+            ArgumentListBuilder cmd = new ArgumentListBuilder();
+            cmd.add("lshistory", "-all", "-last", "1", "-fmt", "%Nd\\n");
+            if (StringUtils.isNotEmpty(branch)) {
+                cmd.add("-branch", "brtype:" + branch);
+            }
+            if (getMinor) {
+                cmd.add("-minor");
+            }
+            cmd.add("-nco");
+            cmd.add(vobPath);
+            String output = runAndProcessOutput(cmd, null, filePath, false, null);
+            for (String line : output.split("\n")) {
+                if (StringUtils.isBlank(line)) {
+                    continue;
+                }
+                try {
+                    Date date = dateFormat.parse(line.trim());
+                    if (latest == null || date.after(latest)) {
+                        latest = date;
+                    }
+                } catch (ParseException e) {
+                    throw new IOException("Unexpected output for command \"cleartool lshistory -last 1\" on " + vobPath + ": " + line);
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Runs a command split in chunks, each chunk of operands in its own command.
+     */
+    protected interface ChunkRunner<T> {
+        T run(ArgumentListBuilder cmd) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Runs the commands of the chunks at the same time in the pool of the node, unless there is a single one.
+     * 
+     * @return the results of the chunks, in order
+     * @see ArgumentChunker
+     */
+    protected <T> List<T> runChunks(List<ArgumentListBuilder> cmds, final ChunkRunner<T> runner) throws IOException, InterruptedException {
+        if (cmds.size() == 1) {
+            return Collections.singletonList(runner.run(cmds.get(0)));
+        }
+        AsyncClearTool asyncClearTool = new ExecutorAsyncClearTool(this);
+        List<Future<T>> results = new ArrayList<Future<T>>();
+        for (final ArgumentListBuilder cmd : cmds) {
+            results.add(asyncClearTool.submit(new Callable<T>() {
+                public T call() throws IOException, InterruptedException {
+                    return runner.run(cmd);
+                }
+            }));
+        }
+        return FutureUtil.getAll(results);
+    }
+
+    /**
+     * lshistory -all lists the history of the whole VOB of each path, so the paths are replaced by the roots of their
+     * VOBs, each VOB being listed once. The roots are split over several commands when they do not fit in a single
+     * command line, each VOB being in a single command.
+     * 
+     * @return the lshistory commands
+     */
+    private List<ArgumentListBuilder> createLshistoryCommands(String format, Date lastBuildDate, String viewPath, String branch, String[] pathsInView,
+            boolean getMinor) {
         Validate.notNull(pathsInView);
         Validate.notNull(viewPath);
         SimpleDateFormat formatter = new SimpleDateFormat("d-MMM-yy.HH:mm:ss'UTC'Z", Locale.US);
@@ -358,27 +647,20 @@ public abstract class ClearToolExec implements ClearTool {
         }
         cmd.add("-nco");
 
-        FilePath filePath = getRootViewPath(launcher).child(viewPath);
-
-        for (String path : pathsInView) {
-            path = path.replace("\n", "").replace("\r", "");
+        String[] cleanPaths = new String[pathsInView.length];
+        for (int i = 0; i < pathsInView.length; i++) {
+            cleanPaths[i] = pathsInView[i].replace("\n", "").replace("\r", "");
+        }
+        List<String> paths = new ArrayList<String>();
+        for (String path : HistoryProbe.getVobRoots(cleanPaths)) {
             if (path.matches(".*\\s.*")) {
-                cmd.addQuoted(path);
+                // as ArgumentListBuilder.addQuoted()
+                paths.add("\"" + path + "\"");
             } else {
-                cmd.add(path);
+                paths.add(path);
             }
         }
-        Reader returnReader = null;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            launcher.run(cmd.toCommandArray(), null, baos, filePath);
-        } catch (IOException e) {
-            // We don't care if Clearcase returns an error code, we will process it afterwards
-        }
-        returnReader = new InputStreamReader(new ByteArrayInputStream(baos.toByteArray()));
-        baos.close();
-
-        return returnReader;
+        return ArgumentChunker.split(cmd, paths);
     }
     
     public String lsproject(String viewTag, String format) throws InterruptedException, IOException {
@@ -393,6 +675,8 @@ public abstract class ClearToolExec implements ClearTool {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try {
             launcher.run(cmd.toCommandArray(), null, baos, null);
+        } catch (ClearToolTimeoutException e) {
+            throw e;
         } catch (IOException e) {
             // We don't care if Clearcase returns an error code, we will process it afterwards
         }
@@ -583,6 +867,8 @@ public abstract class ClearToolExec implements ClearTool {
 
         try {
             launcher.run(cmd.toCommandArray(), null, baos, null);
+        } catch (ClearToolTimeoutException ex) {
+            throw ex;
         } catch (IOException ex) {
             logRedundantCleartoolError(cmd.toCommandArray(), ex);
         } finally {
@@ -728,7 +1014,7 @@ public abstract class ClearToolExec implements ClearTool {
         try {
             launcher.run(cmd.toCommandArray(), in, baos, workFolder);
         } catch (IOException e) {
-            if (!catchExceptions) {
+            if (!catchExceptions || e instanceof ClearToolTimeoutException) {
                 throw e;
             } else {
                 exceptions.add(e);
@@ -750,6 +1036,67 @@ public abstract class ClearToolExec implements ClearTool {
         return builder.toString();
     }
 
+    /**
+     * Starts the command in the background and returns a reader on its output, available while the command is still
+     * running. At most {@link #STREAMING_BUFFER_CHUNKS} chunks of output are kept in memory, the command is slowed down if
+     * the reader does not keep up. Closing the reader before the end of the output stops the command.
+     * 
+     * @param ignoreFailure if false, a failure of the command is thrown by the reader once the whole output has been read
+     */
+    protected Reader runStreaming(final ArgumentListBuilder cmd, final FilePath workFolder, final boolean ignoreFailure) {
+        final BoundedPipe pipe = new BoundedPipe(STREAMING_BUFFER_CHUNKS);
+        final Future<?> command = STREAMING_EXECUTOR.submit(new Runnable() {
+            public void run() {
+                OutputStream out = new BufferedOutputStream(pipe.getOutputStream());
+                try {
+                    launcher.run(cmd.toCommandArray(), null, out, workFolder);
+                    out.close();
+                } catch (IOException e) {
+                    if ((ignoreFailure && !(e instanceof ClearToolTimeoutException)) || pipe.isReaderClosed()) {
+                        closeQuietly(out);
+                    } else {
+                        flushQuietly(out);
+                        pipe.fail(e);
+                    }
+                } catch (InterruptedException e) {
+                    pipe.fail(new InterruptedIOException("cleartool " + cmd.toCommandArray()[0] + " was interrupted"));
+                } catch (RuntimeException e) {
+                    flushQuietly(out);
+                    IOException failure = new IOException(e.getMessage());
+                    failure.initCause(e);
+                    pipe.fail(failure);
+                }
+            }
+        });
+        return new InputStreamReader(pipe.getInputStream()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    // stops the command if it is still running
+                    command.cancel(true);
+                }
+            }
+        };
+    }
+
+    private static void flushQuietly(OutputStream out) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            // the reader is gone
+        }
+    }
+
+    private static void closeQuietly(OutputStream out) {
+        try {
+            out.close();
+        } catch (IOException e) {
+            // the reader is gone
+        }
+    }
+
     /**
      * To set the config spec of a snapshot view, you must be in or under the snapshot view root directory.
      * 
@@ -850,14 +1197,19 @@ public abstract class ClearToolExec implements ClearTool {
         cmd.add("update");
         cmd.add("-force");
         cmd.add("-overwrite");
-        cmd.add("-log", "NUL");
-        if (!ArrayUtils.isEmpty(loadRules)) {
-            cmd.add("-add_loadrules");
-            for (String loadRule : loadRules) {
-                cmd.add(fixLoadRule(loadRule));
-            }
+        cmd.add("-log", getCapabilities().getNullDevice());
+        if (ArrayUtils.isEmpty(loadRules)) {
+            runAndProcessOutput(cmd, new ByteArrayInputStream("yes\nyes\n".getBytes()), filePath, false, null);
+            return;
+        }
+        cmd.add("-add_loadrules");
+        List<String> fixedLoadRules = new ArrayList<String>();
+        for (String loadRule : loadRules) {
+            fixedLoadRules.add(fixLoadRule(loadRule));
+        }
+        // the updates of a view cannot run at the same time, the chunks of load rules are added one after the other
+        for (ArgumentListBuilder chunk : ArgumentChunker.split(cmd, fixedLoadRules)) {
+            runAndProcessOutput(chunk, new ByteArrayInputStream("yes\nyes\n".getBytes()), filePath, false, null);
         }
-
-        runAndProcessOutput(cmd, new ByteArrayInputStream("yes\nyes\n".getBytes()), filePath, false, null);
     }
 }
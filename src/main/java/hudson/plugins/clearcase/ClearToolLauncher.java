@@ -70,6 +70,17 @@ public interface ClearToolLauncher {
      */
     boolean run(String[] cmd, InputStream in, OutputStream out, FilePath execPath, boolean logCommand) throws IOException, InterruptedException;
 
+    /**
+     * Launches a cleartool command with arguments on the node owning the execution path, and processes its output on that
+     * node. Only the result of the processor is transferred back, the output of the command is not copied to the console.
+     * 
+     * @param cmd the command to launch using the clear tool executable
+     * @param execPath optional, the path where the command should be launched
+     * @param processor the processor of the output of the command
+     * @return the result of the processor
+     */
+    <T> T runAndProcess(String[] cmd, FilePath execPath, ClearToolOutputProcessor<T> processor) throws IOException, InterruptedException;
+
     /**
      * Returns a task listener for a hudson job
      * 
@@ -89,5 +100,10 @@ public interface ClearToolLauncher {
      */
     Launcher getLauncher();
 
+    /**
+     * @return the cleartool executable the commands are launched with
+     */
+    String getExecutable();
+
     String getCmdString(String[] cmd);
 }
@@ -0,0 +1,67 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+/**
+ * Priority class of a cleartool command, from the most to the least urgent.
+ * 
+ * When the number of commands is limited, each class waits in its own queue and may use at most its share of the
+ * slots, a freed slot going to the most urgent class that still has room. The shares are percentages of the limit and
+ * can be changed with the <code>hudson.plugins.clearcase.ClearToolPriority.&lt;class&gt;.share</code> system
+ * properties.
+ * 
+ * @see ClearToolConcurrencyLimiter
+ */
+public enum ClearToolPriority {
+
+    /** Commands a running build is blocked on: update, mkbl, etc. */
+    BUILD(100),
+    /** Commands checking for changes, including the revision state computed by the polling */
+    POLLING(50),
+    /** View cleanup and other maintenance */
+    HOUSEKEEPING(25);
+
+    private final int share;
+
+    private ClearToolPriority(int defaultShare) {
+        int value = Integer.getInteger(ClearToolPriority.class.getName() + "." + name() + ".share", defaultShare).intValue();
+        this.share = Math.max(1, Math.min(100, value));
+    }
+
+    /**
+     * @return the percentage of the slots this class may use
+     */
+    public int getShare() {
+        return share;
+    }
+
+    /**
+     * @param capacity the total number of slots
+     * @return the number of slots this class may use, at least one
+     */
+    public int getSlots(int capacity) {
+        return Math.max(1, capacity * share / 100);
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.remoting.VirtualChannel;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * Results of read-only cleartool queries run on one node, kept for a per-command time to live.
+ * 
+ * Entries are keyed on the command, its arguments and its working directory. The cache is bounded, the least recently used
+ * entries being dropped first. The time to live of a command can be changed with the system property
+ * <code>hudson.plugins.clearcase.ClearToolQueryCache.&lt;command&gt;.ttl</code> (in seconds, 0 disables caching for the
+ * command), the number of entries with <code>hudson.plugins.clearcase.ClearToolQueryCache.maxEntries</code>.
+ */
+public class ClearToolQueryCache {
+
+    public static final String LSVIEW = "lsview";
+    public static final String LSSTREAM = "lsstream";
+    public static final String LSBL = "lsbl";
+    public static final String DESCRIBE_STREAM = "describe-stream";
+    public static final String CATCS = "catcs";
+    public static final String PWV = "pwv";
+
+    private static final String PROPERTY_PREFIX = ClearToolQueryCache.class.getName() + ".";
+
+    private static final Map<String, Integer> DEFAULT_TTLS = new HashMap<String, Integer>();
+    static {
+        DEFAULT_TTLS.put(LSVIEW, 30);
+        DEFAULT_TTLS.put(LSSTREAM, 60);
+        DEFAULT_TTLS.put(LSBL, 300);
+        DEFAULT_TTLS.put(DESCRIBE_STREAM, 30);
+        DEFAULT_TTLS.put(CATCS, 30);
+        DEFAULT_TTLS.put(PWV, 300);
+    }
+
+    private static final int MAX_ENTRIES = Integer.getInteger(PROPERTY_PREFIX + "maxEntries", 500);
+
+    private static final Map<VirtualChannel, ClearToolQueryCache> NODE_CACHES = new WeakHashMap<VirtualChannel, ClearToolQueryCache>();
+
+    /** Used when the launcher has no channel */
+    private static final ClearToolQueryCache LOCAL_CACHE = new ClearToolQueryCache(MAX_ENTRIES);
+
+    private final int maxEntries;
+    private final Map<String, CachedValue> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public ClearToolQueryCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, CachedValue>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedValue> eldest) {
+                if (size() > ClearToolQueryCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the cache of the node the given channel leads to
+     */
+    public static ClearToolQueryCache forChannel(VirtualChannel channel) {
+        if (channel == null) {
+            return LOCAL_CACHE;
+        }
+        synchronized (NODE_CACHES) {
+            ClearToolQueryCache cache = NODE_CACHES.get(channel);
+            if (cache == null) {
+                cache = new ClearToolQueryCache(MAX_ENTRIES);
+                NODE_CACHES.put(channel, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * @return the caches of all the nodes, by node name
+     */
+    public static Map<String, ClearToolQueryCache> all() {
+        Map<VirtualChannel, ClearToolQueryCache> nodeCaches;
+        synchronized (NODE_CACHES) {
+            nodeCaches = new HashMap<VirtualChannel, ClearToolQueryCache>(NODE_CACHES);
+        }
+        Map<String, ClearToolQueryCache> caches = new TreeMap<String, ClearToolQueryCache>();
+        for (Map.Entry<VirtualChannel, ClearToolQueryCache> nodeCache : nodeCaches.entrySet()) {
+            String nodeName = ClearToolCapabilityCache.getNodeName(nodeCache.getKey());
+            caches.put(nodeName.length() > 0 ? nodeName : "master", nodeCache.getValue());
+        }
+        if (LOCAL_CACHE.getHits() + LOCAL_CACHE.getMisses() > 0) {
+            caches.put("(no channel)", LOCAL_CACHE);
+        }
+        return caches;
+    }
+
+    /**
+     * @return the time to live of the results of the given command, in milliseconds
+     */
+    public static long getTimeToLive(String command) {
+        Integer defaultTtl = DEFAULT_TTLS.get(command);
+        return Integer.getInteger(PROPERTY_PREFIX + command + ".ttl", defaultTtl != null ? defaultTtl : 0) * 1000L;
+    }
+
+    /**
+     * Builds the key of a query.
+     * 
+     * @param command one of the command constants of this class
+     * @param workDir the working directory of the command, may be null
+     * @param args the arguments of the command
+     */
+    public static String key(String command, String workDir, String... args) {
+        StringBuilder key = new StringBuilder(command).append('\0');
+        for (String arg : args) {
+            key.append(arg).append('\0');
+        }
+        return key.append('\0').append(workDir).toString();
+    }
+
+    /**
+     * @return the cached result, or null if there is none or it has expired
+     */
+    public synchronized Object get(String key) {
+        CachedValue cached = entries.get(key);
+        if (cached != null && cached.expires > System.currentTimeMillis()) {
+            hits++;
+            return cached.value;
+        }
+        if (cached != null) {
+            entries.remove(key);
+        }
+        misses++;
+        return null;
+    }
+
+    public synchronized void put(String key, Object value) {
+        long ttl = getTimeToLive(key.substring(0, key.indexOf('\0')));
+        if (ttl > 0 && value != null) {
+            entries.put(key, new CachedValue(value, System.currentTimeMillis() + ttl));
+        }
+    }
+
+    /**
+     * Drops all the results of a command.
+     */
+    public synchronized void invalidate(String command) {
+        invalidateKeysStartingWith(command + '\0');
+    }
+
+    /**
+     * Drops the results of a command whose first argument is the given one.
+     */
+    public synchronized void invalidate(String command, String firstArg) {
+        invalidateKeysStartingWith(command + '\0' + firstArg + '\0');
+    }
+
+    public synchronized void clear() {
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    private void invalidateKeysStartingWith(String prefix) {
+        for (Iterator<String> it = entries.keySet().iterator(); it.hasNext();) {
+            if (it.next().startsWith(prefix)) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    private static class CachedValue {
+        private final Object value;
+        private final long expires;
+
+        CachedValue(Object value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A long-lived <code>cleartool -status</code> process fed with commands on its standard input.
+ * 
+ * Interactive cleartool reports the outcome of every command with a line such as <code>Command 3 returned status 0</code>,
+ * this line is used to delimit the output of each command and to retrieve its exit code. The status may follow the last
+ * line of output on the same line, when the output does not end with a line break. A session is not thread safe, it is
+ * meant to be borrowed from a {@link ClearToolSessionPool} by one caller at a time.
+ * 
+ * The output is handed over byte for byte, as the output of a forked cleartool, while the command lines are written in
+ * the encoding the JVM of the node uses for the arguments of the processes it forks.
+ * 
+ * A session that does not write anything for <code>hudson.plugins.clearcase.ClearToolSession.readTimeout</code> seconds
+ * while running a command is destroyed. There is no such limit by default, the commands running past their timeout are
+ * stopped by the launcher.
+ */
+public class ClearToolSession {
+
+    private static final String PROMPT = "cleartool> ";
+
+    private static final Pattern STATUS = Pattern.compile("Command (\\d+) returned status (\\d+)\\s*$");
+
+    private static final long DEFAULT_READ_TIMEOUT = 1000L * Integer.getInteger(ClearToolSession.class.getName() + ".readTimeout", 0);
+
+    /** Maps each byte of the output to a character, so that the output is written back unchanged */
+    private static final String RAW_CHARSET = ClearToolTranscript.RAW_CHARSET;
+
+    /** Encoding of the command lines, the one used for the arguments of a forked cleartool */
+    static final String COMMAND_CHARSET = getNativeCharset();
+
+    /** Destroys the sessions whose output stalls */
+    private static final ScheduledExecutorService READ_WATCHDOG = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "cleartool session read timeout");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final String executable;
+    private final Process process;
+    private final OutputStream stdin;
+    private final InputStream stdout;
+
+    private String currentDirectory;
+    private int sentCommands;
+    private int executedCommands;
+    private long lastUsed;
+    private volatile boolean broken;
+    private volatile long lastRead;
+    private long readTimeout = DEFAULT_READ_TIMEOUT;
+
+    public ClearToolSession(String executable, File workDir) throws IOException {
+        this.executable = executable;
+        ProcessBuilder builder = new ProcessBuilder(executable, "-status");
+        builder.redirectErrorStream(true);
+        if (workDir != null && workDir.isDirectory()) {
+            builder.directory(workDir);
+            currentDirectory = workDir.getPath();
+        }
+        process = builder.start();
+        stdin = new BufferedOutputStream(process.getOutputStream());
+        stdout = new BufferedInputStream(process.getInputStream());
+        lastUsed = System.currentTimeMillis();
+    }
+
+    public String getExecutable() {
+        return executable;
+    }
+
+    /**
+     * @return the number of commands run through this session, not counting the internal ones (cd, pwd)
+     */
+    public int getExecutedCommands() {
+        return executedCommands;
+    }
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * @param readTimeout how long a command may run without writing anything, in milliseconds, 0 for no limit
+     */
+    public void setReadTimeout(long readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @return true if the session can still accept commands
+     */
+    public boolean isAlive() {
+        if (broken) {
+            return false;
+        }
+        try {
+            process.exitValue();
+            return false;
+        } catch (IllegalThreadStateException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Checks that the session still answers, by running <code>pwd</code>.
+     */
+    public boolean ping() {
+        if (!isAlive()) {
+            return false;
+        }
+        try {
+            return send("pwd", null) == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs a cleartool command in the session.
+     * 
+     * @param args the cleartool arguments, without the executable
+     * @param workDir optional, the directory the command is run from
+     * @param out optional, receives the output of the command
+     * @return the status reported by cleartool for the command
+     * @throws IOException if the session died or lost track of its output; the session must not be reused then
+     */
+    public int execute(String[] args, File workDir, OutputStream out) throws IOException {
+        if (!canExecute(args)) {
+            throw new IllegalArgumentException("The command cannot be passed to an interactive cleartool");
+        }
+        if (workDir != null && !workDir.getPath().equals(currentDirectory)) {
+            ByteArrayOutputStream cdOutput = new ByteArrayOutputStream();
+            int status = send("cd " + quote(workDir.getPath()), cdOutput);
+            if (status != 0) {
+                throw new IOException("Unable to change the cleartool session directory to " + workDir + ": "
+                        + cdOutput.toString(COMMAND_CHARSET).trim());
+            }
+            currentDirectory = workDir.getPath();
+        }
+        executedCommands++;
+        StringBuilder commandLine = new StringBuilder();
+        for (String arg : args) {
+            if (commandLine.length() > 0) {
+                commandLine.append(' ');
+            }
+            commandLine.append(quote(arg));
+        }
+        return send(commandLine.toString(), out);
+    }
+
+    /**
+     * Terminates the cleartool process.
+     */
+    public void destroy() {
+        broken = true;
+        try {
+            stdin.close();
+        } catch (IOException e) {
+            // ignore, the process is killed anyway
+        }
+        process.destroy();
+    }
+
+    private int send(String commandLine, OutputStream out) throws IOException {
+        int expected = ++sentCommands;
+        lastRead = System.currentTimeMillis();
+        ScheduledFuture<?> watchdog = startWatchdog();
+        try {
+            stdin.write((commandLine + "\n").getBytes(COMMAND_CHARSET));
+            stdin.flush();
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int c;
+            while ((c = stdout.read()) != -1) {
+                lastRead = System.currentTimeMillis();
+                line.write(c);
+                if (c == '\n') {
+                    String text = stripPrompt(line.toString(RAW_CHARSET));
+                    Matcher matcher = STATUS.matcher(text);
+                    if (matcher.find()) {
+                        // the output may not end with a line break, the status then follows its last line
+                        String output = text.substring(0, matcher.start());
+                        if (output.endsWith(PROMPT)) {
+                            output = output.substring(0, output.length() - PROMPT.length());
+                        }
+                        if (Integer.parseInt(matcher.group(1)) == expected) {
+                            if (out != null) {
+                                out.write(output.getBytes(RAW_CHARSET));
+                            }
+                            lastUsed = System.currentTimeMillis();
+                            return Integer.parseInt(matcher.group(2));
+                        }
+                        if (output.length() == 0) {
+                            throw new IOException("cleartool session is out of sync: expected status of command " + expected + ", got \"" + text.trim() + "\"");
+                        }
+                    }
+                    if (out != null) {
+                        out.write(text.getBytes(RAW_CHARSET));
+                    }
+                    line.reset();
+                }
+            }
+            throw new IOException("cleartool session ended while running \"" + commandLine + "\"");
+        } catch (IOException e) {
+            destroy();
+            if (isStalled()) {
+                throw (IOException) new IOException("cleartool session wrote nothing for " + readTimeout + " ms while running \"" + commandLine
+                        + "\"").initCause(e);
+            }
+            throw e;
+        } finally {
+            if (watchdog != null) {
+                watchdog.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Checks periodically that the running command still writes, destroying the session otherwise.
+     */
+    private ScheduledFuture<?> startWatchdog() {
+        if (readTimeout <= 0) {
+            return null;
+        }
+        long period = Math.min(readTimeout, 1000L);
+        return READ_WATCHDOG.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                if (isStalled()) {
+                    destroy();
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean isStalled() {
+        return readTimeout > 0 && System.currentTimeMillis() - lastRead >= readTimeout;
+    }
+
+    private static String getNativeCharset() {
+        String charset = System.getProperty("sun.jnu.encoding");
+        if (charset != null && Charset.isSupported(charset)) {
+            return charset;
+        }
+        return Charset.defaultCharset().name();
+    }
+
+    private static String stripPrompt(String line) {
+        String result = line;
+        while (result.startsWith(PROMPT)) {
+            result = result.substring(PROMPT.length());
+        }
+        return result;
+    }
+
+    /**
+     * Tells if the given arguments can be written on a single interactive command line. Arguments containing line breaks or
+     * both kind of quotes cannot.
+     */
+    public static boolean canExecute(String[] args) {
+        for (String arg : args) {
+            if (arg.indexOf('\n') != -1 || arg.indexOf('\r') != -1) {
+                return false;
+            }
+            if (arg.indexOf('"') != -1 && arg.indexOf('\'') != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String quote(String arg) {
+        if (arg.length() > 0 && arg.indexOf(' ') == -1 && arg.indexOf('\t') == -1 && arg.indexOf('"') == -1 && arg.indexOf('\'') == -1) {
+            return arg;
+        }
+        if (arg.indexOf('"') != -1) {
+            return "'" + arg + "'";
+        }
+        return "\"" + arg + "\"";
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of {@link ClearToolSession}s for one cleartool executable, living in the JVM of the node running the
+ * commands.
+ * 
+ * Sessions are recycled after a configurable number of commands or as soon as one of them fails, idle sessions are
+ * checked before being handed out again. When no session can be obtained, {@link #borrow(File, long)} returns
+ * <code>null</code> and the caller is expected to fork a cleartool process as usual.
+ */
+public class ClearToolSessionPool {
+
+    private static final Logger LOGGER = Logger.getLogger(ClearToolSessionPool.class.getName());
+
+    /** Sessions idle for longer than this are checked with a <code>pwd</code> before being reused */
+    private static final long HEALTH_CHECK_INTERVAL = 60 * 1000L;
+
+    /** Sessions idle for longer than this are closed */
+    private static final long IDLE_TIMEOUT = 10 * 60 * 1000L;
+
+    /** Delay before trying to start a session again once starting one failed */
+    private static final long START_FAILURE_BACKOFF = 5 * 60 * 1000L;
+
+    private static final Map<String, ClearToolSessionPool> POOLS = new HashMap<String, ClearToolSessionPool>();
+
+    private final String executable;
+    private final LinkedList<ClearToolSession> idleSessions = new LinkedList<ClearToolSession>();
+    private int borrowedSessions;
+    private int maxSessions = 1;
+    private int maxCommands;
+    private long lastStartFailure;
+
+    private long startedSessions;
+    private long recycledSessions;
+    private long executedCommands;
+    private long fallbacks;
+
+    ClearToolSessionPool(String executable) {
+        this.executable = executable;
+    }
+
+    /**
+     * @return the pool of the current JVM for the given cleartool executable
+     */
+    public static ClearToolSessionPool getPool(String executable) {
+        synchronized (POOLS) {
+            ClearToolSessionPool pool = POOLS.get(executable);
+            if (pool == null) {
+                pool = new ClearToolSessionPool(executable);
+                POOLS.put(executable, pool);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * @param maxSessions the maximum number of concurrent sessions
+     * @param maxCommands the number of commands after which a session is recycled, 0 for no limit
+     */
+    public synchronized void configure(int maxSessions, int maxCommands) {
+        this.maxSessions = Math.max(1, maxSessions);
+        this.maxCommands = maxCommands;
+        notifyAll();
+    }
+
+    /**
+     * Hands out a healthy session, starting a new one if the pool is not full.
+     * 
+     * @param workDir the directory a new session is started from
+     * @param timeout how long to wait for a session when all of them are busy, in milliseconds
+     * @return a session, or null if none is available and the command should be forked
+     */
+    public ClearToolSession borrow(File workDir, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (true) {
+            ClearToolSession candidate = null;
+            synchronized (this) {
+                closeIdleSessions();
+                if (!idleSessions.isEmpty()) {
+                    candidate = idleSessions.removeLast();
+                    borrowedSessions++;
+                } else if (borrowedSessions < maxSessions) {
+                    if (System.currentTimeMillis() - lastStartFailure < START_FAILURE_BACKOFF) {
+                        fallbacks++;
+                        return null;
+                    }
+                    borrowedSessions++;
+                } else {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        fallbacks++;
+                        return null;
+                    }
+                    wait(remaining);
+                    continue;
+                }
+            }
+            if (candidate == null) {
+                return startSession(workDir);
+            }
+            if (isHealthy(candidate)) {
+                return candidate;
+            }
+            candidate.destroy();
+            synchronized (this) {
+                borrowedSessions--;
+                recycledSessions++;
+            }
+        }
+    }
+
+    /**
+     * Gives a session back to the pool. Dead or worn out sessions are closed.
+     */
+    public synchronized void release(ClearToolSession session) {
+        borrowedSessions--;
+        executedCommands++;
+        if (!session.isAlive() || (maxCommands > 0 && session.getExecutedCommands() >= maxCommands) || idleSessions.size() + borrowedSessions >= maxSessions) {
+            session.destroy();
+            recycledSessions++;
+        } else {
+            idleSessions.addLast(session);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Closes all the idle sessions.
+     */
+    public synchronized void shutdown() {
+        for (ClearToolSession session : idleSessions) {
+            session.destroy();
+        }
+        idleSessions.clear();
+    }
+
+    public synchronized long getStartedSessions() {
+        return startedSessions;
+    }
+
+    public synchronized long getRecycledSessions() {
+        return recycledSessions;
+    }
+
+    public synchronized long getExecutedCommands() {
+        return executedCommands;
+    }
+
+    public synchronized long getFallbacks() {
+        return fallbacks;
+    }
+
+    public synchronized int getIdleSessions() {
+        return idleSessions.size();
+    }
+
+    private ClearToolSession startSession(File workDir) {
+        try {
+            ClearToolSession session = new ClearToolSession(executable, workDir);
+            synchronized (this) {
+                startedSessions++;
+            }
+            return session;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Unable to start an interactive cleartool session with " + executable + ", falling back to one process per command", e);
+            synchronized (this) {
+                borrowedSessions--;
+                lastStartFailure = System.currentTimeMillis();
+                fallbacks++;
+                notifyAll();
+            }
+            return null;
+        }
+    }
+
+    private static boolean isHealthy(ClearToolSession session) {
+        if (!session.isAlive()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - session.getLastUsed() > HEALTH_CHECK_INTERVAL) {
+            return session.ping();
+        }
+        return true;
+    }
+
+    private void closeIdleSessions() {
+        long now = System.currentTimeMillis();
+        for (Iterator<ClearToolSession> it = idleSessions.iterator(); it.hasNext();) {
+            ClearToolSession session = it.next();
+            if (now - session.getLastUsed() > IDLE_TIMEOUT) {
+                it.remove();
+                session.destroy();
+                recycledSessions++;
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.remoting.VirtualChannel;
+import hudson.util.ForkOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Collapses identical read-only cleartool commands running at the same time on one node: the first caller runs the
+ * command, the callers arriving while it runs wait for it and get a copy of its output and exit code.
+ * 
+ * Nothing is kept once the command has completed. Followers run the command themselves if the first caller failed or if
+ * the output was larger than <code>hudson.plugins.clearcase.ClearToolSingleFlight.maxOutput</code> bytes. Setting
+ * <code>hudson.plugins.clearcase.ClearToolSingleFlight.disabled</code> to true turns the sharing off.
+ */
+public class ClearToolSingleFlight {
+
+    private static final String PROPERTY_PREFIX = ClearToolSingleFlight.class.getName() + ".";
+
+    private static final boolean DISABLED = Boolean.getBoolean(PROPERTY_PREFIX + "disabled");
+
+    private static final int MAX_OUTPUT = Integer.getInteger(PROPERTY_PREFIX + "maxOutput", 4 * 1024 * 1024);
+
+    /** Subcommands that do not modify anything, hence whose output can be shared */
+    private static final Set<String> READ_ONLY_COMMANDS = new HashSet<String>(Arrays.asList("catcs", "describe", "diffbl", "lsactivity", "lsbl",
+            "lscomp", "lshistory", "lsproject", "lsstream", "lsview", "lsvob", "pwv"));
+
+    /** Subcommands whose output does not depend on the working directory when they name their objects by selectors */
+    private static final Set<String> SELECTOR_COMMANDS = new HashSet<String>(Arrays.asList("describe", "lsactivity", "lsbl", "lsproject",
+            "lsstream"));
+
+    /** Options of these subcommands followed by a value */
+    private static final Set<String> VALUED_OPTIONS = new HashSet<String>(Arrays.asList("-component", "-fmt", "-in", "-project", "-stream",
+            "-view"));
+
+    private static final Map<VirtualChannel, ClearToolSingleFlight> NODE_FLIGHTS = new WeakHashMap<VirtualChannel, ClearToolSingleFlight>();
+
+    /** Used when the launcher has no channel */
+    private static final ClearToolSingleFlight LOCAL_FLIGHTS = new ClearToolSingleFlight(MAX_OUTPUT);
+
+    /**
+     * Runs a command, writing its output to the given stream.
+     */
+    public interface Execution {
+        int execute(OutputStream out) throws IOException, InterruptedException;
+    }
+
+    private final int maxOutput;
+    private final Map<String, Flight> flights = new HashMap<String, Flight>();
+
+    private long executions;
+    private long sharedExecutions;
+    private long fallbacks;
+
+    public ClearToolSingleFlight(int maxOutput) {
+        this.maxOutput = maxOutput;
+    }
+
+    public static ClearToolSingleFlight forChannel(VirtualChannel channel) {
+        if (channel == null) {
+            return LOCAL_FLIGHTS;
+        }
+        synchronized (NODE_FLIGHTS) {
+            ClearToolSingleFlight singleFlight = NODE_FLIGHTS.get(channel);
+            if (singleFlight == null) {
+                singleFlight = new ClearToolSingleFlight(MAX_OUTPUT);
+                NODE_FLIGHTS.put(channel, singleFlight);
+            }
+            return singleFlight;
+        }
+    }
+
+    /**
+     * @param cmdWithExec the command line, starting with the cleartool executable
+     * @param inputStream the input of the command
+     * @return true if the command may be shared with concurrent identical callers
+     */
+    public static boolean isShareable(String[] cmdWithExec, InputStream inputStream) {
+        return !DISABLED && inputStream == null && cmdWithExec.length > 1 && READ_ONLY_COMMANDS.contains(ClearToolCommands.normalize(cmdWithExec[1]));
+    }
+
+    /**
+     * @param workDir the working directory of the command, left out of the key when the command does not depend on it
+     * @return the key under which the identical commands are shared
+     */
+    public static String key(String[] cmdWithExec, String[] env, String workDir) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < cmdWithExec.length; i++) {
+            key.append(i == 1 ? ClearToolCommands.normalize(cmdWithExec[i]) : cmdWithExec[i]).append('\0');
+        }
+        key.append('\0');
+        for (String variable : env) {
+            key.append(variable).append('\0');
+        }
+        key.append('\0');
+        if (!isIndependentOfWorkDir(cmdWithExec)) {
+            key.append(workDir);
+        }
+        return key.toString();
+    }
+
+    /**
+     * A query such as <code>describe stream:s@\pvob</code> or <code>lsproject -view v</code> gives the same output
+     * wherever it runs, whereas a pathname, a version-extended pathname or a name without its VOB is resolved from the
+     * working directory.
+     * 
+     * @return true if the output of the command does not depend on its working directory
+     */
+    static boolean isIndependentOfWorkDir(String[] cmdWithExec) {
+        if (cmdWithExec.length < 2 || !SELECTOR_COMMANDS.contains(ClearToolCommands.normalize(cmdWithExec[1]))) {
+            return false;
+        }
+        boolean view = false;
+        boolean selectors = false;
+        for (int i = 2; i < cmdWithExec.length; i++) {
+            String arg = cmdWithExec[i];
+            if (VALUED_OPTIONS.contains(arg)) {
+                view |= "-view".equals(arg);
+                i++;
+            } else if (arg.startsWith("-")) {
+                continue;
+            } else if (arg.indexOf('@') > 0 && !arg.contains("@@")) {
+                selectors = true;
+            } else {
+                return false;
+            }
+        }
+        return selectors || view;
+    }
+
+    /**
+     * Runs the command, or waits for the identical command already running and copies its output to the given stream.
+     * 
+     * @return the exit code of the command
+     */
+    public int execute(String key, OutputStream out, Execution execution) throws IOException, InterruptedException {
+        Flight flight;
+        boolean leader;
+        synchronized (this) {
+            flight = flights.get(key);
+            leader = flight == null;
+            if (leader) {
+                flight = new Flight(maxOutput);
+                flights.put(key, flight);
+                executions++;
+            }
+        }
+        if (leader) {
+            try {
+                int status = execution.execute(new ForkOutputStream(out, flight.output));
+                flight.status = status;
+                return status;
+            } finally {
+                synchronized (this) {
+                    flights.remove(key);
+                }
+                flight.done.countDown();
+            }
+        }
+        following(key);
+        flight.done.await();
+        Integer status = flight.status;
+        if (status == null || flight.output.isOverflowed()) {
+            synchronized (this) {
+                fallbacks++;
+            }
+            return execution.execute(out);
+        }
+        synchronized (this) {
+            sharedExecutions++;
+        }
+        flight.output.writeTo(out);
+        out.flush();
+        return status;
+    }
+
+    /**
+     * Called when a caller starts waiting for the command run by another caller.
+     */
+    protected void following(String key) {
+    }
+
+    /**
+     * @return the number of commands actually run
+     */
+    public synchronized long getExecutions() {
+        return executions;
+    }
+
+    /**
+     * @return the number of callers served with the output of a command run by another caller
+     */
+    public synchronized long getSharedExecutions() {
+        return sharedExecutions;
+    }
+
+    /**
+     * @return the number of callers that waited for a command but had to run it themselves
+     */
+    public synchronized long getFallbacks() {
+        return fallbacks;
+    }
+
+    private static class Flight {
+        private final CappedOutputStream output;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Integer status;
+
+        Flight(int maxOutput) {
+            output = new CappedOutputStream(maxOutput);
+        }
+    }
+
+    /**
+     * Keeps the output as long as it fits in the limit, then drops it.
+     */
+    private static class CappedOutputStream extends OutputStream {
+        private final int limit;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        CappedOutputStream(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            if (buffer != null) {
+                if (buffer.size() + len > limit) {
+                    buffer = null;
+                } else {
+                    buffer.write(b, off, len);
+                }
+            }
+        }
+
+        synchronized boolean isOverflowed() {
+            return buffer == null;
+        }
+
+        synchronized void writeTo(OutputStream out) throws IOException {
+            buffer.writeTo(out);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a cleartool command has been killed because it did not complete within its timeout.
+ */
+public class ClearToolTimeoutException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String command;
+    private final long timeout;
+    private final String connectionError;
+
+    /**
+     * @param command the cleartool subcommand
+     * @param timeout the timeout that expired, in seconds
+     */
+    public ClearToolTimeoutException(String command, long timeout) {
+        this(command, timeout, null);
+    }
+
+    /**
+     * @param command the cleartool subcommand
+     * @param timeout the timeout that expired, in seconds
+     * @param connectionError the connection error reported by the command before it was killed, null if none
+     */
+    public ClearToolTimeoutException(String command, long timeout, String connectionError) {
+        super("cleartool " + command + " did not complete within " + timeout + " seconds and has been killed");
+        this.command = command;
+        this.timeout = timeout;
+        this.connectionError = connectionError;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return the connection error reported by the command before it was killed, null if none
+     */
+    public String getConnectionError() {
+        return connectionError;
+    }
+}
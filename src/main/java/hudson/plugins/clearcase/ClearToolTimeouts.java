@@ -0,0 +1,129 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Timeouts of the cleartool commands, per subcommand.
+ * 
+ * Timeouts are written one per line as <code>subcommand=seconds</code>, for instance <code>lshistory=600</code>. The
+ * <code>*</code> subcommand sets the timeout of the subcommands not listed. A timeout of 0 means no timeout.
+ * Abbreviated subcommands such as <code>lshis</code> stand for their full name.
+ */
+public class ClearToolTimeouts implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String ANY_COMMAND = "*";
+
+    private static final Map<String, Long> TIMEOUT_COUNTS = new TreeMap<String, Long>();
+
+    private final Map<String, Integer> timeouts;
+
+    public ClearToolTimeouts(Map<String, Integer> timeouts) {
+        this.timeouts = new HashMap<String, Integer>(timeouts);
+    }
+
+    /**
+     * @param global the timeouts configured globally
+     * @param job the timeouts configured in the job, taking precedence over the global ones
+     */
+    public static ClearToolTimeouts merge(String global, String job) {
+        Map<String, Integer> timeouts = parse(global);
+        timeouts.putAll(parse(job));
+        return new ClearToolTimeouts(timeouts);
+    }
+
+    /**
+     * Parses timeouts, ignoring the invalid lines.
+     */
+    public static Map<String, Integer> parse(String spec) {
+        Map<String, Integer> timeouts = new HashMap<String, Integer>();
+        for (String line : StringUtils.split(StringUtils.defaultString(spec), "\r\n")) {
+            String command = StringUtils.trim(StringUtils.substringBefore(line, "="));
+            String value = StringUtils.trim(StringUtils.substringAfter(line, "="));
+            if (StringUtils.isNotEmpty(command) && StringUtils.isNotEmpty(value) && StringUtils.isNumeric(value)) {
+                timeouts.put(ClearToolCommands.normalize(command), Integer.valueOf(value));
+            }
+        }
+        return timeouts;
+    }
+
+    /**
+     * @return the first invalid line of the given timeouts, null if they are all valid
+     */
+    public static String getInvalidLine(String spec) {
+        for (String line : StringUtils.split(StringUtils.defaultString(spec), "\r\n")) {
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            String value = StringUtils.trim(StringUtils.substringAfter(line, "="));
+            if (line.indexOf('=') < 0 || StringUtils.isBlank(StringUtils.substringBefore(line, "=")) || StringUtils.isEmpty(value)
+                    || !StringUtils.isNumeric(value)) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param command the cleartool subcommand, possibly abbreviated
+     * @return the timeout of the subcommand in seconds, 0 if it has none
+     */
+    public int getTimeout(String command) {
+        Integer timeout = timeouts.get(ClearToolCommands.normalize(command));
+        if (timeout == null) {
+            timeout = timeouts.get(ANY_COMMAND);
+        }
+        return timeout != null ? timeout : 0;
+    }
+
+    /**
+     * Counts a command killed after its timeout.
+     */
+    public static void recordTimeout(String subcommand) {
+        String command = ClearToolCommands.normalize(subcommand);
+        synchronized (TIMEOUT_COUNTS) {
+            Long count = TIMEOUT_COUNTS.get(command);
+            TIMEOUT_COUNTS.put(command, count != null ? count + 1 : 1L);
+        }
+    }
+
+    /**
+     * @return the number of commands killed after their timeout, per subcommand
+     */
+    public static Map<String, Long> getTimeoutCounts() {
+        synchronized (TIMEOUT_COUNTS) {
+            return Collections.unmodifiableMap(new TreeMap<String, Long>(TIMEOUT_COUNTS));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.XmlFile;
+import hudson.util.XStream2;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Commands run by a {@link ClearToolLauncher}, with their output and their latency, as captured by
+ * {@link RecordingClearToolLauncher} and served by {@link ReplayClearToolLauncher}.
+ * 
+ * A transcript file is either a whole saved transcript or the sequence of the commands appended one at a time while
+ * they are recorded.
+ */
+public class ClearToolTranscript {
+
+    /** Options whose value changes from one run to the other, ignored when matching the commands */
+    private static final List<String> VOLATILE_OPTIONS = Arrays.asList("-since");
+
+    /** Charset mapping each byte of the raw outputs to a character, so that they are replayed unchanged */
+    public static final String RAW_CHARSET = "ISO-8859-1";
+
+    private static final String ENCODING = "UTF-8";
+
+    private static final XStream XSTREAM = new XStream2();
+
+    static {
+        XSTREAM.alias("transcript", ClearToolTranscript.class);
+        XSTREAM.alias("command", Exchange.class);
+    }
+
+    private final List<Exchange> exchanges = new ArrayList<Exchange>();
+
+    public synchronized void add(Exchange exchange) {
+        exchanges.add(exchange);
+    }
+
+    public synchronized List<Exchange> getExchanges() {
+        return Collections.unmodifiableList(new ArrayList<Exchange>(exchanges));
+    }
+
+    public static ClearToolTranscript load(File file) throws IOException {
+        String content = FileUtils.readFileToString(file, ENCODING).trim();
+        if (content.startsWith("<?xml") || content.startsWith("<transcript")) {
+            return (ClearToolTranscript) new XmlFile(XSTREAM, file).read();
+        }
+        return (ClearToolTranscript) XSTREAM.fromXML("<transcript><exchanges>" + content + "</exchanges></transcript>");
+    }
+
+    public synchronized void save(File file) throws IOException {
+        new XmlFile(XSTREAM, file).write(this);
+    }
+
+    /**
+     * Appends a command to a transcript file, without writing again the commands already there.
+     */
+    public static void append(File file, Exchange exchange) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), ENCODING);
+        try {
+            XSTREAM.toXML(exchange, writer);
+            writer.write('\n');
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * @return the key matching a replayed command with the recorded ones: its arguments, the values of the options
+     *         changing from one run to the other being masked
+     */
+    public static String getKey(String[] cmd) {
+        String[] key = cmd.clone();
+        for (int i = 0; i < key.length - 1; i++) {
+            if (VOLATILE_OPTIONS.contains(key[i])) {
+                key[++i] = "*";
+            }
+        }
+        return StringUtils.join(key, ' ');
+    }
+
+    /**
+     * A recorded command.
+     */
+    public static class Exchange {
+        private final String[] cmd;
+        private final String directory;
+        private final String input;
+        private final String output;
+        private final boolean processed;
+        private final long startMillis;
+        private final long durationMillis;
+        private final String error;
+
+        /**
+         * @param cmd the arguments, without the executable
+         * @param directory the working directory, null for the workspace
+         * @param input what has been sent to the standard input, null if none
+         * @param output the output of the command, in {@link #RAW_CHARSET}, or the part read by its processor
+         * @param processed true if the output has been consumed by a {@link ClearToolOutputProcessor}
+         * @param startMillis the start of the command, since the start of the recording
+         * @param durationMillis how long the command took
+         * @param error the message of the failure of the command, null if it succeeded
+         */
+        public Exchange(String[] cmd, String directory, String input, String output, boolean processed, long startMillis, long durationMillis,
+                String error) {
+            this.cmd = cmd;
+            this.directory = directory;
+            this.input = input;
+            this.output = output;
+            this.processed = processed;
+            this.startMillis = startMillis;
+            this.durationMillis = durationMillis;
+            this.error = error;
+        }
+
+        public String[] getCmd() {
+            return cmd;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public String getInput() {
+            return input;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+
+        public boolean isProcessed() {
+            return processed;
+        }
+
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
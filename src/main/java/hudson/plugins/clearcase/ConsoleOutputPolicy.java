@@ -0,0 +1,120 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * How much of the output of a cleartool command is copied to the console.
+ * 
+ * Policies are configured one per line as <code>subcommand=full|summary|none</code>, the <code>*</code> subcommand
+ * setting the policy of the subcommands not listed. Without configuration, the queries whose output is parsed by the
+ * plugin are summarized and the other commands are copied in full. Abbreviated subcommands such as <code>desc</code>
+ * get the policy of their full name.
+ */
+public enum ConsoleOutputPolicy {
+    /** The whole output is copied */
+    FULL,
+    /** Only the first and last lines are copied, with the size of the output */
+    SUMMARY,
+    /** Nothing is copied */
+    NONE;
+
+    public static final String ANY_COMMAND = "*";
+
+    /** Lines copied at the beginning and at the end of a summarized output */
+    public static final int SUMMARY_LINES = Integer.getInteger(ConsoleOutputPolicy.class.getName() + ".summaryLines", 10);
+
+    private static final Set<String> QUERY_COMMANDS = new HashSet<String>(Arrays.asList("catcs", "describe", "diffbl", "lsactivity", "lsbl",
+            "lscomp", "lshistory", "lsproject", "lsstream", "lsview", "lsvob", "pwv"));
+
+    /**
+     * @param subcommand the cleartool subcommand, possibly abbreviated
+     * @param policies the configured policies, may be null
+     */
+    public static ConsoleOutputPolicy forCommand(String subcommand, Map<String, ConsoleOutputPolicy> policies) {
+        String command = ClearToolCommands.normalize(subcommand);
+        if (policies != null) {
+            ConsoleOutputPolicy policy = policies.get(command);
+            if (policy == null) {
+                policy = policies.get(ANY_COMMAND);
+            }
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return QUERY_COMMANDS.contains(command) ? SUMMARY : FULL;
+    }
+
+    /**
+     * Parses policies, ignoring the invalid lines.
+     */
+    public static Map<String, ConsoleOutputPolicy> parse(String spec) {
+        if (StringUtils.isBlank(spec)) {
+            return Collections.emptyMap();
+        }
+        Map<String, ConsoleOutputPolicy> policies = new HashMap<String, ConsoleOutputPolicy>();
+        for (String line : StringUtils.split(spec, "\r\n")) {
+            String command = StringUtils.trim(StringUtils.substringBefore(line, "="));
+            ConsoleOutputPolicy policy = fromString(StringUtils.substringAfter(line, "="));
+            if (StringUtils.isNotEmpty(command) && policy != null) {
+                policies.put(ClearToolCommands.normalize(command), policy);
+            }
+        }
+        return policies;
+    }
+
+    /**
+     * @return the first invalid line of the given policies, null if they are all valid
+     */
+    public static String getInvalidLine(String spec) {
+        for (String line : StringUtils.split(StringUtils.defaultString(spec), "\r\n")) {
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            if (StringUtils.isBlank(StringUtils.substringBefore(line, "=")) || fromString(StringUtils.substringAfter(line, "=")) == null) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    private static ConsoleOutputPolicy fromString(String value) {
+        String name = StringUtils.trimToEmpty(value).toUpperCase();
+        for (ConsoleOutputPolicy policy : values()) {
+            if (policy.name().equals(name)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.plugins.clearcase.ClearTool.DefaultPromotionLevel;
+import hudson.remoting.VirtualChannel;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * {@link AsyncClearTool} running the commands with an {@link Executor}.
+ * 
+ * By default, the commands targeting a node run in a bounded thread pool of this node. The number of threads of each pool
+ * can be changed with the system property <code>hudson.plugins.clearcase.ExecutorAsyncClearTool.maxThreads</code>. When the
+ * queue of a pool is full, the commands run in the calling thread.
+ */
+public class ExecutorAsyncClearTool implements AsyncClearTool {
+
+    private static final String PROPERTY_PREFIX = ExecutorAsyncClearTool.class.getName() + ".";
+
+    private static final int MAX_THREADS = Integer.getInteger(PROPERTY_PREFIX + "maxThreads", 4);
+    private static final int MAX_QUEUED = Integer.getInteger(PROPERTY_PREFIX + "maxQueued", 100);
+
+    /** Runs the commands in the calling thread */
+    public static final Executor DIRECT = new Executor() {
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static final Map<VirtualChannel, ThreadPoolExecutor> NODE_POOLS = new WeakHashMap<VirtualChannel, ThreadPoolExecutor>();
+
+    /** Used when the launcher has no channel */
+    private static ThreadPoolExecutor localPool;
+
+    private final ClearTool cleartool;
+    private Executor executor;
+
+    /**
+     * Runs the commands in the pool of the node of the launcher of the cleartool, looked up on the first command.
+     */
+    public ExecutorAsyncClearTool(ClearTool cleartool) {
+        this(cleartool, null);
+    }
+
+    public ExecutorAsyncClearTool(ClearTool cleartool, Executor executor) {
+        this.cleartool = cleartool;
+        this.executor = executor;
+    }
+
+    /**
+     * @return the bounded thread pool of the node the given channel leads to
+     */
+    public static Executor forChannel(VirtualChannel channel) {
+        if (channel == null) {
+            synchronized (NODE_POOLS) {
+                if (localPool == null) {
+                    localPool = createPool("master");
+                }
+                return localPool;
+            }
+        }
+        synchronized (NODE_POOLS) {
+            ThreadPoolExecutor pool = NODE_POOLS.get(channel);
+            if (pool == null) {
+                pool = createPool(channel.toString());
+                NODE_POOLS.put(channel, pool);
+            }
+            return pool;
+        }
+    }
+
+    private static ThreadPoolExecutor createPool(final String nodeName) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MAX_QUEUED),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "cleartool async " + count.incrementAndGet() + " for " + nodeName);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        // idle nodes do not keep threads
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    public ClearTool getClearTool() {
+        return cleartool;
+    }
+
+    public Future<String> lsbl(final String baselineName, final String format) {
+        return submit(new Callable<String>() {
+            public String call() throws IOException, InterruptedException {
+                return cleartool.lsbl(baselineName, format);
+            }
+        });
+    }
+
+    public Future<String> lsactivity(final String activity, final String commandFormat, final String viewPath) {
+        return submit(new Callable<String>() {
+            public String call() throws IOException, InterruptedException {
+                Reader reader = cleartool.lsactivity(activity, commandFormat, viewPath);
+                try {
+                    StringWriter output = new StringWriter();
+                    IOUtils.copy(reader, output);
+                    return output.toString();
+                } finally {
+                    reader.close();
+                }
+            }
+        });
+    }
+
+    public Future<Void> setBaselinePromotionLevel(final String baselineName, final DefaultPromotionLevel promotionLevel) {
+        return submit(new Callable<Void>() {
+            public Void call() throws IOException, InterruptedException {
+                cleartool.setBaselinePromotionLevel(baselineName, promotionLevel);
+                return null;
+            }
+        });
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<T>(task);
+        getExecutor().execute(future);
+        return future;
+    }
+
+    private synchronized Executor getExecutor() {
+        if (executor == null) {
+            executor = forChannel(cleartool.getLauncher().getLauncher().getChannel());
+        }
+        return executor;
+    }
+}
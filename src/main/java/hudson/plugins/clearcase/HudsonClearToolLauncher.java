@@ -27,18 +27,49 @@ package hudson.plugins.clearcase;
 import hudson.FilePath;
 import hudson.Launcher;
 import hudson.Proc;
+import hudson.model.Computer;
+import hudson.model.Hudson;
+import hudson.model.Node;
 import hudson.model.TaskListener;
+import hudson.plugins.clearcase.util.SummaryOutputStream;
+import hudson.remoting.VirtualChannel;
 import hudson.util.ForkOutputStream;
+import hudson.util.NullStream;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Class for executing the cleartool commands in the Hudson instance.
  */
 public class HudsonClearToolLauncher implements ClearToolLauncher {
 
+    private static final Logger LOGGER = Logger.getLogger(HudsonClearToolLauncher.class.getName());
+
+    /** Queue waits longer than this are reported in the console, in milliseconds */
+    private static final long QUEUE_WAIT_LOG_THRESHOLD = 1000L;
+
+    /** Kills the commands running past their timeout */
+    private static final ScheduledExecutorService TIMEOUT_TIMER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "cleartool timeout");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     private final TaskListener listener;
     private final FilePath workspace;
     private final Launcher launcher;
@@ -46,6 +77,12 @@ public class HudsonClearToolLauncher implements ClearToolLauncher {
     private final String scmName;
     private final String executable;
 
+    private int maxCommandsPerNode;
+    private int maxCommandsPerVob;
+    private ClearToolPriority priority = ClearToolPriority.BUILD;
+    private ClearToolTimeouts timeouts;
+    private Map<String, ConsoleOutputPolicy> consoleOutputPolicies;
+
     public HudsonClearToolLauncher(String executable, String scmName, TaskListener listener, FilePath workspace, Launcher launcher) {
         this.executable = executable;
         this.scmName = scmName;
@@ -54,6 +91,78 @@ public class HudsonClearToolLauncher implements ClearToolLauncher {
         this.launcher = launcher;
     }
 
+    /**
+     * Creates a launcher running the commands on the same node but for no build in particular: nothing is written to
+     * the console and the commands run in the root directory of the node rather than in the workspace.
+     */
+    public HudsonClearToolLauncher createNodeLauncher() {
+        VirtualChannel channel = launcher.getChannel();
+        Launcher nodeLauncher;
+        if (launcher instanceof Launcher.LocalLauncher) {
+            nodeLauncher = new Launcher.LocalLauncher(TaskListener.NULL);
+        } else {
+            nodeLauncher = new Launcher.RemoteLauncher(TaskListener.NULL, channel, launcher.isUnix());
+        }
+        HudsonClearToolLauncher clearToolLauncher = new HudsonClearToolLauncher(executable, scmName, TaskListener.NULL, getNodeRoot(channel),
+                nodeLauncher);
+        clearToolLauncher.setConcurrencyLimits(maxCommandsPerNode, maxCommandsPerVob);
+        clearToolLauncher.setPriority(ClearToolPriority.HOUSEKEEPING);
+        clearToolLauncher.setTimeouts(timeouts);
+        return clearToolLauncher;
+    }
+
+    private static FilePath getNodeRoot(VirtualChannel channel) {
+        Hudson hudson = Hudson.getInstance();
+        if (hudson != null) {
+            for (Computer computer : hudson.getComputers()) {
+                Node node = computer.getNode();
+                if (computer.getChannel() == channel && node != null && node.getRootPath() != null) {
+                    return node.getRootPath();
+                }
+            }
+        }
+        // the working directory of the node process
+        return new FilePath(channel, ".");
+    }
+
+    /**
+     * Bounds the number of commands running at the same time.
+     * 
+     * @param maxCommandsPerNode maximum number of commands running on the node, 0 for no limit
+     * @param maxCommandsPerVob maximum number of commands running against a VOB, 0 for no limit
+     * @see ClearToolConcurrencyLimiter
+     */
+    public void setConcurrencyLimits(int maxCommandsPerNode, int maxCommandsPerVob) {
+        this.maxCommandsPerNode = maxCommandsPerNode;
+        this.maxCommandsPerVob = maxCommandsPerVob;
+    }
+
+    /**
+     * Sets the priority class the commands wait for a slot in, build-critical by default.
+     */
+    public void setPriority(ClearToolPriority priority) {
+        this.priority = priority;
+    }
+
+    public ClearToolPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the timeouts after which the commands are killed.
+     */
+    public void setTimeouts(ClearToolTimeouts timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    /**
+     * Sets how much of the output of the commands is copied to the console, the defaults of {@link ConsoleOutputPolicy}
+     * apply to the commands not listed.
+     */
+    public void setConsoleOutputPolicies(Map<String, ConsoleOutputPolicy> consoleOutputPolicies) {
+        this.consoleOutputPolicies = consoleOutputPolicies;
+    }
+
     public TaskListener getListener() {
         return listener;
     }
@@ -84,10 +193,27 @@ public class HudsonClearToolLauncher implements ClearToolLauncher {
             path = workspace;
         }
 
+        // the whole output is logged when debugging
+        ConsoleOutputPolicy outputPolicy = logCommand ? ConsoleOutputPolicy.FULL : ConsoleOutputPolicy.forCommand(cmd.length > 0 ? cmd[0] : null,
+                consoleOutputPolicies);
+        SummaryOutputStream summary = null;
+        OutputStream console;
+        switch (outputPolicy) {
+        case NONE:
+            console = new NullStream();
+            break;
+        case SUMMARY:
+            summary = new SummaryOutputStream(listener.getLogger(), ConsoleOutputPolicy.SUMMARY_LINES, ConsoleOutputPolicy.SUMMARY_LINES);
+            console = summary;
+            break;
+        default:
+            console = listener.getLogger();
+        }
+
         if (out == null) {
-            out = listener.getLogger();
-        } else {
-            out = new ForkOutputStream(out, listener.getLogger());
+            out = console;
+        } else if (outputPolicy != ConsoleOutputPolicy.NONE) {
+            out = new ForkOutputStream(out, console);
         }
 
         if (logCommand) {
@@ -101,7 +227,22 @@ public class HudsonClearToolLauncher implements ClearToolLauncher {
             cmdWithExec[i + 1] = cmd[i];
         }
 
-        int r = getLaunchedProc(cmdWithExec, env, inputStream, out, path).join();
+        long timeout = timeouts != null && cmd.length > 0 ? timeouts.getTimeout(cmd[0]) : 0;
+        int r;
+        try {
+            r = executeShared(cmdWithExec, env, inputStream, out, path, timeout);
+        } catch (ClearToolTimeoutException e) {
+            ClearToolTimeouts.recordTimeout(e.getCommand());
+            listener.error(e.getMessage() + ". Command line=\"" + getCmdString(cmd) + "\"");
+            throw e;
+        } catch (ClearToolCircuitOpenException e) {
+            listener.error(e.getMessage() + ". Command line=\"" + getCmdString(cmd) + "\"");
+            throw e;
+        } finally {
+            if (summary != null) {
+                summary.finish();
+            }
+        }
         if (r != 0) {
             listener.fatalError(scmName + " failed. exit code=" + r);
             throw new IOException("cleartool did not return the expected exit code. Command line=\"" + getCmdString(cmd) + "\", actual exit code=" + r);
@@ -115,6 +256,49 @@ public class HudsonClearToolLauncher implements ClearToolLauncher {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * The command bypasses the sharing of identical commands and the interactive sessions, but is subject to the concurrency
+     * limits and to the timeouts.
+     */
+    public <T> T runAndProcess(String[] cmd, FilePath filePath, ClearToolOutputProcessor<T> processor) throws IOException, InterruptedException {
+        String ccVerbose = System.getenv("HUDSON_CLEARCASE_VERBOSE");
+        if ("1".equals(ccVerbose)) {
+            String logStr = "\nRunning ClearCase command on the node: " + getCmdString(cmd) + "\n\n";
+            listener.getLogger().write(logStr.getBytes());
+        }
+
+        FilePath path = filePath != null ? filePath : workspace;
+        String[] cmdWithExec = new String[cmd.length + 1];
+        cmdWithExec[0] = executable;
+        System.arraycopy(cmd, 0, cmdWithExec, 1, cmd.length);
+        long timeout = timeouts != null && cmd.length > 0 ? timeouts.getTimeout(cmd[0]) : 0;
+
+        ClearToolCircuitBreaker.Attempt attempt = ClearToolCircuitBreaker.get().attempt(getLauncher().getChannel(), cmd);
+        ClearToolConcurrencyLimiter.Permit permit = null;
+        try {
+            permit = acquirePermit(cmdWithExec);
+            T result = path.act(new RemoteClearToolCommand<T>(cmdWithExec, timeout, processor));
+            attempt.completed(null);
+            return result;
+        } catch (ClearToolTimeoutException e) {
+            attempt.timedOut(e.getConnectionError());
+            ClearToolTimeouts.recordTimeout(e.getCommand());
+            listener.error(e.getMessage() + ". Command line=\"" + getCmdString(cmd) + "\"");
+            throw e;
+        } catch (IOException e) {
+            // the processors report the errors of cleartool as exceptions
+            attempt.completed(e.getMessage());
+            throw e;
+        } finally {
+            attempt.abandon();
+            if (permit != null) {
+                permit.release();
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -124,6 +308,121 @@ public class HudsonClearToolLauncher implements ClearToolLauncher {
         return this.launcher;
     }
 
+    public String getExecutable() {
+        return executable;
+    }
+
+    /**
+     * Runs the command, sharing the execution with the identical read-only commands running at the same time on the node.
+     * 
+     * @see ClearToolSingleFlight
+     */
+    private int executeShared(final String[] cmdWithExec, final String[] env, final InputStream inputStream, OutputStream out, final FilePath path,
+            final long timeout) throws IOException, InterruptedException {
+        if (!ClearToolSingleFlight.isShareable(cmdWithExec, inputStream)) {
+            return executeLimited(cmdWithExec, env, inputStream, out, path, timeout);
+        }
+        ClearToolSingleFlight singleFlight = ClearToolSingleFlight.forChannel(getLauncher().getChannel());
+        String key = ClearToolSingleFlight.key(cmdWithExec, env, path != null ? path.getRemote() : null);
+        return singleFlight.execute(key, out, new ClearToolSingleFlight.Execution() {
+            @Override
+            public int execute(OutputStream out) throws IOException, InterruptedException {
+                return executeLimited(cmdWithExec, env, inputStream, out, path, timeout);
+            }
+        });
+    }
+
+    /**
+     * Runs the command once a slot is available on the node and on the VOBs it targets, unless the circuit of one of
+     * them is open.
+     * 
+     * @see ClearToolConcurrencyLimiter
+     * @see ClearToolCircuitBreaker
+     */
+    private int executeLimited(String[] cmdWithExec, String[] env, InputStream inputStream, OutputStream out, FilePath path, long timeout)
+            throws IOException, InterruptedException {
+        ClearToolCircuitBreaker.Attempt attempt = ClearToolCircuitBreaker.get().attempt(getLauncher().getChannel(),
+                Arrays.copyOfRange(cmdWithExec, 1, cmdWithExec.length));
+        ClearToolConcurrencyLimiter.Permit permit = null;
+        ClearToolCircuitBreaker.ErrorScanner errors = new ClearToolCircuitBreaker.ErrorScanner();
+        try {
+            permit = acquirePermit(cmdWithExec);
+            int status = execute(cmdWithExec, env, inputStream, new ForkOutputStream(out, errors), path, timeout);
+            attempt.completed(errors.getConnectionError());
+            return status;
+        } catch (ClearToolTimeoutException e) {
+            attempt.timedOut(errors.getConnectionError());
+            throw e;
+        } finally {
+            // no-op once the outcome has been reported
+            attempt.abandon();
+            if (permit != null) {
+                permit.release();
+            }
+        }
+    }
+
+    /**
+     * Waits for a slot on the node and on the VOBs targeted by the command.
+     * 
+     * @return the permit to release once the command is completed, null if the concurrency is not limited
+     */
+    private ClearToolConcurrencyLimiter.Permit acquirePermit(String[] cmdWithExec) throws InterruptedException {
+        ClearToolConcurrencyLimiter limiter = ClearToolConcurrencyLimiter.get();
+        limiter.configure(maxCommandsPerNode, maxCommandsPerVob);
+        if (!limiter.isEnabled()) {
+            return null;
+        }
+        String[] cmd = Arrays.copyOfRange(cmdWithExec, 1, cmdWithExec.length);
+        Set<String> vobs = ClearToolConcurrencyLimiter.getVobs(cmd);
+        ClearToolConcurrencyLimiter.Permit permit = limiter.acquire(getLauncher().getChannel(), vobs, priority);
+        if (permit.getWaitMillis() >= QUEUE_WAIT_LOG_THRESHOLD) {
+            listener.getLogger().println("Waited " + permit.getWaitMillis() + " ms for a " + priority.name().toLowerCase() + " cleartool slot"
+                    + (vobs.isEmpty() ? "" : " on " + vobs));
+        }
+        return permit;
+    }
+
+    /**
+     * Runs the command and waits for its completion.
+     * 
+     * @param timeout the number of seconds after which the command is killed, 0 for no timeout
+     * @return the exit code of the command
+     * @throws ClearToolTimeoutException if the command has been killed after the timeout
+     */
+    protected int execute(String[] cmdWithExec, String[] env, InputStream inputStream, OutputStream out, FilePath path, long timeout)
+            throws IOException, InterruptedException {
+        final Proc proc = getLaunchedProc(cmdWithExec, env, inputStream, out, path);
+        if (timeout <= 0) {
+            return proc.join();
+        }
+        final AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> killer = TIMEOUT_TIMER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                timedOut.set(true);
+                try {
+                    // kills the whole process tree
+                    proc.kill();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Unable to kill a cleartool command after its timeout", e);
+                } catch (InterruptedException e) {
+                    LOGGER.log(Level.WARNING, "Interrupted while killing a cleartool command after its timeout", e);
+                }
+            }
+        }, timeout, TimeUnit.SECONDS);
+        int status;
+        try {
+            status = proc.join();
+        } finally {
+            killer.cancel(false);
+        }
+        if (timedOut.get()) {
+            throw new ClearToolTimeoutException(cmdWithExec.length > 1 ? cmdWithExec[1] : cmdWithExec[0], timeout);
+        }
+        return status;
+    }
+
     public Proc getLaunchedProc(String[] cmdWithExec, String[] env, InputStream inputStream, OutputStream out, FilePath path) throws IOException {
         return getLauncher().launch().cmds(cmdWithExec).envs(env).stdin(inputStream).stdout(out).pwd(path).start();
     }
@@ -36,6 +36,7 @@ import hudson.model.Item;
 import hudson.model.ItemGroup;
 import hudson.model.TopLevelItem;
 import hudson.model.listeners.ItemListener;
+import hudson.plugins.clearcase.history.PolledHistory;
 import hudson.plugins.clearcase.util.BuildVariableResolver;
 import hudson.scm.SCM;
 import hudson.util.StreamTaskListener;
@@ -69,10 +70,12 @@ public class ItemListenerImpl extends ItemListener {
     }
 
     /**
-     * Delete the view when the job is renamed
+     * Delete the view when the job is renamed, and forget its polled history
      */
     @Override
     public void onRenamed(Item item, String oldName, String newName) {
+        String parentName = item.getParent().getFullName();
+        PolledHistory.remove(StringUtils.isEmpty(parentName) ? oldName : parentName + '/' + oldName);
         Hudson hudson = Hudson.getInstance();
         if (item instanceof AbstractProject<?, ?>) {
             @SuppressWarnings("unchecked") AbstractProject project = (AbstractProject) item;
@@ -101,7 +104,8 @@ public class ItemListenerImpl extends ItemListener {
                                 workspace = build.getWorkspace();
                             }
                         }
-                        ClearTool ct = ccScm.createClearTool(null, ccScm.createClearToolLauncher(listener, workspace, launcher));
+                        ClearTool ct = ccScm.createClearTool(null, ccScm.createClearToolLauncher(listener, workspace, launcher,
+                                ClearToolPriority.HOUSEKEEPING));
 
                         if (ct.doesViewExist(normalizedViewName)) {
                             String viewPath = ccScm.getViewPath(new VariableResolver.ByMap<String>(build.getEnvironment(listener)));
@@ -129,10 +133,11 @@ public class ItemListenerImpl extends ItemListener {
     }
 
     /**
-     * Delete the view when the job is deleted
+     * Delete the view when the job is deleted, and forget its polled history
      */
     @Override
     public void onDeleted(Item item) {
+        PolledHistory.remove(item.getFullName());
         Hudson hudson = Hudson.getInstance();
         if (item instanceof AbstractProject<?, ?>) {
             AbstractProject<?, ?> project = (AbstractProject<?, ?>) item;
@@ -146,7 +151,7 @@ public class ItemListenerImpl extends ItemListener {
                     StreamTaskListener listener = StreamTaskListener.fromStdout();
                     Launcher launcher = hudson.createLauncher(listener);
                     ClearTool ct = ccScm.createClearTool(null, ccScm.createClearToolLauncher(listener, project.getSomeWorkspace().getParent().getParent(),
-                            launcher));
+                            launcher, ClearToolPriority.HOUSEKEEPING));
 
                     // Adding checks to avoid NPE in HUDSON-4869
                     if (project.getLastBuild() != null) {
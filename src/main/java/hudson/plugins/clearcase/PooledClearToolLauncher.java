@@ -0,0 +1,160 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.TaskListener;
+import hudson.remoting.Callable;
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link ClearToolLauncher} running the commands through long-lived interactive cleartool sessions kept on the node, instead
+ * of starting one cleartool process per command.
+ * 
+ * Commands needing an input stream, or that cannot be written on an interactive command line, are forked as usual. So are
+ * all commands when no session can be started or when all of them are busy.
+ */
+public class PooledClearToolLauncher extends HudsonClearToolLauncher {
+
+    /** How long to wait for a busy session before forking a process */
+    private static final long BORROW_TIMEOUT = 2000L;
+
+    /** Destroys, on the node, the sessions running a command past its timeout */
+    private static final ScheduledExecutorService TIMEOUT_TIMER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "cleartool session timeout");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final int maxSessions;
+    private final int maxCommands;
+
+    public PooledClearToolLauncher(String executable, String scmName, TaskListener listener, FilePath workspace, Launcher launcher, int maxSessions,
+            int maxCommands) {
+        super(executable, scmName, listener, workspace, launcher);
+        this.maxSessions = maxSessions;
+        this.maxCommands = maxCommands;
+    }
+
+    @Override
+    protected int execute(String[] cmdWithExec, String[] env, InputStream inputStream, OutputStream out, FilePath path, long timeout)
+            throws IOException, InterruptedException {
+        String[] args = Arrays.copyOfRange(cmdWithExec, 1, cmdWithExec.length);
+        VirtualChannel channel = getLauncher().getChannel();
+        if (inputStream == null && channel != null && ClearToolSession.canExecute(args)) {
+            String workDir = path != null ? path.getRemote() : null;
+            Integer status = channel.call(new SessionCommand(cmdWithExec[0], args, workDir, new RemoteOutputStream(out), maxSessions, maxCommands,
+                    timeout));
+            if (status != null) {
+                return status.intValue();
+            }
+        }
+        return super.execute(cmdWithExec, env, inputStream, out, path, timeout);
+    }
+
+    /**
+     * Runs one command in a session of the node pool, returns null if no session was available.
+     */
+    private static class SessionCommand implements Callable<Integer, IOException> {
+        private static final long serialVersionUID = 1L;
+
+        private final String executable;
+        private final String[] args;
+        private final String workDir;
+        private final OutputStream out;
+        private final int maxSessions;
+        private final int maxCommands;
+        private final long timeout;
+
+        SessionCommand(String executable, String[] args, String workDir, OutputStream out, int maxSessions, int maxCommands, long timeout) {
+            this.executable = executable;
+            this.args = args;
+            this.workDir = workDir;
+            this.out = out;
+            this.maxSessions = maxSessions;
+            this.maxCommands = maxCommands;
+            this.timeout = timeout;
+        }
+
+        public Integer call() throws IOException {
+            ClearToolSessionPool pool = ClearToolSessionPool.getPool(executable);
+            pool.configure(maxSessions, maxCommands);
+            File dir = workDir != null ? new File(workDir) : null;
+            ClearToolSession session;
+            try {
+                session = pool.borrow(dir, BORROW_TIMEOUT);
+            } catch (InterruptedException e) {
+                throw (IOException) new InterruptedIOException("Interrupted while waiting for a cleartool session").initCause(e);
+            }
+            if (session == null) {
+                return null;
+            }
+            ScheduledFuture<?> killer = null;
+            final AtomicBoolean timedOut = new AtomicBoolean();
+            if (timeout > 0) {
+                final ClearToolSession timedSession = session;
+                killer = TIMEOUT_TIMER.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        timedOut.set(true);
+                        timedSession.destroy();
+                    }
+                }, timeout, TimeUnit.SECONDS);
+            }
+            try {
+                return session.execute(args, dir, out);
+            } catch (IOException e) {
+                if (timedOut.get()) {
+                    throw new ClearToolTimeoutException(args[0], timeout);
+                }
+                throw e;
+            } finally {
+                if (killer != null) {
+                    killer.cancel(false);
+                }
+                // a destroyed session is not reused
+                pool.release(session);
+                out.flush();
+            }
+        }
+    }
+}
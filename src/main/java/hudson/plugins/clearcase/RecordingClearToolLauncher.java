@@ -0,0 +1,252 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.TaskListener;
+import hudson.util.ForkOutputStream;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * {@link ClearToolLauncher} capturing the commands run by another one into a {@link ClearToolTranscript}: arguments,
+ * working directory, input, output and latency. Each command is appended to the transcript file once completed.
+ * 
+ * The commands whose output is processed on the node are recorded with the part of the output read by their processor,
+ * which is sent back to the master along with the result.
+ * 
+ * Recording is enabled by setting the system property
+ * <code>hudson.plugins.clearcase.RecordingClearToolLauncher.directory</code> to the directory receiving the
+ * transcripts, one per launcher.
+ * 
+ * @see ReplayClearToolLauncher
+ */
+public class RecordingClearToolLauncher implements ClearToolLauncher {
+
+    private static final Logger LOGGER = Logger.getLogger(RecordingClearToolLauncher.class.getName());
+
+    private static final String DIRECTORY = System.getProperty(RecordingClearToolLauncher.class.getName() + ".directory");
+
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    private final ClearToolLauncher delegate;
+    private final ClearToolTranscript transcript = new ClearToolTranscript();
+    private final File file;
+    private final long start = System.currentTimeMillis();
+
+    /**
+     * @param file the file the transcript is saved to, null to keep it in memory only
+     */
+    public RecordingClearToolLauncher(ClearToolLauncher delegate, File file) {
+        this.delegate = delegate;
+        this.file = file;
+    }
+
+    public static boolean isEnabled() {
+        return DIRECTORY != null;
+    }
+
+    /**
+     * @return a launcher recording the commands of the given one into a new transcript of the recording directory
+     */
+    public static RecordingClearToolLauncher create(ClearToolLauncher delegate) {
+        String name = "transcript-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + "-" + COUNT.incrementAndGet() + ".xml";
+        return new RecordingClearToolLauncher(delegate, new File(DIRECTORY, name));
+    }
+
+    public ClearToolLauncher getDelegate() {
+        return delegate;
+    }
+
+    public ClearToolTranscript getTranscript() {
+        return transcript;
+    }
+
+    public boolean run(String[] cmd, FilePath execPath) throws IOException, InterruptedException {
+        return run(cmd, null, null, execPath);
+    }
+
+    public boolean run(String[] cmd, InputStream in, OutputStream out, FilePath execPath) throws IOException, InterruptedException {
+        return run(cmd, in, out, execPath, false);
+    }
+
+    public boolean run(String[] cmd, InputStream in, OutputStream out, FilePath execPath, boolean logCommand) throws IOException,
+            InterruptedException {
+        byte[] input = in != null ? IOUtils.toByteArray(in) : null;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long commandStart = System.currentTimeMillis();
+        String error = null;
+        try {
+            return delegate.run(cmd, input != null ? new ByteArrayInputStream(input) : null, out != null ? new ForkOutputStream(out, output)
+                    : output, execPath, logCommand);
+        } catch (IOException e) {
+            error = e.getMessage();
+            throw e;
+        } finally {
+            record(cmd, execPath, input != null ? new String(input, ClearToolTranscript.RAW_CHARSET) : null, output
+                    .toString(ClearToolTranscript.RAW_CHARSET), false, commandStart, error);
+        }
+    }
+
+    public <T> T runAndProcess(String[] cmd, FilePath execPath, ClearToolOutputProcessor<T> processor) throws IOException, InterruptedException {
+        long commandStart = System.currentTimeMillis();
+        Recorded<T> recorded = null;
+        String error = null;
+        try {
+            recorded = delegate.runAndProcess(cmd, execPath, new RecordingProcessor<T>(processor));
+            if (recorded.failure != null) {
+                error = recorded.failure.getMessage();
+                throw recorded.failure;
+            }
+            return recorded.result;
+        } catch (IOException e) {
+            error = e.getMessage();
+            throw e;
+        } finally {
+            record(cmd, execPath, null, recorded != null ? recorded.output : "", true, commandStart, error);
+        }
+    }
+
+    private void record(String[] cmd, FilePath execPath, String input, String output, boolean processed, long commandStart, String error) {
+        long now = System.currentTimeMillis();
+        String directory = execPath != null ? execPath.getRemote() : null;
+        ClearToolTranscript.Exchange exchange = new ClearToolTranscript.Exchange(cmd.clone(), directory, input, output, processed,
+                commandStart - start, now - commandStart, error);
+        transcript.add(exchange);
+        if (file == null) {
+            return;
+        }
+        try {
+            synchronized (transcript) {
+                file.getParentFile().mkdirs();
+                ClearToolTranscript.append(file, exchange);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Unable to save the cleartool transcript " + file, e);
+        }
+    }
+
+    public TaskListener getListener() {
+        return delegate.getListener();
+    }
+
+    public FilePath getWorkspace() {
+        return delegate.getWorkspace();
+    }
+
+    public Launcher getLauncher() {
+        return delegate.getLauncher();
+    }
+
+    public String getExecutable() {
+        return delegate.getExecutable();
+    }
+
+    public String getCmdString(String[] cmd) {
+        return delegate.getCmdString(cmd);
+    }
+
+    /**
+     * Result of a processor along with the part of the output it has read.
+     */
+    static class Recorded<T> implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private T result;
+        private IOException failure;
+        private String output;
+    }
+
+    /**
+     * Copies, on the node, the output read by a processor.
+     */
+    static class RecordingProcessor<T> implements ClearToolOutputProcessor<Recorded<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final ClearToolOutputProcessor<T> processor;
+
+        RecordingProcessor(ClearToolOutputProcessor<T> processor) {
+            this.processor = processor;
+        }
+
+        public Recorded<T> process(BufferedReader output) throws IOException {
+            StringWriter copy = new StringWriter();
+            Recorded<T> recorded = new Recorded<T>();
+            try {
+                recorded.result = processor.process(new BufferedReader(new TeeReader(output, copy)));
+            } catch (IOException e) {
+                recorded.failure = e;
+            }
+            recorded.output = copy.toString();
+            return recorded;
+        }
+    }
+
+    private static class TeeReader extends FilterReader {
+        private final Writer copy;
+
+        TeeReader(Reader in, Writer copy) {
+            super(in);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                copy.write(c);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int read = super.read(cbuf, off, len);
+            if (read > 0) {
+                copy.write(cbuf, off, read);
+            }
+            return read;
+        }
+    }
+}
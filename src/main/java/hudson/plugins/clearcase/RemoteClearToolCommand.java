@@ -0,0 +1,153 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.EnvVars;
+import hudson.FilePath.FileCallable;
+import hudson.remoting.VirtualChannel;
+import hudson.util.ProcessTree;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.input.TeeInputStream;
+
+/**
+ * Runs a cleartool command in a directory of the node and hands its output to a {@link ClearToolOutputProcessor} on the
+ * same node.
+ * 
+ * As for lshistory, the exit code of the command is not checked: errors are expected to be handled while processing the
+ * output.
+ */
+class RemoteClearToolCommand<T> implements FileCallable<T> {
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = Logger.getLogger(RemoteClearToolCommand.class.getName());
+
+    /** Kills, on the node, the commands running past their timeout */
+    private static final ScheduledExecutorService TIMEOUT_TIMER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "cleartool remote command timeout");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final String[] cmdWithExec;
+    private final long timeout;
+    private final ClearToolOutputProcessor<T> processor;
+
+    /**
+     * @param timeout the number of seconds after which the command is killed, 0 for no timeout
+     */
+    RemoteClearToolCommand(String[] cmdWithExec, long timeout, ClearToolOutputProcessor<T> processor) {
+        this.cmdWithExec = cmdWithExec;
+        this.timeout = timeout;
+        this.processor = processor;
+    }
+
+    public T invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(Arrays.asList(cmdWithExec));
+        if (dir.isDirectory()) {
+            builder.directory(dir);
+        }
+        builder.redirectErrorStream(true);
+        // marks the processes started by the command, so that they are killed with it
+        final Map<String, String> cookie = EnvVars.createCookie();
+        builder.environment().putAll(cookie);
+        final Process process = builder.start();
+        process.getOutputStream().close();
+
+        ScheduledFuture<?> killer = null;
+        final AtomicBoolean timedOut = new AtomicBoolean();
+        if (timeout > 0) {
+            killer = TIMEOUT_TIMER.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    timedOut.set(true);
+                    try {
+                        kill(process, cookie);
+                    } catch (InterruptedException e) {
+                        LOGGER.log(Level.WARNING, "Interrupted while killing a cleartool command after its timeout", e);
+                    }
+                }
+            }, timeout, TimeUnit.SECONDS);
+        }
+        // the output is scanned for the connection errors telling a server down from a slow query
+        ClearToolCircuitBreaker.ErrorScanner errors = new ClearToolCircuitBreaker.ErrorScanner();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new TeeInputStream(process.getInputStream(), errors)));
+        T result;
+        try {
+            result = processor.process(reader);
+        } catch (IOException e) {
+            if (timedOut.get()) {
+                throw new ClearToolTimeoutException(cmdWithExec[1], timeout, errors.getConnectionError());
+            }
+            throw e;
+        } finally {
+            if (killer != null) {
+                killer.cancel(false);
+            }
+            reader.close();
+            // stops the command when the processor did not read the whole output
+            if (isRunning(process)) {
+                kill(process, cookie);
+            }
+            process.waitFor();
+        }
+        if (timedOut.get()) {
+            throw new ClearToolTimeoutException(cmdWithExec[1], timeout, errors.getConnectionError());
+        }
+        return result;
+    }
+
+    /**
+     * Kills the command and the processes it started, as the launcher does for the forked commands.
+     */
+    private static void kill(Process process, Map<String, String> cookie) throws InterruptedException {
+        ProcessTree.get().killAll(process, cookie);
+    }
+
+    private static boolean isRunning(Process process) {
+        try {
+            process.exitValue();
+            return false;
+        } catch (IllegalThreadStateException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.TaskListener;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * {@link ClearToolLauncher} serving the commands of a {@link ClearToolTranscript} instead of running cleartool, so that
+ * recorded polling and checkout sessions can be benchmarked without ClearCase.
+ * 
+ * The commands are matched on their arguments, ignoring the values changing from one run to the other such as the date
+ * of lshistory. Identical commands are served in the recorded order, the last one being served again once the others
+ * have been used. Each command takes its recorded latency, multiplied by the latency scale.
+ * 
+ * @see RecordingClearToolLauncher
+ */
+public class ReplayClearToolLauncher implements ClearToolLauncher {
+
+    private final Map<String, LinkedList<ClearToolTranscript.Exchange>> exchanges = new HashMap<String, LinkedList<ClearToolTranscript.Exchange>>();
+    private final double latencyScale;
+    private final TaskListener listener;
+    private final FilePath workspace;
+    private final Launcher launcher;
+
+    /**
+     * @param latencyScale the factor applied to the recorded latencies, 0 to answer at once and 1 for the original
+     *            latencies
+     * @param launcher the launcher of the node the commands are supposed to run on, used for the pools of the node; may be
+     *            null
+     */
+    public ReplayClearToolLauncher(ClearToolTranscript transcript, double latencyScale, TaskListener listener, FilePath workspace, Launcher launcher) {
+        for (ClearToolTranscript.Exchange exchange : transcript.getExchanges()) {
+            String key = ClearToolTranscript.getKey(exchange.getCmd());
+            LinkedList<ClearToolTranscript.Exchange> recorded = exchanges.get(key);
+            if (recorded == null) {
+                recorded = new LinkedList<ClearToolTranscript.Exchange>();
+                exchanges.put(key, recorded);
+            }
+            recorded.add(exchange);
+        }
+        this.latencyScale = latencyScale;
+        this.listener = listener;
+        this.workspace = workspace;
+        this.launcher = launcher;
+    }
+
+    public boolean run(String[] cmd, FilePath execPath) throws IOException, InterruptedException {
+        return run(cmd, null, null, execPath);
+    }
+
+    public boolean run(String[] cmd, InputStream in, OutputStream out, FilePath execPath) throws IOException, InterruptedException {
+        return run(cmd, in, out, execPath, false);
+    }
+
+    public boolean run(String[] cmd, InputStream in, OutputStream out, FilePath execPath, boolean logCommand) throws IOException,
+            InterruptedException {
+        ClearToolTranscript.Exchange exchange = replay(cmd);
+        OutputStream output = out != null ? out : listener.getLogger();
+        output.write(exchange.getOutput().getBytes(ClearToolTranscript.RAW_CHARSET));
+        output.flush();
+        if (exchange.getError() != null) {
+            throw new IOException(exchange.getError());
+        }
+        return true;
+    }
+
+    public <T> T runAndProcess(String[] cmd, FilePath execPath, ClearToolOutputProcessor<T> processor) throws IOException, InterruptedException {
+        ClearToolTranscript.Exchange exchange = replay(cmd);
+        T result = processor.process(new BufferedReader(new StringReader(exchange.getOutput())));
+        // a failure the processor did not report itself, such as a timeout
+        if (exchange.getError() != null) {
+            throw new IOException(exchange.getError());
+        }
+        return result;
+    }
+
+    /**
+     * Finds the recorded command and waits for its latency.
+     */
+    private ClearToolTranscript.Exchange replay(String[] cmd) throws IOException, InterruptedException {
+        ClearToolTranscript.Exchange exchange;
+        synchronized (exchanges) {
+            LinkedList<ClearToolTranscript.Exchange> recorded = exchanges.get(ClearToolTranscript.getKey(cmd));
+            if (recorded == null) {
+                throw new IOException("No recorded output for the command \"cleartool " + getCmdString(cmd) + "\"");
+            }
+            exchange = recorded.size() > 1 ? recorded.removeFirst() : recorded.getFirst();
+        }
+        long latency = (long) (exchange.getDurationMillis() * latencyScale);
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+        return exchange;
+    }
+
+    public TaskListener getListener() {
+        return listener;
+    }
+
+    public FilePath getWorkspace() {
+        return workspace;
+    }
+
+    public Launcher getLauncher() {
+        return launcher;
+    }
+
+    public String getExecutable() {
+        return "cleartool";
+    }
+
+    public String getCmdString(String[] cmd) {
+        StringBuilder builder = new StringBuilder();
+        for (String cmdParam : cmd) {
+            if (builder.length() > 0) {
+                builder.append(" ");
+            }
+            builder.append(cmdParam);
+        }
+        return builder.toString();
+    }
+}
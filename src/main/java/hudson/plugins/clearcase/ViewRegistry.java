@@ -0,0 +1,380 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.Launcher;
+import hudson.remoting.VirtualChannel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Snapshot of the view tags registered in the region of a node, built from one <code>lsview -long</code>.
+ * 
+ * Existence and metadata checks on views are answered from the snapshot. Once the snapshot is older than
+ * <code>hudson.plugins.clearcase.ViewRegistry.refreshInterval</code> seconds (60 by default), a lookup still answers
+ * from it but triggers a refresh in the background. A snapshot older than three intervals is refreshed before
+ * answering. The commands creating or removing views through the plugin update the snapshot right away. An interval of
+ * 0 disables the registry.
+ * 
+ * The background refresh runs on the node outside of any build, with nothing written to the console. A listing
+ * racing with a change made through the plugin is done again; if the views keep changing, the registry does not
+ * answer and the caller queries cleartool itself.
+ */
+public class ViewRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(ViewRegistry.class.getName());
+
+    private static final long REFRESH_INTERVAL = Integer.getInteger(ViewRegistry.class.getName() + ".refreshInterval", 60) * 1000L;
+
+    private static final String[] LSVIEW_LONG = { "lsview", "-long" };
+
+    /** Listings done before giving up when the views change while they are listed */
+    private static final int REFRESH_ATTEMPTS = 3;
+
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "cleartool view registry refresh");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private static final Map<VirtualChannel, ViewRegistry> NODE_REGISTRIES = new WeakHashMap<VirtualChannel, ViewRegistry>();
+
+    /** Used when the launcher has no channel */
+    private static final ViewRegistry LOCAL_REGISTRY = new ViewRegistry(REFRESH_INTERVAL, REFRESH_EXECUTOR);
+
+    private final long refreshInterval;
+    private final Executor executor;
+
+    private Map<String, ViewInfo> views;
+    private long refreshed;
+    private boolean refreshing;
+    /** Number of changes recorded by the commands of the plugin */
+    private long changes;
+
+    public ViewRegistry(long refreshInterval, Executor executor) {
+        this.refreshInterval = refreshInterval;
+        this.executor = executor;
+    }
+
+    /**
+     * @return the registry of the node the given channel leads to
+     */
+    public static ViewRegistry forChannel(VirtualChannel channel) {
+        if (channel == null) {
+            return LOCAL_REGISTRY;
+        }
+        synchronized (NODE_REGISTRIES) {
+            ViewRegistry registry = NODE_REGISTRIES.get(channel);
+            if (registry == null) {
+                registry = new ViewRegistry(REFRESH_INTERVAL, REFRESH_EXECUTOR);
+                NODE_REGISTRIES.put(channel, registry);
+            }
+            return registry;
+        }
+    }
+
+    /**
+     * @return the registry of the node the launcher runs its commands on
+     */
+    public static ViewRegistry forLauncher(ClearToolLauncher launcher) {
+        Launcher hudsonLauncher = launcher != null ? launcher.getLauncher() : null;
+        return forChannel(hudsonLauncher != null ? hudsonLauncher.getChannel() : null);
+    }
+
+    /**
+     * @return true unless the registry is disabled
+     */
+    public boolean isEnabled() {
+        return refreshInterval > 0;
+    }
+
+
+    /**
+     * Records a view created by the plugin. Its metadata are unknown until the next refresh.
+     */
+    public synchronized void viewCreated(String viewTag) {
+        changes++;
+        if (views != null) {
+            Map<String, ViewInfo> updated = new HashMap<String, ViewInfo>(views);
+            updated.put(viewTag, new ViewInfo(viewTag, null, null, null, null, true));
+            views = updated;
+        }
+    }
+
+    /**
+     * Records a view tag removed by the plugin.
+     */
+    public synchronized void viewTagRemoved(String viewTag) {
+        changes++;
+        if (views != null && views.containsKey(viewTag)) {
+            Map<String, ViewInfo> updated = new HashMap<String, ViewInfo>(views);
+            updated.remove(viewTag);
+            views = updated;
+        }
+    }
+
+    /**
+     * Records a view removed by the plugin, from its uuid.
+     */
+    public synchronized void viewRemoved(String viewUuid) {
+        changes++;
+        if (views != null) {
+            Map<String, ViewInfo> updated = new HashMap<String, ViewInfo>(views);
+            for (Iterator<ViewInfo> it = updated.values().iterator(); it.hasNext();) {
+                if (it.next().isUuid(viewUuid)) {
+                    it.remove();
+                }
+            }
+            views = updated;
+        }
+    }
+
+    /**
+     * Drops the snapshot, the next lookup refreshes it first. Used when a command changed views it does not name.
+     */
+    public synchronized void invalidate() {
+        changes++;
+        views = null;
+    }
+
+    /**
+     * Lists the registered views.
+     * 
+     * @param launcher runs the <code>lsview -long</code> refreshing the snapshot, when needed
+     * @return the views by tag, null if they kept changing while they were listed
+     */
+    public Map<String, ViewInfo> getViews(ClearToolLauncher launcher) throws IOException, InterruptedException {
+        synchronized (this) {
+            long age = System.currentTimeMillis() - refreshed;
+            if (views != null && age < 3 * refreshInterval) {
+                if (age >= refreshInterval && !refreshing) {
+                    refreshInBackground(launcher);
+                }
+                return views;
+            }
+        }
+        return refresh(launcher);
+    }
+
+    private void refreshInBackground(ClearToolLauncher launcher) {
+        refreshing = true;
+        final ClearToolLauncher nodeLauncher = getNodeLauncher(launcher);
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    refresh(nodeLauncher);
+                } catch (Exception e) {
+                    LOGGER.log(Level.FINE, "Unable to refresh the view registry", e);
+                } finally {
+                    synchronized (ViewRegistry.this) {
+                        refreshing = false;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * The launcher of the triggering build would log to its console and run in its workspace, which may be gone by the
+     * time the refresh runs.
+     */
+    private static ClearToolLauncher getNodeLauncher(ClearToolLauncher launcher) {
+        ClearToolLauncher hudsonLauncher = launcher;
+        if (hudsonLauncher instanceof RecordingClearToolLauncher) {
+            hudsonLauncher = ((RecordingClearToolLauncher) hudsonLauncher).getDelegate();
+        }
+        if (hudsonLauncher instanceof HudsonClearToolLauncher) {
+            return ((HudsonClearToolLauncher) hudsonLauncher).createNodeLauncher();
+        }
+        return launcher;
+    }
+
+    /**
+     * @return the views listed, null if they changed while they were listed at each attempt
+     */
+    private Map<String, ViewInfo> refresh(ClearToolLauncher launcher) throws IOException, InterruptedException {
+        for (int attempt = 0; attempt < REFRESH_ATTEMPTS; attempt++) {
+            long started;
+            long changesBefore;
+            synchronized (this) {
+                started = System.currentTimeMillis();
+                changesBefore = changes;
+            }
+            Map<String, ViewInfo> listed = Collections.unmodifiableMap(launcher.runAndProcess(LSVIEW_LONG, null, new LsviewParser()));
+            synchronized (this) {
+                if (changes == changesBefore) {
+                    views = listed;
+                    refreshed = started;
+                    return listed;
+                }
+                // a command changed the views while they were listed, the listing may miss the change
+                views = null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A registered view.
+     */
+    public static class ViewInfo implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String tag;
+        private final String uuid;
+        private final String storagePath;
+        private final String globalPath;
+        private final String host;
+        private final boolean started;
+
+        public ViewInfo(String tag, String uuid, String storagePath, String globalPath, String host, boolean started) {
+            this.tag = tag;
+            this.uuid = uuid;
+            this.storagePath = storagePath;
+            this.globalPath = globalPath;
+            this.host = host;
+            this.started = started;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        /**
+         * @return the view uuid, null if unknown yet
+         */
+        public String getUuid() {
+            return uuid;
+        }
+
+        /**
+         * @return the view storage directory as seen by the view server
+         */
+        public String getStoragePath() {
+            return storagePath;
+        }
+
+        public String getGlobalPath() {
+            return globalPath;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * @return true if the view server process is running
+         */
+        public boolean isStarted() {
+            return started;
+        }
+
+        /**
+         * @return true if the metadata of the view are known
+         */
+        public boolean isComplete() {
+            return uuid != null;
+        }
+
+        boolean isUuid(String otherUuid) {
+            return uuid != null && otherUuid != null && uuid.replace(":", "").equals(otherUuid.replace(":", ""));
+        }
+
+        /**
+         * @return the properties returned by {@link ClearTool#getViewData(String)}
+         */
+        public Properties toViewData() {
+            Properties properties = new Properties();
+            if (uuid != null) {
+                properties.put("UUID", uuid);
+            }
+            if (storagePath != null) {
+                properties.put("STORAGE_DIR", storagePath);
+            }
+            return properties;
+        }
+    }
+
+    /**
+     * Parses, on the node, the output of <code>lsview -long</code>.
+     */
+    public static class LsviewParser implements ClearToolOutputProcessor<Map<String, ViewInfo>> {
+        private static final long serialVersionUID = 1L;
+
+        public Map<String, ViewInfo> process(BufferedReader output) throws IOException {
+            Map<String, ViewInfo> views = new HashMap<String, ViewInfo>();
+            Map<String, String> fields = null;
+            String line;
+            while ((line = output.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith("Tag:")) {
+                    addView(views, fields);
+                    fields = new HashMap<String, String>();
+                }
+                int colon = line.indexOf(':');
+                if (fields != null && colon > 0) {
+                    String key = line.substring(0, colon);
+                    if (!fields.containsKey(key)) {
+                        fields.put(key, line.substring(colon + 1).trim());
+                    }
+                }
+            }
+            addView(views, fields);
+            return views;
+        }
+
+        private static void addView(Map<String, ViewInfo> views, Map<String, String> fields) {
+            if (fields == null) {
+                return;
+            }
+            // the tag may be followed by its quoted comment
+            String tag = StringUtils.substringBefore(fields.get("Tag"), " ");
+            if (StringUtils.isEmpty(tag)) {
+                return;
+            }
+            String host = fields.containsKey("View on host") ? fields.get("View on host") : fields.get("Server host");
+            views.put(tag, new ViewInfo(tag, fields.get("View uuid"), fields.get("View server access path"), fields.get("Global path"), host, "YES"
+                    .equalsIgnoreCase(fields.get("Active"))));
+        }
+    }
+}
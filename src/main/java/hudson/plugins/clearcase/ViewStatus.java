@@ -0,0 +1,200 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.FilePath.FileCallable;
+import hudson.remoting.VirtualChannel;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * What is known about a view and the directory it is expected in, gathered by {@link ClearTool#getViewStatus(String, String)}
+ * with one <code>lsview</code> and one look at the directory.
+ */
+public class ViewStatus implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** The view uuid, as in {@link ClearTool#getViewData(String)} */
+    public static final String UUID = "UUID";
+    /** The view storage directory, as in {@link ClearTool#getViewData(String)} */
+    public static final String STORAGE_DIR = "STORAGE_DIR";
+    /** The global path of the view storage directory */
+    public static final String GLOBAL_PATH = "GLOBAL_PATH";
+    /** The view attributes, such as <code>snapshot</code> or <code>ucmview</code> */
+    public static final String ATTRIBUTES = "ATTRIBUTES";
+
+    private final String viewTag;
+    private final boolean viewExists;
+    private final boolean viewPathExists;
+    private final String currentViewTag;
+    private final String rootPath;
+    private final Properties properties;
+
+    /**
+     * @param viewTag the view tag the status is about
+     * @param viewExists true if the view tag is registered
+     * @param viewPathExists true if the directory of the view exists
+     * @param currentViewTag the tag of the view the directory belongs to, null if it is not a view or if the view is unknown
+     * @param rootPath the root directory of the view, as given by <code>pwv -root</code>, null if unknown
+     * @param properties the properties of the view
+     */
+    public ViewStatus(String viewTag, boolean viewExists, boolean viewPathExists, String currentViewTag, String rootPath, Properties properties) {
+        this.viewTag = viewTag;
+        this.viewExists = viewExists;
+        this.viewPathExists = viewPathExists;
+        this.currentViewTag = currentViewTag;
+        this.rootPath = rootPath;
+        this.properties = properties != null ? properties : new Properties();
+    }
+
+    public String getViewTag() {
+        return viewTag;
+    }
+
+    public boolean isViewExists() {
+        return viewExists;
+    }
+
+    public boolean isViewPathExists() {
+        return viewPathExists;
+    }
+
+    public String getCurrentViewTag() {
+        return currentViewTag;
+    }
+
+    public String getRootPath() {
+        return rootPath;
+    }
+
+    public Properties getProperties() {
+        return properties;
+    }
+
+    /**
+     * @return true if the view exists and the directory is the view
+     */
+    public boolean isValid() {
+        return viewExists && viewPathExists && StringUtils.equals(viewTag, currentViewTag);
+    }
+
+    @Override
+    public String toString() {
+        return "view " + viewTag + (viewExists ? " exists" : " does not exist") + ", directory " + (viewPathExists ? "in view " + currentViewTag : "missing");
+    }
+
+    /**
+     * The directory of a snapshot view, as seen on the node.
+     */
+    public static class Directory implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean exists;
+        private final String path;
+        private final String viewUuid;
+
+        public Directory(boolean exists, String path, String viewUuid) {
+            this.exists = exists;
+            this.path = path;
+            this.viewUuid = viewUuid;
+        }
+
+        public boolean exists() {
+            return exists;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return the uuid of the snapshot view stored in the directory, null if it is not the root of a snapshot view
+         */
+        public String getViewUuid() {
+            return viewUuid;
+        }
+
+        /**
+         * @return true if the directory is the root of the snapshot view with the given uuid, as printed by
+         *         <code>lsview -long</code>
+         */
+        public boolean isViewRoot(String uuid) {
+            return viewUuid != null && uuid != null && normalizeUuid(viewUuid).equals(normalizeUuid(uuid));
+        }
+
+        private static String normalizeUuid(String uuid) {
+            return uuid.replaceAll("[^0-9a-fA-F]", "").toLowerCase();
+        }
+    }
+
+    /**
+     * Looks, on the node, for the directory and the <code>view.dat</code> file cleartool keeps at the root of a snapshot
+     * view.
+     */
+    public static class DirectoryProbe implements FileCallable<Directory> {
+        private static final long serialVersionUID = 1L;
+
+        private static final String[] VIEW_DAT_FILES = { ".view.dat", "view.dat" };
+        private static final Pattern VIEW_UUID = Pattern.compile("view_uuid:(\\S+)");
+
+        public Directory invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            if (!dir.isDirectory()) {
+                return new Directory(dir.exists(), dir.getAbsolutePath(), null);
+            }
+            for (String name : VIEW_DAT_FILES) {
+                File viewDat = new File(dir, name);
+                if (viewDat.isFile()) {
+                    return new Directory(true, dir.getAbsolutePath(), readViewUuid(viewDat));
+                }
+            }
+            return new Directory(true, dir.getAbsolutePath(), null);
+        }
+
+        private static String readViewUuid(File viewDat) throws IOException {
+            BufferedReader reader = new BufferedReader(new FileReader(viewDat));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Matcher matcher = VIEW_UUID.matcher(line);
+                    if (matcher.find()) {
+                        return matcher.group(1);
+                    }
+                }
+                return null;
+            } finally {
+                reader.close();
+            }
+        }
+    }
+}
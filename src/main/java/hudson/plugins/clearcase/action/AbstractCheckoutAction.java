@@ -28,6 +28,7 @@ import hudson.FilePath;
 import hudson.Launcher;
 import hudson.plugins.clearcase.ClearTool;
 import hudson.plugins.clearcase.ConfigSpec;
+import hudson.plugins.clearcase.ViewStatus;
 
 import java.io.IOException;
 import java.io.PrintStream;
@@ -67,6 +68,9 @@ public abstract class AbstractCheckoutAction implements CheckOutAction {
     protected final String[] loadRules;
     protected final boolean useUpdate;
     protected final String viewPath;
+
+    /** The status of the view, gathered once for the checkout and dropped when the view is changed */
+    private ViewStatus viewStatus;
     
     public AbstractCheckoutAction(ClearTool cleartool, String[] loadRules, boolean useUpdate, String viewPath) {
         Validate.notNull(cleartool);
@@ -79,10 +83,19 @@ public abstract class AbstractCheckoutAction implements CheckOutAction {
     @Override
     public boolean isViewValid(Launcher launcher, FilePath workspace, String viewTag) throws IOException, InterruptedException {
         Validate.notEmpty(viewPath);
-        FilePath filePath = new FilePath(workspace, viewPath);
-        boolean viewPathExists = filePath.exists();
-        return cleartool.doesViewExist(viewTag) && viewPathExists && viewTag.equals(cleartool.lscurrentview(viewPath));
+        return getViewStatus(viewPath, viewTag).isValid();
+    }
+
+    /**
+     * Returns the status of the view, retrieving it the first time only.
+     */
+    protected ViewStatus getViewStatus(String viewPath, String viewTag) throws IOException, InterruptedException {
+        if (viewStatus == null || !viewTag.equals(viewStatus.getViewTag())) {
+            viewStatus = cleartool.getViewStatus(viewPath, viewTag);
+        }
+        return viewStatus;
     }
+
     /**
      * Manages the re-creation of the view if needed. If something exists but not referenced correctly as a view, it will be renamed and the view will be created
      * @param workspace The job's workspace
@@ -96,11 +109,12 @@ public abstract class AbstractCheckoutAction implements CheckOutAction {
     protected boolean cleanAndCreateViewIfNeeded(FilePath workspace, String viewTag, String viewPath, String streamSelector) throws IOException, InterruptedException {
         Validate.notEmpty(viewPath);
         FilePath filePath = new FilePath(workspace, viewPath);
-        boolean viewPathExists = filePath.exists();
+        ViewStatus status = getViewStatus(viewPath, viewTag);
+        viewStatus = null;
         boolean doViewCreation = true;
-        if (cleartool.doesViewExist(viewTag)) {
-            if (viewPathExists) {
-                if (viewTag.equals(cleartool.lscurrentview(viewPath))) {
+        if (status.isViewExists()) {
+            if (status.isViewPathExists()) {
+                if (viewTag.equals(status.getCurrentViewTag())) {
                     if (useUpdate) {
                         doViewCreation = false;
                     } else {
@@ -114,7 +128,7 @@ public abstract class AbstractCheckoutAction implements CheckOutAction {
                 rmviewtag(viewTag);
             }
         } else {
-            if (viewPathExists) {
+            if (status.isViewPathExists()) {
                 filePath.renameTo(getUnusedFilePath(workspace, viewPath));
             }
         }
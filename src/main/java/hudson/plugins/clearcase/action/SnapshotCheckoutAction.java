@@ -29,6 +29,7 @@ import hudson.Launcher;
 import hudson.plugins.clearcase.ClearTool;
 import hudson.plugins.clearcase.ConfigSpec;
 import hudson.plugins.clearcase.ClearTool.SetcsOption;
+import hudson.plugins.clearcase.ClearToolTimeoutException;
 
 import java.io.IOException;
 
@@ -61,6 +62,8 @@ public class SnapshotCheckoutAction extends AbstractCheckoutAction {
         if (needSetCs) {
             try {
                 cleartool.setcs(viewPath, SetcsOption.CONFIGSPEC, configSpec.setLoadRules(loadRules).getRaw());
+            } catch (ClearToolTimeoutException e) {
+                throw e;
             } catch (IOException e) {
                 launcher.getListener().fatalError(e.toString());
                 return false;
@@ -71,6 +74,8 @@ public class SnapshotCheckoutAction extends AbstractCheckoutAction {
                 // Config spec haven't changed, but there are new load rules
                 try {
                     cleartool.update(viewPath, addedLoadRules);
+                } catch (ClearToolTimeoutException e) {
+                    throw e;
                 } catch (IOException e) {
                     launcher.getListener().fatalError(e.toString());
                     return false;
@@ -81,6 +86,8 @@ public class SnapshotCheckoutAction extends AbstractCheckoutAction {
         if (!viewCreated) {
             try {
                 cleartool.setcs(viewPath, SetcsOption.CURRENT, null);
+            } catch (ClearToolTimeoutException e) {
+                throw e;
             } catch (IOException e) {
                 launcher.getListener().fatalError(e.toString());
                 return false;
@@ -29,6 +29,7 @@ import hudson.Launcher;
 import hudson.plugins.clearcase.ClearTool;
 import hudson.plugins.clearcase.ConfigSpec;
 import hudson.plugins.clearcase.ClearTool.SetcsOption;
+import hudson.plugins.clearcase.ClearToolTimeoutException;
 
 import java.io.IOException;
 
@@ -50,6 +51,8 @@ public class UcmSnapshotCheckoutAction extends AbstractCheckoutAction {
             // If the view is brand new, we just have to add the load rules
             try {
                 cleartool.update(viewPath, loadRules);
+            } catch (ClearToolTimeoutException e) {
+                throw e;
             } catch (IOException e) {
                 launcher.getListener().fatalError(e.toString());
                 return false;
@@ -60,6 +63,8 @@ public class UcmSnapshotCheckoutAction extends AbstractCheckoutAction {
             if (!ArrayUtils.isEmpty(loadRulesDelta.getRemoved())) {
                 try {
                     cleartool.setcs(viewPath, SetcsOption.CONFIGSPEC, viewConfigSpec.setLoadRules(loadRules).getRaw());
+                } catch (ClearToolTimeoutException e) {
+                    throw e;
                 } catch (IOException e) {
                     launcher.getListener().fatalError(e.toString());
                     return false;
@@ -70,6 +75,8 @@ public class UcmSnapshotCheckoutAction extends AbstractCheckoutAction {
                     // Config spec haven't changed, but there are new load rules
                     try {
                         cleartool.update(viewPath, addedLoadRules);
+                    } catch (ClearToolTimeoutException e) {
+                        throw e;
                     } catch (IOException e) {
                         launcher.getListener().fatalError(e.toString());
                         return false;
@@ -80,6 +87,8 @@ public class UcmSnapshotCheckoutAction extends AbstractCheckoutAction {
             // Perform a full update of the view to get changes due to rebase for instance.
             try {
                 cleartool.update(viewPath, null);
+            } catch (ClearToolTimeoutException e) {
+                throw e;
             } catch (IOException e) {
                 launcher.getListener().fatalError(e.toString());
                 return false;
@@ -33,7 +33,6 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.regex.Matcher;
 
 import hudson.plugins.clearcase.ClearCaseChangeLogEntry;
 import hudson.plugins.clearcase.ClearTool;
@@ -43,6 +42,7 @@ import hudson.plugins.clearcase.history.FilterChain;
 import hudson.plugins.clearcase.history.HistoryEntry;
 import hudson.plugins.clearcase.util.ChangeLogEntryMerger;
 import hudson.plugins.clearcase.util.ClearToolFormatHandler;
+import hudson.plugins.clearcase.util.FormattedLine;
 
 /**
  * Change log action for Base ClearCase
@@ -52,7 +52,7 @@ public class BaseChangeLogAction implements ChangeLogAction {
     private static final String[] HISTORY_FORMAT = { DATE_NUMERIC, USER_ID, EVENT, NAME_ELEMENTNAME, NAME_VERSIONID, OPERATION };
 
     private ClearTool cleartool;
-    private ClearToolFormatHandler historyHandler = new ClearToolFormatHandler(HISTORY_FORMAT);
+    private ClearToolFormatHandler historyHandler = ClearToolFormatHandler.delimited(HISTORY_FORMAT);
     private SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyyMMdd.HHmmss");
 
     private final int maxTimeDifferenceMillis;
@@ -100,10 +100,10 @@ public class BaseChangeLogAction implements ChangeLogAction {
                 line = reader.readLine();
                 continue;
             }
-            Matcher matcher = historyHandler.checkLine(line);
+            FormattedLine fields = historyHandler.parseLine(line);
 
             // finder find start of lshistory entry
-            if (matcher != null) {
+            if (fields != null) {
 
                 if (currentEntry != null) {
                     currentEntry.setComment(commentBuilder.toString());
@@ -112,27 +112,27 @@ public class BaseChangeLogAction implements ChangeLogAction {
                 currentEntry = new ClearCaseChangeLogEntry();
 
                 // read values;
-                Date date = dateFormatter.parse(matcher.group(1));
+                Date date = dateFormatter.parse(fields.getField(1));
                 currentEntry.setDate(date);
-                currentEntry.setUser(matcher.group(2));
-                String fileName = matcher.group(4).trim();
+                currentEntry.setUser(fields.getField(2));
+                String fileName = fields.getTrimmedField(4);
                 if (extendedViewPath != null) {
                     if (fileName.startsWith(extendedViewPath)) {
                         fileName = fileName.substring(extendedViewPath.length());
                     }
                 }
-                ClearCaseChangeLogEntry.FileElement element = new ClearCaseChangeLogEntry.FileElement(fileName, matcher.group(5).trim(), matcher.group(3)
-                        .trim(), matcher.group(6).trim());
+                ClearCaseChangeLogEntry.FileElement element = new ClearCaseChangeLogEntry.FileElement(fileName, fields.getTrimmedField(5), fields
+                        .getTrimmedField(3), fields.getTrimmedField(6));
                 currentEntry.addElement(element);
 
                 HistoryEntry entry = new HistoryEntry();
                 entry.setLine(line);
-                entry.setDateText(matcher.group(1).trim());
-                entry.setUser(matcher.group(2).trim());
-                entry.setEvent(matcher.group(3).trim());
-                entry.setElement(matcher.group(4).trim());
-                entry.setVersionId(matcher.group(5).trim());
-                entry.setOperation(matcher.group(6).trim());
+                entry.setDateText(fields.getTrimmedField(1));
+                entry.setUser(fields.getTrimmedField(2));
+                entry.setEvent(fields.getTrimmedField(3));
+                entry.setElement(fields.getTrimmedField(4));
+                entry.setVersionId(fields.getTrimmedField(5));
+                entry.setOperation(fields.getTrimmedField(6));
 
                 if (filter.accept(entry)) {
                     entries.add(currentEntry);
@@ -30,14 +30,15 @@ import hudson.plugins.clearcase.ClearTool;
 import hudson.plugins.clearcase.history.AbstractHistoryAction;
 import hudson.plugins.clearcase.history.Filter;
 import hudson.plugins.clearcase.history.HistoryEntry;
+import hudson.plugins.clearcase.history.HistoryParser;
 import hudson.plugins.clearcase.util.ChangeLogEntryMerger;
 import hudson.plugins.clearcase.util.ClearToolFormatHandler;
+import hudson.plugins.clearcase.util.FormattedLine;
 
 import hudson.scm.ChangeLogSet.Entry;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
 
 /**
  * @author hlyh
@@ -46,7 +47,7 @@ public class BaseHistoryAction extends AbstractHistoryAction {
 
     private static final String[] HISTORY_FORMAT = { DATE_NUMERIC, USER_ID, NAME_ELEMENTNAME, NAME_VERSIONID, EVENT, OPERATION };
 
-    private ClearToolFormatHandler historyHandler = new ClearToolFormatHandler(HISTORY_FORMAT);
+    private ClearToolFormatHandler historyHandler = ClearToolFormatHandler.delimited(HISTORY_FORMAT);
     private int maxTimeDifferenceMillis;
 
     public BaseHistoryAction(ClearTool cleartool, boolean useDynamicView, Filter filter, int maxTimeDifferenceMillis) {
@@ -81,17 +82,30 @@ public class BaseHistoryAction extends AbstractHistoryAction {
     }
 
     @Override
-    protected HistoryEntry parseEventLine(Matcher matcher, String line) throws ParseException {
-        // read values;
-        HistoryEntry entry = new HistoryEntry();
-        entry.setLine(line);
-
-        entry.setDateText(matcher.group(1));
-        entry.setUser(matcher.group(2).trim());
-        entry.setElement(matcher.group(3).trim());
-        entry.setVersionId(matcher.group(4).trim());
-        entry.setEvent(matcher.group(5).trim());
-        entry.setOperation(matcher.group(6).trim());
-        return entry;
+    protected HistoryParser createHistoryParser() {
+        return new BaseHistoryParser(historyHandler, extendedViewPath);
+    }
+
+    private static class BaseHistoryParser extends HistoryParser {
+        private static final long serialVersionUID = 1L;
+
+        BaseHistoryParser(ClearToolFormatHandler handler, String extendedViewPath) {
+            super(handler, extendedViewPath);
+        }
+
+        @Override
+        protected HistoryEntry parseEventLine(FormattedLine line) throws ParseException {
+            // read values;
+            HistoryEntry entry = new HistoryEntry();
+            entry.setLine(line.getLine());
+
+            entry.setDateText(line.getField(1));
+            entry.setUser(line.getTrimmedField(2));
+            entry.setElement(line.getTrimmedField(3));
+            entry.setVersionId(line.getTrimmedField(4));
+            entry.setEvent(line.getTrimmedField(5));
+            entry.setOperation(line.getTrimmedField(6));
+            return entry;
+        }
     }
 }
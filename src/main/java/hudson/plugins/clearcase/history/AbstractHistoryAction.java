@@ -25,22 +25,30 @@
 package hudson.plugins.clearcase.history;
 
 import static hudson.plugins.clearcase.util.OutputFormat.COMMENT;
+import static hudson.plugins.clearcase.util.OutputFormat.DATE_NUMERIC;
 import static hudson.plugins.clearcase.util.OutputFormat.LINEEND;
+import static hudson.plugins.clearcase.util.OutputFormat.RECORD_START;
+import static hudson.plugins.clearcase.util.OutputFormat.RECORD_START_CHAR;
 import hudson.plugins.clearcase.AbstractClearCaseScm.ChangeSetLevel;
 import hudson.plugins.clearcase.ClearTool;
+import hudson.plugins.clearcase.ClearToolTimeoutException;
 import hudson.plugins.clearcase.util.ClearToolFormatHandler;
 import hudson.scm.ChangeLogSet.Entry;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.StringReader;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
-import java.util.logging.Logger;
-import java.util.regex.Matcher;
+import java.util.Set;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
@@ -50,11 +58,30 @@ import org.apache.commons.lang.Validate;
  */
 public abstract class AbstractHistoryAction implements HistoryAction {
 
+    /**
+     * Setting the system property <code>hudson.plugins.clearcase.history.AbstractHistoryAction.localQuery</code> to true
+     * transfers the whole lshistory output to the master, to be parsed and filtered there.
+     */
+    private static final boolean LOCAL_QUERY = Boolean.getBoolean(AbstractHistoryAction.class.getName() + ".localQuery");
+
+    /** Number of versions described by one cleartool call, when the cleartool of the node accepts several selectors */
+    protected static final int DESCRIBE_BATCH_SIZE = 50;
+
     protected ClearTool cleartool;
     private Filter filter;
     protected String extendedViewPath;
     protected boolean isDynamicView;
     private ChangeSetLevel changeset; 
+    private boolean queryOnNode;
+    private HighWaterMarks previousMarks;
+    private HighWaterMarks highWaterMarks;
+    private long pollBufferMillis;
+    private PolledHistory polledHistory;
+    private PollCoordinator pollCoordinator;
+    private HistoryProbe historyProbe;
+    private boolean collecting;
+    private List<HistoryEntry> collectedChanges;
+    private boolean collectedComments;
 
     public AbstractHistoryAction(ClearTool cleartool, boolean isDynamicView, Filter filter, ChangeSetLevel changeset) {
         this.cleartool = cleartool;
@@ -80,13 +107,123 @@ public abstract class AbstractHistoryAction implements HistoryAction {
 
     @Override
     public List<? extends Entry> getChanges(Date time, String viewPath, String viewTag, String[] branchNames, String[] viewPaths) throws IOException, InterruptedException {
-        List<HistoryEntry> entries = runLsHistory(time, viewPath, viewTag, branchNames, viewPaths);
-        List<HistoryEntry> filtered = filterEntries(entries);
+        List<HistoryEntry> filtered;
+        if (polledHistory != null && polledHistory.matches(time, getHistoryKey(viewPath, branchNames, viewPaths))) {
+            // only the history since the polling is listed
+            List<HistoryEntry> delta = listHistory(polledHistory.getDeltaSince(), viewPath, viewTag, branchNames, viewPaths);
+            filtered = polledHistory.merge(filterEntries(delta));
+        } else {
+            List<HistoryEntry> entries = runLsHistory(time, viewPath, viewTag, branchNames, viewPaths);
+            filtered = filterEntries(entries);
+        }
 
         List<? extends Entry> changelog = buildChangelog(viewPath, filtered);
         return changelog;
     }
 
+    /**
+     * Keeps the accepted history entries listed by {@link #hasChanges}, to be reused by the changelog of the next build.
+     * The polling lists the history from the previous mark only, but the events between the build and the mark were
+     * listed by the previous pollings, which found no change: none of them is accepted. The comments, which the polling
+     * does not list, are described for the accepted entries only.
+     * 
+     * @param time the time the changelog of the next build starts from
+     * @param deltaSince the time the history listed by the next build starts from
+     * @return the polled history, null if it cannot be reused
+     * @see #setCollectChanges(boolean)
+     */
+    public PolledHistory collectChanges(Date time, Date deltaSince, String viewPath, String[] branchNames, String[] viewPaths)
+            throws InterruptedException {
+        if (collectedChanges == null) {
+            return null;
+        }
+        try {
+            if (!collectedComments) {
+                describeComments(collectedChanges);
+            }
+        } catch (IOException e) {
+            // the build lists its whole history
+            return null;
+        }
+        return new PolledHistory(time, deltaSince, getHistoryKey(viewPath, branchNames, viewPaths), collectedChanges);
+    }
+
+    /**
+     * Makes {@link #hasChanges} list the whole history rather than stop at the first change, the accepted entries being
+     * kept for {@link #collectChanges}. The polling format then holds all the fields of the history format.
+     */
+    public void setCollectChanges(boolean collecting) {
+        this.collecting = collecting;
+    }
+
+    protected boolean isCollectingChanges() {
+        return collecting;
+    }
+
+    /**
+     * @param changes the accepted entries found by {@link #hasChanges}, null if they cannot be reused
+     * @param withComments true if the comments of the entries were listed
+     */
+    protected void setCollectedChanges(List<HistoryEntry> changes, boolean withComments) {
+        this.collectedChanges = changes;
+        this.collectedComments = withComments;
+    }
+
+    /**
+     * Describes the comments of the versions of the entries, in batches when the cleartool of the node accepts several
+     * selectors.
+     */
+    private void describeComments(List<HistoryEntry> entries) throws IOException, InterruptedException {
+        int batchSize = cleartool.getCapabilities().isMultiSelectorDescribe() ? DESCRIBE_BATCH_SIZE : 1;
+        for (int i = 0; i < entries.size(); i += batchSize) {
+            List<HistoryEntry> batch = entries.subList(i, Math.min(i + batchSize, entries.size()));
+            StringBuilder selectors = new StringBuilder();
+            for (HistoryEntry entry : batch) {
+                String selector = StringUtils.defaultString(extendedViewPath) + entry.getElement() + "@@" + entry.getVersionId();
+                if (selectors.length() > 0) {
+                    selectors.append(' ');
+                }
+                if (selector.contains(" ")) {
+                    selectors.append('"').append(selector).append('"');
+                } else {
+                    selectors.append(selector);
+                }
+            }
+            String output = IOUtils.toString(cleartool.describe(RECORD_START + COMMENT + LINEEND, selectors.toString()));
+            // the output starts with a record
+            String[] comments = StringUtils.splitPreserveAllTokens(output, RECORD_START_CHAR);
+            if (comments.length != batch.size() + 1) {
+                throw new IOException("Unexpected output for command \"cleartool describe\" on " + selectors);
+            }
+            for (int j = 0; j < batch.size(); j++) {
+                BufferedReader reader = new BufferedReader(new StringReader(comments[j + 1]));
+                // as parsed from lshistory
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    batch.get(j).appendComment(line).appendComment("\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Reuses the history listed by the polling that triggered the build, when {@link #getChanges} lists the same
+     * history.
+     * 
+     * @param polledHistory optional, the history listed by the polling
+     */
+    public void setPolledHistory(PolledHistory polledHistory) {
+        this.polledHistory = polledHistory;
+    }
+
+    /**
+     * Identifies the history listed for the changelog, the polled history being only reused by the same query filtered
+     * the same way.
+     */
+    protected String getHistoryKey(String viewPath, String[] branchNames, String[] viewPaths) {
+        return viewPath + '\n' + StringUtils.join(normalizeBranches(branchNames), ',') + '\n' + StringUtils.join(viewPaths, ',') + '\n' + changeset
+                + '\n' + filter;
+    }
+
     public ChangeSetLevel getChangeset() {
         return changeset;
     }
@@ -97,11 +234,251 @@ public abstract class AbstractHistoryAction implements HistoryAction {
 
     protected abstract ClearToolFormatHandler getHistoryFormatHandler();
 
+    /**
+     * Stops lshistory at the first accepted entry, the rest of the history is not needed to know there are changes. When
+     * the changes are collected, the whole history is listed once.
+     */
     @Override
     public boolean hasChanges(Date time, String viewPath, String viewTag, String[] branchNames, String[] viewPaths) throws IOException, InterruptedException {
-        List<HistoryEntry> entries = runLsHistory(time, viewPath, viewTag, branchNames, viewPaths);
-        List<HistoryEntry> filtered = filterEntries(entries);
-        return filtered.size() > 0;
+        Validate.notNull(viewPath);
+        highWaterMarks = null;
+        setCollectedChanges(null, false);
+        if (!needsHistory(viewTag, viewPaths)) {
+            return false;
+        }
+        if (isDynamicView) {
+            cleartool.startView(viewTag);
+        }
+        // the events replicated late within the multi-site poll buffer are not the latest ones, the probe would miss them
+        boolean probing = (historyProbe != null) && (pollBufferMillis == 0);
+        HighWaterMarks marks = new HighWaterMarks();
+        List<HistoryEntry> changes = new ArrayList<HistoryEntry>();
+        boolean complete = true;
+        for (String branchName : normalizeBranches(branchNames)) {
+            HighWaterMark previous = (previousMarks != null) ? previousMarks.get(branchName, viewPaths) : null;
+            HistoryScan scan = null;
+            if (probing) {
+                scan = probeHistory(viewPath, branchName, viewPaths, new HistoryScan(previous, time, pollBufferMillis));
+            }
+            if (scan == null) {
+                long start = System.currentTimeMillis();
+                scan = new HistoryScan(previous, time, pollBufferMillis);
+                scan.setCollecting(collecting);
+                scan = scanHistory(viewPath, branchName, viewPaths, scan);
+                if (probing) {
+                    historyProbe.recordFullQuery(scan.getFirstChange() != null, System.currentTimeMillis() - start);
+                }
+            }
+            if (scan.getFirstChange() != null) {
+                if (!collecting) {
+                    return true;
+                }
+                changes.addAll(scan.getChanges());
+                complete &= !scan.isPartial();
+            } else {
+                marks.put(branchName, viewPaths, scan.getMark());
+            }
+        }
+        if (!changes.isEmpty()) {
+            // the entries of a scan stopped by an error are not all known
+            setCollectedChanges(complete ? changes : null, getPollingFormat().contains(COMMENT));
+            return true;
+        }
+        highWaterMarks = marks;
+        return false;
+    }
+
+    /**
+     * Scans the history of the branch until the first entry accepted by the filter. The remaining output of lshistory
+     * is not parsed and the command is stopped.
+     * 
+     * @return the scan, holding the first accepted entry if there is one
+     */
+    protected HistoryScan scanHistory(String viewPath, String branchName, String[] viewPaths, HistoryScan scan) throws IOException,
+            InterruptedException {
+        String format = getPollingFormat();
+        boolean getMinor = (filter != null) && (filter.requiresMinorEvents());
+        if (pollCoordinator != null) {
+            return scanSharedHistory(format, getMinor, viewPath, branchName, viewPaths, filter, scan);
+        }
+        return scanFirst(format, getMinor, viewPath, branchName, viewPaths, filter, scan);
+    }
+
+    /**
+     * Probes the VOBs of the load rules for an event more recent than the previous polling, only the latest event of
+     * each VOB being listed. When lshistory fails, the history is scanned, which ignores the failures.
+     * 
+     * @return the probe if there is no new event, hence no change, null if the history has to be scanned
+     */
+    private HistoryScan probeHistory(String viewPath, String branchName, String[] viewPaths, HistoryScan probe) throws IOException,
+            InterruptedException {
+        long start = System.currentTimeMillis();
+        boolean getMinor = (filter != null) && (filter.requiresMinorEvents());
+        boolean positive;
+        try {
+            Date latest = cleartool.lshistoryLatest(viewPath, branchName, HistoryProbe.getVobRoots(viewPaths), getMinor);
+            positive = (latest != null) && probe.isAfterMark(latest);
+        } catch (ClearToolTimeoutException e) {
+            throw e;
+        } catch (IOException e) {
+            positive = true;
+        }
+        historyProbe.recordProbe(positive, System.currentTimeMillis() - start);
+        return positive ? null : probe;
+    }
+
+    /**
+     * Lists the history of the paths until the first entry accepted by the given filter.
+     * 
+     * @param until optional, the filter of the entry ending the scan, the first new entry if none
+     */
+    private HistoryScan scanFirst(String format, boolean getMinor, String viewPath, String branchName, String[] paths, Filter until, HistoryScan scan)
+            throws IOException, InterruptedException {
+        if (queryOnNode && !LOCAL_QUERY) {
+            return cleartool.lshistoryFirst(format, scan.getSince(), viewPath, branchName, paths, getMinor, createHistoryParser(), until, scan);
+        }
+        BufferedReader reader = new BufferedReader(cleartool.lshistoryStreaming(format, scan.getSince(), viewPath, branchName, paths, getMinor));
+        try {
+            scan.setFirstChange(createHistoryParser().findFirst(reader, until, scan));
+        } catch (ParseException ex) {
+            /* empty by design, the scan is partial */
+        } finally {
+            // closing the reader before the end of the output stops lshistory
+            reader.close();
+        }
+        return scan;
+    }
+
+    /**
+     * Scans the history listed for all the jobs polling the same branch of the same paths, until the first entry
+     * accepted by the given filter.
+     * 
+     * @param until optional, the filter of the entry ending the scan, the first new entry if none
+     */
+    private HistoryScan scanSharedHistory(final String format, final boolean getMinor, final String viewPath, final String branchName,
+            final String[] paths, Filter until, HistoryScan scan) throws IOException, InterruptedException {
+        final HistoryParser parser = createHistoryParser();
+        String key = getPollingKey(format, getMinor, parser, branchName, paths);
+        List<HistoryEntry> entries = pollCoordinator.subscribe(key, scan.getSince(), new PollCoordinator.Listing() {
+            public List<HistoryEntry> list(Date since) throws IOException, InterruptedException {
+                return listBranchHistory(format, since, viewPath, branchName, paths, getMinor, parser);
+            }
+        });
+        for (HistoryEntry entry : entries) {
+            long fingerprint = HighWaterMark.fingerprint(entry.getLine());
+            if (scan.isSeen(fingerprint)) {
+                continue;
+            }
+            scan.record(fingerprint, entry);
+            if (until == null || until.accept(entry)) {
+                if (scan.isCollecting()) {
+                    scan.addChange(entry);
+                    continue;
+                }
+                scan.setFirstChange(entry);
+                // the following entries are not recorded
+                scan.setPartial();
+                break;
+            }
+        }
+        return scan;
+    }
+
+    /**
+     * Identifies the history shared between jobs. The element names being trimmed of the extended view path, the history
+     * listed in the view of a job is also the one of the other views loading the same rules.
+     */
+    private String getPollingKey(String format, boolean getMinor, HistoryParser parser, String branchName, String[] viewPaths) {
+        String[] loadRules = (viewPaths != null) ? viewPaths.clone() : new String[0];
+        Arrays.sort(loadRules);
+        return parser.getClass().getName() + '\n' + format + '\n' + getMinor + '\n' + branchName + '\n' + StringUtils.join(loadRules, '\n');
+    }
+
+    /**
+     * Lists the whole history of a branch, not filtered.
+     */
+    private List<HistoryEntry> listBranchHistory(String format, Date since, String viewPath, String branchName, String[] viewPaths, boolean getMinor,
+            HistoryParser parser) throws IOException, InterruptedException {
+        if (queryOnNode && !LOCAL_QUERY) {
+            return cleartool.lshistoryFiltered(format, since, viewPath, branchName, viewPaths, getMinor, parser, null);
+        }
+        List<HistoryEntry> history = new ArrayList<HistoryEntry>();
+        BufferedReader reader = new BufferedReader(cleartool.lshistoryStreaming(format, since, viewPath, branchName, viewPaths, getMinor));
+        try {
+            parser.parse(reader, history);
+        } catch (ParseException ex) {
+            // the history is shared, it is not reused when incomplete
+            throw (IOException) new IOException("Could not parse the history of " + branchName).initCause(ex);
+        } finally {
+            reader.close();
+        }
+        return history;
+    }
+
+    /**
+     * Shares the history listed for polling with the other jobs polling the same branch of the same load rules.
+     * 
+     * @param pollCoordinator optional, the coordinator of the node running cleartool
+     */
+    public void setPollCoordinator(PollCoordinator pollCoordinator) {
+        this.pollCoordinator = pollCoordinator;
+    }
+
+    /**
+     * Polls in two phases: the VOBs are probed for new events first, the load rules are only scanned when there are.
+     * 
+     * @param historyProbe optional, records the probes and the scans
+     */
+    public void setHistoryProbe(HistoryProbe historyProbe) {
+        this.historyProbe = historyProbe;
+    }
+
+    /**
+     * Starts polling from the marks reached by the previous polling rather than from the given time, the events already
+     * seen being skipped.
+     * 
+     * @param previousMarks optional, the marks of the previous polling
+     * @param pollBufferMillis how long before the marks the history is listed again, see the multi-site poll buffer
+     */
+    public void setHighWaterMarks(HighWaterMarks previousMarks, long pollBufferMillis) {
+        this.previousMarks = previousMarks;
+        this.pollBufferMillis = pollBufferMillis;
+    }
+
+    /**
+     * @return the marks reached by {@link #hasChanges}, null if changes were found
+     */
+    public HighWaterMarks getHighWaterMarks() {
+        return highWaterMarks;
+    }
+
+    /**
+     * Returns the lshistory format used for polling. Only the fields read by the filter are requested, the other ones
+     * being left empty, unless the filter does not know them or the changes are collected. The date is always requested,
+     * entries being dated when parsed.
+     */
+    protected String getPollingFormat() {
+        Collection<String> fields = Collections.emptySet();
+        if (filter instanceof FieldsAwareFilter) {
+            fields = ((FieldsAwareFilter) filter).getFields();
+        } else if (filter != null) {
+            fields = null;
+        }
+        if (fields == null) {
+            return getHistoryFormatHandler().getFormat() + COMMENT + LINEEND;
+        }
+        if (collecting) {
+            // the entries are kept for the changelog, only their comments are described afterwards
+            String format = getHistoryFormatHandler().getFormat();
+            return fields.contains(COMMENT) ? format + COMMENT + LINEEND : format;
+        }
+        Set<String> retained = new HashSet<String>(fields);
+        retained.add(DATE_NUMERIC);
+        String format = getHistoryFormatHandler().retaining(retained).getFormat();
+        if (fields.contains(COMMENT)) {
+            format += COMMENT + LINEEND;
+        }
+        return format;
     }
 
     private boolean needsHistory(String viewTag, String[] loadRules) throws IOException, InterruptedException {
@@ -120,35 +497,24 @@ public abstract class AbstractHistoryAction implements HistoryAction {
         return branchNames;
     }
 
-    protected abstract HistoryEntry parseEventLine(Matcher matcher, String line) throws IOException, InterruptedException, ParseException;
+    /**
+     * Creates the parser of the output of the history format handler, trimming the extended view path.
+     */
+    protected abstract HistoryParser createHistoryParser();
 
     protected void parseLsHistory(BufferedReader reader, Collection<HistoryEntry> history) throws IOException, InterruptedException, ParseException {
-        HistoryEntry currentEntry = null;
-
-        for(String line = reader.readLine(); line != null; line = reader.readLine()) {
-            // TODO: better error handling
-            if (line.startsWith("cleartool: Error:")) {
-                continue;
-            }
-            Matcher matcher = getHistoryFormatHandler().checkLine(line);
-            
-            // finder find start of lshistory entry
-            if (matcher != null) {
-                currentEntry = parseEventLine(matcher, line);
-                // Trim the extended view path
-                currentEntry.setElement(StringUtils.removeStart(currentEntry.getElement(), extendedViewPath));
-                history.add(currentEntry);
-            } else {
-                if (currentEntry != null) {
-                    currentEntry.appendComment(line).appendComment("\n");
-                } else {
-                    Logger.getLogger(AbstractHistoryAction.class.getName()).warning("Got the comment : \"" + line + "\" but couldn't attach it to any entry");
-                }
-            }
-        }
+        createHistoryParser().parse(reader, history);
     }
 
     protected List<HistoryEntry> runLsHistory(Date time, String viewPath, String viewTag, String[] branchNames, String[] viewPaths) throws IOException, InterruptedException {
+        return listHistory(time, viewPath, viewTag, branchNames, viewPaths);
+    }
+
+    /**
+     * Lists the history of the branches with lshistory only.
+     */
+    private List<HistoryEntry> listHistory(Date time, String viewPath, String viewTag, String[] branchNames, String[] viewPaths) throws IOException,
+            InterruptedException {
         Validate.notNull(viewPath);
         List<HistoryEntry> history = new ArrayList<HistoryEntry>();
         if (needsHistory(viewTag, viewPaths)) {
@@ -157,9 +523,18 @@ public abstract class AbstractHistoryAction implements HistoryAction {
             }
             try {
                 for (String branchName : normalizeBranches(branchNames)) {
-                    BufferedReader reader = new BufferedReader(cleartool.lshistory(getHistoryFormatHandler().getFormat() + COMMENT + LINEEND, time, viewPath, branchName, viewPaths, (filter != null) && (filter.requiresMinorEvents())));
-                    parseLsHistory(reader, history);
-                    reader.close();
+                    if (queryOnNode && !LOCAL_QUERY) {
+                        // the entries are filtered again with the ones added by subclasses, accepted entries stay accepted
+                        history.addAll(cleartool.lshistoryFiltered(getHistoryFormatHandler().getFormat() + COMMENT + LINEEND, time, viewPath, branchName,
+                                viewPaths, (filter != null) && (filter.requiresMinorEvents()), createHistoryParser(), filter));
+                        continue;
+                    }
+                    BufferedReader reader = new BufferedReader(cleartool.lshistoryStreaming(getHistoryFormatHandler().getFormat() + COMMENT + LINEEND, time, viewPath, branchName, viewPaths, (filter != null) && (filter.requiresMinorEvents())));
+                    try {
+                        parseLsHistory(reader, history);
+                    } finally {
+                        reader.close();
+                    }
                 }
             } catch (ParseException ex) {
                 /* empty by design */
@@ -168,6 +543,16 @@ public abstract class AbstractHistoryAction implements HistoryAction {
         return history;
     }
 
+    /**
+     * Runs lshistory, parses and filters its output on the node owning the view, only the accepted entries being transferred
+     * back.
+     * 
+     * @param queryOnNode true to query the history through {@link ClearTool#lshistoryFiltered}
+     */
+    public void setQueryOnNode(boolean queryOnNode) {
+        this.queryOnNode = queryOnNode;
+    }
+
     /**
      * Sets the extended view path. The extended view path will be removed from file paths in the event. The extended
      * view path is for example the view root + view name; and this path shows up in the history and can be confusing for
@@ -24,10 +24,17 @@
  */
 package hudson.plugins.clearcase.history;
 
+import static hudson.plugins.clearcase.util.OutputFormat.EVENT;
+import static hudson.plugins.clearcase.util.OutputFormat.NAME_VERSIONID;
+
+import java.util.Arrays;
+import java.util.Collection;
+
 /**
  * @author Henrik L. Hansen (henrik.lynggaard@gmail.com)
  */
-public class DefaultFilter implements Filter {
+public class DefaultFilter implements FieldsAwareFilter {
+    private static final long serialVersionUID = 1L;
 
     @Override
     public boolean accept(HistoryEntry entry) {
@@ -47,4 +54,14 @@ public class DefaultFilter implements Filter {
         return false;
 }
 
+    @Override
+    public Collection<String> getFields() {
+        return Arrays.asList(NAME_VERSIONID, EVENT);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+
 }
@@ -24,12 +24,17 @@
  */
 package hudson.plugins.clearcase.history;
 
+import static hudson.plugins.clearcase.util.OutputFormat.EVENT;
+
+import java.util.Collection;
+import java.util.Collections;
 import java.util.regex.Pattern;
 
 /**
  * @author Henrik L. Hansen (henrik.lynggaard@gmail.com)
  */
-public class DestroySubBranchFilter implements Filter {
+public class DestroySubBranchFilter implements FieldsAwareFilter {
+    private static final long serialVersionUID = 1L;
 
     private static final Pattern DESTROYED_SUB_BRANCH_PATTERN = Pattern.compile("destroy sub-branch \".+\" of branch");
 
@@ -46,4 +51,14 @@ public class DestroySubBranchFilter implements Filter {
         return false;
 }
 
+    @Override
+    public Collection<String> getFields() {
+        return Collections.singleton(EVENT);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+
 }
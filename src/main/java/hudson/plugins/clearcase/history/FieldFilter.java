@@ -36,6 +36,8 @@ import java.util.regex.Pattern;
  * @author hlyh
  */
 public abstract class FieldFilter implements Filter {
+    private static final long serialVersionUID = 1L;
+
     private Type type;
     private String patternText;
     private Pattern pattern;
@@ -109,6 +111,11 @@ public abstract class FieldFilter implements Filter {
         return true;
     }
 
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '(' + type + ' ' + patternText + ')';
+    }
+
     public enum Type {
         Equals, EqualsIgnoreCase, NotEquals, NotEqualsIgnoreCase, StartsWith, StartsWithIgnoreCase, EndsWith, EndsWithIgnoreCase, Contains, ContainsIgnoreCase, DoesNotContain, DoesNotContainIgnoreCase, ContainsRegxp, DoesNotContainRegxp
     }
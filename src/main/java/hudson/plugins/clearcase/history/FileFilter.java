@@ -24,10 +24,16 @@
  */
 package hudson.plugins.clearcase.history;
 
+import static hudson.plugins.clearcase.util.OutputFormat.NAME_ELEMENTNAME;
+
+import java.util.Collection;
+import java.util.Collections;
+
 /**
  * @author Henrik L. Hansen (henrik.lynggaard@gmail.com)
  */
-public class FileFilter extends FieldFilter {
+public class FileFilter extends FieldFilter implements FieldsAwareFilter {
+    private static final long serialVersionUID = 1L;
 
     public FileFilter(Type type, String patternText) {
         super(type, patternText);
@@ -43,4 +49,9 @@ public class FileFilter extends FieldFilter {
         return false;
 }
 
+    @Override
+    public Collection<String> getFields() {
+        return Collections.singleton(NAME_ELEMENTNAME);
+    }
+
 }
@@ -24,10 +24,14 @@
  */
 package hudson.plugins.clearcase.history;
 
+import java.io.Serializable;
+
 /**
+ * Filters are serializable, to filter the history on the node running cleartool.
+ * 
  * @author Henrik L. Hansen (henrik.lynggaard@gmail.com)
  */
-public interface Filter {
+public interface Filter extends Serializable {
 
     public boolean accept(HistoryEntry element);
     public boolean requiresMinorEvents();
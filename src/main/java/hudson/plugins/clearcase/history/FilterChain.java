@@ -27,6 +27,8 @@ package hudson.plugins.clearcase.history;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * A filter that chains a collection of filters. It fill filter all elements that get filtered by any of underlying
@@ -34,7 +36,8 @@ import java.util.Collections;
  * 
  * @author vlatombe
  */
-public class FilterChain implements Filter {
+public class FilterChain implements FieldsAwareFilter {
+    private static final long serialVersionUID = 1L;
 
     private final Collection<Filter> filters;
 
@@ -63,8 +66,32 @@ public class FilterChain implements Filter {
         return false;
     }
 
+    /**
+     * @return the fields read by the chained filters, or null if one of them does not know its fields
+     */
+    @Override
+    public Collection<String> getFields() {
+        Set<String> fields = new HashSet<String>();
+        for (Filter f : filters) {
+            if (!(f instanceof FieldsAwareFilter)) {
+                return null;
+            }
+            Collection<String> filterFields = ((FieldsAwareFilter) f).getFields();
+            if (filterFields == null) {
+                return null;
+            }
+            fields.addAll(filterFields);
+        }
+        return fields;
+    }
+
     public Collection<Filter> getFilters() {
         return Collections.unmodifiableCollection(filters);
     }
 
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + filters;
+    }
+
 }
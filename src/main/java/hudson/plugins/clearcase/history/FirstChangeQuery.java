@@ -0,0 +1,63 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.history;
+
+import hudson.plugins.clearcase.ClearToolOutputProcessor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.text.ParseException;
+
+/**
+ * Parses the output of lshistory where it runs until the first accepted entry, the command being stopped as soon as it
+ * is found. The scan, holding the entry, is sent back.
+ */
+public class FirstChangeQuery implements ClearToolOutputProcessor<HistoryScan> {
+    private static final long serialVersionUID = 1L;
+
+    private final HistoryParser parser;
+    private final Filter filter;
+    private final HistoryScan scan;
+
+    /**
+     * @param parser the parser of the lshistory output
+     * @param filter optional, the filter of the parsed entries
+     * @param scan the scan of the history
+     */
+    public FirstChangeQuery(HistoryParser parser, Filter filter, HistoryScan scan) {
+        this.parser = parser;
+        this.filter = filter;
+        this.scan = scan;
+    }
+
+    public HistoryScan process(BufferedReader output) throws IOException {
+        try {
+            scan.setFirstChange(parser.findFirst(output, filter, scan));
+        } catch (ParseException ex) {
+            /* empty by design, the scan is partial */
+        }
+        return scan;
+    }
+}
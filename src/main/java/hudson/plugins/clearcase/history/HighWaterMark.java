@@ -0,0 +1,100 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.history;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The point reached by the polling of a branch: the time of the latest event listed, and the fingerprints of the events
+ * that the next polling lists again, as it starts earlier by the multi-site poll buffer.
+ */
+public class HighWaterMark implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long start;
+    private final long time;
+    private final Map<Long, Long> seen;
+
+    /**
+     * @param start the time the polling of the branch started from, events before it are never listed again
+     * @param time the time of the latest event listed
+     * @param seen the time of the events listed, by fingerprint
+     */
+    public HighWaterMark(long start, long time, Map<Long, Long> seen) {
+        this.start = start;
+        this.time = time;
+        this.seen = seen;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public boolean isSeen(long fingerprint) {
+        return seen.containsKey(fingerprint);
+    }
+
+    /**
+     * @return the time of the events listed, by fingerprint
+     */
+    public Map<Long, Long> getSeen() {
+        return Collections.unmodifiableMap(seen);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof HighWaterMark)) {
+            return false;
+        }
+        HighWaterMark other = (HighWaterMark) obj;
+        return start == other.start && time == other.time && seen.equals(other.seen);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (time ^ (time >>> 32)) * 31 + seen.hashCode();
+    }
+
+    /**
+     * Computes the fingerprint of an event line of lshistory, a 64 bits FNV-1a hash.
+     */
+    public static long fingerprint(String line) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < line.length(); i++) {
+            hash ^= line.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.history;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * The high-water marks of the polling of a job, by branch and load rules.
+ */
+public class HighWaterMarks implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, HighWaterMark> marks = new HashMap<String, HighWaterMark>();
+
+    /**
+     * @return the mark of the branch, null if the branch was not polled with these load rules
+     */
+    public HighWaterMark get(String branch, String[] loadRules) {
+        return marks.get(getKey(branch, loadRules));
+    }
+
+    /**
+     * @param mark the mark of the branch, null to remove it
+     */
+    public void put(String branch, String[] loadRules, HighWaterMark mark) {
+        if (mark == null) {
+            marks.remove(getKey(branch, loadRules));
+        } else {
+            marks.put(getKey(branch, loadRules), mark);
+        }
+    }
+
+    public boolean isEmpty() {
+        return marks.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof HighWaterMarks && marks.equals(((HighWaterMarks) obj).marks);
+    }
+
+    @Override
+    public int hashCode() {
+        return marks.hashCode();
+    }
+
+    private static String getKey(String branch, String[] loadRules) {
+        // lshistory runs once by branch for all the load rules
+        return branch + '\n' + StringUtils.join(loadRules, '\n');
+    }
+}
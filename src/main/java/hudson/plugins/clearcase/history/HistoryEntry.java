@@ -24,6 +24,7 @@
  */
 package hudson.plugins.clearcase.history;
 
+import java.io.Serializable;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -33,7 +34,8 @@ import org.apache.commons.lang.StringUtils;
 /**
  * @author Henrik L. Hansen (henrik.lynggaard@gmail.com)
  */
-public class HistoryEntry {
+public class HistoryEntry implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     Date date;
     String dateText;
@@ -0,0 +1,169 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.history;
+
+import hudson.plugins.clearcase.util.ClearToolFormatHandler;
+import hudson.plugins.clearcase.util.FormattedLine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.text.ParseException;
+import java.util.Collection;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Parses the output of lshistory into history entries. Parsers are serializable so that the output can be parsed on the
+ * node running cleartool.
+ */
+public abstract class HistoryParser implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final ClearToolFormatHandler handler;
+    private final String extendedViewPath;
+
+    /**
+     * @param handler the handler of the format used for the events
+     * @param extendedViewPath optional, the path removed from the element names
+     */
+    protected HistoryParser(ClearToolFormatHandler handler, String extendedViewPath) {
+        this.handler = handler;
+        this.extendedViewPath = extendedViewPath;
+    }
+
+    /**
+     * Creates the entry of an event line matching the format.
+     */
+    protected abstract HistoryEntry parseEventLine(FormattedLine line) throws ParseException;
+
+    public void parse(BufferedReader reader, Collection<HistoryEntry> history) throws IOException, ParseException {
+        HistoryEntry currentEntry = null;
+
+        for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+            // TODO: better error handling
+            if (line.startsWith("cleartool: Error:")) {
+                continue;
+            }
+            FormattedLine fields = handler.parseLine(line);
+            
+            // finder find start of lshistory entry
+            if (fields != null) {
+                currentEntry = parseEntry(fields);
+                history.add(currentEntry);
+            } else {
+                appendComment(currentEntry, line);
+            }
+        }
+    }
+
+    /**
+     * Parses the output until the first entry accepted by the filter, leaving the rest of the output unread. An entry is
+     * only checked once its comment is complete, that is when the next event starts or at the end of the output.
+     * 
+     * @param filter optional, the filter of the parsed entries
+     * @return the first accepted entry, or null if there is none
+     */
+    public HistoryEntry findFirst(BufferedReader reader, Filter filter) throws IOException, ParseException {
+        return findFirst(reader, filter, null);
+    }
+
+    /**
+     * Same as {@link #findFirst(BufferedReader, Filter)}, but the events already seen by the scan are skipped without
+     * being parsed, the other ones being recorded. A collecting scan reads the whole output, keeping all the accepted
+     * entries.
+     * 
+     * @param scan optional, the scan of the history
+     */
+    public HistoryEntry findFirst(BufferedReader reader, Filter filter, HistoryScan scan) throws IOException, ParseException {
+        HistoryEntry currentEntry = null;
+        boolean skipping = false;
+        boolean complete = false;
+
+        try {
+            for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.startsWith("cleartool: Error:")) {
+                    continue;
+                }
+                FormattedLine fields = handler.parseLine(line);
+                if (fields != null) {
+                    if (isAccepted(currentEntry, filter)) {
+                        if (!isCollecting(scan)) {
+                            return currentEntry;
+                        }
+                        scan.addChange(currentEntry);
+                    }
+                    currentEntry = null;
+                    long fingerprint = (scan != null) ? HighWaterMark.fingerprint(line) : 0;
+                    skipping = (scan != null) && scan.isSeen(fingerprint);
+                    if (!skipping) {
+                        currentEntry = parseEntry(fields);
+                        if (scan != null) {
+                            scan.record(fingerprint, currentEntry);
+                        }
+                    }
+                } else if (!skipping) {
+                    appendComment(currentEntry, line);
+                }
+            }
+            complete = true;
+        } finally {
+            if (!complete && scan != null) {
+                scan.setPartial();
+            }
+        }
+        if (isCollecting(scan)) {
+            if (isAccepted(currentEntry, filter)) {
+                scan.addChange(currentEntry);
+            }
+            return scan.getFirstChange();
+        }
+        return isAccepted(currentEntry, filter) ? currentEntry : null;
+    }
+
+    private static boolean isCollecting(HistoryScan scan) {
+        return scan != null && scan.isCollecting();
+    }
+
+    private HistoryEntry parseEntry(FormattedLine fields) throws ParseException {
+        HistoryEntry entry = parseEventLine(fields);
+        // Trim the extended view path
+        entry.setElement(StringUtils.removeStart(entry.getElement(), extendedViewPath));
+        return entry;
+    }
+
+    private static void appendComment(HistoryEntry entry, String line) {
+        if (entry != null) {
+            entry.appendComment(line).appendComment("\n");
+        } else {
+            Logger.getLogger(HistoryParser.class.getName()).warning("Got the comment : \"" + line + "\" but couldn't attach it to any entry");
+        }
+    }
+
+    private static boolean isAccepted(HistoryEntry entry, Filter filter) {
+        return entry != null && (filter == null || filter.accept(entry));
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.history;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * First phase of the polling: only the latest event of each VOB of the load rules is listed, with
+ * <code>lshistory -last 1</code>. The full query of the load rules, filtered, only runs when this event is more recent than
+ * the previous polling. The probe is not used with a multi-site poll buffer, as the events replicated late are not the
+ * latest ones.
+ * 
+ * The probes and the full queries are counted, to tell how often the second phase is needed. Setting
+ * <code>hudson.plugins.clearcase.history.HistoryProbe.disabled</code> to true polls in a single phase.
+ */
+public class HistoryProbe {
+
+    private static final String PROPERTY_PREFIX = HistoryProbe.class.getName() + ".";
+
+    private static final boolean DISABLED = Boolean.getBoolean(PROPERTY_PREFIX + "disabled");
+
+    private static final String VOBS_ROOT = "vobs";
+
+    private static final HistoryProbe INSTANCE = new HistoryProbe();
+
+    private long probes;
+    private long positiveProbes;
+    private long probeMillis;
+    private long fullQueries;
+    private long changes;
+    private long fullQueryMillis;
+
+    public static HistoryProbe get() {
+        return INSTANCE;
+    }
+
+    public static boolean isEnabled() {
+        return !DISABLED;
+    }
+
+    /**
+     * @param loadRules the load rules
+     * @return the roots of the VOBs of the load rules, each one once
+     */
+    public static String[] getVobRoots(String[] loadRules) {
+        if (loadRules == null) {
+            return null;
+        }
+        Set<String> roots = new LinkedHashSet<String>();
+        for (String loadRule : loadRules) {
+            roots.add(getVobRoot(loadRule));
+        }
+        return roots.toArray(new String[roots.size()]);
+    }
+
+    /**
+     * Tells the root of the VOB of a load rule, lshistory listing the history of the whole VOB anyway. The VOB is the
+     * first directory of the load rule, or the second one under <code>vobs</code>.
+     */
+    static String getVobRoot(String loadRule) {
+        int start = 0;
+        while (start < loadRule.length() && (loadRule.charAt(start) == '/' || loadRule.charAt(start) == '\\')) {
+            start++;
+        }
+        int end = StringUtils.indexOfAny(loadRule.substring(start), "/\\");
+        if (end < 0) {
+            return loadRule;
+        }
+        end += start;
+        if (VOBS_ROOT.equals(loadRule.substring(start, end))) {
+            int next = StringUtils.indexOfAny(loadRule.substring(end + 1), "/\\");
+            if (next < 0) {
+                return loadRule;
+            }
+            end += next + 1;
+        }
+        return loadRule.substring(0, end);
+    }
+
+    /**
+     * @param positive true if the probe found a new event, the full query being needed
+     */
+    public synchronized void recordProbe(boolean positive, long millis) {
+        probes++;
+        probeMillis += millis;
+        if (positive) {
+            positiveProbes++;
+        }
+    }
+
+    /**
+     * @param changed true if the full query found a change
+     */
+    public synchronized void recordFullQuery(boolean changed, long millis) {
+        fullQueries++;
+        fullQueryMillis += millis;
+        if (changed) {
+            changes++;
+        }
+    }
+
+    public synchronized long getProbes() {
+        return probes;
+    }
+
+    /**
+     * @return the number of probes that found a new event
+     */
+    public synchronized long getPositiveProbes() {
+        return positiveProbes;
+    }
+
+    public synchronized long getProbeMillis() {
+        return probeMillis;
+    }
+
+    /**
+     * @return the number of full queries run after a positive probe
+     */
+    public synchronized long getFullQueries() {
+        return fullQueries;
+    }
+
+    /**
+     * @return the number of full queries that found a change
+     */
+    public synchronized long getChanges() {
+        return changes;
+    }
+
+    public synchronized long getFullQueryMillis() {
+        return fullQueryMillis;
+    }
+
+    /**
+     * @return the percentage of the probes followed by a full query
+     */
+    public synchronized int getFullQueryRate() {
+        return (probes == 0) ? 0 : (int) (100 * positiveProbes / probes);
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.history;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The polling of the history of a branch, from its previous high-water mark. Events already listed by the previous
+ * polling are skipped, the other ones are recorded to compute the next mark.
+ */
+public class HistoryScan implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final HighWaterMark previous;
+    private final long bufferMillis;
+    private final long start;
+    private final Date since;
+    private final Map<Long, Long> listed = new HashMap<Long, Long>();
+    private long latest;
+    private int skipped;
+    private boolean partial;
+    private HistoryEntry firstChange;
+    private boolean collecting;
+    private final List<HistoryEntry> changes = new ArrayList<HistoryEntry>();
+
+    /**
+     * @param previous optional, the mark of the previous polling
+     * @param time the time of the previous polling or build, the history is never listed from before it
+     * @param bufferMillis the multi-site poll buffer, the history being listed from that long before the previous mark
+     */
+    public HistoryScan(HighWaterMark previous, Date time, long bufferMillis) {
+        this.previous = previous;
+        this.bufferMillis = bufferMillis;
+        if (previous != null) {
+            start = previous.getStart();
+            latest = previous.getTime();
+            // a quiet branch has no new event to move the mark, the time of the previous polling moves it
+            long from = Math.max(start, (time != null) ? time.getTime() : 0);
+            since = new Date(Math.max(from, latest - bufferMillis));
+        } else {
+            start = (time != null) ? time.getTime() : 0;
+            latest = start;
+            since = time;
+        }
+    }
+
+    /**
+     * @return the time the history is listed from
+     */
+    public Date getSince() {
+        return since;
+    }
+
+    /**
+     * Tells if the latest event of the history may not have been seen by the previous polling. The dates being to the
+     * second, an event dated like the previous mark is taken as seen.
+     * 
+     * @param latestEvent the date of the latest event of the history
+     * @return true if the history has to be listed
+     */
+    public boolean isAfterMark(Date latestEvent) {
+        if (previous != null) {
+            return latestEvent.getTime() > previous.getTime();
+        }
+        return since == null || !latestEvent.before(since);
+    }
+
+    /**
+     * @return true if the event was already listed by the previous polling
+     */
+    public boolean isSeen(long fingerprint) {
+        if (previous != null && previous.isSeen(fingerprint)) {
+            skipped++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records an event listed for the first time.
+     */
+    public void record(long fingerprint, HistoryEntry entry) {
+        long time = (entry.getDate() != null) ? entry.getDate().getTime() : latest;
+        listed.put(fingerprint, time);
+        latest = Math.max(latest, time);
+    }
+
+    /**
+     * Marks the scan as stopped before the end of the history, the events not listed being unknown.
+     */
+    public void setPartial() {
+        partial = true;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public HistoryEntry getFirstChange() {
+        return firstChange;
+    }
+
+    public void setFirstChange(HistoryEntry firstChange) {
+        this.firstChange = firstChange;
+    }
+
+    /**
+     * @param collecting true to scan the whole history, all the accepted entries being kept rather than the first one
+     */
+    public void setCollecting(boolean collecting) {
+        this.collecting = collecting;
+    }
+
+    public boolean isCollecting() {
+        return collecting;
+    }
+
+    /**
+     * Keeps an accepted entry of a collecting scan, the first one being the first change.
+     */
+    public void addChange(HistoryEntry entry) {
+        if (firstChange == null) {
+            firstChange = entry;
+        }
+        changes.add(entry);
+    }
+
+    /**
+     * @return the accepted entries of a collecting scan
+     */
+    public List<HistoryEntry> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Computes the mark reached by the scan. The events listed again by the next polling are kept.
+     * 
+     * @return the next mark, the previous one if the scan is partial
+     */
+    public HighWaterMark getMark() {
+        if (partial) {
+            return previous;
+        }
+        long from = latest - bufferMillis;
+        Map<Long, Long> seen = new HashMap<Long, Long>();
+        if (previous != null) {
+            putFrom(previous.getSeen(), from, seen);
+        }
+        putFrom(listed, from, seen);
+        return new HighWaterMark(start, latest, seen);
+    }
+
+    private static void putFrom(Map<Long, Long> events, long from, Map<Long, Long> seen) {
+        for (Map.Entry<Long, Long> event : events.entrySet()) {
+            if (event.getValue() >= from) {
+                seen.put(event.getKey(), event.getValue());
+            }
+        }
+    }
+}
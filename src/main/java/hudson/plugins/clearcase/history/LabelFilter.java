@@ -29,6 +29,7 @@ package hudson.plugins.clearcase.history;
  * @author Krzysztof Malinowski (raspy@dev.java.net)
  */
 public class LabelFilter extends OperationFilter {
+    private static final long serialVersionUID = 1L;
 
     private static final String[] LABEL_OPERATIONS = { "mklabel", "rmlabel" };
 
@@ -25,7 +25,12 @@
  */
 package hudson.plugins.clearcase.history;
 
+import static hudson.plugins.clearcase.util.OutputFormat.EVENT;
+import static hudson.plugins.clearcase.util.OutputFormat.OPERATION;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.commons.lang.ArrayUtils;
@@ -33,7 +38,8 @@ import org.apache.commons.lang.ArrayUtils;
 /**
  * @author Krzysztof Malinowski (raspy@dev.java.net)
  */
-public abstract class OperationFilter implements Filter {
+public abstract class OperationFilter implements FieldsAwareFilter {
+    private static final long serialVersionUID = 1L;
 
     private static final Pattern PATTERN_OBJECT_NAME
             = Pattern.compile("^[^\"]*\"(.*)\"[^\"]*$");
@@ -81,4 +87,14 @@ public abstract class OperationFilter implements Filter {
         return matcher.matches() ? matcher.group(1) : "";
     }
 
+    @Override
+    public Collection<String> getFields() {
+        return Arrays.asList(OPERATION, EVENT);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + (namePatterns != null ? namePatterns.toString() : "");
+    }
+
 }
@@ -0,0 +1,209 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.history;
+
+import hudson.remoting.VirtualChannel;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Shares the history listed for polling between the jobs polling the same branch of the same load rules on one node. The
+ * subscriptions are grouped by branch, load rules, format and since window: the history of a group is listed once, from
+ * the start of the window, and each subscriber gets the entries since its own time, to be filtered with its own filter.
+ * 
+ * The history of a group is reused by the subscriptions arriving within
+ * <code>hudson.plugins.clearcase.history.PollCoordinator.maxAge</code> seconds after it was listed (60 by default), the
+ * since window being <code>hudson.plugins.clearcase.history.PollCoordinator.window</code> seconds (300 by default).
+ * Setting <code>hudson.plugins.clearcase.history.PollCoordinator.disabled</code> to true turns the sharing off.
+ */
+public class PollCoordinator {
+
+    private static final String PROPERTY_PREFIX = PollCoordinator.class.getName() + ".";
+
+    private static final boolean DISABLED = Boolean.getBoolean(PROPERTY_PREFIX + "disabled");
+
+    private static final long WINDOW_MILLIS = 1000L * Integer.getInteger(PROPERTY_PREFIX + "window", 300);
+
+    private static final long MAX_AGE_MILLIS = 1000L * Integer.getInteger(PROPERTY_PREFIX + "maxAge", 60);
+
+    private static final Map<VirtualChannel, PollCoordinator> NODE_COORDINATORS = new WeakHashMap<VirtualChannel, PollCoordinator>();
+
+    /** Used when the launcher has no channel */
+    private static final PollCoordinator LOCAL_COORDINATOR = new PollCoordinator(WINDOW_MILLIS, MAX_AGE_MILLIS);
+
+    /**
+     * Lists the history of a group.
+     */
+    public interface Listing {
+        /**
+         * @param since optional, the time the history is listed from
+         * @return the parsed entries, not filtered
+         */
+        List<HistoryEntry> list(Date since) throws IOException, InterruptedException;
+    }
+
+    private final long windowMillis;
+    private final long maxAgeMillis;
+    private final Map<String, Group> groups = new HashMap<String, Group>();
+
+    private long listings;
+    private long sharedListings;
+    private long fallbacks;
+
+    public PollCoordinator(long windowMillis, long maxAgeMillis) {
+        this.windowMillis = windowMillis;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public static boolean isEnabled() {
+        return !DISABLED;
+    }
+
+    /**
+     * @return the coordinator of the node the given channel leads to
+     */
+    public static PollCoordinator forChannel(VirtualChannel channel) {
+        if (channel == null) {
+            return LOCAL_COORDINATOR;
+        }
+        synchronized (NODE_COORDINATORS) {
+            PollCoordinator coordinator = NODE_COORDINATORS.get(channel);
+            if (coordinator == null) {
+                coordinator = new PollCoordinator(WINDOW_MILLIS, MAX_AGE_MILLIS);
+                NODE_COORDINATORS.put(channel, coordinator);
+            }
+            return coordinator;
+        }
+    }
+
+    /**
+     * Returns the history since the given time, listed by the subscription or by another subscription of its group.
+     * 
+     * @param key identifies the history listed: branch, load rules, format
+     * @param since optional, the time the subscriber needs the history from
+     * @param listing lists the history of the group, when no other subscription did
+     * @return the entries dated since the given time, in the order of the listing
+     */
+    public List<HistoryEntry> subscribe(String key, Date since, Listing listing) throws IOException, InterruptedException {
+        Date windowStart = (since != null && windowMillis > 0) ? new Date(since.getTime() - since.getTime() % windowMillis) : since;
+        String groupKey = key + '\n' + ((windowStart != null) ? windowStart.getTime() : "");
+        Group group;
+        boolean leader;
+        synchronized (this) {
+            expire(System.currentTimeMillis());
+            group = groups.get(groupKey);
+            leader = group == null;
+            if (leader) {
+                group = new Group();
+                groups.put(groupKey, group);
+                listings++;
+            }
+        }
+        if (leader) {
+            try {
+                group.entries = listing.list(windowStart);
+            } finally {
+                synchronized (this) {
+                    group.listedAt = System.currentTimeMillis();
+                    if (group.entries == null) {
+                        groups.remove(groupKey);
+                    }
+                }
+                group.done.countDown();
+            }
+        } else {
+            group.done.await();
+            if (group.entries == null) {
+                synchronized (this) {
+                    fallbacks++;
+                }
+                return since(listing.list(since), since);
+            }
+            synchronized (this) {
+                sharedListings++;
+            }
+        }
+        return since(group.entries, since);
+    }
+
+    /**
+     * @return the number of histories actually listed
+     */
+    public synchronized long getListings() {
+        return listings;
+    }
+
+    /**
+     * @return the number of subscriptions served with the history listed by another subscription
+     */
+    public synchronized long getSharedListings() {
+        return sharedListings;
+    }
+
+    /**
+     * @return the number of subscriptions that waited for a listing but had to list the history themselves
+     */
+    public synchronized long getFallbacks() {
+        return fallbacks;
+    }
+
+    private void expire(long now) {
+        for (Iterator<Group> it = groups.values().iterator(); it.hasNext();) {
+            Group group = it.next();
+            if (group.listedAt != 0 && now - group.listedAt >= maxAgeMillis) {
+                it.remove();
+            }
+        }
+    }
+
+    private static List<HistoryEntry> since(List<HistoryEntry> entries, Date since) {
+        if (since == null) {
+            return entries;
+        }
+        // lshistory only knows the second
+        long from = since.getTime() - since.getTime() % 1000;
+        List<HistoryEntry> selected = new ArrayList<HistoryEntry>();
+        for (HistoryEntry entry : entries) {
+            if (entry.getDate() == null || entry.getDate().getTime() >= from) {
+                selected.add(entry);
+            }
+        }
+        return selected;
+    }
+
+    private static class Group {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile List<HistoryEntry> entries;
+        private long listedAt;
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.history;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The accepted history entries listed by a polling that found changes, kept for the changelog of the build it triggers.
+ * The build then only lists the history since the polling. Polled histories are kept in memory, by job, for at most
+ * <code>hudson.plugins.clearcase.history.PolledHistory.maxAge</code> seconds (a day by default), and are dropped when
+ * the job is renamed or deleted.
+ */
+public class PolledHistory {
+
+    /**
+     * Setting the system property <code>hudson.plugins.clearcase.history.PolledHistory.disabled</code> to true makes
+     * builds list their whole history again.
+     */
+    private static final boolean DISABLED = Boolean.getBoolean(PolledHistory.class.getName() + ".disabled");
+
+    private static final long MAX_AGE = Integer.getInteger(PolledHistory.class.getName() + ".maxAge", 24 * 60 * 60) * 1000L;
+
+    private static final Map<String, PolledHistory> POLLED_HISTORIES = new HashMap<String, PolledHistory>();
+
+    private final Date since;
+    private final Date deltaSince;
+    private final String key;
+    private final List<HistoryEntry> entries;
+    private final long created = System.currentTimeMillis();
+
+    /**
+     * @param since the time the history was listed from
+     * @param deltaSince the time the history listed by the build starts from
+     * @param key the query of the history, see {@link AbstractHistoryAction#getHistoryKey}
+     * @param entries the accepted entries
+     */
+    public PolledHistory(Date since, Date deltaSince, String key, List<HistoryEntry> entries) {
+        this.since = since;
+        this.deltaSince = deltaSince;
+        this.key = key;
+        this.entries = entries;
+    }
+
+    public Date getDeltaSince() {
+        return deltaSince;
+    }
+
+    public List<HistoryEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return true if the history is the one of the same query, from the same time
+     */
+    public boolean matches(Date since, String key) {
+        return this.since.equals(since) && this.key.equals(key);
+    }
+
+    /**
+     * @return true if the history is too old to be kept, the build it triggered having most likely not run
+     */
+    public boolean isExpired(long now) {
+        return now - created > MAX_AGE;
+    }
+
+    /**
+     * Merges the entries listed since the polling, first as the newest, with the polled ones. The entries listed twice
+     * are kept once.
+     */
+    public List<HistoryEntry> merge(List<HistoryEntry> delta) {
+        Set<HistoryEntry> merged = new LinkedHashSet<HistoryEntry>(delta);
+        merged.addAll(entries);
+        return new ArrayList<HistoryEntry>(merged);
+    }
+
+    public static boolean isEnabled() {
+        return !DISABLED;
+    }
+
+    /**
+     * Keeps the polled history of a job, replacing the previous one. The expired histories of the other jobs are
+     * dropped.
+     */
+    public static void put(String job, PolledHistory history) {
+        long now = System.currentTimeMillis();
+        synchronized (POLLED_HISTORIES) {
+            for (Iterator<PolledHistory> it = POLLED_HISTORIES.values().iterator(); it.hasNext();) {
+                if (it.next().isExpired(now)) {
+                    it.remove();
+                }
+            }
+            POLLED_HISTORIES.put(job, history);
+        }
+    }
+
+    /**
+     * Takes the polled history of a job, which is then forgotten.
+     * 
+     * @return the polled history, null if there is none or if it expired
+     */
+    public static PolledHistory remove(String job) {
+        PolledHistory history;
+        synchronized (POLLED_HISTORIES) {
+            history = POLLED_HISTORIES.remove(job);
+        }
+        return history != null && !history.isExpired(System.currentTimeMillis()) ? history : null;
+    }
+}
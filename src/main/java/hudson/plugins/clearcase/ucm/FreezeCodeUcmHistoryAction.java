@@ -34,6 +34,7 @@ import hudson.plugins.clearcase.ClearTool;
 import hudson.plugins.clearcase.action.UcmDynamicCheckoutAction;
 import hudson.plugins.clearcase.history.Filter;
 import hudson.plugins.clearcase.history.HistoryEntry;
+import hudson.plugins.clearcase.history.PolledHistory;
 import hudson.scm.ChangeLogSet.Entry;
 
 import java.io.BufferedReader;
@@ -107,6 +108,14 @@ public class FreezeCodeUcmHistoryAction extends UcmHistoryAction {
         return changelog;
     }
 
+    /**
+     * The changelog is computed from the baselines made by the build, the polled history is not reused.
+     */
+    @Override
+    public PolledHistory collectChanges(Date time, Date deltaSince, String viewPath, String[] branchNames, String[] viewPaths) {
+        return null;
+    }
+
     @Override
     public boolean hasChanges(Date time, String viewPath, String viewTag, String[] branchNames, String[] viewPaths) throws IOException, InterruptedException {
         // make baseline on the configured stream.
@@ -27,11 +27,13 @@ package hudson.plugins.clearcase.ucm;
 import static hudson.plugins.clearcase.util.OutputFormat.*;
 
 import hudson.plugins.clearcase.ClearTool;
+import hudson.plugins.clearcase.ClearToolTimeoutException;
 import hudson.plugins.clearcase.action.ChangeLogAction;
 import hudson.plugins.clearcase.history.Filter;
 import hudson.plugins.clearcase.history.FilterChain;
 import hudson.plugins.clearcase.history.HistoryEntry;
 import hudson.plugins.clearcase.util.ClearToolFormatHandler;
+import hudson.plugins.clearcase.util.FormattedLine;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -43,7 +45,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 
 /**
  * 
@@ -63,8 +64,7 @@ public class UcmChangeLogAction implements ChangeLogAction {
 
     private ClearTool cleartool;
 
-    private ClearToolFormatHandler historyHandler = new ClearToolFormatHandler(
-                                                                               HISTORY_FORMAT);
+    private ClearToolFormatHandler historyHandler = ClearToolFormatHandler.delimited(HISTORY_FORMAT);
     private SimpleDateFormat dateFormatter = new SimpleDateFormat(
                                                                   "yyyyMMdd.HHmmss");
     private Map<String, UcmActivity> activityNameToEntry = new HashMap<String, UcmActivity>();
@@ -105,6 +105,8 @@ public class UcmChangeLogAction implements ChangeLogAction {
                 history.addAll(parseHistory(reader, viewName));
                 reader.close();
                 ok = true; // At least one path was successful
+            } catch (ClearToolTimeoutException e) {
+                throw e;
             } catch (IOException e) {
                 exception = e;
             }
@@ -132,10 +134,10 @@ public class UcmChangeLogAction implements ChangeLogAction {
                     line = reader.readLine();
                     continue;
                 }
-                Matcher matcher = historyHandler.checkLine(line);
+                FormattedLine fields = historyHandler.parseLine(line);
 
                 // finder find start of lshistory entry
-                if (matcher != null) {
+                if (fields != null) {
 
                     if (currentFile != null) {
                         currentFile.setComment(commentBuilder.toString());
@@ -144,9 +146,9 @@ public class UcmChangeLogAction implements ChangeLogAction {
                     currentFile = new UcmActivity.File();
 
                     // read values;
-                    currentFile.setDate(dateFormatter.parse(matcher.group(1)));
+                    currentFile.setDate(dateFormatter.parse(fields.getField(1)));
 
-                    String fileName = matcher.group(2).trim();
+                    String fileName = fields.getTrimmedField(2);
                     if (extendedViewPath != null) {
                         if (fileName.startsWith(extendedViewPath)) {
                             fileName = fileName.substring(extendedViewPath
@@ -155,22 +157,22 @@ public class UcmChangeLogAction implements ChangeLogAction {
                     }
 
                     currentFile.setName(fileName);
-                    currentFile.setVersion(matcher.group(3));
-                    currentFile.setEvent(matcher.group(5));
-                    currentFile.setOperation(matcher.group(6));
+                    currentFile.setVersion(fields.getField(3));
+                    currentFile.setEvent(fields.getField(5));
+                    currentFile.setOperation(fields.getField(6));
 
                     HistoryEntry historyEntry = new HistoryEntry();
                     historyEntry.setLine(line);
-                    historyEntry.setDateText(matcher.group(1).trim());
-                    historyEntry.setElement(matcher.group(2).trim());
-                    historyEntry.setVersionId(matcher.group(3).trim());
-                    historyEntry.setActivityName(matcher.group(4).trim());
-                    historyEntry.setEvent(matcher.group(5).trim());
-                    historyEntry.setOperation(matcher.group(6).trim());
-                    historyEntry.setUser(matcher.group(7).trim());
+                    historyEntry.setDateText(fields.getTrimmedField(1));
+                    historyEntry.setElement(fields.getTrimmedField(2));
+                    historyEntry.setVersionId(fields.getTrimmedField(3));
+                    historyEntry.setActivityName(fields.getTrimmedField(4));
+                    historyEntry.setEvent(fields.getTrimmedField(5));
+                    historyEntry.setOperation(fields.getTrimmedField(6));
+                    historyEntry.setUser(fields.getTrimmedField(7));
 
                     if (filter.accept(historyEntry)) {
-                    String activityName = matcher.group(4);
+                    String activityName = fields.getField(4);
 
                     UcmActivity activity = activityNameToEntry
                         .get(activityName);
@@ -215,25 +217,25 @@ public class UcmChangeLogAction implements ChangeLogAction {
                                                                                    InterruptedException {
         ClearToolFormatHandler handler = null;
         if (activity.isIntegrationActivity()) {
-            handler = new ClearToolFormatHandler(INTEGRATION_ACTIVITY_FORMAT);
+            handler = ClearToolFormatHandler.delimited(INTEGRATION_ACTIVITY_FORMAT);
         } else {
-            handler = new ClearToolFormatHandler(ACTIVITY_FORMAT);
+            handler = ClearToolFormatHandler.delimited(ACTIVITY_FORMAT);
         }
 
         BufferedReader reader = new BufferedReader(cleartool.lsactivity(
                                                                         activity.getName(), handler.getFormat(), viewname));
 
         String line = reader.readLine();
-        Matcher matcher = handler.checkLine(line);
-        if (matcher != null) {
-            activity.setHeadline(matcher.group(1));
-            activity.setStream(matcher.group(2));
-            activity.setUser(matcher.group(3));
+        FormattedLine fields = handler.parseLine(line);
+        if (fields != null) {
+            activity.setHeadline(fields.getField(1));
+            activity.setStream(fields.getField(2));
+            activity.setUser(fields.getField(3));
 
             if (activity.isIntegrationActivity()
                 && numberOfContributingActivitiesToFollow > 0) {
 
-                String contributingActivities = matcher.group(4);
+                String contributingActivities = fields.getField(4);
 
                 for (String contributing : contributingActivities.split(" ")) {
 
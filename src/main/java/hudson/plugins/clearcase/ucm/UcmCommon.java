@@ -25,25 +25,36 @@
 package hudson.plugins.clearcase.ucm;
 
 import hudson.FilePath;
+import hudson.plugins.clearcase.AsyncClearTool;
 import hudson.plugins.clearcase.Baseline;
 import hudson.plugins.clearcase.ClearTool;
 import hudson.plugins.clearcase.ClearTool.DiffBlOptions;
 import hudson.plugins.clearcase.Component;
+import hudson.plugins.clearcase.ExecutorAsyncClearTool;
+import hudson.plugins.clearcase.util.ArgumentChunker;
+import hudson.plugins.clearcase.util.FutureUtil;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 
 /**
  * @author kyosi
  */
 public class UcmCommon {
+
+    private static final String BASELINE_DATA_FORMAT = "%[label_status]p|%[component]Xp";
     
     /**
      * Takes a list of baselines as argument, and return the load rules for all components matching these baselines
@@ -127,9 +138,17 @@ public class UcmCommon {
             FilePath filePath, List<String> baselinesNames) throws InterruptedException, IOException {
         List<Baseline> baselinesList = new ArrayList<Baseline>();
 
+        // list all the baselines at the same time
+        AsyncClearTool asyncClearTool = new ExecutorAsyncClearTool(clearTool);
+        List<Future<String>> outputs = new ArrayList<Future<String>>();
+        for (String blName : baselinesNames) {
+            outputs.add(asyncClearTool.lsbl(blName, BASELINE_DATA_FORMAT));
+        }
+        Iterator<String> output = FutureUtil.getAll(outputs).iterator();
+
         // loop through baselines
         for (String blName : baselinesNames) {
-            Baseline baseline = getDataforBaseline(clearTool, filePath, blName);
+            Baseline baseline = parseDataforBaseline(output.next());
             Component matchComponentDesc = null;
 
             // find the equivalent componentDesc element
@@ -159,7 +178,10 @@ public class UcmCommon {
      * @throws IOException
      */
     public static Baseline getDataforBaseline(ClearTool clearTool, FilePath filePath, String blName) throws InterruptedException, IOException {
-        String cleartoolResult = clearTool.lsbl(blName, "%[label_status]p|%[component]Xp");
+        return parseDataforBaseline(clearTool.lsbl(blName, BASELINE_DATA_FORMAT));
+    }
+
+    private static Baseline parseDataforBaseline(String cleartoolResult) {
         String[] arr = cleartoolResult.split("\\|");
         boolean isNotLabeled = arr[0].contains("Not Labeled");
 
@@ -196,17 +218,43 @@ public class UcmCommon {
             rd.close();
         }
         List<Baseline> foundationBaselines = new ArrayList<Baseline>();
-        BufferedReader br = new BufferedReader(clearTool.describe("%[component]Xp\\n", StringUtils.join(baselines," ")));
         Iterator<String> blIterator = baselines.iterator();
-        for(String line = br.readLine(); line != null; line = br.readLine()){
-            if (StringUtils.isNotBlank(line)) {
-                String simpleBaseline = StringUtils.removeStart(blIterator.next(), "baseline:");
-                String simpleComponent = StringUtils.removeStart(line, "component:");
-                foundationBaselines.add(new Baseline(simpleBaseline, simpleComponent));
+        for (String output : describeComponents(clearTool, baselines)) {
+            BufferedReader br = new BufferedReader(new StringReader(output));
+            for(String line = br.readLine(); line != null; line = br.readLine()){
+                if (StringUtils.isNotBlank(line)) {
+                    String simpleBaseline = StringUtils.removeStart(blIterator.next(), "baseline:");
+                    String simpleComponent = StringUtils.removeStart(line, "component:");
+                    foundationBaselines.add(new Baseline(simpleBaseline, simpleComponent));
+                }
             }
         }
         return foundationBaselines;
     }
+
+    /**
+     * Describes the components of the baselines, the selectors being split over several commands running at the same
+     * time when they do not fit in a single command line.
+     * 
+     * @return the outputs of the commands, in the order of the baselines
+     */
+    private static List<String> describeComponents(final ClearTool clearTool, List<String> baselines) throws IOException, InterruptedException {
+        final String format = "%[component]Xp\\n";
+        List<List<String>> chunks = ArgumentChunker.split(ArgumentChunker.length("desc", "-fmt", format), baselines, ArgumentChunker.MAX_LENGTH);
+        if (chunks.size() == 1) {
+            return Collections.singletonList(IOUtils.toString(clearTool.describe(format, StringUtils.join(baselines, " "))));
+        }
+        AsyncClearTool asyncClearTool = new ExecutorAsyncClearTool(clearTool);
+        List<Future<String>> outputs = new ArrayList<Future<String>>();
+        for (final List<String> chunk : chunks) {
+            outputs.add(asyncClearTool.submit(new Callable<String>() {
+                public String call() throws IOException, InterruptedException {
+                    return IOUtils.toString(clearTool.describe(format, StringUtils.join(chunk, " ")));
+                }
+            }));
+        }
+        return FutureUtil.getAll(outputs);
+    }
     
     /**
      * @param clearToolLauncher
@@ -35,12 +35,17 @@ import static hudson.plugins.clearcase.util.OutputFormat.UCM_ACTIVITY_STREAM;
 import static hudson.plugins.clearcase.util.OutputFormat.UCM_VERSION_ACTIVITY;
 import static hudson.plugins.clearcase.util.OutputFormat.USER_ID;
 import hudson.plugins.clearcase.AbstractClearCaseScm.ChangeSetLevel;
+import hudson.plugins.clearcase.AsyncClearTool;
 import hudson.plugins.clearcase.Baseline;
 import hudson.plugins.clearcase.ClearTool;
+import hudson.plugins.clearcase.ExecutorAsyncClearTool;
 import hudson.plugins.clearcase.history.AbstractHistoryAction;
 import hudson.plugins.clearcase.history.Filter;
 import hudson.plugins.clearcase.history.HistoryEntry;
+import hudson.plugins.clearcase.history.HistoryParser;
 import hudson.plugins.clearcase.util.ClearToolFormatHandler;
+import hudson.plugins.clearcase.util.FormattedLine;
+import hudson.plugins.clearcase.util.FutureUtil;
 import hudson.plugins.clearcase.util.OutputFormat;
 import hudson.scm.ChangeLogSet.Entry;
 
@@ -50,9 +55,10 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
+import java.util.concurrent.Future;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Predicate;
@@ -70,10 +76,11 @@ public class UcmHistoryAction extends AbstractHistoryAction {
 
     private static final String[] INTEGRATION_ACTIVITY_FORMAT = { UCM_ACTIVITY_HEADLINE, UCM_ACTIVITY_STREAM, USER_ID, UCM_ACTIVITY_CONTRIBUTING };
 
-    private final ClearToolFormatHandler historyHandler = new ClearToolFormatHandler(HISTORY_FORMAT);
+    private final ClearToolFormatHandler historyHandler = ClearToolFormatHandler.delimited(HISTORY_FORMAT);
 
     private final ClearCaseUCMSCMRevisionState oldBaseline;
     private final ClearCaseUCMSCMRevisionState newBaseline;
+    private AsyncClearTool asyncClearTool;
 
     public UcmHistoryAction(ClearTool cleartool, boolean useDynamicView, Filter filter, ClearCaseUCMSCMRevisionState oldBaseline,
             ClearCaseUCMSCMRevisionState newBaseline, ChangeSetLevel changeset) {
@@ -109,33 +116,60 @@ public class UcmHistoryAction extends AbstractHistoryAction {
             activity.addFile(currentFile);
         }
 
+        // the activities are listed at the same time, their contributing activities then one after another
+        List<Future<String>> outputs = new ArrayList<Future<String>>();
         for (UcmActivity activity : result) {
-            callLsActivity(activityMap, activity, viewPath, 3);
+            if (StringUtils.isNotBlank(activity.getName())) {
+                outputs.add(getAsyncClearTool().lsactivity(activity.getName(), getActivityFormatHandler(activity).getFormat(), viewPath));
+            }
+        }
+        Iterator<String> output = FutureUtil.getAll(outputs).iterator();
+        for (UcmActivity activity : result) {
+            if (StringUtils.isBlank(activity.getName())) {
+                activity.setName("Unable to get activity name");
+            } else {
+                parseLsActivity(activityMap, activity, output.next(), viewPath, 3);
+            }
         }
 
         return result;
     }
 
+    private ClearToolFormatHandler getActivityFormatHandler(UcmActivity activity) {
+        return ClearToolFormatHandler.delimited(activity.isIntegrationActivity() ? INTEGRATION_ACTIVITY_FORMAT : ACTIVITY_FORMAT);
+    }
+
     private void callLsActivity(Map<String, UcmActivity> activityMap, UcmActivity activity, String viewPath, int numberOfContributingActivitiesToFollow)
             throws IOException, InterruptedException {
-        ClearToolFormatHandler handler = new ClearToolFormatHandler(activity.isIntegrationActivity() ? INTEGRATION_ACTIVITY_FORMAT : ACTIVITY_FORMAT);
         if (StringUtils.isBlank(activity.getName())) {
             activity.setName("Unable to get activity name");
             return;
         }
 
-        BufferedReader reader = new BufferedReader(cleartool.lsactivity(activity.getName(), handler.getFormat(), viewPath));
+        BufferedReader reader = new BufferedReader(cleartool.lsactivity(activity.getName(), getActivityFormatHandler(activity).getFormat(), viewPath));
 
-        String line = reader.readLine();
-        Matcher matcher = handler.checkLine(line);
-        if (matcher != null) {
-            activity.setHeadline(matcher.group(1));
-            activity.setStream(matcher.group(2));
-            activity.setUser(matcher.group(3));
+        String line;
+        try {
+            line = reader.readLine();
+        } finally {
+            reader.close();
+        }
+        parseLsActivity(activityMap, activity, line, viewPath, numberOfContributingActivitiesToFollow);
+    }
+
+    private void parseLsActivity(Map<String, UcmActivity> activityMap, UcmActivity activity, String output, String viewPath,
+            int numberOfContributingActivitiesToFollow) throws IOException, InterruptedException {
+        // only the first line is read
+        String line = StringUtils.removeEnd(StringUtils.substringBefore(output, "\n"), "\r");
+        FormattedLine fields = getActivityFormatHandler(activity).parseLine(line);
+        if (fields != null) {
+            activity.setHeadline(fields.getField(1));
+            activity.setStream(fields.getField(2));
+            activity.setUser(fields.getField(3));
 
             if (activity.isIntegrationActivity() && numberOfContributingActivitiesToFollow > 0) {
 
-                String contributingActivities = matcher.group(4);
+                String contributingActivities = fields.getField(4);
 
                 for (String contributing : contributingActivities.split(" ")) {
 
@@ -155,22 +189,30 @@ public class UcmHistoryAction extends AbstractHistoryAction {
                 }
             }
         }
-        reader.close();
+    }
+
+    /**
+     * The versions brought by new baselines are not in the history of the stream, the whole history is needed when the
+     * baselines changed.
+     */
+    @Override
+    public boolean hasChanges(Date time, String viewPath, String viewTag, String[] branchNames, String[] viewPaths) throws IOException, InterruptedException {
+        if (isRebased()) {
+            List<HistoryEntry> changes = filterEntries(runLsHistory(time, viewPath, viewTag, branchNames, viewPaths));
+            // the whole history is listed with the comments, since the build
+            setCollectedChanges(isCollectingChanges() ? changes : null, true);
+            return !changes.isEmpty();
+        }
+        return super.hasChanges(time, viewPath, viewTag, branchNames, viewPaths);
     }
 
     @Override
     protected List<HistoryEntry> runLsHistory(Date sinceTime, String viewPath, String viewTag, String[] branchNames, String[] viewPaths) throws IOException,
             InterruptedException {
         List<HistoryEntry> history = super.runLsHistory(sinceTime, viewPath, viewTag, branchNames, viewPaths);
-        if (needsHistoryOnAllBranches()) {
-            if (oldBaseline == null) {
-                return history;
-            }
+        if (isRebased()) {
             List<Baseline> oldBaselines = oldBaseline.getBaselines();
             List<Baseline> newBaselines = newBaseline.getBaselines();
-            if (ObjectUtils.equals(oldBaselines, newBaselines)) {
-                return history;
-            }
             for (final Baseline oldBl : oldBaselines) {
                 String bl1 = oldBl.getBaselineName();
                 final String comp1 = oldBl.getComponentName();
@@ -189,11 +231,16 @@ public class UcmHistoryAction extends AbstractHistoryAction {
                 String bl2 = newBl.getBaselineName();
                 if (!StringUtils.equals(bl1, bl2)) {
                     List<String> versions = UcmCommon.getDiffBlVersions(cleartool, viewPath, "baseline:" + bl1, "baseline:" + bl2);
-                    for (String version : versions) {
+                    int batchSize = cleartool.getCapabilities().isMultiSelectorDescribe() ? DESCRIBE_BATCH_SIZE : 1;
+                    for (int i = 0; i < versions.size(); i += batchSize) {
+                        String selectors = joinSelectors(versions.subList(i, Math.min(i + batchSize, versions.size())));
+                        BufferedReader reader = new BufferedReader(cleartool.describeStreaming(getHistoryFormatHandler().getFormat() + OutputFormat.COMMENT + OutputFormat.LINEEND, selectors));
                         try {
-                            parseLsHistory(new BufferedReader(cleartool.describe(getHistoryFormatHandler().getFormat() + OutputFormat.COMMENT + OutputFormat.LINEEND, version)), history);
+                            parseLsHistory(reader, history);
                         } catch (ParseException e) {
                             /* empty by design */
+                        } finally {
+                            reader.close();
                         }
                     }
                 }
@@ -202,29 +249,94 @@ public class UcmHistoryAction extends AbstractHistoryAction {
         return history;
     }
 
+    /**
+     * The versions of the baselines are part of the history, which is only reused for the same baselines.
+     */
+    @Override
+    protected String getHistoryKey(String viewPath, String[] branchNames, String[] viewPaths) {
+        return super.getHistoryKey(viewPath, branchNames, viewPaths) + '\n' + getBaselinesKey(oldBaseline) + '\n' + getBaselinesKey(newBaseline);
+    }
+
+    private static String getBaselinesKey(ClearCaseUCMSCMRevisionState state) {
+        if (state == null) {
+            return "";
+        }
+        StringBuilder key = new StringBuilder();
+        for (Baseline baseline : state.getBaselines()) {
+            key.append(baseline.getComponentName()).append('=').append(baseline.getBaselineName()).append(',');
+        }
+        return key.toString();
+    }
+
+    private static String joinSelectors(List<String> versions) {
+        StringBuilder selectors = new StringBuilder();
+        for (String version : versions) {
+            if (selectors.length() > 0) {
+                selectors.append(' ');
+            }
+            if (version.contains(" ")) {
+                selectors.append('"').append(version).append('"');
+            } else {
+                selectors.append(version);
+            }
+        }
+        return selectors.toString();
+    }
+
+    /**
+     * Sets the runner of the commands issued at the same time, the commands are run one after another by default.
+     */
+    public void setAsyncClearTool(AsyncClearTool asyncClearTool) {
+        this.asyncClearTool = asyncClearTool;
+    }
+
+    private AsyncClearTool getAsyncClearTool() {
+        if (asyncClearTool == null) {
+            asyncClearTool = new ExecutorAsyncClearTool(cleartool, ExecutorAsyncClearTool.DIRECT);
+        }
+        return asyncClearTool;
+    }
+
     private boolean needsHistoryOnAllBranches() {
         return ChangeSetLevel.ALL.equals(getChangeset());
     }
 
+    private boolean isRebased() {
+        return needsHistoryOnAllBranches() && oldBaseline != null && !ObjectUtils.equals(oldBaseline.getBaselines(), newBaseline.getBaselines());
+    }
+
     @Override
     protected ClearToolFormatHandler getHistoryFormatHandler() {
         return historyHandler;
     }
 
     @Override
-    protected HistoryEntry parseEventLine(Matcher matcher, String line) throws ParseException {
-        // read values;
-        HistoryEntry entry = new HistoryEntry();
-        entry.setLine(line);
-
-        entry.setDateText(matcher.group(1));
-        entry.setUser(matcher.group(2).trim());
-        entry.setElement(matcher.group(3).trim());
-        entry.setVersionId(matcher.group(4).trim());
-        entry.setEvent(matcher.group(5).trim());
-        entry.setOperation(matcher.group(6).trim());
-        entry.setActivityName(matcher.group(7).trim());
-        return entry;
+    protected HistoryParser createHistoryParser() {
+        return new UcmHistoryParser(historyHandler, extendedViewPath);
+    }
+
+    private static class UcmHistoryParser extends HistoryParser {
+        private static final long serialVersionUID = 1L;
+
+        UcmHistoryParser(ClearToolFormatHandler handler, String extendedViewPath) {
+            super(handler, extendedViewPath);
+        }
+
+        @Override
+        protected HistoryEntry parseEventLine(FormattedLine line) throws ParseException {
+            // read values;
+            HistoryEntry entry = new HistoryEntry();
+            entry.setLine(line.getLine());
+
+            entry.setDateText(line.getField(1));
+            entry.setUser(line.getTrimmedField(2));
+            entry.setElement(line.getTrimmedField(3));
+            entry.setVersionId(line.getTrimmedField(4));
+            entry.setEvent(line.getTrimmedField(5));
+            entry.setOperation(line.getTrimmedField(6));
+            entry.setActivityName(line.getTrimmedField(7));
+            return entry;
+        }
     }
 
 }
@@ -34,11 +34,14 @@ import hudson.model.AbstractBuild;
 import hudson.model.Executor;
 import hudson.model.ParametersAction;
 import hudson.model.StringParameterValue;
+import hudson.plugins.clearcase.AsyncClearTool;
 import hudson.plugins.clearcase.Baseline;
 import hudson.plugins.clearcase.ClearCaseUcmSCM;
 import hudson.plugins.clearcase.ClearTool;
 import hudson.plugins.clearcase.ClearTool.DefaultPromotionLevel;
+import hudson.plugins.clearcase.ExecutorAsyncClearTool;
 import hudson.plugins.clearcase.util.BuildVariableResolver;
+import hudson.plugins.clearcase.util.FutureUtil;
 import hudson.scm.SCM;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.BuildStepMonitor;
@@ -49,6 +52,7 @@ import hudson.util.VariableResolver;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import net.sf.json.JSONObject;
@@ -254,13 +258,17 @@ public class UcmMakeBaseline extends Notifier {
             ClearCaseUcmSCM ucm = (ClearCaseUcmSCM) scm;
             VariableResolver<String> variableResolver = new BuildVariableResolver(build);
             ClearTool clearTool = ucm.createClearTool(variableResolver, ucm.createClearToolLauncher(listener, build.getWorkspace(), launcher));
+            // the baselines are promoted or demoted at the same time
+            AsyncClearTool asyncClearTool = new ExecutorAsyncClearTool(clearTool, ExecutorAsyncClearTool.forChannel(launcher.getChannel()));
 
             Result result = build.getResult();
             if (result.equals(Result.SUCCESS)) {
                 // On success, promote all current baselines in stream
+                List<Future<Void>> promotions = new ArrayList<Future<Void>>();
                 for (String baselineName : this.latestBaselines) {
-                    promoteBaselineToBuiltLevel(clearTool, baselineName);
+                    promotions.add(promoteBaselineToBuiltLevel(asyncClearTool, baselineName));
                 }
+                FutureUtil.getAll(promotions);
                 if (this.recommend) {
                     recommendBaseline(clearTool, ucm.getStream());
                 }
@@ -274,6 +282,7 @@ public class UcmMakeBaseline extends Notifier {
             } else if (result.equals(Result.FAILURE)) {
 
                 List<String> alreadyRejected = new ArrayList<String>();
+                List<Future<Void>> demotions = new ArrayList<Future<Void>>();
 
                 // On failure, demote only baselines created in this build
                 for (Baseline baseline : this.createdBaselines) {
@@ -290,10 +299,11 @@ public class UcmMakeBaseline extends Notifier {
                     if (realBaselineName == null) {
                         listener.getLogger().println("Couldn't find baseline name for " + baseline.getBaselineName());
                     } else {
-                        demoteBaselineToRejectedLevel(clearTool, realBaselineName);
+                        demotions.add(demoteBaselineToRejectedLevel(asyncClearTool, realBaselineName));
                         alreadyRejected.add(realBaselineName);
                     }
                 }
+                FutureUtil.getAll(demotions);
             }
 
             if (this.lockStream && this.streamSuccessfullyLocked) {
@@ -337,14 +347,12 @@ public class UcmMakeBaseline extends Notifier {
         clearTool.recommendBaseline(stream);
     }
 
-    private void promoteBaselineToBuiltLevel(ClearTool clearTool, String baselineName)
-            throws InterruptedException, IOException {
-        clearTool.setBaselinePromotionLevel(baselineName, DefaultPromotionLevel.BUILT);
+    private Future<Void> promoteBaselineToBuiltLevel(AsyncClearTool asyncClearTool, String baselineName) {
+        return asyncClearTool.setBaselinePromotionLevel(baselineName, DefaultPromotionLevel.BUILT);
     }
 
-    private void demoteBaselineToRejectedLevel(ClearTool clearTool, String baselineName)
-            throws InterruptedException, IOException {
-        clearTool.setBaselinePromotionLevel(baselineName, DefaultPromotionLevel.REJECTED);
+    private Future<Void> demoteBaselineToRejectedLevel(AsyncClearTool asyncClearTool, String baselineName) {
+        return asyncClearTool.setBaselinePromotionLevel(baselineName, DefaultPromotionLevel.REJECTED);
     }
 
     /**
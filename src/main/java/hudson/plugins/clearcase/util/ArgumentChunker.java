@@ -0,0 +1,105 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.util;
+
+import hudson.util.ArgumentListBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the operands of a cleartool command, such as paths or selectors, over several command lines so that each one
+ * stays below the limits of the operating systems: 8191 characters for cmd.exe and 32767 for CreateProcess on Windows.
+ * 
+ * The maximum length can be changed with the system property
+ * <code>hudson.plugins.clearcase.util.ArgumentChunker.maxLength</code>, it leaves room for the path of the executable.
+ */
+public final class ArgumentChunker {
+
+    public static final int MAX_LENGTH = Integer.getInteger(ArgumentChunker.class.getName() + ".maxLength", 7000);
+
+    /** Separator and quotes added around an argument */
+    private static final int ARGUMENT_OVERHEAD = 3;
+
+    private ArgumentChunker() {
+    }
+
+    /**
+     * @param options the subcommand and its options, shared by all the chunks
+     * @param operands the operands to split
+     * @return one command per chunk of operands, in order; a single command when there is no operand
+     */
+    public static List<ArgumentListBuilder> split(ArgumentListBuilder options, List<String> operands) {
+        return split(options, operands, MAX_LENGTH);
+    }
+
+    public static List<ArgumentListBuilder> split(ArgumentListBuilder options, List<String> operands, int maxLength) {
+        String[] prefix = options.toCommandArray();
+        List<ArgumentListBuilder> commands = new ArrayList<ArgumentListBuilder>();
+        for (List<String> chunk : split(length(prefix), operands, maxLength)) {
+            ArgumentListBuilder cmd = new ArgumentListBuilder();
+            cmd.add(prefix);
+            for (String operand : chunk) {
+                cmd.add(operand);
+            }
+            commands.add(cmd);
+        }
+        return commands;
+    }
+
+    /**
+     * @param fixedLength the length of the arguments shared by all the chunks
+     * @param operands the operands to split
+     * @return the chunks of operands, in order, each one holding at least one operand; a single empty chunk when there is
+     *         no operand
+     */
+    public static List<List<String>> split(int fixedLength, List<String> operands, int maxLength) {
+        List<List<String>> chunks = new ArrayList<List<String>>();
+        List<String> chunk = new ArrayList<String>();
+        int length = fixedLength;
+        for (String operand : operands) {
+            int operandLength = operand.length() + ARGUMENT_OVERHEAD;
+            if (!chunk.isEmpty() && length + operandLength > maxLength) {
+                chunks.add(chunk);
+                chunk = new ArrayList<String>();
+                length = fixedLength;
+            }
+            chunk.add(operand);
+            length += operandLength;
+        }
+        if (!chunk.isEmpty() || chunks.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    public static int length(String... args) {
+        int length = 0;
+        for (String arg : args) {
+            length += arg.length() + ARGUMENT_OVERHEAD;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * In-memory pipe holding at most a fixed number of chunks, used to hand the output of a command to the thread parsing it
+ * while the command is still running.
+ * 
+ * Unlike {@link java.io.PipedInputStream}, the writing side may be used from several threads (Hudson copies process output
+ * from its own threads) and a failure of the writer is reported to the reader once all the written data has been read.
+ * Closing the reading side makes any further write fail, so that the writer stops.
+ */
+public class BoundedPipe {
+
+    private static final byte[] EOF = new byte[0];
+
+    private final BlockingQueue<byte[]> chunks;
+    private volatile IOException failure;
+    private volatile boolean readerClosed;
+    private boolean writerClosed;
+
+    private final OutputStream outputStream = new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            byte[] chunk = new byte[len];
+            System.arraycopy(b, off, chunk, 0, len);
+            put(chunk);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeWriter(null);
+        }
+    };
+
+    private final InputStream inputStream = new InputStream() {
+        private byte[] current;
+        private int position;
+        private boolean eof;
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            int read = read(b, 0, 1);
+            return read == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (current == null || position >= current.length) {
+                if (eof || readerClosed) {
+                    return -1;
+                }
+                try {
+                    current = chunks.take();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException("Interrupted while waiting for command output");
+                }
+                position = 0;
+                if (current == EOF) {
+                    eof = true;
+                    if (failure != null) {
+                        IOException e = new IOException(failure.getMessage());
+                        e.initCause(failure);
+                        throw e;
+                    }
+                    return -1;
+                }
+            }
+            int count = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return current == null ? 0 : current.length - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            readerClosed = true;
+            // unblock a writer waiting for room
+            chunks.clear();
+        }
+    };
+
+    /**
+     * @param capacity the maximum number of chunks waiting to be read
+     */
+    public BoundedPipe(int capacity) {
+        chunks = new ArrayBlockingQueue<byte[]>(capacity);
+    }
+
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    /**
+     * Closes the writing side, the reader will get the exception once it has read all the data written so far.
+     */
+    public void fail(IOException exception) {
+        closeWriter(exception);
+    }
+
+    /**
+     * @return true if the reading side has been closed
+     */
+    public boolean isReaderClosed() {
+        return readerClosed;
+    }
+
+    private void closeWriter(IOException exception) {
+        synchronized (this) {
+            if (writerClosed) {
+                return;
+            }
+            writerClosed = true;
+            failure = exception;
+        }
+        if (!readerClosed) {
+            try {
+                chunks.put(EOF);
+            } catch (InterruptedException e) {
+                // the reader is still waiting, make room for the end marker and tell it the output is truncated
+                if (failure == null) {
+                    failure = new InterruptedIOException("Interrupted while writing the command output");
+                }
+                chunks.clear();
+                chunks.offer(EOF);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void put(byte[] chunk) throws IOException {
+        if (readerClosed) {
+            throw new IOException("The reading side of the pipe has been closed");
+        }
+        synchronized (this) {
+            if (writerClosed) {
+                throw new IOException("The pipe has been closed");
+            }
+        }
+        try {
+            chunks.put(chunk);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Interrupted while waiting for the command output to be read");
+        }
+        if (readerClosed) {
+            chunks.clear();
+        }
+    }
+}
@@ -24,33 +24,81 @@
  */
 package hudson.plugins.clearcase.util;
 
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
+ * Builds the <code>-fmt</code> argument of cleartool commands and reads the lines of their output.
+ * 
+ * Two formats are supported:
+ * <ul>
+ * <li>the quoted format, each field being written between double quotes and matched by a regular expression;</li>
+ * <li>the delimited format, each line starting with the ASCII record separator and its fields being separated by the
+ * ASCII unit separator. Its lines are read in a single pass, without regular expression.</li>
+ * </ul>
+ * Lines in the quoted format are still read by the handlers of the delimited format, for compatibility, as long as they
+ * start with a field.
+ * 
  * @author hlyh
  */
-public class ClearToolFormatHandler {
+public class ClearToolFormatHandler implements Serializable {
+    private static final long serialVersionUID = 1L;
 
+    /**
+     * Setting the system property <code>hudson.plugins.clearcase.util.ClearToolFormatHandler.quotedFormat</code> to true
+     * makes the handlers created by {@link #delimited(String...)} request the quoted format.
+     */
+    private static final boolean QUOTED_FORMAT = Boolean.getBoolean(ClearToolFormatHandler.class.getName() + ".quotedFormat");
+
+    private final boolean delimited;
+    private String[] elements;
     private String format;
     private String patternStr;
     private int groupCount;
     private Pattern pattern;
 
+    /**
+     * Creates a handler of the quoted format.
+     */
     public ClearToolFormatHandler(String... elements) {
+        this(false, elements);
+    }
+
+    private ClearToolFormatHandler(boolean delimited, String... elements) {
+        this.delimited = delimited;
         setPattern(elements);
     }
 
+    /**
+     * Creates a handler of the delimited format.
+     */
+    public static ClearToolFormatHandler delimited(String... elements) {
+        return new ClearToolFormatHandler(!QUOTED_FORMAT, elements);
+    }
+
     public void setPattern(String... elements) {
         StringBuilder formatBuilder = new StringBuilder();
         StringBuilder patternBuilder = new StringBuilder();
-        for (String element : elements) {
-            formatBuilder.append(OutputFormat.START_DELIMITER);
-            formatBuilder.append(element);
-            formatBuilder.append(OutputFormat.END_DELIMITER);
+        if (delimited) {
+            formatBuilder.append(OutputFormat.RECORD_START);
+        }
+        for (int i = 0; i < elements.length; i++) {
+            if (delimited) {
+                if (i > 0) {
+                    formatBuilder.append(OutputFormat.FIELD_SEPARATOR);
+                }
+                formatBuilder.append(elements[i]);
+            } else {
+                formatBuilder.append(OutputFormat.START_DELIMITER);
+                formatBuilder.append(elements[i]);
+                formatBuilder.append(OutputFormat.END_DELIMITER);
+            }
             patternBuilder.append(OutputFormat.REGEX_GROUP);
         }
         formatBuilder.append(OutputFormat.LINEEND);
+        this.elements = elements.clone();
         groupCount = elements.length;
         format = formatBuilder.toString();
         patternStr = patternBuilder.toString();
@@ -61,10 +109,33 @@ public class ClearToolFormatHandler {
         return format;
     }
 
+    /**
+     * Creates a handler of the same format where only the given fields are requested, the other ones being left empty.
+     * The lines keep their fields, so they are read the same way.
+     * 
+     * @param fields the fields to keep, among the elements of this format
+     */
+    public ClearToolFormatHandler retaining(Collection<String> fields) {
+        String[] retained = new String[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            retained[i] = fields.contains(elements[i]) ? elements[i] : "";
+        }
+        return new ClearToolFormatHandler(delimited, retained);
+    }
+
     public String getPattern() {
         return patternStr;
     }
 
+    public boolean isDelimited() {
+        return delimited;
+    }
+
+    /**
+     * Matches a line of the quoted format.
+     * 
+     * @return the matcher of the fields, null if the line does not match
+     */
     public Matcher checkLine(String line) {
         if (line == null) {
             return null;
@@ -76,4 +147,54 @@ public class ClearToolFormatHandler {
         }
         return null;
     }
+
+    /**
+     * Reads a line of the output.
+     * 
+     * @return the fields of the line, null if the line is not a record of the format
+     */
+    public FormattedLine parseLine(String line) {
+        if (line == null) {
+            return null;
+        }
+        if (delimited) {
+            if (line.length() > 0 && line.charAt(0) == OutputFormat.RECORD_START_CHAR) {
+                return tokenize(line);
+            }
+            // lines of the quoted format are only recognized from their start, other lines are comments
+            if (!line.startsWith("\"")) {
+                return null;
+            }
+        }
+        Matcher matcher = checkLine(line);
+        if (matcher == null) {
+            return null;
+        }
+        int[] bounds = new int[groupCount * 2];
+        for (int i = 0; i < groupCount; i++) {
+            bounds[i * 2] = matcher.start(i + 1);
+            bounds[i * 2 + 1] = matcher.end(i + 1);
+        }
+        return new FormattedLine(line, bounds);
+    }
+
+    private FormattedLine tokenize(String line) {
+        int[] bounds = new int[groupCount * 2];
+        int start = 1;
+        for (int i = 0; i < groupCount - 1; i++) {
+            int end = line.indexOf(OutputFormat.FIELD_SEPARATOR_CHAR, start);
+            if (end < 0) {
+                return null;
+            }
+            bounds[i * 2] = start;
+            bounds[i * 2 + 1] = end;
+            start = end + 1;
+        }
+        if (line.indexOf(OutputFormat.FIELD_SEPARATOR_CHAR, start) >= 0) {
+            return null;
+        }
+        bounds[groupCount * 2 - 2] = start;
+        bounds[groupCount * 2 - 1] = line.length();
+        return new FormattedLine(line, bounds);
+    }
 }
@@ -0,0 +1,70 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.util;
+
+/**
+ * A line of cleartool output read by a {@link ClearToolFormatHandler}. The fields are kept as offsets in the line, the
+ * substrings being only created for the fields read.
+ */
+public final class FormattedLine {
+
+    private final String line;
+    private final int[] bounds;
+
+    FormattedLine(String line, int[] bounds) {
+        this.line = line;
+        this.bounds = bounds;
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+    public int getFieldCount() {
+        return bounds.length / 2;
+    }
+
+    /**
+     * @param index the index of the field, starting at 1 as the groups of a matcher
+     */
+    public String getField(int index) {
+        return line.substring(bounds[index * 2 - 2], bounds[index * 2 - 1]);
+    }
+
+    /**
+     * Same as <code>getField(index).trim()</code>, without the intermediate string.
+     */
+    public String getTrimmedField(int index) {
+        int start = bounds[index * 2 - 2];
+        int end = bounds[index * 2 - 1];
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return line.substring(start, end);
+    }
+}
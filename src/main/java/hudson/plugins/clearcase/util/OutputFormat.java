@@ -36,6 +36,12 @@ public interface OutputFormat {
     public static final String LINEEND = "\\n";
     public static final String PLACEHOLDER = "\\\" \\\" ";
 
+    // Delimited format, the separators are written with octal escapes
+    public static final String RECORD_START = "\\036";
+    public static final String FIELD_SEPARATOR = "\\037";
+    public static final char RECORD_START_CHAR = '\036';
+    public static final char FIELD_SEPARATOR_CHAR = '\037';
+
     // Comment
     public static final String COMMENT = "%c";
     public static final String COMMENT_NONEWLINE = "%Nc";
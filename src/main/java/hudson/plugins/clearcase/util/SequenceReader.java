@@ -0,0 +1,89 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads several readers one after the other, each one being opened once the previous one has been read to the end.
+ */
+public class SequenceReader extends Reader {
+
+    /**
+     * Opens one of the readers.
+     */
+    public interface Source {
+        Reader open() throws IOException;
+    }
+
+    private final Iterator<? extends Source> sources;
+    private Reader current;
+    private boolean closed;
+
+    public SequenceReader(List<? extends Source> sources) {
+        this.sources = sources.iterator();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (current == null) {
+                if (!sources.hasNext()) {
+                    return -1;
+                }
+                current = sources.next().open();
+            }
+            int read = current.read(cbuf, off, len);
+            if (read >= 0) {
+                return read;
+            }
+            Reader finished = current;
+            current = null;
+            finished.close();
+        }
+    }
+
+    /**
+     * Closes the reader being read, the remaining ones are never opened.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (current != null) {
+            Reader reader = current;
+            current = null;
+            reader.close();
+        }
+    }
+}
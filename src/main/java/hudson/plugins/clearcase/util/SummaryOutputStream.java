@@ -0,0 +1,146 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+
+/**
+ * Writes only the first and the last lines of the output to the underlying stream, followed by the size of the output
+ * when lines have been left out. The last lines are written by {@link #finish()}.
+ * 
+ * The underlying stream is never closed. Lines longer than {@link #MAX_LINE_LENGTH} bytes are truncated.
+ */
+public class SummaryOutputStream extends OutputStream {
+
+    public static final int MAX_LINE_LENGTH = 1024;
+
+    private final OutputStream out;
+    private final int headLines;
+    private final int tailLines;
+
+    private final ByteArrayOutputStream currentLine = new ByteArrayOutputStream();
+    private final LinkedList<byte[]> tail = new LinkedList<byte[]>();
+    private boolean currentLineTruncated;
+    private long lines;
+    private long bytes;
+    private long skippedLines;
+    private boolean finished;
+
+    public SummaryOutputStream(OutputStream out, int headLines, int tailLines) {
+        this.out = out;
+        this.headLines = headLines;
+        this.tailLines = tailLines;
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        bytes++;
+        if (b == '\n') {
+            endLine();
+        } else if (currentLine.size() < MAX_LINE_LENGTH) {
+            currentLine.write(b);
+        } else {
+            currentLineTruncated = true;
+        }
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            write(b[i]);
+        }
+    }
+
+    private void endLine() throws IOException {
+        if (currentLineTruncated) {
+            currentLine.write("...".getBytes());
+            currentLineTruncated = false;
+        }
+        currentLine.write('\n');
+        byte[] line = currentLine.toByteArray();
+        currentLine.reset();
+        lines++;
+        if (lines <= headLines) {
+            out.write(line);
+        } else {
+            tail.addLast(line);
+            if (tail.size() > tailLines) {
+                tail.removeFirst();
+                skippedLines++;
+            }
+        }
+    }
+
+    /**
+     * Writes the last lines and the size of the output. Does nothing if already called.
+     */
+    public synchronized void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (currentLine.size() > 0 || currentLineTruncated) {
+            endLine();
+        }
+        if (skippedLines > 0) {
+            out.write(("[... " + skippedLines + " lines not shown ...]\n").getBytes());
+        }
+        for (byte[] line : tail) {
+            out.write(line);
+        }
+        tail.clear();
+        if (skippedLines > 0) {
+            out.write(("[" + lines + " lines, " + bytes + " bytes of output]\n").getBytes());
+        }
+        out.flush();
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    /**
+     * @return the number of bytes written so far
+     */
+    public synchronized long getByteCount() {
+        return bytes;
+    }
+
+    /**
+     * @return the number of lines left out
+     */
+    public synchronized long getSkippedLines() {
+        return skippedLines;
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import hudson.FilePath;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingClearToolTest {
+
+    private Mockery context;
+    private ClearTool delegate;
+    private ClearToolLauncher launcher;
+    private ClearToolQueryCache cache;
+    private CachingClearTool cleartool;
+
+    @Before
+    public void setUp() throws Exception {
+        context = new JUnit4Mockery();
+        delegate = context.mock(ClearTool.class);
+        launcher = context.mock(ClearToolLauncher.class);
+        cache = new ClearToolQueryCache(10);
+        cleartool = new CachingClearTool(delegate, cache);
+    }
+
+    @Test
+    public void testLsstreamIsCached() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(delegate).lsstream("stream:s@\\pvob", "view", "%[name]p");
+                will(returnValue("s"));
+            }
+        });
+        assertEquals("s", cleartool.lsstream("stream:s@\\pvob", "view", "%[name]p"));
+        assertEquals("s", cleartool.lsstream("stream:s@\\pvob", "view", "%[name]p"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testDoesViewExistIsInvalidatedByMkview() throws Exception {
+        context.checking(new Expectations() {
+            {
+                exactly(2).of(delegate).doesViewExist("view");
+                will(onConsecutiveCalls(returnValue(false), returnValue(true)));
+                one(delegate).mkview("path", "view", null);
+            }
+        });
+        assertFalse(cleartool.doesViewExist("view"));
+        assertFalse(cleartool.doesViewExist("view"));
+        cleartool.mkview("path", "view", null);
+        assertTrue(cleartool.doesViewExist("view"));
+    }
+
+    @Test
+    public void testDescribeOnlyCachesStreams() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(delegate).describe("%[found_bls]p", "stream:s@\\pvob");
+                will(returnValue(new StringReader("bl1 bl2")));
+                exactly(2).of(delegate).describe("%[found_bls]p", "baseline:bl1@\\pvob");
+                will(onConsecutiveCalls(returnValue(new StringReader("a")), returnValue(new StringReader("a"))));
+            }
+        });
+        assertEquals("bl1 bl2", new BufferedReader(cleartool.describe("%[found_bls]p", "stream:s@\\pvob")).readLine());
+        assertEquals("bl1 bl2", new BufferedReader(cleartool.describe("%[found_bls]p", "stream:s@\\pvob")).readLine());
+        assertEquals("a", new BufferedReader(cleartool.describe("%[found_bls]p", "baseline:bl1@\\pvob")).readLine());
+        assertEquals("a", new BufferedReader(cleartool.describe("%[found_bls]p", "baseline:bl1@\\pvob")).readLine());
+    }
+
+    @Test
+    public void testMkblInvalidatesStreamQueries() throws Exception {
+        context.checking(new Expectations() {
+            {
+                exactly(2).of(delegate).describe("%[found_bls]p", "stream:s@\\pvob");
+                will(onConsecutiveCalls(returnValue(new StringReader("bl1")), returnValue(new StringReader("bl2"))));
+                one(delegate).mkbl("bl2", "view", null, false, false, null, null, null);
+                will(returnValue(null));
+            }
+        });
+        assertEquals("bl1", new BufferedReader(cleartool.describe("%[found_bls]p", "stream:s@\\pvob")).readLine());
+        cleartool.mkbl("bl2", "view", null, false, false, null, null, null);
+        assertEquals("bl2", new BufferedReader(cleartool.describe("%[found_bls]p", "stream:s@\\pvob")).readLine());
+    }
+
+    @Test
+    public void testRefreshStreamsReadsThroughCache() throws Exception {
+        context.checking(new Expectations() {
+            {
+                exactly(2).of(delegate).describe("%[found_bls]p", "stream:s@\\pvob");
+                will(onConsecutiveCalls(returnValue(new StringReader("bl1")), returnValue(new StringReader("bl2"))));
+            }
+        });
+        assertEquals("bl1", new BufferedReader(cleartool.describe("%[found_bls]p", "stream:s@\\pvob")).readLine());
+        CachingClearTool revisionStateTool = new CachingClearTool(delegate, cache);
+        revisionStateTool.setRefreshStreams(true);
+        assertEquals("bl2", new BufferedReader(revisionStateTool.describe("%[found_bls]p", "stream:s@\\pvob")).readLine());
+        // the other callers get the refreshed description
+        assertEquals("bl2", new BufferedReader(cleartool.describe("%[found_bls]p", "stream:s@\\pvob")).readLine());
+    }
+
+    @Test
+    public void testCatcsIsInvalidatedBySetcs() throws Exception {
+        context.checking(new Expectations() {
+            {
+                exactly(2).of(delegate).catcs("view");
+                will(onConsecutiveCalls(returnValue("cs1"), returnValue("cs2")));
+                one(delegate).setcsTag("view", ClearTool.SetcsOption.CONFIGSPEC, "cs2");
+            }
+        });
+        assertEquals("cs1", cleartool.catcs("view"));
+        assertEquals("cs1", cleartool.catcs("view"));
+        cleartool.setcsTag("view", ClearTool.SetcsOption.CONFIGSPEC, "cs2");
+        assertEquals("cs2", cleartool.catcs("view"));
+    }
+
+    @Test
+    public void testPwvIsKeyedByWorkspace() throws Exception {
+        context.checking(new Expectations() {
+            {
+                allowing(delegate).getLauncher();
+                will(returnValue(launcher));
+                allowing(launcher).getWorkspace();
+                will(returnValue(null));
+                one(delegate).pwv("view");
+                will(returnValue("/view/view"));
+            }
+        });
+        assertEquals("/view/view", cleartool.pwv("view"));
+        assertEquals("/view/view", cleartool.pwv("view"));
+    }
+
+    @Test
+    public void testViewChecksUseViewRegistry() throws Exception {
+        final Map<String, ViewRegistry.ViewInfo> views = new HashMap<String, ViewRegistry.ViewInfo>();
+        views.put("view", new ViewRegistry.ViewInfo("view", "uuid", "/views/view.vws", null, "host", true));
+        context.checking(new Expectations() {
+            {
+                allowing(delegate).getLauncher();
+                will(returnValue(launcher));
+                one(launcher).runAndProcess(with(equal(new String[] { "lsview", "-long" })), with(aNull(FilePath.class)),
+                        with(any(ClearToolOutputProcessor.class)));
+                will(returnValue(views));
+                one(delegate).mkview("path", "other", null);
+            }
+        });
+        cleartool.setViewRegistry(new ViewRegistry(60000, ExecutorAsyncClearTool.DIRECT));
+        assertTrue(cleartool.doesViewExist("view"));
+        assertEquals("uuid", cleartool.getViewData("view").getProperty("UUID"));
+        assertFalse(cleartool.doesViewExist("other"));
+        assertTrue(cleartool.getViewData("other").isEmpty());
+        cleartool.mkview("path", "other", null);
+        assertTrue(cleartool.doesViewExist("other"));
+    }
+
+    @Test
+    public void testLruEviction() throws Exception {
+        for (int i = 0; i < 15; i++) {
+            cache.put(ClearToolQueryCache.key(ClearToolQueryCache.LSBL, null, "bl" + i), "value" + i);
+        }
+        assertEquals(10, cache.size());
+        assertEquals(5, cache.getEvictions());
+    }
+}
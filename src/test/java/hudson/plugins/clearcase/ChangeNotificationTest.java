@@ -0,0 +1,73 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import hudson.plugins.clearcase.history.Filter;
+
+import org.junit.Test;
+
+public class ChangeNotificationTest {
+
+    @Test
+    public void testBranchOfVersion() {
+        assertEquals("dev", new ChangeNotification(null, "/vobs/proj/a.c", "/main/dev/3", null).getBranch());
+        assertEquals("dev", new ChangeNotification(null, "M:\\view\\proj\\a.c", "\\main\\dev\\3", null).getBranch());
+        assertEquals("main", new ChangeNotification("", "/vobs/proj/a.c", "/main/3", null).getBranch());
+        assertEquals("other", new ChangeNotification("other", "/vobs/proj/a.c", "/main/dev/3", null).getBranch());
+        assertNull(new ChangeNotification(null, "/vobs/proj/a.c", "3", null).getBranch());
+    }
+
+    @Test
+    public void testOnBranch() {
+        ChangeNotification notification = new ChangeNotification(null, "/vobs/proj/a.c", "/main/dev/3", null);
+        assertTrue(notification.isOnBranch(new String[] { "main", "dev" }));
+        assertFalse(notification.isOnBranch(new String[] { "main" }));
+        // no branch means all of them
+        assertTrue(notification.isOnBranch(new String[] { "" }));
+        assertTrue(notification.isOnBranch(null));
+    }
+
+    @Test
+    public void testAcceptedByTheFiltersOfTheLoadRules() {
+        ClearCaseSCM scm = new ClearCaseSCM("dev", "", "configspec", "viewname", true, "vobs/proj", false, "", null, false, false, false);
+        Filter filter = scm.configureFilters(new String[] { "vobs/proj" }, true);
+
+        assertTrue(new ChangeNotification(null, "/view/tag/vobs/proj/a.c", "/main/dev/3", null).isAcceptedBy(filter));
+        assertFalse(new ChangeNotification(null, "/view/tag/vobs/other/a.c", "/main/dev/3", null).isAcceptedBy(filter));
+        // the version 0 of a new branch is not a change
+        assertFalse(new ChangeNotification(null, "/view/tag/vobs/proj/a.c", "/main/dev/0", null).isAcceptedBy(filter));
+    }
+
+    @Test
+    public void testWindowsElement() {
+        ChangeNotification notification = new ChangeNotification(null, "M:\\tag\\proj\\a.c", "\\main\\dev\\3", "fix");
+        assertFalse(notification.isUnix());
+        assertEquals("fix", notification.toHistoryEntry().getActivityName());
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ClearToolCapabilitiesTest {
+
+    private static final String UNIX_VERSION = "ClearCase version 7.1.2.8 (Wed Oct 19 12:31:47 EDT 2011)\n"
+            + "@(#) MVFS version 7.1.2.8 (Wed Oct 19 12:31:47 EDT 2011)\n"
+            + "cleartool                         7.1.2.8 (Wed Oct 19 12:31:47 EDT 2011)\n"
+            + "db_server                         7.1.2.8 (Wed Oct 19 12:31:47 EDT 2011)\n";
+
+    @Test
+    public void testParseUnix() {
+        ClearToolCapabilities capabilities = ClearToolCapabilities.parse(UNIX_VERSION, true, true);
+        assertEquals("7.1.2.8", capabilities.getVersion());
+        assertTrue(capabilities.isUnix());
+        assertEquals("/dev/null", capabilities.getNullDevice());
+        assertTrue(capabilities.isMultiSelectorDescribe());
+    }
+
+    @Test
+    public void testParseUnixWithoutNullDevice() {
+        ClearToolCapabilities capabilities = ClearToolCapabilities.parse(UNIX_VERSION, true, false);
+        assertEquals("NUL", capabilities.getNullDevice());
+    }
+
+    @Test
+    public void testParseWindows() {
+        String output = "ClearCase version 7.0.1.3 (Fri Oct 03 13:15:07 2008)\r\ncleartool                         7.0.1.3 (Fri Oct 03 13:15:07 2008)\r\n";
+        ClearToolCapabilities capabilities = ClearToolCapabilities.parse(output, false, false);
+        assertEquals("7.0.1.3", capabilities.getVersion());
+        assertFalse(capabilities.isUnix());
+        assertEquals("NUL", capabilities.getNullDevice());
+    }
+
+    @Test
+    public void testParseClearCaseVersionOnly() {
+        ClearToolCapabilities capabilities = ClearToolCapabilities.parse("ClearCase version 2003.06.10+ (Tue Jun 14 2005)\n", true, true);
+        assertEquals("2003.06.10", capabilities.getVersion());
+    }
+
+    @Test
+    public void testParseFailure() {
+        ClearToolCapabilities capabilities = ClearToolCapabilities.parse("cleartool: command not found\n", true, true);
+        assertNull(capabilities.getVersion());
+        assertEquals("NUL", capabilities.getNullDevice());
+        assertFalse(capabilities.isMultiSelectorDescribe());
+    }
+
+    @Test
+    public void testConservative() {
+        assertNull(ClearToolCapabilities.CONSERVATIVE.getVersion());
+        assertEquals("NUL", ClearToolCapabilities.CONSERVATIVE.getNullDevice());
+        assertFalse(ClearToolCapabilities.CONSERVATIVE.isMultiSelectorDescribe());
+        assertFalse(ClearToolCapabilities.CONSERVATIVE.isAtLeast("1"));
+    }
+
+    @Test
+    public void testIsAtLeast() {
+        ClearToolCapabilities capabilities = new ClearToolCapabilities("7.1.2.8", true, null);
+        assertTrue(capabilities.isAtLeast("7"));
+        assertTrue(capabilities.isAtLeast("7.1.2.8"));
+        assertTrue(capabilities.isAtLeast("7.0.1"));
+        assertFalse(capabilities.isAtLeast("7.1.2.9"));
+        assertFalse(capabilities.isAtLeast("8.0"));
+    }
+}
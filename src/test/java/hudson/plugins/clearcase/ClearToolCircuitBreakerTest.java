@@ -0,0 +1,198 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import hudson.remoting.VirtualChannel;
+
+import java.io.IOException;
+
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClearToolCircuitBreakerTest {
+
+    private static final String[] LSHISTORY = new String[] { "lshistory", "-r", "-since", "1-jan-10.00:00:00utc+0000", "vob/dir" };
+    private static final String[] LSVIEW = new String[] { "lsview", "-cview" };
+    private static final String ALBD_ERROR = "cleartool: Error: Unable to contact albd_server on host 'vobserver'";
+    private static final String REGISTRY_ERROR = "cleartool: Error: Trouble communicating with registry server 'registry'";
+
+    private long now;
+    private VirtualChannel slaveChannel;
+    private ClearToolCircuitBreaker breaker;
+
+    @Before
+    public void setUp() {
+        now = 1000000L;
+        slaveChannel = new JUnit4Mockery().mock(VirtualChannel.class);
+        breaker = new ClearToolCircuitBreaker(2, 60000L) {
+            @Override
+            protected long currentTimeMillis() {
+                return now;
+            }
+
+            @Override
+            protected String getNodeName(VirtualChannel channel) {
+                return channel == slaveChannel ? "slave" : "";
+            }
+        };
+    }
+
+    @Test
+    public void testConnectionErrors() {
+        assertTrue(ClearToolCircuitBreaker.isConnectionError(ALBD_ERROR));
+        assertTrue(ClearToolCircuitBreaker.isConnectionError("cleartool: Error: RPC: Unable to receive; errno = [WINSOCK] Connection reset by peer"));
+        assertFalse(ClearToolCircuitBreaker.isConnectionError("cleartool: Error: Unable to access \"vob/file.c\": No such file or directory."));
+        assertFalse(ClearToolCircuitBreaker.isConnectionError(null));
+    }
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() throws Exception {
+        breaker.attempt(null, LSHISTORY).completed(ALBD_ERROR);
+        breaker.attempt(null, LSHISTORY).completed(null);
+        breaker.attempt(null, LSHISTORY).completed(ALBD_ERROR);
+        breaker.attempt(null, LSHISTORY).completed(ALBD_ERROR);
+        try {
+            breaker.attempt(null, LSHISTORY);
+            fail("The circuit of the VOB should be open");
+        } catch (ClearToolCircuitOpenException e) {
+            assertEquals("vob:vob", e.getTarget());
+        }
+        // the registry and the other VOBs are not affected
+        breaker.attempt(null, LSVIEW).completed(null);
+        breaker.attempt(null, new String[] { "describe", "other/file.c" }).completed(null);
+    }
+
+    @Test
+    public void testOtherErrorsDoNotCount() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            breaker.attempt(null, LSHISTORY).completed("cleartool: Error: Not a vob object: \"vob/dir\".");
+        }
+        breaker.attempt(null, LSHISTORY).completed(null);
+    }
+
+    @Test
+    public void testCircuitsArePerNode() throws Exception {
+        breaker.attempt(slaveChannel, LSHISTORY).completed(REGISTRY_ERROR);
+        breaker.attempt(slaveChannel, LSHISTORY).completed(REGISTRY_ERROR);
+        try {
+            breaker.attempt(slaveChannel, LSVIEW);
+            fail("The registry circuit of the slave should be open");
+        } catch (ClearToolCircuitOpenException e) {
+            assertEquals(ClearToolCircuitBreaker.REGISTRY, e.getTarget());
+        }
+        // the master still reaches the servers
+        breaker.attempt(null, LSVIEW).completed(null);
+        breaker.attempt(null, LSHISTORY).completed(null);
+        breaker.reset("slave", ClearToolCircuitBreaker.REGISTRY);
+        breaker.attempt(slaveChannel, LSVIEW).completed(null);
+    }
+
+    @Test
+    public void testTimeoutsWithoutConnectionErrorDoNotCount() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            breaker.attempt(null, LSHISTORY).timedOut(null);
+        }
+        breaker.attempt(null, LSHISTORY).completed(null);
+        for (ClearToolCircuitBreaker.Circuit circuit : breaker.getCircuits()) {
+            assertEquals(0, circuit.getConsecutiveFailures());
+        }
+    }
+
+    @Test
+    public void testHalfOpenProbe() throws Exception {
+        breaker.attempt(null, LSHISTORY).timedOut(ALBD_ERROR);
+        breaker.attempt(null, LSHISTORY).timedOut(ALBD_ERROR);
+        assertRejected(LSHISTORY);
+
+        now += 60000L;
+        ClearToolCircuitBreaker.Attempt probe = breaker.attempt(null, LSHISTORY);
+        // a single probe at a time
+        assertRejected(LSHISTORY);
+        probe.completed(ALBD_ERROR);
+        assertRejected(LSHISTORY);
+
+        now += 60000L;
+        breaker.attempt(null, LSHISTORY).completed(null);
+        breaker.attempt(null, LSHISTORY).completed(null);
+        for (ClearToolCircuitBreaker.Circuit circuit : breaker.getCircuits()) {
+            assertTrue(circuit.isClosed());
+            assertEquals(0, circuit.getConsecutiveFailures());
+        }
+    }
+
+    @Test
+    public void testRegistryErrorsSuspendAllCommands() throws Exception {
+        breaker.attempt(null, LSHISTORY).completed(REGISTRY_ERROR);
+        breaker.attempt(null, LSVIEW).completed(REGISTRY_ERROR);
+        assertRejected(LSVIEW);
+        assertRejected(LSHISTORY);
+        breaker.reset("", ClearToolCircuitBreaker.REGISTRY);
+        breaker.attempt(null, LSHISTORY).completed(null);
+    }
+
+    @Test
+    public void testAbandonedProbeLetsAnotherOneThrough() throws Exception {
+        breaker.attempt(null, LSVIEW).completed(ALBD_ERROR);
+        breaker.attempt(null, LSVIEW).completed(ALBD_ERROR);
+        now += 60000L;
+        breaker.attempt(null, LSVIEW).abandon();
+        breaker.attempt(null, LSVIEW).completed(null);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        ClearToolCircuitBreaker disabled = new ClearToolCircuitBreaker(0, 60000L);
+        for (int i = 0; i < 3; i++) {
+            disabled.attempt(null, LSHISTORY).completed(ALBD_ERROR);
+        }
+        disabled.attempt(null, LSHISTORY).completed(null);
+        assertTrue(disabled.getCircuits().isEmpty());
+    }
+
+    @Test
+    public void testErrorScanner() throws IOException {
+        ClearToolCircuitBreaker.ErrorScanner scanner = new ClearToolCircuitBreaker.ErrorScanner();
+        scanner.write("\"vob/file.c@@/main/1\" \"server not responding, retried\"\n".getBytes());
+        assertNull(scanner.getConnectionError());
+        scanner.write((ALBD_ERROR + "\r\ncleartool: Error: Unable to get VOB tag registry information\n").getBytes());
+        assertEquals(ALBD_ERROR, scanner.getConnectionError());
+    }
+
+    private void assertRejected(String[] cmd) {
+        try {
+            breaker.attempt(null, cmd);
+            fail("The command should have been rejected");
+        } catch (ClearToolCircuitOpenException e) {
+            // expected
+        }
+    }
+}
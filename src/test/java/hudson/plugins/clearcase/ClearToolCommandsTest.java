@@ -0,0 +1,66 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class ClearToolCommandsTest {
+
+    @Test
+    public void testAbbreviations() {
+        assertEquals("describe", ClearToolCommands.normalize("desc"));
+        assertEquals("describe", ClearToolCommands.normalize("des"));
+        assertEquals("lsstream", ClearToolCommands.normalize("lsstr"));
+        assertEquals("lsactivity", ClearToolCommands.normalize("lsact"));
+        assertEquals("lsproject", ClearToolCommands.normalize("lsproj"));
+        assertEquals("lshistory", ClearToolCommands.normalize("lshis"));
+        assertEquals("update", ClearToolCommands.normalize("upd"));
+    }
+
+    @Test
+    public void testAliases() {
+        assertEquals("checkout", ClearToolCommands.normalize("co"));
+        assertEquals("checkin", ClearToolCommands.normalize("ci"));
+    }
+
+    @Test
+    public void testOtherCommandsAreUnchanged() {
+        assertEquals("describe", ClearToolCommands.normalize("describe"));
+        assertEquals("lsbl", ClearToolCommands.normalize("lsbl"));
+        assertEquals("de", ClearToolCommands.normalize("de"));
+        assertEquals("lsst", ClearToolCommands.normalize("lsst"));
+        assertEquals("*", ClearToolCommands.normalize("*"));
+        assertNull(ClearToolCommands.normalize(null));
+    }
+
+    @Test
+    public void testGetSubcommand() {
+        assertEquals("describe", ClearToolCommands.getSubcommand(new String[] { "desc", "-fmt", "%n", "stream:s@\\pvob" }));
+        assertNull(ClearToolCommands.getSubcommand(new String[0]));
+    }
+}
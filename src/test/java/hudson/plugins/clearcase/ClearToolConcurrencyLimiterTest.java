@@ -0,0 +1,176 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ClearToolConcurrencyLimiterTest {
+
+    @Test
+    public void testVobsFromSelectors() {
+        assertEquals(Arrays.asList("pvob"), list(ClearToolConcurrencyLimiter.getVobs(new String[] { "describe", "-fmt", "%[found_bls]Xp",
+                "stream:my_stream@\\pvob" })));
+        assertEquals(Arrays.asList("vobs/pvob"), list(ClearToolConcurrencyLimiter.getVobs(new String[] { "lsbl", "baseline:bl@/vobs/pvob" })));
+    }
+
+    @Test
+    public void testVobsFromPaths() {
+        assertEquals(Arrays.asList("vob1", "vobs/vob2"), list(ClearToolConcurrencyLimiter.getVobs(new String[] { "lshistory", "-all", "-since",
+                "1-jan-10.00:00:00utc+0000", "-fmt", "%e/%o", "-branch", "brtype:main", "-nco", "vob1\\dir", "vobs/vob2/dir", "vobs/vob2/other" })));
+        assertEquals(Arrays.asList("vob"), list(ClearToolConcurrencyLimiter.getVobs(new String[] { "describe", "vob/file.c@@/main/3" })));
+    }
+
+    @Test
+    public void testNoVobs() {
+        assertTrue(ClearToolConcurrencyLimiter.getVobs(new String[] { "lsview", "-cview" }).isEmpty());
+        assertTrue(ClearToolConcurrencyLimiter.getVobs(new String[] { "update", "-force", "/tmp/view" }).isEmpty());
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        assertFalse(new ClearToolConcurrencyLimiter().isEnabled());
+    }
+
+    @Test
+    public void testVobLimit() throws Exception {
+        final ClearToolConcurrencyLimiter limiter = new ClearToolConcurrencyLimiter();
+        limiter.configure(0, 1);
+        ClearToolConcurrencyLimiter.Permit first = limiter.acquire(null, Collections.singleton("pvob"));
+        limiter.acquire(null, Collections.singleton("other")).release();
+
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiting = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    limiter.acquire(null, Collections.singleton("pvob")).release();
+                    acquired.countDown();
+                } catch (InterruptedException e) {
+                    // test fails
+                }
+            }
+        };
+        waiting.start();
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        first.release();
+        assertTrue(acquired.await(10, TimeUnit.SECONDS));
+        assertEquals(3, limiter.getAcquisitions());
+        assertEquals(1, limiter.getQueuedAcquisitions());
+        assertTrue(limiter.getMaxWaitMillis() >= 100);
+    }
+
+    @Test
+    public void testNodeLimit() throws Exception {
+        ClearToolConcurrencyLimiter limiter = new ClearToolConcurrencyLimiter();
+        limiter.configure(2, 0);
+        ClearToolConcurrencyLimiter.Permit first = limiter.acquire(null, Collections.singleton("pvob"));
+        ClearToolConcurrencyLimiter.Permit second = limiter.acquire(null, Collections.singleton("pvob"));
+        first.release();
+        second.release();
+        assertEquals(0, limiter.getQueuedAcquisitions());
+    }
+
+    @Test
+    public void testBuildServedBeforePolling() throws Exception {
+        final ClearToolConcurrencyLimiter limiter = new ClearToolConcurrencyLimiter();
+        limiter.configure(1, 0);
+        ClearToolConcurrencyLimiter.Permit first = limiter.acquire(null, Collections.<String> emptySet());
+
+        final List<ClearToolPriority> served = Collections.synchronizedList(new ArrayList<ClearToolPriority>());
+        final CountDownLatch done = new CountDownLatch(2);
+        Thread polling = waiter(limiter, ClearToolPriority.POLLING, served, done);
+        polling.start();
+        waitForState(polling);
+        Thread build = waiter(limiter, ClearToolPriority.BUILD, served, done);
+        build.start();
+        waitForState(build);
+
+        first.release();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(ClearToolPriority.BUILD, ClearToolPriority.POLLING), served);
+        assertEquals(1, limiter.getQueuedAcquisitions(ClearToolPriority.BUILD));
+        assertEquals(1, limiter.getQueuedAcquisitions(ClearToolPriority.POLLING));
+    }
+
+    @Test
+    public void testPollingShare() throws Exception {
+        ClearToolConcurrencyLimiter limiter = new ClearToolConcurrencyLimiter();
+        limiter.configure(4, 0);
+        limiter.acquire(null, Collections.<String> emptySet(), ClearToolPriority.POLLING);
+        limiter.acquire(null, Collections.<String> emptySet(), ClearToolPriority.POLLING);
+
+        final List<ClearToolPriority> served = Collections.synchronizedList(new ArrayList<ClearToolPriority>());
+        final CountDownLatch done = new CountDownLatch(1);
+        waiter(limiter, ClearToolPriority.POLLING, served, done).start();
+        assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+
+        // the slots above the polling share remain available to builds
+        limiter.acquire(null, Collections.<String> emptySet(), ClearToolPriority.BUILD);
+        limiter.acquire(null, Collections.<String> emptySet(), ClearToolPriority.BUILD);
+        assertEquals(0, limiter.getQueuedAcquisitions(ClearToolPriority.BUILD));
+    }
+
+    private static Thread waiter(final ClearToolConcurrencyLimiter limiter, final ClearToolPriority priority, final List<ClearToolPriority> served,
+            final CountDownLatch done) {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    ClearToolConcurrencyLimiter.Permit permit = limiter.acquire(null, Collections.<String> emptySet(), priority);
+                    served.add(priority);
+                    permit.release();
+                    done.countDown();
+                } catch (InterruptedException e) {
+                    // test fails
+                }
+            }
+        };
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void waitForState(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<String> list(Collection<String> vobs) {
+        return new ArrayList<String>(vobs);
+    }
+}
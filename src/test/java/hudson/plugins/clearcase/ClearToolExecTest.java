@@ -29,26 +29,37 @@ import static org.hamcrest.Matchers.hasItemInArray;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.TaskListener;
 import hudson.plugins.clearcase.ClearTool.SetcsOption;
 import hudson.util.VariableResolver;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.Reader;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
 
+import org.hamcrest.Description;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
 import org.jmock.integration.junit4.JUnit4Mockery;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.After;
@@ -56,6 +67,15 @@ import org.junit.Before;
 import org.junit.Test;
 
 public class ClearToolExecTest extends AbstractWorkspaceTest {
+    private static final String LSVIEW_LONG = "Tag: viewtag\n"
+            + "  Global path: /net/host/views/viewtag.vws\n"
+            + "  Server host: host\n"
+            + "View on host: host\n"
+            + "View server access path: /views/viewtag.vws\n"
+            + "View uuid: 3f1a2d6b.c0a811d9.b8b5.00:06:5b:7c:8f:1a\n"
+            + "View attributes: snapshot\n"
+            + "Properties: snapshot readwrite\n";
+
     private Mockery context;
     private Mockery classContext;
     private ClearToolExec clearToolExec;
@@ -233,6 +253,98 @@ public class ClearToolExecTest extends AbstractWorkspaceTest {
         assertNotNull("Returned console reader cannot be null", reader);
     }
 
+    @Test
+    public void testLshistoryStreaming() throws Exception {
+        workspace.child("viewName").mkdirs();
+        context.checking(new Expectations() {
+                {
+                    allowing(ccLauncher).getWorkspace();
+                    will(returnValue(workspace));
+                    one(ccLauncher).run(with(allOf(hasItemInArray("lshistory"), hasItemInArray("brtype:branch"))), (InputStream) with(anything()),
+                                      (OutputStream) with(an(OutputStream.class)), with(aNonNull(FilePath.class)));
+                    will(doAll(new StreamCopyAction(2, ClearToolExecTest.class.getResourceAsStream("ct-lshistory-1.log")),
+                               returnValue(Boolean.TRUE)));
+                }
+            });
+        BufferedReader reader = new BufferedReader(clearToolExec.lshistoryStreaming("FORMAT", new Date(), "viewName", "branch", new String[] { "vob1" }, false));
+        BufferedReader expected = new BufferedReader(new InputStreamReader(ClearToolExecTest.class.getResourceAsStream("ct-lshistory-1.log")));
+        for (String line = expected.readLine(); line != null; line = expected.readLine()) {
+            assertEquals(line, reader.readLine());
+        }
+        assertNull(reader.readLine());
+        reader.close();
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void testLshistoryListsEachVobOnce() throws Exception {
+        workspace.child("viewName").mkdirs();
+        // enough VOBs for their roots to be split over several commands
+        final int vobCount = 400;
+        List<String> loadRules = new ArrayList<String>();
+        for (int i = 0; i < vobCount; i++) {
+            for (String dir : new String[] { "src", "test", "doc" }) {
+                loadRules.add("vobs/component_vob_" + i + "/" + dir);
+            }
+        }
+        final List<String[]> commands = new ArrayList<String[]>();
+        context.checking(new Expectations() {
+                {
+                    allowing(ccLauncher).getWorkspace();
+                    will(returnValue(workspace));
+                    atLeast(2).of(ccLauncher).run(with(hasItemInArray("lshistory")), (InputStream) with(anything()),
+                                      (OutputStream) with(an(OutputStream.class)), with(aNonNull(FilePath.class)));
+                    will(new VobHistoryAction(commands));
+                }
+            });
+        BufferedReader reader = new BufferedReader(clearToolExec.lshistoryStreaming("FORMAT", new Date(), "viewName", "branch",
+                loadRules.toArray(new String[loadRules.size()]), false));
+        List<String> entries = new ArrayList<String>();
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            entries.add(line);
+        }
+        reader.close();
+        assertTrue("The VOBs should be split over several commands", commands.size() > 1);
+        assertEquals("Each VOB should be listed once", vobCount, entries.size());
+        assertEquals("Each entry should be listed once", vobCount, new HashSet<String>(entries).size());
+    }
+
+    @Test
+    public void testLshistoryStreamingIgnoresFailure() throws Exception {
+        workspace.child("viewName").mkdirs();
+        context.checking(new Expectations() {
+                {
+                    allowing(ccLauncher).getWorkspace();
+                    will(returnValue(workspace));
+                    one(ccLauncher).run(with(hasItemInArray("lshistory")), (InputStream) with(anything()),
+                                      (OutputStream) with(an(OutputStream.class)), with(aNonNull(FilePath.class)));
+                    will(doAll(new StreamCopyAction(2, new ByteArrayInputStream("cleartool: Error: Branch type not found: \"branch\".\n".getBytes())),
+                               throwException(new IOException())));
+                }
+            });
+        BufferedReader reader = new BufferedReader(clearToolExec.lshistoryStreaming("FORMAT", new Date(), "viewName", "branch", new String[] { "vob1" }, false));
+        assertEquals("cleartool: Error: Branch type not found: \"branch\".", reader.readLine());
+        assertNull(reader.readLine());
+        reader.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testDescribeStreamingThrowsFailureWhenRead() throws Exception {
+        context.checking(new Expectations() {
+                {
+                    one(ccLauncher).run(with(equal(new String[] { "desc", "-fmt", "format", "stream:stream_selector@\\a_vob" })), (InputStream) with(anything()),
+                                      (OutputStream) with(an(OutputStream.class)), with(aNull(FilePath.class)));
+                    will(throwException(new IOException("cleartool did not return the expected exit code")));
+                }
+            });
+        BufferedReader reader = new BufferedReader(clearToolExec.describeStreaming("format", "stream:stream_selector@\\a_vob"));
+        try {
+            reader.readLine();
+        } finally {
+            reader.close();
+        }
+    }
+
     @Test
     public void testCatConfigSpec() throws Exception {
         context.checking(new Expectations() {
@@ -321,6 +433,108 @@ public class ClearToolExecTest extends AbstractWorkspaceTest {
         clearToolExec.update("viewName", null);
     }
 
+    @Test
+    public void testGetViewStatusOfSnapshotView() throws Exception {
+        workspace.child("viewpath").mkdirs();
+        workspace.child("viewpath").child(".view.dat").write("ws_oid:00000000000000000000000000000000 view_uuid:3f1a2d6bc0a811d9b8b500065b7c8f1a\n", null);
+        context.checking(new Expectations() {
+                {
+                    allowing(ccLauncher).getWorkspace(); will(returnValue(workspace));
+                    one(ccLauncher).run(with(equal(new String[] { "lsview", "-long", "-properties", "-full", "viewtag" })),
+                                      (InputStream) with(anything()), (OutputStream) with(an(OutputStream.class)),
+                                      with(aNull(FilePath.class)));
+                    will(doAll(new StreamCopyAction(2, new ByteArrayInputStream(LSVIEW_LONG.getBytes())), returnValue(Boolean.TRUE)));
+                }
+            });
+        ViewStatus status = clearToolExec.getViewStatus("viewpath", "viewtag");
+        assertTrue(status.isValid());
+        assertEquals("viewtag", status.getCurrentViewTag());
+        assertEquals(workspace.child("viewpath").getRemote(), status.getRootPath());
+        assertEquals("3f1a2d6b.c0a811d9.b8b5.00:06:5b:7c:8f:1a", status.getProperties().getProperty(ViewStatus.UUID));
+        assertEquals("/views/viewtag.vws", status.getProperties().getProperty(ViewStatus.STORAGE_DIR));
+        assertEquals("snapshot", status.getProperties().getProperty(ViewStatus.ATTRIBUTES));
+    }
+
+    @Test
+    public void testGetViewStatusOfAnotherView() throws Exception {
+        workspace.child("viewpath").mkdirs();
+        workspace.child("viewpath").child(".view.dat").write("ws_oid:00000000000000000000000000000000 view_uuid:11111111222222223333444444444444\n", null);
+        context.checking(new Expectations() {
+                {
+                    allowing(ccLauncher).getWorkspace(); will(returnValue(workspace));
+                    one(ccLauncher).run(with(equal(new String[] { "lsview", "-long", "-properties", "-full", "viewtag" })),
+                                      (InputStream) with(anything()), (OutputStream) with(an(OutputStream.class)),
+                                      with(aNull(FilePath.class)));
+                    will(doAll(new StreamCopyAction(2, new ByteArrayInputStream(LSVIEW_LONG.getBytes())), returnValue(Boolean.TRUE)));
+                }
+            });
+        ViewStatus status = clearToolExec.getViewStatus("viewpath", "viewtag");
+        assertFalse(status.isValid());
+        assertTrue(status.isViewExists());
+        assertTrue(status.isViewPathExists());
+        assertNull(status.getCurrentViewTag());
+        assertNull(status.getRootPath());
+    }
+
+    @Test
+    public void testGetViewStatusOfMissingView() throws Exception {
+        context.checking(new Expectations() {
+                {
+                    allowing(ccLauncher).getWorkspace(); will(returnValue(workspace));
+                    one(ccLauncher).run(with(equal(new String[] { "lsview", "-long", "-properties", "-full", "viewtag" })),
+                                      (InputStream) with(anything()), (OutputStream) with(an(OutputStream.class)),
+                                      with(aNull(FilePath.class)));
+                    will(doAll(new StreamCopyAction(2, new ByteArrayInputStream("cleartool: Error: No matching entries found for view tag \"viewtag\".\n".getBytes())),
+                               throwException(new IOException("cleartool did not return the expected exit code"))));
+                }
+            });
+        ViewStatus status = clearToolExec.getViewStatus("viewpath", "viewtag");
+        assertFalse(status.isValid());
+        assertFalse(status.isViewExists());
+        assertFalse(status.isViewPathExists());
+    }
+
+    @Test
+    public void testUpdateLogsToNullDevice() throws Exception {
+        context.checking(new Expectations() {
+                {
+                    one(ccLauncher).getWorkspace(); will(returnValue(workspace));
+                    one(ccLauncher).run(
+                                               with(equal(new String[] { "update", "-force", "-overwrite", "-log",
+                                                                         "/dev/null" })),
+                                               with(aNonNull(InputStream.class)),
+                                               with(aNonNull(OutputStream.class)),
+                                               with(aNonNull(FilePath.class)));
+                    will(returnValue(Boolean.TRUE));
+                }
+            });
+        
+        clearToolExec.setCapabilities(new ClearToolCapabilities("7.1.2.8", true, "/dev/null"));
+        clearToolExec.update("viewName", null);
+    }
+
+    @Test
+    public void testUpdateSplitsLongLoadRules() throws Exception {
+        final String[] loadRules = new String[1000];
+        for (int i = 0; i < loadRules.length; i++) {
+            loadRules[i] = String.format("/vob/component_%04d/dir", i);
+        }
+        context.checking(new Expectations() {
+                {
+                    one(ccLauncher).getWorkspace(); will(returnValue(workspace));
+                    exactly(4).of(ccLauncher).run(
+                                               with(allOf(hasItemInArray("-add_loadrules"), hasItemInArray("update"))),
+                                               with(aNonNull(InputStream.class)),
+                                               with(aNonNull(OutputStream.class)),
+                                               with(aNonNull(FilePath.class)));
+                    will(returnValue(Boolean.TRUE));
+                }
+            });
+
+        clearToolExec.setCapabilities(new ClearToolCapabilities("7.1.2.8", true, "/dev/null"));
+        clearToolExec.update("viewName", loadRules);
+    }
+
     @Test
     public void testSetcsCurrent() throws Exception {
         context.checking(new Expectations() {
@@ -695,6 +909,36 @@ public class ClearToolExecTest extends AbstractWorkspaceTest {
     /**
      * Simple impl of ClearToolExec to help testing the methods in the class
      */
+    /**
+     * Lists an event of the VOB of each operand of lshistory, as lshistory -all lists the history of the whole VOB.
+     */
+    private static class VobHistoryAction implements Action {
+        private final List<String[]> commands;
+
+        public VobHistoryAction(List<String[]> commands) {
+            this.commands = commands;
+        }
+
+        public void describeTo(Description description) {
+            description.appendText("lists the history of the VOBs");
+        }
+
+        public Object invoke(Invocation invocation) throws Throwable {
+            String[] cmd = (String[]) invocation.getParameter(0);
+            commands.add(cmd);
+            OutputStream out = (OutputStream) invocation.getParameter(2);
+            boolean operand = false;
+            for (String arg : cmd) {
+                if (operand) {
+                    String[] dirs = arg.split("/");
+                    out.write((dirs[0] + "/" + dirs[1] + "/file.c@@/main/branch/1\n").getBytes());
+                }
+                operand |= "-nco".equals(arg);
+            }
+            return Boolean.TRUE;
+        }
+    }
+
     private static class ClearToolImpl extends ClearToolExec {
         
         public ClearToolImpl(ClearToolLauncher launcher) {
@@ -0,0 +1,88 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.util.NullStream;
+import hudson.util.StreamTaskListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+
+/**
+ * Compares the fork-per-command {@link HudsonClearToolLauncher} with the {@link PooledClearToolLauncher}, using the fake
+ * cleartool script of the test resources. The script is wrapped to simulate the start up cost of cleartool.
+ * 
+ * Not a unit test, run it with: <code>java hudson.plugins.clearcase.ClearToolSessionBenchmark [commands] [startup delay in seconds]</code>
+ */
+public class ClearToolSessionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int commands = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        String startupDelay = args.length > 1 ? args[1] : "0.05";
+
+        File script = new File(ClearToolSessionBenchmark.class.getResource("cleartool").toURI());
+        script.setExecutable(true);
+        File dir = Util.createTempDir();
+        File wrapper = new File(dir, "cleartool");
+        FileWriter writer = new FileWriter(wrapper);
+        writer.write("#!/bin/sh\nsleep " + startupDelay + "\nexec " + script.getAbsolutePath() + " \"$@\"\n");
+        writer.close();
+        wrapper.setExecutable(true);
+
+        TaskListener listener = new StreamTaskListener(new NullStream());
+        FilePath workspace = new FilePath(dir);
+        Launcher launcher = new Launcher.LocalLauncher(listener);
+
+        ClearToolLauncher forking = new HudsonClearToolLauncher(wrapper.getAbsolutePath(), "benchmark", listener, workspace, launcher);
+        ClearToolLauncher pooled = new PooledClearToolLauncher(wrapper.getAbsolutePath(), "benchmark", listener, workspace, launcher, 2, 0);
+
+        // warm up, also starts the session
+        run(forking, 5);
+        run(pooled, 5);
+
+        long forkingTime = run(forking, commands);
+        long pooledTime = run(pooled, commands);
+        System.out.println(commands + " commands, cleartool start up delay " + startupDelay + "s");
+        System.out.println("fork per command   : " + forkingTime + " ms (" + (forkingTime / (double) commands) + " ms/command)");
+        System.out.println("interactive session: " + pooledTime + " ms (" + (pooledTime / (double) commands) + " ms/command)");
+
+        ClearToolSessionPool.getPool(wrapper.getAbsolutePath()).shutdown();
+        workspace.deleteRecursive();
+    }
+
+    private static long run(ClearToolLauncher launcher, int commands) throws Exception {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < commands; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            launcher.run(new String[] { "lsview", "-short" }, null, out, null);
+        }
+        return System.currentTimeMillis() - start;
+    }
+}
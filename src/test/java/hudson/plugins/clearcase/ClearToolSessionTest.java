@@ -0,0 +1,172 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClearToolSessionTest extends AbstractWorkspaceTest {
+
+    private String executable;
+    private ClearToolSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        Assume.assumeTrue(File.pathSeparatorChar == ':');
+        createWorkspace();
+        File script = new File(getClass().getResource("cleartool").toURI());
+        script.setExecutable(true);
+        executable = script.getAbsolutePath();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        if (session != null) {
+            session.destroy();
+        }
+        if (workspace != null) {
+            deleteWorkspace();
+        }
+    }
+
+    @Test
+    public void testExecuteReturnsCommandOutput() throws Exception {
+        session = new ClearToolSession(executable, parentFile);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, session.execute(new String[] { "lsview", "-short" }, null, out));
+        InputStream expected = getClass().getResourceAsStream("ct-lsview-1.log");
+        assertEquals(new String(IOUtils.toByteArray(expected)), out.toString());
+    }
+
+    @Test
+    public void testExecuteOutputWithoutTrailingLineBreak() throws Exception {
+        session = new ClearToolSession(executable, parentFile);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // the status follows the output on the same line
+        assertEquals(0, session.execute(new String[] { "mkbl" }, null, out));
+        InputStream expected = getClass().getResourceAsStream("ct-mkbl-1.log");
+        assertEquals(new String(IOUtils.toByteArray(expected)), out.toString());
+        assertEquals(0, session.execute(new String[] { "lsview" }, null, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void testExecuteKeepsOutputBytes() throws Exception {
+        session = new ClearToolSession(executable, parentFile);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String comment = "\u00e9t\u00e9-\u00c5";
+        assertEquals(0, session.execute(new String[] { "echo", comment }, null, out));
+        assertEquals(new String((comment + "\n").getBytes(ClearToolSession.COMMAND_CHARSET), ClearToolSession.COMMAND_CHARSET), out
+                .toString(ClearToolSession.COMMAND_CHARSET));
+    }
+
+    @Test
+    public void testStalledSessionIsDestroyed() throws Exception {
+        session = new ClearToolSession(executable, parentFile);
+        session.setReadTimeout(500);
+        long start = System.currentTimeMillis();
+        try {
+            session.execute(new String[] { "sleep", "10" }, null, null);
+            fail("The stalled command did not fail");
+        } catch (IOException e) {
+            // expected
+        }
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertFalse(session.isAlive());
+    }
+
+    @Test
+    public void testExecuteKeepsSessionAfterFailedCommand() throws Exception {
+        session = new ClearToolSession(executable, parentFile);
+        assertEquals(1, session.execute(new String[] { "unknown" }, null, new ByteArrayOutputStream()));
+        assertTrue(session.isAlive());
+        assertEquals(0, session.execute(new String[] { "lsview" }, null, new ByteArrayOutputStream()));
+        assertEquals(2, session.getExecutedCommands());
+        assertTrue(session.ping());
+    }
+
+    @Test
+    public void testExecuteChangesDirectory() throws Exception {
+        session = new ClearToolSession(executable, null);
+        assertEquals(0, session.execute(new String[] { "mkview", "-snapshot", "-tag", "viewtag", "viewpath" }, parentFile, null));
+        assertTrue(new File(parentFile, "viewpath").isDirectory());
+    }
+
+    @Test
+    public void testCanExecute() {
+        assertTrue(ClearToolSession.canExecute(new String[] { "lshistory", "-fmt", "\\\"%Nd\\\" \\n", "path with space" }));
+        assertFalse(ClearToolSession.canExecute(new String[] { "mkbl", "-comment", "line1\nline2" }));
+        assertFalse(ClearToolSession.canExecute(new String[] { "mkbl", "-comment", "it's \"quoted\"" }));
+    }
+
+    @Test
+    public void testPoolRecyclesSessionAfterMaxCommands() throws Exception {
+        ClearToolSessionPool pool = new ClearToolSessionPool(executable);
+        pool.configure(1, 2);
+        for (int i = 0; i < 3; i++) {
+            ClearToolSession borrowed = pool.borrow(parentFile, 1000);
+            assertNotNull(borrowed);
+            borrowed.execute(new String[] { "lsview" }, null, null);
+            pool.release(borrowed);
+        }
+        assertEquals(2, pool.getStartedSessions());
+        assertEquals(1, pool.getRecycledSessions());
+        assertEquals(3, pool.getExecutedCommands());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testPoolFallsBackWhenAllSessionsAreBusy() throws Exception {
+        ClearToolSessionPool pool = new ClearToolSessionPool(executable);
+        pool.configure(1, 0);
+        session = pool.borrow(parentFile, 1000);
+        assertNotNull(session);
+        assertNull(pool.borrow(parentFile, 10));
+        assertEquals(1, pool.getFallbacks());
+    }
+
+    @Test
+    public void testPoolFallsBackWhenSessionCannotStart() throws Exception {
+        ClearToolSessionPool pool = new ClearToolSessionPool(new File(parentFile, "missing-cleartool").getAbsolutePath());
+        assertNull(pool.borrow(parentFile, 1000));
+        assertNull(pool.borrow(parentFile, 1000));
+        assertEquals(2, pool.getFallbacks());
+        assertEquals(0, pool.getStartedSessions());
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import hudson.FilePath;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hamcrest.Description;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClearToolSingleFlightTest {
+
+    private ExecutorService executor;
+    private AtomicInteger runs;
+    private CountDownLatch started;
+    private CountDownLatch release;
+    private CountDownLatch following;
+    private Mockery context;
+    private ClearToolLauncher launcher;
+    private ClearToolExec clearTool;
+    private String[] command;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        runs = new AtomicInteger();
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        following = new CountDownLatch(1);
+        context = new JUnit4Mockery();
+        launcher = context.mock(ClearToolLauncher.class);
+        clearTool = new ClearToolExec(null, launcher, null) {
+            @Override
+            protected FilePath getRootViewPath(ClearToolLauncher launcher) {
+                return launcher.getWorkspace();
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIsShareable() throws Exception {
+        expectCommand();
+        clearTool.describe("%[name]p", "stream:s@\\pvob");
+        assertTrue(ClearToolSingleFlight.isShareable(command, null));
+        assertFalse(ClearToolSingleFlight.isShareable(new String[] { "cleartool", "mkbl", "bl" }, null));
+        assertFalse(ClearToolSingleFlight.isShareable(new String[] { "cleartool" }, null));
+    }
+
+    @Test
+    public void testAbbreviatedCommandHasSameKey() throws Exception {
+        expectCommand();
+        clearTool.describe("%[name]p", "stream:s@\\pvob");
+        assertEquals("desc", command[1]);
+        String[] describe = command.clone();
+        describe[1] = "describe";
+        String[] env = new String[0];
+        assertEquals(ClearToolSingleFlight.key(describe, env, "/ws"), ClearToolSingleFlight.key(command, env, "/ws"));
+    }
+
+    @Test
+    public void testSelectorQueriesIgnoreWorkDir() throws Exception {
+        String[] env = new String[0];
+        expectCommand();
+        clearTool.describe("%[name]p", "stream:s@\\pvob baseline:b@\\pvob");
+        assertEquals(ClearToolSingleFlight.key(command, env, "/ws/a"), ClearToolSingleFlight.key(command, env, "/ws/b"));
+        expectCommand();
+        clearTool.lsproject("view", "%[name]p");
+        assertEquals(ClearToolSingleFlight.key(command, env, "/ws/a"), ClearToolSingleFlight.key(command, env, "/ws/b"));
+        expectCommand();
+        clearTool.lsstream("stream:s@\\pvob", null, "%[name]p");
+        assertEquals(ClearToolSingleFlight.key(command, env, "/ws/a"), ClearToolSingleFlight.key(command, env, "/ws/b"));
+    }
+
+    @Test
+    public void testPathQueriesKeepWorkDir() throws Exception {
+        String[] env = new String[0];
+        expectCommand();
+        clearTool.describe("%[name]p", "file.c");
+        assertFalse(ClearToolSingleFlight.key(command, env, "/ws/a").equals(ClearToolSingleFlight.key(command, env, "/ws/b")));
+        expectCommand();
+        clearTool.describe("%[name]p", "file.c@@/main/1");
+        assertFalse(ClearToolSingleFlight.key(command, env, "/ws/a").equals(ClearToolSingleFlight.key(command, env, "/ws/b")));
+        expectCommand();
+        clearTool.lsstream(null, null, "%[name]p");
+        assertFalse(ClearToolSingleFlight.key(command, env, "/ws/a").equals(ClearToolSingleFlight.key(command, env, "/ws/b")));
+    }
+
+    @Test
+    public void testConcurrentCallersShareExecution() throws Exception {
+        ClearToolSingleFlight singleFlight = new ObservedSingleFlight(1024);
+        Future<String> leader = submit(singleFlight, "key", "output", false);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Future<String> follower = submit(singleFlight, "key", "other", false);
+        waitForFollower();
+        release.countDown();
+
+        assertEquals("output", leader.get(10, TimeUnit.SECONDS));
+        assertEquals("output", follower.get(10, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+        assertEquals(1, singleFlight.getExecutions());
+        assertEquals(1, singleFlight.getSharedExecutions());
+    }
+
+    @Test
+    public void testDifferentCommandsAreNotShared() throws Exception {
+        ClearToolSingleFlight singleFlight = new ObservedSingleFlight(1024);
+        release.countDown();
+        assertEquals("a", submit(singleFlight, "a", "a", false).get(10, TimeUnit.SECONDS));
+        assertEquals("b", submit(singleFlight, "b", "b", false).get(10, TimeUnit.SECONDS));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void testFollowerRunsItselfWhenOutputOverflows() throws Exception {
+        ClearToolSingleFlight singleFlight = new ObservedSingleFlight(3);
+        Future<String> leader = submit(singleFlight, "key", "output", false);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Future<String> follower = submit(singleFlight, "key", "output", false);
+        waitForFollower();
+        release.countDown();
+
+        assertEquals("output", leader.get(10, TimeUnit.SECONDS));
+        assertEquals("output", follower.get(10, TimeUnit.SECONDS));
+        assertEquals(2, runs.get());
+        assertEquals(1, singleFlight.getFallbacks());
+    }
+
+    @Test
+    public void testFollowerRunsItselfWhenLeaderFails() throws Exception {
+        ClearToolSingleFlight singleFlight = new ObservedSingleFlight(1024);
+        Future<String> leader = submit(singleFlight, "key", "output", true);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Future<String> follower = submit(singleFlight, "key", "output", false);
+        waitForFollower();
+        release.countDown();
+
+        try {
+            leader.get(10, TimeUnit.SECONDS);
+            fail("the leader should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals("output", follower.get(10, TimeUnit.SECONDS));
+        assertEquals(2, runs.get());
+    }
+
+    private void waitForFollower() throws InterruptedException {
+        assertTrue(following.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Records the command line run by the cleartool wrapper, with the executable first as the launcher runs it.
+     */
+    private void expectCommand() throws Exception {
+        context.checking(new Expectations() {
+            {
+                one(launcher).run(with(any(String[].class)), (InputStream) with(anything()), (OutputStream) with(anything()),
+                        with(aNull(FilePath.class)));
+                will(new Action() {
+                    public void describeTo(Description description) {
+                        description.appendText("records the command");
+                    }
+
+                    public Object invoke(Invocation invocation) {
+                        String[] cmd = (String[]) invocation.getParameter(0);
+                        command = new String[cmd.length + 1];
+                        command[0] = "cleartool";
+                        System.arraycopy(cmd, 0, command, 1, cmd.length);
+                        return Boolean.TRUE;
+                    }
+                });
+            }
+        });
+    }
+
+    private class ObservedSingleFlight extends ClearToolSingleFlight {
+        ObservedSingleFlight(int maxOutput) {
+            super(maxOutput);
+        }
+
+        @Override
+        protected void following(String key) {
+            following.countDown();
+        }
+    }
+
+    private Future<String> submit(final ClearToolSingleFlight singleFlight, final String key, final String output, final boolean fail) {
+        return executor.submit(new Callable<String>() {
+            public String call() throws Exception {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                singleFlight.execute(key, out, new ClearToolSingleFlight.Execution() {
+                    public int execute(OutputStream out) throws IOException, InterruptedException {
+                        runs.incrementAndGet();
+                        started.countDown();
+                        release.await();
+                        out.write(output.getBytes());
+                        if (fail) {
+                            throw new IOException("failure");
+                        }
+                        return 0;
+                    }
+                });
+                return out.toString();
+            }
+        });
+    }
+}
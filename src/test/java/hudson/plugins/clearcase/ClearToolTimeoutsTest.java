@@ -0,0 +1,86 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class ClearToolTimeoutsTest {
+
+    @Test
+    public void testGetTimeout() {
+        ClearToolTimeouts timeouts = ClearToolTimeouts.merge("lshistory=600\nupdate = 3600\r\n*=60", null);
+        assertEquals(600, timeouts.getTimeout("lshistory"));
+        assertEquals(3600, timeouts.getTimeout("update"));
+        assertEquals(60, timeouts.getTimeout("describe"));
+    }
+
+    @Test
+    public void testAbbreviatedCommands() {
+        ClearToolTimeouts timeouts = ClearToolTimeouts.merge("lshis=600\ndescribe=30", null);
+        assertEquals(600, timeouts.getTimeout("lshistory"));
+        assertEquals(30, timeouts.getTimeout("desc"));
+    }
+
+    @Test
+    public void testTimeoutsAreCountedByFullName() {
+        Long before = ClearToolTimeouts.getTimeoutCounts().get("lsactivity");
+        ClearToolTimeouts.recordTimeout("lsact");
+        ClearToolTimeouts.recordTimeout("lsactivity");
+        assertEquals((before != null ? before : 0) + 2, ClearToolTimeouts.getTimeoutCounts().get("lsactivity").longValue());
+    }
+
+    @Test
+    public void testNoTimeout() {
+        ClearToolTimeouts timeouts = ClearToolTimeouts.merge(null, null);
+        assertEquals(0, timeouts.getTimeout("lshistory"));
+    }
+
+    @Test
+    public void testJobOverridesGlobal() {
+        ClearToolTimeouts timeouts = ClearToolTimeouts.merge("lshistory=600\n*=60", "lshistory=1200\nupdate=0");
+        assertEquals(1200, timeouts.getTimeout("lshistory"));
+        assertEquals(0, timeouts.getTimeout("update"));
+        assertEquals(60, timeouts.getTimeout("describe"));
+    }
+
+    @Test
+    public void testInvalidLinesAreIgnored() {
+        ClearToolTimeouts timeouts = ClearToolTimeouts.merge("lshistory=ten\nupdate\n=5\nmkview=30", null);
+        assertEquals(0, timeouts.getTimeout("lshistory"));
+        assertEquals(0, timeouts.getTimeout("update"));
+        assertEquals(30, timeouts.getTimeout("mkview"));
+    }
+
+    @Test
+    public void testGetInvalidLine() {
+        assertNull(ClearToolTimeouts.getInvalidLine("lshistory=600\n\n*=60"));
+        assertNull(ClearToolTimeouts.getInvalidLine(null));
+        assertEquals("lshistory=ten", ClearToolTimeouts.getInvalidLine("update=5\nlshistory=ten"));
+        assertEquals("update", ClearToolTimeouts.getInvalidLine("update"));
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ConsoleOutputPolicyTest {
+
+    @Test
+    public void testDefaults() {
+        assertEquals(ConsoleOutputPolicy.SUMMARY, ConsoleOutputPolicy.forCommand("lshistory", null));
+        assertEquals(ConsoleOutputPolicy.SUMMARY, ConsoleOutputPolicy.forCommand("describe", null));
+        assertEquals(ConsoleOutputPolicy.SUMMARY, ConsoleOutputPolicy.forCommand("desc", null));
+        assertEquals(ConsoleOutputPolicy.FULL, ConsoleOutputPolicy.forCommand("update", null));
+        assertEquals(ConsoleOutputPolicy.FULL, ConsoleOutputPolicy.forCommand(null, null));
+    }
+
+    @Test
+    public void testConfiguredPolicies() {
+        Map<String, ConsoleOutputPolicy> policies = ConsoleOutputPolicy.parse("lshistory=full\nupdate = Summary\r\n*=none");
+        assertEquals(ConsoleOutputPolicy.FULL, ConsoleOutputPolicy.forCommand("lshistory", policies));
+        assertEquals(ConsoleOutputPolicy.SUMMARY, ConsoleOutputPolicy.forCommand("update", policies));
+        assertEquals(ConsoleOutputPolicy.NONE, ConsoleOutputPolicy.forCommand("describe", policies));
+    }
+
+    @Test
+    public void testAbbreviatedCommands() {
+        Map<String, ConsoleOutputPolicy> policies = ConsoleOutputPolicy.parse("desc=none\nlsstream=full");
+        assertEquals(ConsoleOutputPolicy.NONE, ConsoleOutputPolicy.forCommand("describe", policies));
+        assertEquals(ConsoleOutputPolicy.FULL, ConsoleOutputPolicy.forCommand("lsstr", policies));
+    }
+
+    @Test
+    public void testDefaultsApplyToCommandsNotListed() {
+        Map<String, ConsoleOutputPolicy> policies = ConsoleOutputPolicy.parse("update=none\nlshistory=verbose");
+        assertEquals(ConsoleOutputPolicy.NONE, ConsoleOutputPolicy.forCommand("update", policies));
+        assertEquals(ConsoleOutputPolicy.SUMMARY, ConsoleOutputPolicy.forCommand("lshistory", policies));
+    }
+
+    @Test
+    public void testGetInvalidLine() {
+        assertNull(ConsoleOutputPolicy.getInvalidLine("lshistory=full\n\n*=none"));
+        assertNull(ConsoleOutputPolicy.getInvalidLine(null));
+        assertEquals("lshistory=verbose", ConsoleOutputPolicy.getInvalidLine("update=none\nlshistory=verbose"));
+    }
+}
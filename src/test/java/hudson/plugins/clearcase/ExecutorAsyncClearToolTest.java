@@ -0,0 +1,147 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import hudson.plugins.clearcase.util.FutureUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExecutorAsyncClearToolTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCommandsRunAtTheSameTime() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        ClearTool cleartool = new ClearToolDecorator(null) {
+            @Override
+            public String lsbl(String baselineName, String format) throws IOException {
+                try {
+                    // both commands have to be running to go through
+                    barrier.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IOException(e.toString());
+                }
+                return baselineName + format;
+            }
+        };
+        AsyncClearTool asyncClearTool = new ExecutorAsyncClearTool(cleartool, executor);
+        List<Future<String>> outputs = new ArrayList<Future<String>>();
+        outputs.add(asyncClearTool.lsbl("bl1", "-a"));
+        outputs.add(asyncClearTool.lsbl("bl2", "-b"));
+
+        List<String> results = FutureUtil.getAll(outputs);
+        assertEquals("bl1-a", results.get(0));
+        assertEquals("bl2-b", results.get(1));
+    }
+
+    @Test
+    public void testFailureIsRethrown() throws Exception {
+        ClearTool cleartool = new ClearToolDecorator(null) {
+            @Override
+            public String lsbl(String baselineName, String format) throws IOException {
+                throw new IOException("no such baseline " + baselineName);
+            }
+        };
+        AsyncClearTool asyncClearTool = new ExecutorAsyncClearTool(cleartool, executor);
+        try {
+            FutureUtil.get(asyncClearTool.lsbl("bl1", "%n"));
+            fail("The failure of the command should be rethrown");
+        } catch (IOException e) {
+            assertEquals("no such baseline bl1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testFailureCancelsTheOtherCommands() throws Exception {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        ClearTool cleartool = new ClearToolDecorator(null) {
+            @Override
+            public String lsbl(String baselineName, String format) throws IOException, InterruptedException {
+                if ("bad".equals(baselineName)) {
+                    throw new IOException("no such baseline");
+                }
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return baselineName;
+            }
+        };
+        AsyncClearTool asyncClearTool = new ExecutorAsyncClearTool(cleartool, executor);
+        List<Future<String>> outputs = new ArrayList<Future<String>>();
+        outputs.add(asyncClearTool.lsbl("bad", "%n"));
+        outputs.add(asyncClearTool.lsbl("slow", "%n"));
+        try {
+            FutureUtil.getAll(outputs);
+            fail("The failure of the command should be rethrown");
+        } catch (IOException e) {
+            assertTrue("The slow command should have been interrupted", interrupted.await(10, TimeUnit.SECONDS));
+            assertTrue(outputs.get(1).isCancelled());
+        }
+    }
+
+    @Test
+    public void testDirectExecutorRunsInCallingThread() throws Exception {
+        final Thread caller = Thread.currentThread();
+        ClearTool cleartool = new ClearToolDecorator(null) {
+            @Override
+            public String lsbl(String baselineName, String format) {
+                return String.valueOf(Thread.currentThread() == caller);
+            }
+        };
+        AsyncClearTool asyncClearTool = new ExecutorAsyncClearTool(cleartool, ExecutorAsyncClearTool.DIRECT);
+        Future<String> output = asyncClearTool.lsbl("bl1", "%n");
+        assertTrue(output.isDone());
+        assertEquals("true", FutureUtil.get(output));
+    }
+}
@@ -35,10 +35,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.jmock.Expectations;
 import org.jmock.Mockery;
+import org.jmock.api.Invocation;
 import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.After;
 import org.junit.Before;
@@ -160,6 +164,38 @@ public class HudsonClearToolLauncherTest extends AbstractWorkspaceTest {
         context.assertIsSatisfied();
     }
 
+    @Test(expected=ClearToolTimeoutException.class)
+    public void testTimeoutKillsCommand() throws Exception {
+        final PrintStream mockedStream = new PrintStream(new ByteArrayOutputStream());
+        final CountDownLatch killed = new CountDownLatch(1);
+
+        context.checking(new Expectations() {
+                {
+                    ignoring(taskListener).getLogger(); will(returnValue(mockedStream));
+                    one(taskListener).error(with(any(String.class)));
+                }
+            });
+        classContext.checking(new Expectations() {
+                {
+                    one(proc).join(); will(new CustomAction("wait until killed") {
+                            public Object invoke(Invocation invocation) throws Throwable {
+                                killed.await(10, TimeUnit.SECONDS);
+                                return 143;
+                            }
+                        });
+                    one(proc).kill(); will(new CustomAction("kill") {
+                            public Object invoke(Invocation invocation) throws Throwable {
+                                killed.countDown();
+                                return null;
+                            }
+                        });
+                }
+            });
+
+        HudsonClearToolLauncher launcherImpl = new HudsonClearToolLauncherDummy("exec", "ccscm", taskListener, workspace, launcher);
+        launcherImpl.setTimeouts(ClearToolTimeouts.merge("update=1", null));
+        launcherImpl.run(new String[] { "update", "-force" }, null, new ByteArrayOutputStream(), null);
+    }
 
     public class HudsonClearToolLauncherDummy extends HudsonClearToolLauncher {
         public HudsonClearToolLauncherDummy(String executable, String scmName, TaskListener listener,
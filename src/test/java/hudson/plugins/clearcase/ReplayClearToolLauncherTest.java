@@ -0,0 +1,233 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.TaskListener;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+public class ReplayClearToolLauncherTest {
+
+    private static final String[] LSHISTORY_JANUARY = new String[] { "lshistory", "-all", "-since", "1-jan-10.00:00:00utc+0000", "-nco", "vob" };
+    private static final String[] LSHISTORY_FEBRUARY = new String[] { "lshistory", "-all", "-since", "1-feb-10.00:00:00utc+0000", "-nco", "vob" };
+    private static final String OUTPUT = "\"20100101.120000\" \"vob/file.c\" \"/main/1\"\n\"20100101.130000\" \"vob/file.h\" \"/main/4\"\n";
+
+    @Test
+    public void testReplayRecordedOutput() throws Exception {
+        RecordingClearToolLauncher recording = new RecordingClearToolLauncher(new FakeLauncher(OUTPUT, null), null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recording.run(LSHISTORY_JANUARY, null, out, null);
+        assertEquals(OUTPUT, out.toString());
+
+        ClearToolTranscript.Exchange exchange = recording.getTranscript().getExchanges().get(0);
+        assertEquals(OUTPUT, exchange.getOutput());
+        assertNull(exchange.getError());
+
+        // the date of lshistory is ignored
+        ReplayClearToolLauncher replay = new ReplayClearToolLauncher(recording.getTranscript(), 0, null, null, null);
+        out = new ByteArrayOutputStream();
+        replay.run(LSHISTORY_FEBRUARY, null, out, null);
+        assertEquals(OUTPUT, out.toString());
+    }
+
+    @Test
+    public void testReplayProcessedOutput() throws Exception {
+        RecordingClearToolLauncher recording = new RecordingClearToolLauncher(new FakeLauncher(OUTPUT, null), null);
+        assertEquals("\"20100101.120000\" \"vob/file.c\" \"/main/1\"", recording.runAndProcess(LSHISTORY_JANUARY, null, new FirstLine()));
+
+        ReplayClearToolLauncher replay = new ReplayClearToolLauncher(recording.getTranscript(), 0, null, null, null);
+        assertEquals("\"20100101.120000\" \"vob/file.c\" \"/main/1\"", replay.runAndProcess(LSHISTORY_FEBRUARY, null, new FirstLine()));
+    }
+
+    @Test
+    public void testReplayFailure() throws Exception {
+        RecordingClearToolLauncher recording = new RecordingClearToolLauncher(new FakeLauncher("cleartool: Error: Unable to contact albd_server\n",
+                "cleartool did not return the expected exit code"), null);
+        try {
+            recording.run(LSHISTORY_JANUARY, null, new ByteArrayOutputStream(), null);
+            fail("The failure should be thrown");
+        } catch (IOException e) {
+            // expected
+        }
+
+        ReplayClearToolLauncher replay = new ReplayClearToolLauncher(recording.getTranscript(), 0, null, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            replay.run(LSHISTORY_JANUARY, null, out, null);
+            fail("The failure should be replayed");
+        } catch (IOException e) {
+            assertEquals("cleartool did not return the expected exit code", e.getMessage());
+        }
+        assertEquals("cleartool: Error: Unable to contact albd_server\n", out.toString());
+    }
+
+    @Test
+    public void testIdenticalCommandsAreServedInOrder() throws Exception {
+        ClearToolTranscript transcript = new ClearToolTranscript();
+        transcript.add(new ClearToolTranscript.Exchange(new String[] { "lsview", "-s" }, null, null, "view1\n", false, 0, 0, null));
+        transcript.add(new ClearToolTranscript.Exchange(new String[] { "lsview", "-s" }, null, null, "view1\nview2\n", false, 0, 0, null));
+        ReplayClearToolLauncher replay = new ReplayClearToolLauncher(transcript, 0, null, null, null);
+        assertEquals("view1\n", run(replay, "lsview", "-s"));
+        assertEquals("view1\nview2\n", run(replay, "lsview", "-s"));
+        assertEquals("view1\nview2\n", run(replay, "lsview", "-s"));
+    }
+
+    @Test
+    public void testUnknownCommand() throws Exception {
+        ReplayClearToolLauncher replay = new ReplayClearToolLauncher(new ClearToolTranscript(), 0, null, null, null);
+        try {
+            run(replay, "lsview", "-s");
+            fail("An unknown command should fail");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("lsview -s"));
+        }
+    }
+
+    @Test
+    public void testScaledLatency() throws Exception {
+        ClearToolTranscript transcript = new ClearToolTranscript();
+        transcript.add(new ClearToolTranscript.Exchange(new String[] { "lsview", "-s" }, null, null, "view1\n", false, 0, 400, null));
+
+        long start = System.currentTimeMillis();
+        run(new ReplayClearToolLauncher(transcript, 0.5, null, null, null), "lsview", "-s");
+        assertTrue(System.currentTimeMillis() - start >= 200);
+
+        start = System.currentTimeMillis();
+        run(new ReplayClearToolLauncher(transcript, 0, null, null, null), "lsview", "-s");
+        assertTrue(System.currentTimeMillis() - start < 200);
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        File file = File.createTempFile("transcript", ".xml");
+        try {
+            RecordingClearToolLauncher recording = new RecordingClearToolLauncher(new FakeLauncher(OUTPUT, null), file);
+            recording.run(LSHISTORY_JANUARY, null, new ByteArrayOutputStream(), null);
+            recording.run(new String[] { "lsview", "-s" }, null, new ByteArrayOutputStream(), null);
+            ClearToolTranscript transcript = ClearToolTranscript.load(file);
+            assertEquals(2, transcript.getExchanges().size());
+            assertEquals(OUTPUT, run(new ReplayClearToolLauncher(transcript, 0, null, null, null), LSHISTORY_FEBRUARY));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLoadSavedTranscript() throws Exception {
+        File file = File.createTempFile("transcript", ".xml");
+        try {
+            ClearToolTranscript saved = new ClearToolTranscript();
+            saved.add(new ClearToolTranscript.Exchange(new String[] { "lsview", "-s" }, null, null, "view1\n", false, 0, 0, null));
+            saved.save(file);
+            assertEquals("view1\n", run(new ReplayClearToolLauncher(ClearToolTranscript.load(file), 0, null, null, null), "lsview", "-s"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static String run(ClearToolLauncher launcher, String... cmd) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        launcher.run(cmd, null, out, null);
+        return out.toString();
+    }
+
+    private static class FirstLine implements ClearToolOutputProcessor<String> {
+        private static final long serialVersionUID = 1L;
+
+        public String process(BufferedReader output) throws IOException {
+            return output.readLine();
+        }
+    }
+
+    /**
+     * Answers every command with the same output.
+     */
+    private static class FakeLauncher implements ClearToolLauncher {
+        private final String output;
+        private final String error;
+
+        FakeLauncher(String output, String error) {
+            this.output = output;
+            this.error = error;
+        }
+
+        public boolean run(String[] cmd, FilePath execPath) throws IOException, InterruptedException {
+            return run(cmd, null, null, execPath);
+        }
+
+        public boolean run(String[] cmd, InputStream in, OutputStream out, FilePath execPath) throws IOException, InterruptedException {
+            return run(cmd, in, out, execPath, false);
+        }
+
+        public boolean run(String[] cmd, InputStream in, OutputStream out, FilePath execPath, boolean logCommand) throws IOException,
+                InterruptedException {
+            out.write(output.getBytes());
+            if (error != null) {
+                throw new IOException(error);
+            }
+            return true;
+        }
+
+        public <T> T runAndProcess(String[] cmd, FilePath execPath, ClearToolOutputProcessor<T> processor) throws IOException,
+                InterruptedException {
+            return processor.process(new BufferedReader(new StringReader(output)));
+        }
+
+        public TaskListener getListener() {
+            return null;
+        }
+
+        public FilePath getWorkspace() {
+            return null;
+        }
+
+        public Launcher getLauncher() {
+            return null;
+        }
+
+        public String getExecutable() {
+            return "cleartool";
+        }
+
+        public String getCmdString(String[] cmd) {
+            return String.valueOf(cmd.length);
+        }
+    }
+}
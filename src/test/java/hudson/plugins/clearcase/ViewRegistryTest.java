@@ -0,0 +1,211 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import hudson.FilePath;
+import hudson.plugins.clearcase.ViewRegistry.ViewInfo;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.hamcrest.Description;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ViewRegistryTest {
+
+    private static final String LSVIEW_LONG = "Tag: view1 \"a comment\"\n"
+            + "  Global path: /net/host1/views/view1.vws\n"
+            + "  Server host: host1\n"
+            + "  Region: region\n"
+            + "  Active: YES\n"
+            + "  View tag uuid:3f1a2d6b.c0a811d9.b8b5.00:06:5b:7c:8f:1a\n"
+            + "View on host: host1\n"
+            + "View server access path: /views/view1.vws\n"
+            + "View uuid: 3f1a2d6b.c0a811d9.b8b5.00:06:5b:7c:8f:1a\n"
+            + "View owner: example.com/user\n"
+            + "\n"
+            + "Tag: view2\n"
+            + "  Global path: \\\\host2\\views\\view2.vws\n"
+            + "  Server host: host2\n"
+            + "  Region: region\n"
+            + "  Active: NO\n"
+            + "View on host: host2\n"
+            + "View server access path: D:\\views\\view2.vws\n"
+            + "View uuid: 11111111.22222222.3333.44:44:44:44:44:44\n";
+
+    private Mockery context;
+    private ClearToolLauncher launcher;
+
+    @Before
+    public void setUp() throws Exception {
+        context = new JUnit4Mockery();
+        launcher = context.mock(ClearToolLauncher.class);
+    }
+
+    @Test
+    public void testParseLsviewLong() throws Exception {
+        Map<String, ViewInfo> views = new ViewRegistry.LsviewParser().process(new BufferedReader(new StringReader(LSVIEW_LONG)));
+        assertEquals(2, views.size());
+        ViewInfo view1 = views.get("view1");
+        assertEquals("3f1a2d6b.c0a811d9.b8b5.00:06:5b:7c:8f:1a", view1.getUuid());
+        assertEquals("/views/view1.vws", view1.getStoragePath());
+        assertEquals("/net/host1/views/view1.vws", view1.getGlobalPath());
+        assertEquals("host1", view1.getHost());
+        assertTrue(view1.isStarted());
+        ViewInfo view2 = views.get("view2");
+        assertEquals("D:\\views\\view2.vws", view2.getStoragePath());
+        assertFalse(view2.isStarted());
+        assertEquals("D:\\views\\view2.vws", view2.toViewData().getProperty("STORAGE_DIR"));
+    }
+
+    @Test
+    public void testLookupsShareOneListing() throws Exception {
+        expectListings(1, views("view1", "view2"));
+        ViewRegistry registry = new ViewRegistry(60000, ExecutorAsyncClearTool.DIRECT);
+        assertNotNull(registry.getViews(launcher).get("view1"));
+        assertNotNull(registry.getViews(launcher).get("view2"));
+        assertNull(registry.getViews(launcher).get("view3"));
+        assertEquals(new TreeSet<String>(Arrays.asList("view1", "view2")), new TreeSet<String>(registry.getViews(launcher).keySet()));
+    }
+
+    @Test
+    public void testEagerUpdates() throws Exception {
+        expectListings(1, views("view1", "view2"));
+        ViewRegistry registry = new ViewRegistry(60000, ExecutorAsyncClearTool.DIRECT);
+        assertNull(registry.getViews(launcher).get("view3"));
+        registry.viewCreated("view3");
+        ViewInfo created = registry.getViews(launcher).get("view3");
+        assertNotNull(created);
+        assertFalse(created.isComplete());
+        registry.viewTagRemoved("view1");
+        assertNull(registry.getViews(launcher).get("view1"));
+        registry.viewRemoved("uuid-view2");
+        assertNull(registry.getViews(launcher).get("view2"));
+    }
+
+    @Test
+    public void testInvalidateListsAgain() throws Exception {
+        expectListings(2, views("view1"));
+        ViewRegistry registry = new ViewRegistry(60000, ExecutorAsyncClearTool.DIRECT);
+        assertNotNull(registry.getViews(launcher).get("view1"));
+        registry.invalidate();
+        assertNotNull(registry.getViews(launcher).get("view1"));
+    }
+
+    @Test
+    public void testStaleSnapshotIsRefreshed() throws Exception {
+        expectListings(2, views("view1"));
+        ViewRegistry registry = new ViewRegistry(100, ExecutorAsyncClearTool.DIRECT);
+        assertNotNull(registry.getViews(launcher).get("view1"));
+        Thread.sleep(150);
+        assertNotNull(registry.getViews(launcher).get("view1"));
+    }
+
+    @Test
+    public void testListingRacingWithChangeIsDoneAgain() throws Exception {
+        final ViewRegistry registry = new ViewRegistry(60000, ExecutorAsyncClearTool.DIRECT);
+        expectListings(2, new ChangingListing(registry, 1, views("view1")));
+        assertNotNull(registry.getViews(launcher).get("view1"));
+        // the second listing is kept
+        assertNotNull(registry.getViews(launcher).get("view1"));
+    }
+
+    @Test
+    public void testViewsChangingAtEachListingAreNotAnswered() throws Exception {
+        final ViewRegistry registry = new ViewRegistry(60000, ExecutorAsyncClearTool.DIRECT);
+        expectListings(3, new ChangingListing(registry, 3, views("view1")));
+        assertNull(registry.getViews(launcher));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        assertFalse(new ViewRegistry(0, ExecutorAsyncClearTool.DIRECT).isEnabled());
+    }
+
+    private void expectListings(final int count, final Map<String, ViewInfo> views) throws Exception {
+        expectListings(count, Expectations.returnValue(views));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expectListings(final int count, final Action listing) throws Exception {
+        context.checking(new Expectations() {
+            {
+                exactly(count).of(launcher).runAndProcess(with(equal(new String[] { "lsview", "-long" })), with(aNull(FilePath.class)),
+                        with(any(ClearToolOutputProcessor.class)));
+                will(listing);
+            }
+        });
+    }
+
+    /**
+     * Lists views while the plugin creates one, for the first listings.
+     */
+    private static class ChangingListing implements Action {
+        private final ViewRegistry registry;
+        private final Map<String, ViewInfo> views;
+        private int changes;
+
+        ChangingListing(ViewRegistry registry, int changes, Map<String, ViewInfo> views) {
+            this.registry = registry;
+            this.changes = changes;
+            this.views = views;
+        }
+
+        public void describeTo(Description description) {
+            description.appendText("lists the views while one is created");
+        }
+
+        public Object invoke(Invocation invocation) {
+            if (changes > 0) {
+                changes--;
+                registry.viewCreated("new-view");
+            }
+            return views;
+        }
+    }
+
+    private static Map<String, ViewInfo> views(String... tags) {
+        Map<String, ViewInfo> views = new HashMap<String, ViewInfo>();
+        for (String tag : tags) {
+            views.put(tag, new ViewInfo(tag, "uuid-" + tag, "/views/" + tag + ".vws", null, "host", true));
+        }
+        return views;
+    }
+}
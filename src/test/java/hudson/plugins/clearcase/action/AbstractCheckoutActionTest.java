@@ -5,6 +5,7 @@ import hudson.FilePath;
 import hudson.Launcher;
 import hudson.plugins.clearcase.AbstractWorkspaceTest;
 import hudson.plugins.clearcase.ClearTool;
+import hudson.plugins.clearcase.ViewStatus;
 
 import java.io.IOException;
 
@@ -57,7 +58,7 @@ public class AbstractCheckoutActionTest extends AbstractWorkspaceTest {
     public void firstTimeShouldCreate() throws Exception {
         context.checking(new Expectations() {
             {
-               one(clearTool).doesViewExist("aViewTag"); will(returnValue(false));
+               one(clearTool).getViewStatus("path", "aViewTag"); will(returnValue(new ViewStatus("aViewTag", false, false, null, null, null)));
                one(clearTool).mkview("path", "aViewTag", "stream@\\pvob");
             }
         });
@@ -70,8 +71,7 @@ public class AbstractCheckoutActionTest extends AbstractWorkspaceTest {
         workspace.child("path").mkdirs();
         context.checking(new Expectations() {
             {
-                one(clearTool).doesViewExist("aViewTag"); will(returnValue(true));
-                one(clearTool).lscurrentview("path"); will(returnValue("aViewTag"));
+                one(clearTool).getViewStatus("path", "aViewTag"); will(returnValue(new ViewStatus("aViewTag", true, true, "aViewTag", null, null)));
             }
         });
         DummyCheckoutAction action = new DummyCheckoutAction(clearTool, new String[] { "aLoadRule" }, true, "");
@@ -83,8 +83,7 @@ public class AbstractCheckoutActionTest extends AbstractWorkspaceTest {
         workspace.child("path").mkdirs();
         context.checking(new Expectations() {
             {
-                one(clearTool).doesViewExist("aViewTag"); will(returnValue(true));
-                one(clearTool).lscurrentview("path"); will(returnValue("aViewTag"));
+                one(clearTool).getViewStatus("path", "aViewTag"); will(returnValue(new ViewStatus("aViewTag", true, true, "aViewTag", null, null)));
                 one(clearTool).rmview("path");
                 one(clearTool).mkview("path", "aViewTag", "stream@\\pvob");
             }
@@ -98,8 +97,7 @@ public class AbstractCheckoutActionTest extends AbstractWorkspaceTest {
         workspace.child("path").mkdirs();
         context.checking(new Expectations() {
             {
-                one(clearTool).doesViewExist("aViewTag"); will(returnValue(true));
-                one(clearTool).lscurrentview("path"); will(returnValue("anotherViewTag"));
+                one(clearTool).getViewStatus("path", "aViewTag"); will(returnValue(new ViewStatus("aViewTag", true, true, "anotherViewTag", null, null)));
                 one(clearTool).rmviewtag("aViewTag");
                 one(clearTool).mkview("path", "aViewTag", "stream@\\pvob");
             }
@@ -114,8 +112,7 @@ public class AbstractCheckoutActionTest extends AbstractWorkspaceTest {
         workspace.child("path").mkdirs();
         context.checking(new Expectations() {
             {
-                one(clearTool).doesViewExist("aViewTag"); will(returnValue(true));
-                one(clearTool).lscurrentview("path"); will(returnValue("anotherViewTag"));
+                one(clearTool).getViewStatus("path", "aViewTag"); will(returnValue(new ViewStatus("aViewTag", true, true, "anotherViewTag", null, null)));
                 one(clearTool).rmviewtag("aViewTag"); will(throwException(new IOException()));
                 one(clearTool).rmtag("aViewTag");
                 one(clearTool).mkview("path", "aViewTag", "stream@\\pvob");
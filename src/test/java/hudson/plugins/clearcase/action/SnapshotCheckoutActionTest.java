@@ -29,6 +29,7 @@ import hudson.Launcher;
 import hudson.model.BuildListener;
 import hudson.plugins.clearcase.AbstractWorkspaceTest;
 import hudson.plugins.clearcase.ClearTool;
+import hudson.plugins.clearcase.ViewStatus;
 import hudson.plugins.clearcase.ConfigSpec;
 import hudson.plugins.clearcase.ClearTool.SetcsOption;
 
@@ -75,7 +76,7 @@ public class SnapshotCheckoutActionTest extends AbstractWorkspaceTest {
     public void testFirstTimeNotOnUnix() throws Exception {
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(false));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", false, false, null, null, null)));
                     one(clearTool).mkview("viewpath", "viewname", null);
                     one(clearTool).setcs("viewpath", SetcsOption.CONFIGSPEC, "config\r\nspec\r\nload \\foo\r\n");
                     allowing(taskListener).getLogger(); will(returnValue(System.out));
@@ -96,7 +97,7 @@ public class SnapshotCheckoutActionTest extends AbstractWorkspaceTest {
     public void testFirstTimeOnUnix() throws Exception {
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(false));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", false, false, null, null, null)));
                     one(clearTool).mkview("viewpath", "viewname", null);
                     one(clearTool).setcs("viewpath", SetcsOption.CONFIGSPEC, "config\nspec\nload /foo\n");
                     allowing(taskListener).getLogger(); will(returnValue(System.out));
@@ -117,7 +118,7 @@ public class SnapshotCheckoutActionTest extends AbstractWorkspaceTest {
     public void testFirstTimeViewTagExists() throws Exception {
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, false, null, null, null)));
                     one(clearTool).rmviewtag("viewname");
                     one(clearTool).mkview("viewpath", "viewname", null);
                     one(clearTool).setcs("viewpath", SetcsOption.CONFIGSPEC, "config\nspec\nload /foo\n");
@@ -142,7 +143,7 @@ public class SnapshotCheckoutActionTest extends AbstractWorkspaceTest {
         
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(false));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", false, true, null, null, null)));
                     one(clearTool).mkview("viewpath", "viewname", null);
                     one(clearTool).setcs("viewpath", SetcsOption.CONFIGSPEC, "config\nspec\nload /foo\n");
                     allowing(taskListener).getLogger(); will(returnValue(System.out));
@@ -174,8 +175,7 @@ public class SnapshotCheckoutActionTest extends AbstractWorkspaceTest {
         workspace.child("viewpath").mkdirs();
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("otherviewtag"));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "otherviewtag", null, null)));
                     one(clearTool).rmviewtag("viewname");
                     one(clearTool).mkview("viewpath", "viewname", null);
                     one(clearTool).setcs("viewpath", SetcsOption.CONFIGSPEC, "config\nspec\nload /foo\n");
@@ -207,7 +207,7 @@ public class SnapshotCheckoutActionTest extends AbstractWorkspaceTest {
     public void testFirstTimeUsingUpdate() throws Exception {
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(false));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", false, false, null, null, null)));
                     one(clearTool).mkview("viewpath", "viewname", null);
                     one(clearTool).setcs("viewpath", SetcsOption.CONFIGSPEC, "configspec\nload /foo\n");
                     allowing(taskListener).getLogger(); will(returnValue(System.out));
@@ -230,8 +230,7 @@ public class SnapshotCheckoutActionTest extends AbstractWorkspaceTest {
 
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).catcs("viewname"); will(returnValue("configspec\nload /foo\n"));
                     one(clearTool).setcs("viewpath", SetcsOption.CURRENT, null);
                     allowing(taskListener).getLogger(); will(returnValue(System.out));
@@ -254,8 +253,7 @@ public class SnapshotCheckoutActionTest extends AbstractWorkspaceTest {
 
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).rmview("viewpath");
                     one(clearTool).mkview("viewpath", "viewname", null);
                     one(clearTool).setcs("viewpath", SetcsOption.CONFIGSPEC, "configspec\nload /foo\n");
@@ -278,8 +276,7 @@ public class SnapshotCheckoutActionTest extends AbstractWorkspaceTest {
 
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).catcs("viewname"); will(returnValue("other configspec"));
                     one(clearTool).setcs("viewpath", SetcsOption.CONFIGSPEC, "configspec\nload /foo\n");
                     one(clearTool).setcs("viewpath", SetcsOption.CURRENT, null);
@@ -303,8 +300,7 @@ public class SnapshotCheckoutActionTest extends AbstractWorkspaceTest {
 
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).catcs("viewname"); will(returnValue("configspec\nload /foo\n"));
                     one(clearTool).update("viewpath", new String[] {"/bar"});
                     one(clearTool).setcs("viewpath", SetcsOption.CURRENT, null);
@@ -328,8 +324,7 @@ public class SnapshotCheckoutActionTest extends AbstractWorkspaceTest {
 
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).catcs("viewname"); will(returnValue("configspec\nload /foo\nload /bar\n"));
                     one(clearTool).setcs("viewpath", SetcsOption.CONFIGSPEC, "configspec\nload /bar\n");
                     one(clearTool).setcs("viewpath", SetcsOption.CURRENT, null);
@@ -29,6 +29,7 @@ import hudson.Launcher;
 import hudson.model.BuildListener;
 import hudson.plugins.clearcase.AbstractWorkspaceTest;
 import hudson.plugins.clearcase.ClearTool;
+import hudson.plugins.clearcase.ViewStatus;
 import hudson.plugins.clearcase.ClearTool.SetcsOption;
 
 import java.util.List;
@@ -76,7 +77,7 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
     public void testFirstTime() throws Exception {
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(false));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", false, false, null, null, null)));
                     one(clearTool).mkview("viewpath", "viewname", "stream");
                     one(clearTool).update("viewpath", new String[] {"loadrule"});
                 }
@@ -94,7 +95,7 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
     public void testFirstTimeViewTagExists() throws Exception {
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, false, null, null, null)));
                     one(clearTool).rmviewtag("viewname");
                     one(clearTool).mkview("viewpath", "viewname", "stream");
                     one(clearTool).update("viewpath", new String[]{"loadrule"});
@@ -115,7 +116,7 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
         workspace.child("viewpath").mkdirs();
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(false));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", false, true, null, null, null)));
                     one(clearTool).mkview("viewpath", "viewname", "stream");
                     one(clearTool).update("viewpath", new String[]{"loadrule"});
                 }
@@ -145,8 +146,7 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
         workspace.child("viewpath").mkdirs();
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("otherviewtag"));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "otherviewtag", null, null)));
                     one(clearTool).rmviewtag("viewname");
                     one(clearTool).mkview("viewpath", "viewname", "stream");
                     one(clearTool).update("viewpath", new String[]{"loadrule"});
@@ -177,8 +177,7 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
         workspace.child("viewpath").mkdirs();
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).update("viewpath", null);
                     one(clearTool).update("viewpath", new String[]{"/loadrule"});
                     atLeast(1).of(clearTool).catcs("viewname"); will(returnValue("ucm configspec"));
@@ -202,9 +201,8 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
         workspace.child("viewpath").mkdirs();
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).catcs("viewname"); will(returnValue("load " + "/abc/"));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
                     one(clearTool).update("viewpath", null);
                     allowing(taskListener).getLogger(); will(returnValue(System.out));
                 }
@@ -225,9 +223,8 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
         workspace.child("viewpath").mkdirs();
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).catcs("viewname"); will(returnValue("load /abc/\nload /abcd"));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
                     one(clearTool).update("viewpath", null);
                     allowing(taskListener).getLogger(); will(returnValue(System.out));
                 }
@@ -250,8 +247,7 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
 
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).catcs("viewname"); will(returnValue("ucm configspec\nload /abc/\n"));
                     one(clearTool).update("viewpath", null);
                     one(clearTool).update("viewpath", new String[] {"/abcd"});
@@ -273,7 +269,7 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
     public void testMultipleLoadRules() throws Exception {
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(false));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", false, false, null, null, null)));
                     one(clearTool).mkview("viewpath", "viewname", "stream");
                     one(clearTool).update("viewpath", new String[] {"loadrule", "another\t loadrule"});
                 }
@@ -304,10 +300,9 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
 
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).catcs("viewname"); will(returnValue(catcsOutput));
                     one(clearTool).update("viewpath", null);
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
                     allowing(taskListener).getLogger(); will(returnValue(System.out));
                 }
             });
@@ -326,7 +321,7 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
     public void testMultipleWindowsLoadRules() throws Exception {
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(false));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", false, false, null, null, null)));
                     one(clearTool).mkview("viewpath", "viewname", "stream");
                     one(clearTool).update("viewpath", new String[] {"\\ \\Windows", "\\\\C:\\System32"});
                 }
@@ -346,7 +341,7 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
     public void testFirstTimeWithNoUpdate() throws Exception {
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(false));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", false, false, null, null, null)));
                     one(clearTool).mkview("viewpath", "viewname", "stream");
                     atLeast(1).of(clearTool).update("viewpath", new String[]{"loadrule"});
                 }
@@ -366,11 +361,10 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
 
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).rmview("viewpath");
                     one(clearTool).mkview("viewpath", "viewname", "stream");
                     atLeast(1).of(clearTool).update("viewpath", new String[]{"loadrule"});
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
                 }
             });
 
@@ -389,8 +383,7 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
         workspace.child("viewpath").mkdirs();
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).catcs("viewname"); will(returnValue("configspec\nload /foo\n"));
                     one(clearTool).update("viewpath", new String[] {"/bar"});
                     one(clearTool).update("viewpath", null);
@@ -414,8 +407,7 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
 
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).catcs("viewname"); will(returnValue("configspec\nload /foo\nload /bar\n"));
                     one(clearTool).setcs("viewpath", SetcsOption.CONFIGSPEC, "configspec\nload /bar\n");
                     one(clearTool).update("viewpath", null);
@@ -460,10 +452,9 @@ public class UcmSnapshotCheckoutActionTest extends AbstractWorkspaceTest {
 
         context.checking(new Expectations() {
                 {
-                    one(clearTool).doesViewExist("viewname"); will(returnValue(true));
+                    one(clearTool).getViewStatus("viewpath", "viewname"); will(returnValue(new ViewStatus("viewname", true, true, "viewname", null, null)));
                     one(clearTool).catcs("viewname"); will(returnValue(catcsOutput));
                     one(clearTool).update("viewpath", null);
-                    one(clearTool).lscurrentview("viewpath"); will(returnValue("viewname"));
                     allowing(taskListener).getLogger(); will(returnValue(System.out));
                 }
             });
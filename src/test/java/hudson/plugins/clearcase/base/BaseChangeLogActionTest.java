@@ -63,7 +63,7 @@ public class BaseChangeLogActionTest {
     public void assertFormatContainsComment() throws Exception {
         context.checking(new Expectations() {
                 {
-                    one(cleartool).lshistory(with(equal("\\\"%Nd\\\" \\\"%u\\\" \\\"%e\\\" \\\"%En\\\" \\\"%Vn\\\" \\\"%o\\\" \\n%c\\n")), 
+                    one(cleartool).lshistory(with(equal("\\036%Nd\\037%u\\037%e\\037%En\\037%Vn\\037%o\\n%c\\n")), 
                                              with(any(Date.class)), with(any(String.class)), with(any(String.class)), 
                                              with(any(String[].class)), with(any(boolean.class)));
                     will(returnValue(new StringReader("")));
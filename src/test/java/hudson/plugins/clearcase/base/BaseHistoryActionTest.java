@@ -26,6 +26,7 @@ package hudson.plugins.clearcase.base;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import hudson.EnvVars;
 import hudson.Launcher;
@@ -38,6 +39,7 @@ import hudson.plugins.clearcase.ClearCaseChangeLogEntry;
 import hudson.plugins.clearcase.ClearCaseSCM;
 import hudson.plugins.clearcase.ClearCaseSCMDummy;
 import hudson.plugins.clearcase.ClearTool;
+import hudson.plugins.clearcase.ClearToolCapabilities;
 import hudson.plugins.clearcase.ClearToolLauncher;
 import hudson.plugins.clearcase.ClearCaseChangeLogEntry.FileElement;
 import hudson.plugins.clearcase.history.DefaultFilter;
@@ -45,7 +47,13 @@ import hudson.plugins.clearcase.history.DestroySubBranchFilter;
 import hudson.plugins.clearcase.history.FileFilter;
 import hudson.plugins.clearcase.history.Filter;
 import hudson.plugins.clearcase.history.FilterChain;
+import hudson.plugins.clearcase.history.HistoryEntry;
+import hudson.plugins.clearcase.history.HistoryParser;
+import hudson.plugins.clearcase.history.HistoryProbe;
+import hudson.plugins.clearcase.history.HistoryScan;
 import hudson.plugins.clearcase.history.LabelFilter;
+import hudson.plugins.clearcase.history.PollCoordinator;
+import hudson.plugins.clearcase.history.PolledHistory;
 import hudson.plugins.clearcase.util.BuildVariableResolver;
 import hudson.util.LogTaskListener;
 import hudson.util.VariableResolver;
@@ -53,6 +61,7 @@ import hudson.util.VariableResolver;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
@@ -69,7 +78,8 @@ import org.jvnet.hudson.test.Bug;
 
 public class BaseHistoryActionTest {
 
-    private static final String VALID_HISTORY_FORMAT="\\\"%Nd\\\" \\\"%u\\\" \\\"%En\\\" \\\"%Vn\\\" \\\"%e\\\" \\\"%o\\\" \\n%c\\n";
+    private static final String VALID_HISTORY_FORMAT="\\036%Nd\\037%u\\037%En\\037%Vn\\037%e\\037%o\\n%c\\n";
+    private static final String COLLECTING_POLL_FORMAT="\\036%Nd\\037%u\\037%En\\037%Vn\\037%e\\037%o\\n";
     private Mockery context;
     private Mockery classContext;
     private AbstractProject project;
@@ -109,9 +119,9 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branchone")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branchone")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader("")));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branchtwo")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branchtwo")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader("\"20071015.151822\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\2\" \"create version\" \"mkelem\" ")));
                 }
             });
@@ -126,7 +136,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20071015.151822\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\1\" \"create version\"  \"mkelem\" "
                                                       + "\"20071015.151822\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\2\" \"create version\"  \"mkelem\" ")));
@@ -143,7 +153,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader("cleartool: Error: Not an object in a vob: \"view.dat\".\n")));
                 }
             });
@@ -152,12 +162,251 @@ public class BaseHistoryActionTest {
         assertFalse("The getChanges() method reported a change", hasChange);
     }
 
+    @Test
+    public void assertStopsAtFirstChange() throws Exception {
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branchone")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    will(returnValue(new StringReader("\"20071015.151822\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\0\" \"create version\" \"mkelem\" \n"
+                                                      + "\"20071015.151823\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\1\" \"create version\" \"mkelem\" \n"
+                                                      + "\"20071015.151824\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\2\" \"create version\" \"mkelem\" \n")));
+                    never(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branchtwo")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                }
+            });
+
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,new DefaultFilter(),0);
+        boolean hasChange = action.hasChanges(null, "view", "viewTag", new String[]{"branchone", "branchtwo"}, new String[]{"vobpath"});
+        assertTrue("The getChanges() method did not report a change", hasChange);
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void assertPollingFormatRequestsFilteredFields() throws Exception {
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    one(cleartool).lshistoryStreaming(with(equal("\\036%Nd\\037\\037\\037%Vn\\037%e\\037\\n")), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    will(returnValue(new StringReader("\03620071015.151822\037\037\037\\main\\sit_r6a\\2\037create version\037\n")));
+                }
+            });
+        List<Filter> filters = new ArrayList<Filter>();
+        filters.add(new DefaultFilter());
+        filters.add(new DestroySubBranchFilter());
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,new FilterChain(filters),0);
+        boolean hasChange = action.hasChanges(null, "view", "viewTag", new String[]{"branch"}, new String[]{"vobpath"});
+        assertTrue("The getChanges() method did not report a change", hasChange);
+    }
+
+    @Test
+    public void assertPollingFormatOfUnknownFilter() throws Exception {
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    one(cleartool).lshistoryStreaming(with(equal(VALID_HISTORY_FORMAT)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    will(returnValue(new StringReader("")));
+                }
+            });
+        Filter filter = new Filter() {
+            public boolean accept(HistoryEntry entry) {
+                return entry.getComment().length() > 0;
+            }
+            public boolean requiresMinorEvents() {
+                return false;
+            }
+        };
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,filter,0);
+        assertFalse(action.hasChanges(null, "view", "viewTag", new String[]{"branch"}, new String[]{"vobpath"}));
+    }
+
+    @Test
+    public void assertHighWaterMarksSkipSeenEvents() throws Exception {
+        final String output = "\"20071015.151822\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\0\" \"create version\" \"mkelem\" \n";
+        final Date buildTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.140000");
+        final Date eventTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.151822");
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(equal(buildTime)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    will(returnValue(new StringReader(output)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(equal(eventTime)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    will(returnValue(new StringReader(output)));
+                }
+            });
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,new DefaultFilter(),0);
+        assertFalse(action.hasChanges(buildTime, "view", "viewTag", new String[]{"branch"}, new String[]{"vobpath"}));
+        assertNotNull(action.getHighWaterMarks());
+
+        // the next polling starts from the latest event, which is not filtered again
+        BaseHistoryAction nextAction = new BaseHistoryAction(cleartool,false,null,0);
+        nextAction.setHighWaterMarks(action.getHighWaterMarks(), 0);
+        assertFalse(nextAction.hasChanges(buildTime, "view", "viewTag", new String[]{"branch"}, new String[]{"vobpath"}));
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void assertEmptyPollingsAdvanceSince() throws Exception {
+        final String output = "\"20071015.151822\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\0\" \"create version\" \"mkelem\" \n";
+        final Date buildTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.140000");
+        final Date firstPollTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.160000");
+        final Date secondPollTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.161000");
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(equal(buildTime)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    will(returnValue(new StringReader(output)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(equal(firstPollTime)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    will(returnValue(new StringReader("")));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(equal(secondPollTime)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    will(returnValue(new StringReader("")));
+                }
+            });
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,new DefaultFilter(),0);
+        assertFalse(action.hasChanges(buildTime, "view", "viewTag", new String[]{"branch"}, new String[]{"vobpath"}));
+
+        // no event since the mark, each polling lists from the time of the previous one
+        BaseHistoryAction firstPoll = new BaseHistoryAction(cleartool,false,new DefaultFilter(),0);
+        firstPoll.setHighWaterMarks(action.getHighWaterMarks(), 0);
+        assertFalse(firstPoll.hasChanges(firstPollTime, "view", "viewTag", new String[]{"branch"}, new String[]{"vobpath"}));
+        BaseHistoryAction secondPoll = new BaseHistoryAction(cleartool,false,new DefaultFilter(),0);
+        secondPoll.setHighWaterMarks(firstPoll.getHighWaterMarks(), 0);
+        assertFalse(secondPoll.hasChanges(secondPollTime, "view", "viewTag", new String[]{"branch"}, new String[]{"vobpath"}));
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void assertPollCoordinatorSharesHistory() throws Exception {
+        final String output = "\"20071015.151822\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\1\" \"create version\" \"checkin\" \n";
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(any(String.class))); will(returnValue(true));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    will(returnValue(new StringReader(output)));
+                }
+            });
+        PollCoordinator coordinator = new PollCoordinator(300000, 60000);
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,new DefaultFilter(),0);
+        action.setPollCoordinator(coordinator);
+        assertTrue(action.hasChanges(null, "view", "viewTag", new String[]{"branch"}, new String[]{"vobpath"}));
+
+        // the job polling the same branch and load rules in another view gets the history already listed
+        BaseHistoryAction otherAction = new BaseHistoryAction(cleartool,false,new DefaultFilter(),0);
+        otherAction.setPollCoordinator(coordinator);
+        assertTrue(otherAction.hasChanges(null, "otherView", "otherViewTag", new String[]{"branch"}, new String[]{"vobpath"}));
+        assertEquals(1, coordinator.getSharedListings());
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void assertProbeWithoutNewEventSkipsScan() throws Exception {
+        final Date buildTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.140000");
+        final Date latestEvent = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.120000");
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    one(cleartool).lshistoryLatest(with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobs/proj"})), with(equal(false)));
+                    will(returnValue(latestEvent));
+                }
+            });
+        HistoryProbe probe = new HistoryProbe();
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,new DefaultFilter(),0);
+        action.setHistoryProbe(probe);
+        assertFalse(action.hasChanges(buildTime, "view", "viewTag", new String[]{"branch"}, new String[]{"vobs/proj/a", "vobs/proj/b"}));
+        assertNotNull(action.getHighWaterMarks());
+        assertEquals(1, probe.getProbes());
+        assertEquals(0, probe.getFullQueries());
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void assertProbeWithNewEventScansLoadRules() throws Exception {
+        final String output = "\"20071015.151822\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\1\" \"create version\" \"checkin\" \n";
+        final Date buildTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.140000");
+        final Date latestEvent = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.151822");
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    one(cleartool).lshistoryLatest(with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobs/proj"})), with(equal(false)));
+                    will(returnValue(latestEvent));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(equal(buildTime)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobs/proj/a", "vobs/proj/b"})), with(equal(false)));
+                    will(returnValue(new StringReader(output)));
+                }
+            });
+        HistoryProbe probe = new HistoryProbe();
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,new DefaultFilter(),0);
+        action.setHistoryProbe(probe);
+        // the latest event is more recent than the build, the load rules are scanned
+        assertTrue(action.hasChanges(buildTime, "view", "viewTag", new String[]{"branch"}, new String[]{"vobs/proj/a", "vobs/proj/b"}));
+        assertEquals(1, probe.getPositiveProbes());
+        assertEquals(1, probe.getFullQueries());
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void assertFailedProbeScansLoadRules() throws Exception {
+        final Date buildTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.140000");
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    one(cleartool).lshistoryLatest(with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobs/proj"})), with(equal(false)));
+                    will(throwException(new IOException("cleartool: Error: Branch type not found: \"branch\".")));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(equal(buildTime)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobs/proj/a"})), with(equal(false)));
+                    will(returnValue(new StringReader("")));
+                }
+            });
+        HistoryProbe probe = new HistoryProbe();
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,new DefaultFilter(),0);
+        action.setHistoryProbe(probe);
+        assertFalse(action.hasChanges(buildTime, "view", "viewTag", new String[]{"branch"}, new String[]{"vobs/proj/a"}));
+        assertEquals(1, probe.getPositiveProbes());
+        assertEquals(1, probe.getFullQueries());
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void assertNoProbeWithPollBuffer() throws Exception {
+        final Date buildTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.140000");
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(equal(buildTime)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobs/proj/a"})), with(equal(false)));
+                    will(returnValue(new StringReader("")));
+                }
+            });
+        HistoryProbe probe = new HistoryProbe();
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,new DefaultFilter(),0);
+        action.setHistoryProbe(probe);
+        // events replicated late are not the latest ones of their VOB
+        action.setHighWaterMarks(null, 60000);
+        assertFalse(action.hasChanges(buildTime, "view", "viewTag", new String[]{"branch"}, new String[]{"vobs/proj/a"}));
+        assertEquals(0, probe.getProbes());
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void assertQueryOnNode() throws Exception {
+        final DefaultFilter filter = new DefaultFilter();
+        final HistoryScan scan = new HistoryScan(null, null, 0);
+        scan.setFirstChange(new HistoryEntry());
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    one(cleartool).lshistoryFirst(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)), with(aNonNull(HistoryParser.class)), with(same(filter)), with(aNonNull(HistoryScan.class)));
+                    will(returnValue(scan));
+                }
+            });
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,filter,0);
+        action.setQueryOnNode(true);
+        boolean hasChange = action.hasChanges(null, "view", "viewTag", new String[]{"branch"}, new String[]{"vobpath"});
+        assertTrue("The getChanges() method did not report a change", hasChange);
+    }
+
     @Test
     public void assertIgnoringVersionZero() throws Exception {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader("\"20071015.151822\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\0\" \"create version\"  \"mkelem\" ")));
                 }
             });
@@ -171,7 +420,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20080326.110739\" \"user\" \"vobs/gtx2/core/src/foo/bar/MyFile.java\" \"/main/feature_1.23\" \"destroy sub-branch \"esmalling_branch\" of branch\" \"rmbranch\"")));
                 }
@@ -186,7 +435,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20080326.110739\" \"user\" \"vobs/gtx2/core/src/foo/bar/MyFile.java\" \"/main/feature_1.23\" \"destroy sub-branch \"esmalling_branch\" of branch\" \"rmbranch\"")));
                 }
@@ -204,7 +453,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    ignoring(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    ignoring(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(reader));
                 }
             });
@@ -225,7 +474,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(equal(VALID_HISTORY_FORMAT)),
+                    one(cleartool).lshistoryStreaming(with(equal(VALID_HISTORY_FORMAT)),
                                              with(any(Date.class)), with(any(String.class)), with(any(String.class)), 
                                              with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader("")));
@@ -241,7 +490,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(equal(VALID_HISTORY_FORMAT)),
+                    one(cleartool).lshistoryStreaming(with(equal(VALID_HISTORY_FORMAT)),
                                              with(any(Date.class)), with(any(String.class)), with(any(String.class)), 
                                              with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
@@ -253,12 +502,98 @@ public class BaseHistoryActionTest {
         assertEquals("The event record should be ignored", 0, changes.size());        
     }
 
+    @Test
+    public void assertPolledHistoryIsReused() throws Exception {
+        final Date buildTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.140000");
+        final Date pollTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.160000");
+        final String polled = "\"20071015.151822\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\1\" \"create version\"  \"mkelem\" \n";
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    allowing(cleartool).getCapabilities(); will(returnValue(ClearToolCapabilities.CONSERVATIVE));
+                    // the polling lists the history without the comments, which are described for the changes only
+                    one(cleartool).lshistoryStreaming(with(equal(COLLECTING_POLL_FORMAT)), with(equal(buildTime)), with(equal("viewPath")), with(equal("branch")),
+                                             with(equal(new String[]{"vobs/projects/Server"})), with(equal(false)));
+                    will(returnValue(new StringReader(polled)));
+                    one(cleartool).describe(with(equal("\\036%c\\n")), with(equal("Customer\\DataSet.xsd@@\\main\\sit_r6a\\1")));
+                    will(returnValue(new StringReader("\036first line\nsecond line\n")));
+                    one(cleartool).lshistoryStreaming(with(equal(VALID_HISTORY_FORMAT)), with(equal(pollTime)), with(equal("viewPath")), with(equal("branch")),
+                                             with(equal(new String[]{"vobs/projects/Server"})), with(equal(false)));
+                    will(returnValue(new StringReader("\"20071015.161822\" \"other\" \"Customer\\Other.xsd\" \"\\main\\sit_r6a\\3\" \"create version\"  \"mkelem\" \n"
+                                                      + polled)));
+                }
+            });
+        BaseHistoryAction pollAction = new BaseHistoryAction(cleartool,false,new DefaultFilter(), 1000);
+        pollAction.setCollectChanges(true);
+        assertTrue(pollAction.hasChanges(buildTime, "viewPath", "viewTag", new String[]{"branch"}, new String[]{"vobs/projects/Server"}));
+        PolledHistory history = pollAction.collectChanges(buildTime, pollTime, "viewPath", new String[]{"branch"}, new String[]{"vobs/projects/Server"});
+        assertEquals(1, history.getEntries().size());
+        assertEquals("first line\nsecond line\n", history.getEntries().get(0).getComment());
+
+        // the build only lists the history since the polling, the events listed twice being kept once
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,new DefaultFilter(), 1000);
+        action.setPolledHistory(history);
+        List<ClearCaseChangeLogEntry> changes = (List<ClearCaseChangeLogEntry>) action.getChanges(buildTime, "viewPath", "viewTag", new String[]{"branch"}, new String[]{"vobs/projects/Server"});
+        assertEquals(2, changes.size());
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void assertPolledHistoryOfOtherQueryIsIgnored() throws Exception {
+        final Date buildTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.140000");
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    one(cleartool).lshistoryStreaming(with(equal(VALID_HISTORY_FORMAT)), with(equal(buildTime)), with(equal("viewPath")), with(equal("branch")),
+                                             with(equal(new String[]{"vobs/projects/Server"})), with(equal(false)));
+                    will(returnValue(new StringReader("")));
+                }
+            });
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,new DefaultFilter(), 1000);
+        action.setPolledHistory(new PolledHistory(buildTime, new Date(), "otherView", new ArrayList<HistoryEntry>()));
+        action.getChanges(buildTime, "viewPath", "viewTag", new String[]{"branch"}, new String[]{"vobs/projects/Server"});
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void assertPolledHistoryOfOtherFiltersIsIgnored() throws Exception {
+        final Date buildTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.140000");
+        final Date pollTime = new SimpleDateFormat("yyyyMMdd.HHmmss").parse("20071015.160000");
+        context.checking(new Expectations() {
+                {
+                    allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
+                    allowing(cleartool).getCapabilities(); will(returnValue(ClearToolCapabilities.CONSERVATIVE));
+                    one(cleartool).lshistoryStreaming(with(equal(COLLECTING_POLL_FORMAT)), with(equal(buildTime)), with(equal("viewPath")), with(equal("branch")),
+                                             with(equal(new String[]{"vobs/projects/Server"})), with(equal(false)));
+                    will(returnValue(new StringReader("\"20071015.151822\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\1\" \"create version\"  \"mkelem\" \n")));
+                    one(cleartool).describe(with(equal("\\036%c\\n")), with(any(String.class)));
+                    will(returnValue(new StringReader("\036comment\n")));
+                    one(cleartool).lshistoryStreaming(with(equal(VALID_HISTORY_FORMAT)), with(equal(buildTime)), with(equal("viewPath")), with(equal("branch")),
+                                             with(equal(new String[]{"vobs/projects/Server"})), with(equal(false)));
+                    will(returnValue(new StringReader("")));
+                }
+            });
+        BaseHistoryAction pollAction = new BaseHistoryAction(cleartool,false,new DefaultFilter(), 1000);
+        pollAction.setCollectChanges(true);
+        assertTrue(pollAction.hasChanges(buildTime, "viewPath", "viewTag", new String[]{"branch"}, new String[]{"vobs/projects/Server"}));
+        PolledHistory history = pollAction.collectChanges(buildTime, pollTime, "viewPath", new String[]{"branch"}, new String[]{"vobs/projects/Server"});
+
+        // the excluded regions changed since the polling, the build lists its whole history
+        List<Filter> filters = new ArrayList<Filter>();
+        filters.add(new DefaultFilter());
+        filters.add(new FileFilter(FileFilter.Type.DoesNotContainRegxp, "Customer"));
+        BaseHistoryAction action = new BaseHistoryAction(cleartool,false,new FilterChain(filters), 1000);
+        action.setPolledHistory(history);
+        action.getChanges(buildTime, "viewPath", "viewTag", new String[]{"branch"}, new String[]{"vobs/projects/Server"});
+        context.assertIsSatisfied();
+    }
+
     @Test
     public void assertExcludedRegionsAreIgnored() throws Exception {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(equal(VALID_HISTORY_FORMAT)),
+                    one(cleartool).lshistoryStreaming(with(equal(VALID_HISTORY_FORMAT)),
                                              with(any(Date.class)), with(any(String.class)), with(any(String.class)), 
                                              with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
@@ -280,7 +615,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(equal(VALID_HISTORY_FORMAT)),
+                    one(cleartool).lshistoryStreaming(with(equal(VALID_HISTORY_FORMAT)),
                                              with(any(Date.class)), with(any(String.class)), with(any(String.class)), 
                                              with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
@@ -300,7 +635,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(equal(VALID_HISTORY_FORMAT)),
+                    one(cleartool).lshistoryStreaming(with(equal(VALID_HISTORY_FORMAT)),
                                              with(any(Date.class)),
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(reader));
@@ -317,7 +652,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(equal(VALID_HISTORY_FORMAT)),
+                    one(cleartool).lshistoryStreaming(with(equal(VALID_HISTORY_FORMAT)),
                                              with(any(Date.class)),
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
@@ -340,7 +675,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(equal(VALID_HISTORY_FORMAT)),
+                    one(cleartool).lshistoryStreaming(with(equal(VALID_HISTORY_FORMAT)),
                                              with(any(Date.class)),
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
@@ -358,7 +693,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20070830.084801\"   \"inttest3\"  \"Source\\Definitions\\Definitions.csproj\" \"\\main\\sit_r5_maint\\1\" \"create version\"   \"mkelem\"\n\n"
@@ -379,7 +714,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new InputStreamReader(
                                                            AbstractClearCaseScm.class.getResourceAsStream( "ct-lshistory-1.log"))));
@@ -396,7 +731,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20070906.091701\"   \"egsperi\" \"\\Source\\ApplicationConfiguration\" \"\\main\\sit_r6a\\1\"  \"create directory version\"  \"mkelem\"\n")));
@@ -415,7 +750,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20070827.084801\" \"inttest14\" \"Source\\Definitions\\Definitions.csproj\" \"\\main\\sit_r5_maint\\1\" \"create version\" \"mkelem\"\n\n")));
@@ -441,7 +776,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20070906.091701\"   \"egsperi\" \"\\Source\\ApplicationConfiguration\" \"\\main\\sit_r6a\\1\" \"create directory version\" \"mkelem\"\n")));
@@ -460,7 +795,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20070906.091701\"   \"egsperi\" \"\\Source\\ApplicationConfiguration\" \"\\main\\sit_r6a\\1\" \"create directory version\"   \"mkelem\"\ntext\n\nend of comment")));
@@ -480,7 +815,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20070827.085901\"   \"aname\"   \"Source\\Operator\\FormMain.cs\" \"\\main\\sit_r5_maint\\2\" \"create version\"   \"mkelem\"\nBUG8949")));
@@ -505,7 +840,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20070827.085901\"   \"aname\" \"Source\\Operator\\FormMain.cs\" \"\\main\\sit_r5_maint\\2\"   \"create version\"   \"mkelem\"\nBUG8949\nThis fixed the problem")));
@@ -530,7 +865,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20070827.085901\"   \"aname\" \"Source\\Operator\\FormMain.cs\" \"\\main\\sit_r5_maint\\2\" \"create a version\"  \"mkelem\"\n")));
@@ -549,7 +884,7 @@ public class BaseHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                              with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20070827.085901\" \"user\" \"/view/ralef_0.2_nightly/vobs/Tools/framework/util/QT.h\" \"/main/comain\" \"action\"   \"mkelem\"\n")));
@@ -601,7 +936,7 @@ public class BaseHistoryActionTest {
                     will(returnValue(launcher));
                     allowing(cleartool).pwv(with(any(String.class)));
                     will(returnValue("Y:\\Hudson.SAP.ICI.7.6.Quick"));
-                    allowing(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    allowing(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                                   with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20090909.151109\" \"nugarov\" " +
@@ -659,7 +994,7 @@ public class BaseHistoryActionTest {
                     will(returnValue(launcher));
                     allowing(cleartool).pwv(with(any(String.class)));
                     will(returnValue("D:\\hudson\\jobs\\refact_structure__SOT\\workspace\\sa-seso-tempusr4__refact_structure__sot"));
-                    allowing(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    allowing(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                                   with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20090909.124752\" \"erustt\" " +
@@ -730,7 +1065,7 @@ public class BaseHistoryActionTest {
                     will(returnValue(launcher));
                     allowing(cleartool).pwv(with(any(String.class)));
                     will(returnValue("D:\\hudson\\jobs\\somejob\\workspace\\someview"));
-                    allowing(cleartool).lshistory(with(any(String.class)), with(any(Date.class)), 
+                    allowing(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)), 
                                                   with(any(String.class)), with(any(String.class)), with(any(String[].class)), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20090909.124752\" \"erustt\" " +
@@ -776,7 +1111,7 @@ public class BaseHistoryActionTest {
             {
                 allowing(cleartool).doesViewExist(with(equal("viewTag")));
                 will(returnValue(true));
-                exactly(2).of(cleartool).lshistory(with(any(String.class)),
+                exactly(2).of(cleartool).lshistoryStreaming(with(any(String.class)),
                         with(any(Date.class)), with(any(String.class)),
                         with(any(String.class)), with(any(String[].class)),
                         with(equal(true)));
@@ -809,7 +1144,7 @@ public class BaseHistoryActionTest {
             {
                 allowing(cleartool).doesViewExist(with(equal("viewTag")));
                 will(returnValue(true));
-                exactly(2).of(cleartool).lshistory(with(any(String.class)),
+                exactly(2).of(cleartool).lshistoryStreaming(with(any(String.class)),
                         with(any(Date.class)), with(any(String.class)),
                         with(any(String.class)), with(any(String[].class)),
                         with(equal(true)));
@@ -862,7 +1197,7 @@ public class BaseHistoryActionTest {
                     will(returnValue(launcher));
                     allowing(cleartool).pwv(with(any(String.class)));
                     will(returnValue("D:\\hudson\\jobs\\somejob\\workspace\\someview"));
-                    allowing(cleartool).lshistory(with(any(String.class)), with(any(Date.class)),
+                    allowing(cleartool).lshistoryStreaming(with(any(String.class)), with(any(Date.class)),
                                                   with(any(String.class)), with(any(String.class)), 
                                                   with(any(String[].class)), with(equal(true)));
                     will(returnValue(new InputStreamReader(
@@ -0,0 +1,68 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.history;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class HistoryProbeTest {
+
+    @Test
+    public void testVobRoot() {
+        assertEquals("vobs/proj", HistoryProbe.getVobRoot("vobs/proj/src/main"));
+        assertEquals("/vobs/proj", HistoryProbe.getVobRoot("/vobs/proj/src"));
+        assertEquals("vobs/proj", HistoryProbe.getVobRoot("vobs/proj"));
+        assertEquals("\\proj", HistoryProbe.getVobRoot("\\proj\\src"));
+        assertEquals("proj", HistoryProbe.getVobRoot("proj/src"));
+        assertEquals("proj", HistoryProbe.getVobRoot("proj"));
+    }
+
+    @Test
+    public void testVobRootsAreListedOnce() {
+        String[] roots = HistoryProbe.getVobRoots(new String[] { "vobs/proj/a", "vobs/other/b", "vobs/proj/c" });
+        assertEquals(Arrays.asList("vobs/proj", "vobs/other"), Arrays.asList(roots));
+        assertNull(HistoryProbe.getVobRoots(null));
+    }
+
+    @Test
+    public void testFullQueryRate() {
+        HistoryProbe probe = new HistoryProbe();
+        assertEquals(0, probe.getFullQueryRate());
+        probe.recordProbe(false, 10);
+        probe.recordProbe(false, 10);
+        probe.recordProbe(false, 10);
+        probe.recordProbe(true, 20);
+        probe.recordFullQuery(true, 100);
+
+        assertEquals(4, probe.getProbes());
+        assertEquals(50, probe.getProbeMillis());
+        assertEquals(25, probe.getFullQueryRate());
+        assertEquals(1, probe.getChanges());
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.history;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import hudson.plugins.clearcase.util.ClearToolFormatHandler;
+import hudson.plugins.clearcase.util.FormattedLine;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+public class HistoryQueryTest {
+
+    private static final String OUTPUT = "\"20071015.151822\" \"user\" \"/view/vobs/proj/a.c\" \"/main/1\" \"create version\" \"checkin\" \n"
+            + "first line\n"
+            + "second line\n"
+            + "cleartool: Error: Not a vob object: \"/view/vobs/proj/gone\".\n"
+            + "\"20071015.151823\" \"user\" \"/view/vobs/proj/a.c\" \"/main/0\" \"create version\" \"checkin\" \n"
+            + "\"20071015.151824\" \"user\" \"/view/vobs/proj/b.c\" \"/main/3\" \"create version\" \"checkin\" \n";
+
+    @Test
+    public void testParseAndFilter() throws Exception {
+        HistoryQuery query = new HistoryQuery(new TestParser("/view/"), new DefaultFilter());
+        List<HistoryEntry> entries = query.process(new BufferedReader(new StringReader(OUTPUT)));
+
+        assertEquals(2, entries.size());
+        assertEquals("vobs/proj/a.c", entries.get(0).getElement());
+        assertEquals("first line\nsecond line", entries.get(0).getComment());
+        assertEquals("vobs/proj/b.c", entries.get(1).getElement());
+    }
+
+    @Test
+    public void testWithoutFilter() throws Exception {
+        HistoryQuery query = new HistoryQuery(new TestParser(null), null);
+        List<HistoryEntry> entries = query.process(new BufferedReader(new StringReader(OUTPUT)));
+
+        assertEquals(3, entries.size());
+        assertEquals("/view/vobs/proj/a.c", entries.get(0).getElement());
+    }
+
+    @Test
+    public void testSerializable() throws Exception {
+        List<Filter> filters = new ArrayList<Filter>();
+        filters.add(new DefaultFilter());
+        filters.add(new FileFilter(FieldFilter.Type.DoesNotContainRegxp, "b\\.c$"));
+        filters.add(new DestroySubBranchFilter());
+        HistoryQuery query = copy(new HistoryQuery(new TestParser("/view/"), new FilterChain(filters)));
+
+        List<HistoryEntry> entries = copy(query.process(new BufferedReader(new StringReader(OUTPUT))));
+        assertEquals(1, entries.size());
+        assertEquals("vobs/proj/a.c", entries.get(0).getElement());
+        assertTrue(entries.get(0).getComment().startsWith("first line"));
+    }
+
+    @Test
+    public void testFirstChangeStopsReading() throws Exception {
+        BufferedReader output = new BufferedReader(new StringReader(OUTPUT));
+        HistoryEntry entry = new FirstChangeQuery(new TestParser("/view/"), new DefaultFilter(), new HistoryScan(null, null, 0)).process(output).getFirstChange();
+
+        assertEquals("vobs/proj/a.c", entry.getElement());
+        assertEquals("first line\nsecond line", entry.getComment());
+        // the entry is complete as soon as the next event starts, the last one is left unread
+        assertTrue(output.readLine().contains("/view/vobs/proj/b.c"));
+    }
+
+    @Test
+    public void testFirstChangeSkipsRejectedEntries() throws Exception {
+        Filter filter = new FileFilter(FieldFilter.Type.DoesNotContainRegxp, "a\\.c$");
+        HistoryEntry entry = new FirstChangeQuery(new TestParser("/view/"), filter, new HistoryScan(null, null, 0)).process(new BufferedReader(new StringReader(OUTPUT)))
+                .getFirstChange();
+
+        assertEquals("vobs/proj/b.c", entry.getElement());
+    }
+
+    @Test
+    public void testNoFirstChange() throws Exception {
+        Filter filter = new FileFilter(FieldFilter.Type.DoesNotContainRegxp, "\\.c$");
+        HistoryScan scan = new FirstChangeQuery(new TestParser("/view/"), filter, new HistoryScan(null, null, 0)).process(new BufferedReader(new StringReader(OUTPUT)));
+        assertNull(scan.getFirstChange());
+    }
+
+    @Test
+    public void testScanMark() throws Exception {
+        Filter filter = new FileFilter(FieldFilter.Type.DoesNotContainRegxp, "\\.c$");
+        HistoryScan scan = new FirstChangeQuery(new TestParser("/view/"), filter, new HistoryScan(null, date("20071015.150000"), 0))
+                .process(new BufferedReader(new StringReader(OUTPUT)));
+
+        assertNull(scan.getFirstChange());
+        HighWaterMark mark = scan.getMark();
+        assertEquals(date("20071015.150000").getTime(), mark.getStart());
+        assertEquals(date("20071015.151824").getTime(), mark.getTime());
+        // without poll buffer, only the events of the latest second are listed again
+        assertEquals(1, mark.getSeen().size());
+    }
+
+    @Test
+    public void testScanSkipsSeenEvents() throws Exception {
+        Filter filter = new FileFilter(FieldFilter.Type.DoesNotContainRegxp, "\\.c$");
+        HistoryScan scan = new FirstChangeQuery(new TestParser("/view/"), filter, new HistoryScan(null, date("20071015.150000"), 60000))
+                .process(new BufferedReader(new StringReader(OUTPUT)));
+        HighWaterMark mark = copy(scan.getMark());
+        assertEquals(3, mark.getSeen().size());
+
+        // the history is listed again from the poll buffer before the mark
+        scan = new HistoryScan(mark, date("20071015.150000"), 60000);
+        assertEquals(date("20071015.151724"), scan.getSince());
+        scan = new FirstChangeQuery(new TestParser("/view/"), null, scan).process(new BufferedReader(new StringReader(OUTPUT)));
+        assertNull(scan.getFirstChange());
+        assertEquals(3, scan.getSkipped());
+
+        scan = new FirstChangeQuery(new TestParser("/view/"), null, new HistoryScan(mark, null, 60000)).process(
+                new BufferedReader(new StringReader("\"20071015.151900\" \"user\" \"/view/vobs/proj/c.c\" \"/main/1\" \"create version\" \"checkin\" \n" + OUTPUT)));
+        assertEquals("vobs/proj/c.c", scan.getFirstChange().getElement());
+    }
+
+    @Test
+    public void testPartialScanKeepsMark() throws Exception {
+        HighWaterMark mark = new HighWaterMark(0, date("20071015.151800").getTime(), new HashMap<Long, Long>());
+        HistoryScan scan = new FirstChangeQuery(new TestParser("/view/"), new DefaultFilter(), new HistoryScan(mark, null, 0))
+                .process(new BufferedReader(new StringReader(OUTPUT)));
+
+        assertEquals("vobs/proj/a.c", scan.getFirstChange().getElement());
+        assertTrue(scan.isPartial());
+        assertEquals(mark, scan.getMark());
+        assertFalse(mark.isSeen(HighWaterMark.fingerprint(OUTPUT.substring(0, OUTPUT.indexOf('\n')))));
+    }
+
+    private static Date date(String text) throws ParseException {
+        return new SimpleDateFormat("yyyyMMdd.HHmmss").parse(text);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+        return (T) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    }
+
+    private static class TestParser extends HistoryParser {
+        private static final long serialVersionUID = 1L;
+
+        TestParser(String extendedViewPath) {
+            super(new ClearToolFormatHandler("%Nd", "%u", "%En", "%Vn", "%e", "%o"), extendedViewPath);
+        }
+
+        @Override
+        protected HistoryEntry parseEventLine(FormattedLine line) throws ParseException {
+            HistoryEntry entry = new HistoryEntry();
+            entry.setLine(line.getLine());
+            entry.setDateText(line.getField(1));
+            entry.setUser(line.getTrimmedField(2));
+            entry.setElement(line.getTrimmedField(3));
+            entry.setVersionId(line.getTrimmedField(4));
+            entry.setEvent(line.getTrimmedField(5));
+            entry.setOperation(line.getTrimmedField(6));
+            return entry;
+        }
+    }
+}
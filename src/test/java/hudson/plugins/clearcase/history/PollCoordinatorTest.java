@@ -0,0 +1,128 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.history;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PollCoordinatorTest {
+
+    private static final long WINDOW = 300000;
+
+    @Test
+    public void testSubscriptionsOfAGroupShareTheListing() throws Exception {
+        PollCoordinator coordinator = new PollCoordinator(WINDOW, 60000);
+        CountingListing listing = new CountingListing(entry("20071015.151500"), entry("20071015.150600"));
+
+        List<HistoryEntry> first = coordinator.subscribe("branch", date("20071015.150500"), listing);
+        List<HistoryEntry> second = coordinator.subscribe("branch", date("20071015.150800"), listing);
+
+        assertEquals(1, listing.count);
+        assertEquals(date("20071015.150500"), listing.since);
+        assertEquals(2, first.size());
+        // the entries before the time of the subscription are dropped
+        assertEquals(Arrays.asList(entry("20071015.151500")), second);
+        assertEquals(1, coordinator.getListings());
+        assertEquals(1, coordinator.getSharedListings());
+    }
+
+    @Test
+    public void testOtherGroupsListAgain() throws Exception {
+        PollCoordinator coordinator = new PollCoordinator(WINDOW, 60000);
+        CountingListing listing = new CountingListing(entry("20071015.151500"));
+
+        coordinator.subscribe("branch", date("20071015.150500"), listing);
+        coordinator.subscribe("other", date("20071015.150500"), listing);
+        coordinator.subscribe("branch", date("20071015.145700"), listing);
+
+        assertEquals(3, listing.count);
+        assertEquals(date("20071015.145500"), listing.since);
+    }
+
+    @Test
+    public void testExpiredListingIsNotReused() throws Exception {
+        PollCoordinator coordinator = new PollCoordinator(WINDOW, 0);
+        CountingListing listing = new CountingListing(entry("20071015.151500"));
+
+        coordinator.subscribe("branch", date("20071015.150500"), listing);
+        coordinator.subscribe("branch", date("20071015.150500"), listing);
+
+        assertEquals(2, listing.count);
+    }
+
+    @Test
+    public void testFailedListingIsNotShared() throws Exception {
+        PollCoordinator coordinator = new PollCoordinator(WINDOW, 60000);
+        try {
+            coordinator.subscribe("branch", null, new PollCoordinator.Listing() {
+                public List<HistoryEntry> list(Date since) throws IOException {
+                    throw new IOException("cleartool failed");
+                }
+            });
+            fail("The failure of the listing was not reported");
+        } catch (IOException e) {
+            // expected
+        }
+        CountingListing listing = new CountingListing(entry("20071015.151500"));
+        assertEquals(1, coordinator.subscribe("branch", null, listing).size());
+        assertEquals(1, listing.count);
+    }
+
+    private static Date date(String text) throws Exception {
+        return new SimpleDateFormat("yyyyMMdd.HHmmss").parse(text);
+    }
+
+    private static HistoryEntry entry(String dateText) throws Exception {
+        HistoryEntry entry = new HistoryEntry();
+        entry.setDateText(dateText);
+        entry.setLine(dateText);
+        return entry;
+    }
+
+    private static class CountingListing implements PollCoordinator.Listing {
+        private final List<HistoryEntry> entries;
+        private int count;
+        private Date since;
+
+        CountingListing(HistoryEntry... entries) {
+            this.entries = Arrays.asList(entries);
+        }
+
+        public List<HistoryEntry> list(Date since) {
+            count++;
+            this.since = since;
+            return new ArrayList<HistoryEntry>(entries);
+        }
+    }
+}
@@ -58,7 +58,7 @@ public class UcmChangeLogActionTest {
     public void assertFormatContainsComment() throws Exception {
         context.checking(new Expectations() {
                 {
-                    one(cleartool).lshistory(with(equal("\\\"%Nd\\\" \\\"%En\\\" \\\"%Vn\\\" \\\"%[activity]p\\\" \\\"%e\\\" \\\"%o\\\" \\\"%u\\\" \\n%c\\n")),
+                    one(cleartool).lshistory(with(equal("\\036%Nd\\037%En\\037%Vn\\037%[activity]p\\037%e\\037%o\\037%u\\n%c\\n")),
                                              with(any(Date.class)), with(any(String.class)), with(any(String.class)), 
                                              with(any(String[].class)), with(any(boolean.class)));
                     will(returnValue(new StringReader("")));
@@ -91,9 +91,9 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branchone")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branchone")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader("")));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branchtwo")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branchtwo")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader("\"20071015.151822\" \"user\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\2\" \"create version\" \"mkelem\" \"activity\" ")));
                 }
             });
@@ -108,7 +108,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20071015.151822\" \"username\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\1\" \"create version\"  \"mkelem\" \"activity\" "
                                                       + "\"20071015.151822\" \"username\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\2\" \"create version\"  \"mkelem\" \"activity\" ")));
@@ -126,7 +126,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader("cleartool: Error: Not an object in a vob: \"view.dat\".\n")));
                 }
             });
@@ -140,7 +140,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader("\"20071015.151822\" \"username\" \"Customer\\DataSet.xsd\" \"\\main\\sit_r6a\\0\" \"create version\"  \"mkelem\" \"activity\" ")));
                 }
             });
@@ -154,7 +154,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20080326.110739\" \"username\" \"vobs/gtx2/core/src/foo/bar/MyFile.java\" \"/main/feature_1.23\" \"destroy sub-branch \"esmalling_branch\" of branch\" \"rmbranch\" \"activity\" ")));
                 }
@@ -169,7 +169,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20080326.110739\" \"username\" \"vobs/gtx2/core/src/foo/bar/MyFile.java\" \"/main/feature_1.23\" \"destroy sub-branch \"esmalling_branch\" of branch\" \"rmbranch\" \"activity\" ")));
                 }
@@ -187,7 +187,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    ignoring(cleartool).lshistory(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
+                    ignoring(cleartool).lshistoryStreaming(with(aNonNull(String.class)), with(aNull(Date.class)), with(equal("view")), with(equal("branch")), with(equal(new String[]{"vobpath"})), with(equal(false)));
                     will(returnValue(reader));
                 }
             });
@@ -207,7 +207,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(equal("\\\"%Nd\\\" \\\"%u\\\" \\\"%En\\\" \\\"%Vn\\\" \\\"%e\\\" \\\"%o\\\" \\\"%[activity]p\\\" \\n%c\\n")),
+                    one(cleartool).lshistoryStreaming(with(equal("\\036%Nd\\037%u\\037%En\\037%Vn\\037%e\\037%o\\037%[activity]p\\n%c\\n")),
                                              with(any(Date.class)), with(any(String.class)), with(any(String.class)), 
                                              with(any(String[].class)), with(any(boolean.class)));
                     will(returnValue(new StringReader("")));
@@ -227,7 +227,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(aNull(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(aNull(Date.class)), 
                                              with(equal("IGNORED")), with(equal("Release_2_1_int")), with(equal(new String[]{"vobs/projects/Server"})), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20080509.140451\" " +
@@ -249,7 +249,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(aNull(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(aNull(Date.class)), 
                                              with(equal("IGNORED")), with(equal("Release_2_1_int")), with(equal(new String[]{"vobs/projects/Server"})), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20080509.140451\" " +
@@ -298,7 +298,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(aNull(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(aNull(Date.class)), 
                                              with(equal("IGNORED")), with(equal("Release_2_1_int")), with(equal(new String[]{"vobs/projects/Server"})), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20080509.140451\" " +
@@ -332,7 +332,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(aNull(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(aNull(Date.class)), 
                                              with(equal("IGNORED")), with(equal("Release_2_1_int")), with(equal(new String[]{"vobs/projects/Server"})), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20080509.140451\" " +
@@ -394,7 +394,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(aNull(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(aNull(Date.class)), 
                                              with(equal("IGNORED")), with(equal("Release_2_1_int")), with(equal(new String[]{"vobs/projects/Server"})), with(equal(false)));
                     will(returnValue(lshistoryReader));
                     ignoring(cleartool).lsactivity(
@@ -419,7 +419,7 @@ public class UcmHistoryActionTest {
         context.checking(new Expectations() {
                 {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
-                    one(cleartool).lshistory(with(any(String.class)), with(aNull(Date.class)), 
+                    one(cleartool).lshistoryStreaming(with(any(String.class)), with(aNull(Date.class)), 
                                              with(equal("IGNORED")), with(equal("Release_2_1_int")), with(equal(new String[]{"vobs/projects/Server"})), with(equal(false)));
                     will(returnValue(new StringReader(
                                                       "\"20080509.140451\" " +
@@ -460,7 +460,7 @@ public class UcmHistoryActionTest {
                     allowing(cleartool).doesViewExist(with(equal("viewTag"))); will(returnValue(true));
                     allowing(clearToolLauncher).getLauncher();
                     will(returnValue(launcher));
-                    one(cleartool).lshistory(with(aNonNull(String.class)),
+                    one(cleartool).lshistoryStreaming(with(aNonNull(String.class)),
                                              with(aNull(Date.class)),
                                              with(equal("stromp_be_builc")),
                                              with(equal("jcp_v13.1_be_int")),
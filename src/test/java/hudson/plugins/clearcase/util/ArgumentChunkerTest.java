@@ -0,0 +1,72 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ArgumentChunkerTest {
+
+    @Test
+    public void testShortListIsNotSplit() {
+        List<String> operands = Arrays.asList("vob1", "vob2");
+        assertEquals(Collections.singletonList(operands), ArgumentChunker.split(10, operands, 100));
+    }
+
+    @Test
+    public void testNoOperand() {
+        assertEquals(Collections.singletonList(Collections.<String> emptyList()), ArgumentChunker.split(10, Collections.<String> emptyList(), 100));
+    }
+
+    @Test
+    public void testChunksKeepOrderAndLength() {
+        List<String> operands = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            operands.add("baseline:bl_" + i + "@\\pvob");
+        }
+        List<List<String>> chunks = ArgumentChunker.split(20, operands, 200);
+        assertTrue(chunks.size() > 1);
+        List<String> merged = new ArrayList<String>();
+        for (List<String> chunk : chunks) {
+            assertTrue(20 + ArgumentChunker.length(chunk.toArray(new String[chunk.size()])) <= 200);
+            merged.addAll(chunk);
+        }
+        assertEquals(operands, merged);
+    }
+
+    @Test
+    public void testOperandLongerThanLimit() {
+        String operand = "vob/a/very/long/path/to/a/directory";
+        assertEquals(Arrays.asList(Arrays.asList("vob"), Arrays.asList(operand), Arrays.asList("vob2")), ArgumentChunker.split(0, Arrays.asList(
+                "vob", operand, "vob2"), 10));
+    }
+}
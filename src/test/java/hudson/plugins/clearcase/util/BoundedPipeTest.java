@@ -0,0 +1,111 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+public class BoundedPipeTest {
+
+    @Test
+    public void testReadWrittenData() throws Exception {
+        BoundedPipe pipe = new BoundedPipe(4);
+        OutputStream out = pipe.getOutputStream();
+        out.write("line1\nli".getBytes());
+        out.write("ne2\n".getBytes());
+        out.close();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(pipe.getInputStream()));
+        assertEquals("line1", reader.readLine());
+        assertEquals("line2", reader.readLine());
+        assertEquals(null, reader.readLine());
+    }
+
+    @Test
+    public void testFailureIsThrownAfterData() throws Exception {
+        BoundedPipe pipe = new BoundedPipe(4);
+        pipe.getOutputStream().write("line1\n".getBytes());
+        pipe.fail(new IOException("cleartool failed"));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(pipe.getInputStream()));
+        assertEquals("line1", reader.readLine());
+        try {
+            reader.readLine();
+            fail("The failure of the writer should have been thrown");
+        } catch (IOException e) {
+            assertEquals("cleartool failed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testWriterBlocksWhenPipeIsFull() throws Exception {
+        final BoundedPipe pipe = new BoundedPipe(2);
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 10; i++) {
+                        pipe.getOutputStream().write(new byte[] { 'a' });
+                    }
+                    pipe.getOutputStream().close();
+                } catch (IOException e) {
+                    // checked below
+                }
+            }
+        };
+        writer.start();
+        writer.join(200);
+        assertTrue("The writer should wait for the reader", writer.isAlive());
+        int count = 0;
+        while (pipe.getInputStream().read() != -1) {
+            count++;
+        }
+        writer.join();
+        assertEquals(10, count);
+    }
+
+    @Test
+    public void testClosingReaderStopsWriter() throws Exception {
+        final BoundedPipe pipe = new BoundedPipe(1);
+        pipe.getOutputStream().write(new byte[] { 'a' });
+        pipe.getInputStream().close();
+        assertTrue(pipe.isReaderClosed());
+        try {
+            pipe.getOutputStream().write(new byte[] { 'b' });
+            fail("Writing after the reader is closed should fail");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals(-1, pipe.getInputStream().read());
+        assertFalse(pipe.getInputStream().available() > 0);
+    }
+}
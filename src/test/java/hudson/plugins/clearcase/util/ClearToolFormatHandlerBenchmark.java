@@ -0,0 +1,114 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.util;
+
+import static hudson.plugins.clearcase.util.OutputFormat.DATE_NUMERIC;
+import static hudson.plugins.clearcase.util.OutputFormat.EVENT;
+import static hudson.plugins.clearcase.util.OutputFormat.NAME_ELEMENTNAME;
+import static hudson.plugins.clearcase.util.OutputFormat.NAME_VERSIONID;
+import static hudson.plugins.clearcase.util.OutputFormat.OPERATION;
+import static hudson.plugins.clearcase.util.OutputFormat.UCM_VERSION_ACTIVITY;
+import static hudson.plugins.clearcase.util.OutputFormat.USER_ID;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the reading of lshistory output in the quoted and in the delimited formats. Not run with the tests:
+ * 
+ * <pre>
+ * java -cp target/classes:target/test-classes hudson.plugins.clearcase.util.ClearToolFormatHandlerBenchmark
+ * </pre>
+ */
+public class ClearToolFormatHandlerBenchmark {
+
+    private static final String[] HISTORY_FORMAT = { DATE_NUMERIC, USER_ID, NAME_ELEMENTNAME, NAME_VERSIONID, EVENT, OPERATION, UCM_VERSION_ACTIVITY };
+
+    private static final int LINES = 20000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        List<String> quoted = new ArrayList<String>();
+        List<String> delimited = new ArrayList<String>();
+        StringBuilder path = new StringBuilder("/view/vobs");
+        for (int i = 0; i < 30; i++) {
+            path.append("/directory").append(i);
+        }
+        for (int i = 0; i < LINES; i++) {
+            String[] fields = { "20100310.101010", "user", path + "/File" + i + ".java", "/main/dev/" + i, "create version", "checkin",
+                    "activity_" + (i % 50) };
+            quoted.add(quoted(fields));
+            delimited.add(delimited(fields));
+            // comments with quotes
+            quoted.add("Fix \"" + i + "\" in \"the\" \"parser\" \"again\"");
+            delimited.add("Fix \"" + i + "\" in \"the\" \"parser\" \"again\"");
+        }
+
+        ClearToolFormatHandler quotedHandler = new ClearToolFormatHandler(HISTORY_FORMAT);
+        ClearToolFormatHandler delimitedHandler = ClearToolFormatHandler.delimited(HISTORY_FORMAT);
+        for (int round = 0; round < ROUNDS; round++) {
+            long quotedTime = run(quotedHandler, quoted);
+            long delimitedTime = run(delimitedHandler, delimited);
+            System.out.println("round " + round + ": quoted " + (quotedTime / quoted.size()) + " ns/line, delimited " + (delimitedTime / delimited.size())
+                    + " ns/line");
+        }
+    }
+
+    private static long run(ClearToolFormatHandler handler, List<String> lines) {
+        long start = System.nanoTime();
+        int length = 0;
+        for (String line : lines) {
+            FormattedLine fields = handler.parseLine(line);
+            if (fields != null) {
+                length += fields.getTrimmedField(3).length() + fields.getTrimmedField(7).length();
+            }
+        }
+        long time = System.nanoTime() - start;
+        if (length == 0) {
+            throw new IllegalStateException("No line read");
+        }
+        return time;
+    }
+
+    private static String quoted(String[] fields) {
+        StringBuilder builder = new StringBuilder();
+        for (String field : fields) {
+            builder.append('"').append(field).append("\" ");
+        }
+        return builder.toString();
+    }
+
+    private static String delimited(String[] fields) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(OutputFormat.RECORD_START_CHAR);
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                builder.append(OutputFormat.FIELD_SEPARATOR_CHAR);
+            }
+            builder.append(fields[i]);
+        }
+        return builder.toString();
+    }
+}
@@ -6,6 +6,8 @@ import static hudson.plugins.clearcase.util.OutputFormat.UCM_ACTIVITY_STREAM;
 import static hudson.plugins.clearcase.util.OutputFormat.USER_ID;
 import static org.junit.Assert.*;
 
+import java.util.Collections;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -27,4 +29,61 @@ public class ClearToolFormatHandlerTest {
         assertNull(instance.checkLine(null));
     }
 
+    @Test
+    public void testDelimitedFormat() {
+        ClearToolFormatHandler handler = ClearToolFormatHandler.delimited(INTEGRATION_ACTIVITY_FORMAT);
+        assertTrue(handler.isDelimited());
+        assertEquals("\\036%[headline]p\\037%[stream]p\\037%u\\037%[contrib_acts]p\\n", handler.getFormat());
+    }
+
+    @Test
+    public void testRetaining() {
+        ClearToolFormatHandler handler = ClearToolFormatHandler.delimited(INTEGRATION_ACTIVITY_FORMAT).retaining(Collections.singleton(USER_ID));
+        assertEquals("\\036\\037\\037%u\\037\\n", handler.getFormat());
+
+        FormattedLine line = handler.parseLine("\036\037\037user\037");
+        assertEquals("", line.getField(1));
+        assertEquals("user", line.getField(3));
+    }
+
+    @Test
+    public void testParseDelimitedLine() {
+        ClearToolFormatHandler handler = ClearToolFormatHandler.delimited(INTEGRATION_ACTIVITY_FORMAT);
+        FormattedLine line = handler.parseLine("\036Fix \"quoted\" \"words\"\037stream:dev@/vobs/pvob\037 user \037");
+
+        assertEquals(4, line.getFieldCount());
+        assertEquals("Fix \"quoted\" \"words\"", line.getField(1));
+        assertEquals("stream:dev@/vobs/pvob", line.getField(2));
+        assertEquals(" user ", line.getField(3));
+        assertEquals("user", line.getTrimmedField(3));
+        assertEquals("", line.getField(4));
+    }
+
+    @Test
+    public void testParseDelimitedLineWithWrongFieldCount() {
+        ClearToolFormatHandler handler = ClearToolFormatHandler.delimited(INTEGRATION_ACTIVITY_FORMAT);
+        assertNull(handler.parseLine("\036headline\037stream\037user"));
+        assertNull(handler.parseLine("\036headline\037stream\037user\037acts\037extra"));
+    }
+
+    @Test
+    public void testParseQuotedLineInDelimitedHandler() {
+        ClearToolFormatHandler handler = ClearToolFormatHandler.delimited(INTEGRATION_ACTIVITY_FORMAT);
+        FormattedLine line = handler.parseLine("\"headline\" \"stream\" \"user\" \"act1 act2\" ");
+
+        assertEquals("headline", line.getField(1));
+        assertEquals("act1 act2", line.getField(4));
+        assertNull(handler.parseLine("comment \"headline\" \"stream\" \"user\" \"acts\" "));
+    }
+
+    @Test
+    public void testParseQuotedLine() {
+        FormattedLine line = instance.parseLine("\"headline\" \"stream\" \" user\" \"act1\" ");
+
+        assertEquals("stream", line.getField(2));
+        assertEquals("user", line.getTrimmedField(3));
+        assertNull(instance.parseLine("\036headline\037stream\037user\037act1"));
+        assertNull(instance.parseLine(null));
+    }
+
 }
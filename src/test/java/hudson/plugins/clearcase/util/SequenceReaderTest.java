@@ -0,0 +1,73 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SequenceReaderTest {
+
+    @Test
+    public void testReadersAreReadInOrder() throws Exception {
+        List<String> opened = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new SequenceReader(sources(opened, "line1\nline2\n", "", "line3\n")));
+        assertEquals("line1", reader.readLine());
+        assertEquals(1, opened.size());
+        assertEquals("line2", reader.readLine());
+        assertEquals("line3", reader.readLine());
+        assertEquals(null, reader.readLine());
+        assertEquals(3, opened.size());
+    }
+
+    @Test
+    public void testCloseSkipsTheRemainingReaders() throws Exception {
+        List<String> opened = new ArrayList<String>();
+        SequenceReader reader = new SequenceReader(sources(opened, "line1\n", "line2\n"));
+        assertEquals('l', reader.read());
+        reader.close();
+        assertEquals(1, opened.size());
+    }
+
+    private static List<SequenceReader.Source> sources(final List<String> opened, String... contents) {
+        List<SequenceReader.Source> sources = new ArrayList<SequenceReader.Source>();
+        for (final String content : contents) {
+            sources.add(new SequenceReader.Source() {
+                public Reader open() throws IOException {
+                    opened.add(content);
+                    return new StringReader(content);
+                }
+            });
+        }
+        return sources;
+    }
+}
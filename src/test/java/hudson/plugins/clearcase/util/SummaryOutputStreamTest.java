@@ -0,0 +1,77 @@
+/**
+ * The MIT License
+ *
+ * Copyright (c) 2007-2009, Sun Microsystems, Inc., Kohsuke Kawaguchi, Erik Ramfelt,
+ *                          Henrik Lynggaard, Peter Liljenberg, Andrew Bayer
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.clearcase.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+public class SummaryOutputStreamTest {
+
+    @Test
+    public void testShortOutputIsCopied() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SummaryOutputStream summary = new SummaryOutputStream(out, 2, 2);
+        summary.write("a\nb\nc\nd".getBytes());
+        summary.finish();
+        assertEquals("a\nb\nc\nd\n", out.toString());
+        assertEquals(7, summary.getByteCount());
+    }
+
+    @Test
+    public void testLongOutputIsSummarized() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SummaryOutputStream summary = new SummaryOutputStream(out, 2, 2);
+        summary.write("1\n2\n3\n4\n5\n6\n7\n".getBytes());
+        assertEquals("1\n2\n", out.toString());
+        summary.finish();
+        assertEquals("1\n2\n[... 3 lines not shown ...]\n6\n7\n[7 lines, 14 bytes of output]\n", out.toString());
+        assertEquals(3, summary.getSkippedLines());
+    }
+
+    @Test
+    public void testLongLinesAreTruncated() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SummaryOutputStream summary = new SummaryOutputStream(out, 1, 1);
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < SummaryOutputStream.MAX_LINE_LENGTH + 10; i++) {
+            line.append('x');
+        }
+        summary.write((line + "\n").getBytes());
+        assertEquals(SummaryOutputStream.MAX_LINE_LENGTH + 4, out.size());
+    }
+
+    @Test
+    public void testFinishOnlyOnce() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SummaryOutputStream summary = new SummaryOutputStream(out, 0, 1);
+        summary.write("1\n2\n".getBytes());
+        summary.close();
+        summary.finish();
+        assertEquals("[... 1 lines not shown ...]\n2\n[2 lines, 4 bytes of output]\n", out.toString());
+    }
+}